@@ -1,9 +1,12 @@
 package io.coti.basenode.communication;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.coti.basenode.communication.interfaces.ISerializer;
 import io.coti.basenode.data.interfaces.IPropagatable;
@@ -12,12 +15,15 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 @Slf4j
 @Service
 public class JacksonSerializer implements ISerializer {
 
     private ObjectMapper serializer;
+    private ObjectWriter streamWriter;
 
     @PostConstruct
     private void init() {
@@ -25,6 +31,7 @@ public class JacksonSerializer implements ISerializer {
         serializer.registerModule(new JavaTimeModule());
         serializer.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         serializer.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        streamWriter = serializer.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     @Override
@@ -37,6 +44,13 @@ public class JacksonSerializer implements ISerializer {
         }
     }
 
+    /**
+     * Writes the entity straight to the stream, which is left open, without an intermediate byte array.
+     */
+    public void serialize(IPropagatable entity, OutputStream outputStream) throws IOException {
+        streamWriter.writeValue(outputStream, entity);
+    }
+
     @Override
     public String serializeAsString(IPropagatable entity) {
         try {
@@ -55,6 +69,13 @@ public class JacksonSerializer implements ISerializer {
         }
     }
 
+    /**
+     * Reads the entities written one after the other to the stream, one entity at a time.
+     */
+    public MappingIterator<IPropagatable> deserialize(InputStream inputStream) throws IOException {
+        return serializer.readerFor(IPropagatable.class).readValues(inputStream);
+    }
+
     public <T extends IPropagatable> T deserialize(String string) {
         try {
             return (T) serializer.readValue(string, IPropagatable.class);
@@ -0,0 +1,72 @@
+package io.coti.basenode.communication;
+
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.data.interfaces.IPropagatable;
+import io.coti.basenode.database.codec.EntitySerializer;
+import io.coti.basenode.database.codec.TransactionDataCodec;
+import io.coti.basenode.exceptions.TransactionFrameTypeException;
+import io.coti.basenode.exceptions.TransactionSyncException;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the frames written by {@link TransactionFrameWriter} one at a time. Only the current frame is held in memory,
+ * and frames longer than the maximum frame size are rejected before they are read. A stream that ends without an
+ * {@link TransactionFrameType#END_OF_STREAM} frame raises an {@link java.io.EOFException}, and a frame type this node does
+ * not know raises a {@link TransactionFrameTypeException}.
+ */
+public class TransactionFrameReader {
+
+    private static final int INPUT_BUFFER_SIZE = 65536;
+    private final TransactionDataCodec transactionDataCodec = new TransactionDataCodec();
+    private final DataInputStream input;
+    private final JacksonSerializer jacksonSerializer;
+    private final int maximumFrameSize;
+    private TransactionData transactionData;
+
+    public TransactionFrameReader(InputStream inputStream, JacksonSerializer jacksonSerializer, int maximumFrameSize) {
+        this.input = new DataInputStream(new BufferedInputStream(inputStream, INPUT_BUFFER_SIZE));
+        this.jacksonSerializer = jacksonSerializer;
+        this.maximumFrameSize = maximumFrameSize;
+    }
+
+    /**
+     * Reads the next frame. For transaction frames, the decoded transaction is then available from
+     * {@link #getTransactionData()}.
+     */
+    public TransactionFrameType readFrame() throws IOException {
+        int frameTypeCode = input.readUnsignedByte();
+        TransactionFrameType frameType = TransactionFrameType.getByCode(frameTypeCode);
+        if (frameType == null) {
+            throw new TransactionFrameTypeException(String.format("Unknown transaction frame type %d", frameTypeCode));
+        }
+        int payloadLength = input.readInt();
+        if (payloadLength < 0 || payloadLength > maximumFrameSize) {
+            throw new TransactionSyncException(String.format("Transaction frame of %d bytes exceeds the maximum of %d bytes", payloadLength, maximumFrameSize));
+        }
+        byte[] payload = new byte[payloadLength];
+        input.readFully(payload);
+
+        transactionData = null;
+        if (frameType == TransactionFrameType.BINARY_TRANSACTION) {
+            if (!EntitySerializer.isBinaryFormat(payload)) {
+                throw new TransactionSyncException("Binary transaction frame without binary codec header");
+            }
+            transactionData = EntitySerializer.deserialize(payload, transactionDataCodec);
+        } else if (frameType == TransactionFrameType.JSON_TRANSACTION) {
+            IPropagatable propagatable = jacksonSerializer.deserialize(payload);
+            if (!(propagatable instanceof TransactionData)) {
+                throw new TransactionSyncException("Json transaction frame does not hold a transaction");
+            }
+            transactionData = (TransactionData) propagatable;
+        }
+        return frameType;
+    }
+
+    public TransactionData getTransactionData() {
+        return transactionData;
+    }
+}
@@ -0,0 +1,34 @@
+package io.coti.basenode.communication;
+
+/**
+ * The frame types of the transaction batch stream. The code of a frame type is its byte on the wire and must never
+ * change, so new frame types get new codes instead of a position in the enum.
+ */
+public enum TransactionFrameType {
+    END_OF_STREAM(0),
+    BINARY_TRANSACTION(1),
+    JSON_TRANSACTION(2),
+    NONE_INDEXED_TRANSACTIONS(3);
+
+    private final int code;
+
+    private static class TransactionFrameTypes {
+        private static final TransactionFrameType[] codeToFrameTypeArray = new TransactionFrameType[256];
+    }
+
+    TransactionFrameType(int code) {
+        this.code = code;
+        TransactionFrameTypes.codeToFrameTypeArray[code] = this;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the frame type of the code, or null when the code is not known to this node.
+     */
+    public static TransactionFrameType getByCode(int code) {
+        return code >= 0 && code < TransactionFrameTypes.codeToFrameTypeArray.length ? TransactionFrameTypes.codeToFrameTypeArray[code] : null;
+    }
+}
@@ -0,0 +1,63 @@
+package io.coti.basenode.communication;
+
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.database.codec.EntitySerializer;
+import io.coti.basenode.database.codec.TransactionDataCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a transaction batch as frames of {@code [type code byte][payload length int][payload]}. Transactions are encoded
+ * with the binary entity codec, and with Jackson only when the codec can not encode them. Every stream ends with an
+ * {@link TransactionFrameType#END_OF_STREAM} frame, so the reader can tell a complete batch from a broken connection.
+ */
+public class TransactionFrameWriter {
+
+    private static final int OUTPUT_BUFFER_SIZE = 65536;
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
+    private final TransactionDataCodec transactionDataCodec = new TransactionDataCodec();
+    private final DataOutputStream output;
+    private final JacksonSerializer jacksonSerializer;
+
+    public TransactionFrameWriter(OutputStream outputStream, JacksonSerializer jacksonSerializer) {
+        this.output = new DataOutputStream(new BufferedOutputStream(outputStream, OUTPUT_BUFFER_SIZE));
+        this.jacksonSerializer = jacksonSerializer;
+    }
+
+    public void writeTransaction(TransactionData transactionData) throws IOException {
+        if (transactionDataCodec.canEncode(transactionData)) {
+            writeFrame(TransactionFrameType.BINARY_TRANSACTION, EntitySerializer.serialize(transactionData, transactionDataCodec));
+        } else {
+            writeFrame(TransactionFrameType.JSON_TRANSACTION, jacksonSerializer.serialize(transactionData));
+        }
+    }
+
+    /**
+     * Writes a transaction already serialized with the binary entity codec, as it is stored in the database.
+     */
+    public void writeBinaryTransaction(byte[] serializedTransaction) throws IOException {
+        writeFrame(TransactionFrameType.BINARY_TRANSACTION, serializedTransaction);
+    }
+
+    public void writeNoneIndexedTransactionsStart() throws IOException {
+        writeFrame(TransactionFrameType.NONE_INDEXED_TRANSACTIONS, EMPTY_PAYLOAD);
+    }
+
+    public void writeEndOfStream() throws IOException {
+        writeFrame(TransactionFrameType.END_OF_STREAM, EMPTY_PAYLOAD);
+        output.flush();
+    }
+
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    private void writeFrame(TransactionFrameType frameType, byte[] payload) throws IOException {
+        output.writeByte(frameType.getCode());
+        output.writeInt(payload.length);
+        output.write(payload);
+    }
+}
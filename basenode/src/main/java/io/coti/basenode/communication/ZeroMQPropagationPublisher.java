@@ -1,12 +1,13 @@
 package io.coti.basenode.communication;
 
-import io.coti.basenode.communication.data.ZeroMQMessageData;
+import io.coti.basenode.communication.data.ZeroMQPublishMessageData;
 import io.coti.basenode.communication.interfaces.IPropagationPublisher;
 import io.coti.basenode.communication.interfaces.ISerializer;
 import io.coti.basenode.data.NodeType;
 import io.coti.basenode.data.PublisherHeartBeatData;
 import io.coti.basenode.data.interfaces.IPropagatable;
 import io.coti.basenode.exceptions.ZeroMQPublisherException;
+import io.coti.basenode.utilities.MpscRing;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,11 +17,12 @@ import org.zeromq.ZMQ;
 import org.zeromq.ZMQException;
 
 import java.nio.charset.StandardCharsets;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
 @Service
@@ -28,6 +30,7 @@ public class ZeroMQPropagationPublisher implements IPropagationPublisher {
 
     private static final int HEARTBEAT_INTERVAL = 5000;
     private static final String ZMQ_PUBLISHER_HANDLER_ERROR = "ZeroMQ exception at publisher thread";
+    private static final int PUBLISH_RING_CAPACITY = 65536;
     private ZMQ.Context zeroMQContext;
     private ZMQ.Socket propagator;
     private String propagationPort;
@@ -35,18 +38,24 @@ public class ZeroMQPropagationPublisher implements IPropagationPublisher {
     private NodeType publisherNodeType;
     @Value("${server.ip}")
     private String publisherIp;
+    private String serverAddress;
     private Thread publishMessageThread;
     private Thread publishHeartBeatMessageThread;
     private Thread monitorThread;
-    private BlockingQueue<ZeroMQMessageData> publishMessageQueue;
+    private MpscRing<ZeroMQPublishMessageData> publishMessageRing;
+    private final Map<Class<?>, Map<NodeType, byte[]>> messageTypeToChannelsMap = new ConcurrentHashMap<>();
+    private final LongAdder publishLatencySum = new LongAdder();
+    private final LongAdder publishedMessages = new LongAdder();
+    private final AtomicLong maxPublishLatency = new AtomicLong();
     @Autowired
     private ISerializer serializer;
     private final AtomicBoolean monitorInitialized = new AtomicBoolean(false);
 
     public void init(String propagationPort, NodeType publisherNodeType) {
-        publishMessageQueue = new LinkedBlockingQueue<>();
+        publishMessageRing = new MpscRing<>(PUBLISH_RING_CAPACITY);
         this.publisherNodeType = publisherNodeType;
         this.propagationPort = propagationPort;
+        serverAddress = "tcp://" + publisherIp + ":" + propagationPort;
         init();
         log.info("ZeroMQ Publisher is up");
     }
@@ -69,16 +78,39 @@ public class ZeroMQPropagationPublisher implements IPropagationPublisher {
         monitorInitialized.set(true);
     }
 
+    /**
+     * Serializes the message once and queues it with the channel of every subscriber node type. The publisher thread sends
+     * the same body after each channel frame, so a subscriber filters by the channel frame without reading the body.
+     */
     public <T extends IPropagatable> void propagate(T toPropagate, List<NodeType> subscriberNodeTypes) {
-        subscriberNodeTypes.forEach(subscriberNodeType -> propagateToNode(toPropagate, subscriberNodeType));
-    }
-
-    private <T extends IPropagatable> void propagateToNode(T toPropagate, NodeType subscriberNodeType) {
-        String serverAddress = "tcp://" + publisherIp + ":" + propagationPort;
-        log.debug("Propagating {} to {}", toPropagate.getHash(), Channel.getChannelString(toPropagate.getClass(), serverAddress, publisherNodeType, subscriberNodeType));
+        if (subscriberNodeTypes.isEmpty()) {
+            return;
+        }
+        log.debug("Propagating {} of type {} to {}", toPropagate.getHash(), toPropagate.getClass().getSimpleName(), subscriberNodeTypes);
+        Map<NodeType, byte[]> subscriberNodeTypeToChannelMap = getChannels(toPropagate.getClass());
+        List<byte[]> channels = new ArrayList<>(subscriberNodeTypes.size());
+        subscriberNodeTypes.forEach(subscriberNodeType -> channels.add(subscriberNodeTypeToChannelMap.get(subscriberNodeType)));
         byte[] message = serializer.serialize(toPropagate);
         if (!zeroMQContext.isClosed()) {
-            publishMessageQueue.add(new ZeroMQMessageData(Channel.getChannelString(toPropagate.getClass(), serverAddress, publisherNodeType, subscriberNodeType), message));
+            addToPublishMessageRing(new ZeroMQPublishMessageData(channels, message));
+        }
+    }
+
+    private Map<NodeType, byte[]> getChannels(Class<?> messageType) {
+        return messageTypeToChannelsMap.computeIfAbsent(messageType, type -> {
+            Map<NodeType, byte[]> subscriberNodeTypeToChannelMap = new EnumMap<>(NodeType.class);
+            EnumSet.allOf(NodeType.class).forEach(subscriberNodeType -> subscriberNodeTypeToChannelMap.put(subscriberNodeType,
+                    Channel.getChannelString(type, serverAddress, publisherNodeType, subscriberNodeType).getBytes(StandardCharsets.UTF_8)));
+            return subscriberNodeTypeToChannelMap;
+        });
+    }
+
+    private void addToPublishMessageRing(ZeroMQPublishMessageData messageData) {
+        try {
+            publishMessageRing.put(messageData);
+        } catch (InterruptedException e) {
+            log.info("Propagation interrupted while the publisher ring is full");
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -87,19 +119,16 @@ public class ZeroMQPropagationPublisher implements IPropagationPublisher {
             AtomicBoolean contextTerminated = new AtomicBoolean(false);
             while (!contextTerminated.get() && !Thread.currentThread().isInterrupted()) {
                 try {
-                    String serverAddress = "tcp://" + publisherIp + ":" + propagationPort;
-                    publish(new ZeroMQMessageData(Channel.getChannelString(PublisherHeartBeatData.class, serverAddress), serializer.serialize(new PublisherHeartBeatData(serverAddress))));
-                    Thread.sleep(HEARTBEAT_INTERVAL);
-                } catch (InterruptedException e) {
-                    log.info("HeartBeat Publisher thread interrupted");
-                    Thread.currentThread().interrupt();
-                } catch (ZMQException e) {
-                    if (e.getErrorCode() == ZMQ.Error.ETERM.getCode()) {
-                        log.info("Publisher context is terminated");
+                    if (zeroMQContext.isClosed()) {
                         contextTerminated.set(true);
                     } else {
-                        log.error(ZMQ_PUBLISHER_HANDLER_ERROR, e);
+                        byte[] heartBeatChannel = Channel.getChannelString(PublisherHeartBeatData.class, serverAddress).getBytes(StandardCharsets.UTF_8);
+                        publishMessageRing.put(new ZeroMQPublishMessageData(Collections.singletonList(heartBeatChannel), serializer.serialize(new PublisherHeartBeatData(serverAddress))));
+                        Thread.sleep(HEARTBEAT_INTERVAL);
                     }
+                } catch (InterruptedException e) {
+                    log.info("HeartBeat Publisher thread interrupted");
+                    Thread.currentThread().interrupt();
                 }
             }
         }, "HEARTBEAT PUB");
@@ -112,7 +141,7 @@ public class ZeroMQPropagationPublisher implements IPropagationPublisher {
             boolean contextTerminated = false;
             while (!contextTerminated && !Thread.currentThread().isInterrupted()) {
                 try {
-                    ZeroMQMessageData messageData = publishMessageQueue.take();
+                    ZeroMQPublishMessageData messageData = publishMessageRing.take();
                     publish(messageData);
                 } catch (InterruptedException e) {
                     log.info("Publisher thread interrupted");
@@ -131,19 +160,29 @@ public class ZeroMQPropagationPublisher implements IPropagationPublisher {
         publishMessageThread.start();
     }
 
-    private void publish(ZeroMQMessageData messageData) {
-        synchronized (this) {
-            propagator.sendMore(messageData.getChannel().getBytes(StandardCharsets.UTF_8));
+    private void publish(ZeroMQPublishMessageData messageData) {
+        for (byte[] channel : messageData.getChannels()) {
+            propagator.sendMore(channel);
             propagator.send(messageData.getMessage());
         }
+        long publishLatency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - messageData.getCreationNanoTime());
+        publishLatencySum.add(publishLatency);
+        publishedMessages.increment();
+        maxPublishLatency.accumulateAndGet(publishLatency, Math::max);
     }
 
     private void publishRemainingMessages() {
-        LinkedList<ZeroMQMessageData> remainingMessages = new LinkedList<>();
-        publishMessageQueue.drainTo(remainingMessages);
-        if (!remainingMessages.isEmpty()) {
-            log.info("Please wait to publish {} remaining messages", remainingMessages.size());
-            remainingMessages.forEach(this::publish);
+        if (!publishMessageRing.isEmpty()) {
+            log.info("Please wait to publish {} remaining messages", publishMessageRing.size());
+            ZeroMQPublishMessageData messageData;
+            while ((messageData = publishMessageRing.poll()) != null) {
+                try {
+                    publish(messageData);
+                } catch (ZMQException e) {
+                    log.error(ZMQ_PUBLISHER_HANDLER_ERROR, e);
+                    return;
+                }
+            }
         }
     }
 
@@ -170,13 +209,25 @@ public class ZeroMQPropagationPublisher implements IPropagationPublisher {
 
     @Override
     public int getQueueSize() {
-        if (publishMessageQueue != null) {
-            return publishMessageQueue.size();
+        if (publishMessageRing != null) {
+            return publishMessageRing.size();
         } else {
             return -1;
         }
     }
 
+    @Override
+    public long getAndResetAveragePublishLatency() {
+        long publishedMessageCount = publishedMessages.sumThenReset();
+        long publishLatency = publishLatencySum.sumThenReset();
+        return publishedMessageCount == 0 ? 0 : publishLatency / publishedMessageCount;
+    }
+
+    @Override
+    public long getAndResetMaxPublishLatency() {
+        return maxPublishLatency.getAndSet(0);
+    }
+
     public void shutdown() {
         if (propagator != null) {
             log.info("Shutting down {}", this.getClass().getSimpleName());
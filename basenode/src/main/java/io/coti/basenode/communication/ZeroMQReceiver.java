@@ -3,19 +3,19 @@ package io.coti.basenode.communication;
 import io.coti.basenode.communication.data.ZeroMQMessageData;
 import io.coti.basenode.communication.interfaces.IReceiver;
 import io.coti.basenode.communication.interfaces.ISerializer;
+import io.coti.basenode.data.LatencyHistogramData;
 import io.coti.basenode.data.interfaces.IPropagatable;
 import io.coti.basenode.exceptions.ZeroMQReceiverException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.zeromq.SocketType;
 import org.zeromq.ZMQ;
 import org.zeromq.ZMQException;
 
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
@@ -23,22 +23,23 @@ import java.util.function.Consumer;
 @Service
 public class ZeroMQReceiver implements IReceiver {
 
-    private HashMap<String, Consumer<IPropagatable>> classNameToHandlerMapping;
     private ZMQ.Context zeroMQContext;
     private SocketType socketType;
     private ZMQ.Socket receiver;
     private ZMQ.Socket monitorSocket;
-    private BlockingQueue<ZeroMQMessageData> messageQueue;
+    private Map<String, ZeroMQReceiverWorkerPool> classNameToWorkerPoolMapping;
     private Thread receiverThread;
     private Thread monitorThread;
-    private Thread messagesQueueHandlerThread;
     @Autowired
     private ISerializer serializer;
+    @Value("${zeromq.receiver.workers:1}")
+    private int receiverWorkers;
+    @Value("${zeromq.receiver.worker.queue.capacity:10000}")
+    private int workerQueueCapacity;
     private final AtomicBoolean monitorInitialized = new AtomicBoolean(false);
 
     @Override
     public void init(String receivingPort, HashMap<String, Consumer<IPropagatable>> classNameToHandlerMapping) {
-        this.classNameToHandlerMapping = classNameToHandlerMapping;
         zeroMQContext = ZMQ.context(1);
         socketType = SocketType.ROUTER;
         receiver = zeroMQContext.socket(socketType);
@@ -47,7 +48,13 @@ public class ZeroMQReceiver implements IReceiver {
             throw new ZeroMQReceiverException("ZeroMQ receiver socket bind failed to receiver port " + receivingPort);
         }
         log.info("Zero MQ Client Connected!");
-        messageQueue = new LinkedBlockingQueue<>();
+        classNameToWorkerPoolMapping = new HashMap<>();
+        classNameToHandlerMapping.forEach((className, messageHandler) -> classNameToWorkerPoolMapping.put(className,
+                new ZeroMQReceiverWorkerPool(getSimpleClassName(className), messageHandler, serializer, receiverWorkers, workerQueueCapacity)));
+    }
+
+    private String getSimpleClassName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
     }
 
     @Override
@@ -66,8 +73,7 @@ public class ZeroMQReceiver implements IReceiver {
             boolean contextTerminated = false;
             while (!contextTerminated && !Thread.currentThread().isInterrupted()) {
                 try {
-                    String classType = receiver.recvStr();
-                    addToMessageQueue(classType);
+                    addToMessageQueue();
                 } catch (ZMQException e) {
                     if (e.getErrorCode() == ZMQ.Error.ETERM.getCode()) {
                         log.info("ZeroMQ receiver context terminated");
@@ -106,11 +112,27 @@ public class ZeroMQReceiver implements IReceiver {
         monitorThread.start();
     }
 
-    private void addToMessageQueue(String classType) {
+    /**
+     * Reads the sender identity, class name and body frames of a message and queues it to the worker pool of its class.
+     * Messages of an unknown class or with missing frames are skipped.
+     */
+    private void addToMessageQueue() {
         try {
-            if (classNameToHandlerMapping.containsKey(classType)) {
-                byte[] message = receiver.recv();
-                messageQueue.put(new ZeroMQMessageData(classType, message));
+            byte[] senderIdentity = receiver.recv();
+            if (senderIdentity == null || !receiver.hasReceiveMore()) {
+                return;
+            }
+            String classType = receiver.recvStr();
+            if (!receiver.hasReceiveMore()) {
+                return;
+            }
+            byte[] message = receiver.recv();
+            while (receiver.hasReceiveMore()) {
+                receiver.recv();
+            }
+            ZeroMQReceiverWorkerPool workerPool = classNameToWorkerPoolMapping.get(classType);
+            if (workerPool != null) {
+                workerPool.put(senderIdentity, new ZeroMQMessageData(classType, message));
             }
         } catch (InterruptedException e) {
             log.info("ZMQ receiver interrupted");
@@ -120,49 +142,36 @@ public class ZeroMQReceiver implements IReceiver {
 
     @Override
     public void initReceiverHandler() {
-        messagesQueueHandlerThread = new Thread(this::handleMessagesQueueTask, "ROUTER HANDLER");
-        messagesQueueHandlerThread.start();
+        classNameToWorkerPoolMapping.values().forEach(ZeroMQReceiverWorkerPool::start);
     }
 
-    private void handleMessagesQueueTask() {
-        while (!Thread.currentThread().isInterrupted()) {
-            try {
-                ZeroMQMessageData zeroMQMessageData = messageQueue.take();
-                Consumer<IPropagatable> consumer = classNameToHandlerMapping.get(zeroMQMessageData.getChannel());
-                if (consumer != null) {
-                    consumer.accept(serializer.deserialize(zeroMQMessageData.getMessage()));
-                }
-            } catch (InterruptedException e) {
-                log.info("ZMQ receiver message handler interrupted");
-                Thread.currentThread().interrupt();
-            } catch (Exception e) {
-                log.error("ZMQ receiver message handler task error", e);
-            }
+    @Override
+    public int getQueueSize() {
+        if (classNameToWorkerPoolMapping != null) {
+            return classNameToWorkerPoolMapping.values().stream().mapToInt(ZeroMQReceiverWorkerPool::getQueueSize).sum();
+        } else {
+            return -1;
         }
-        LinkedList<ZeroMQMessageData> remainingMessages = new LinkedList<>();
-        messageQueue.drainTo(remainingMessages);
-        if (!remainingMessages.isEmpty()) {
-            log.info("Please wait to process {} remaining messages", remainingMessages.size());
-            remainingMessages.forEach(zeroMQMessageData -> {
-                try {
-                    Consumer<IPropagatable> consumer = classNameToHandlerMapping.get(zeroMQMessageData.getChannel());
-                    if (consumer != null) {
-                        consumer.accept(serializer.deserialize(zeroMQMessageData.getMessage()));
-                    }
-                } catch (Exception e) {
-                    log.error("ZMQ receiver message handler task error", e);
-                }
-            });
+    }
+
+    @Override
+    public Map<String, LatencyHistogramData> getAndResetQueueTimeHistograms() {
+        Map<String, LatencyHistogramData> queueTimeHistograms = new HashMap<>();
+        if (classNameToWorkerPoolMapping != null) {
+            classNameToWorkerPoolMapping.forEach((className, workerPool) ->
+                    queueTimeHistograms.put(getSimpleClassName(className), workerPool.getQueueTimeHistogram().getAndReset()));
         }
+        return queueTimeHistograms;
     }
 
     @Override
-    public int getQueueSize() {
-        if (messageQueue != null) {
-            return messageQueue.size();
-        } else {
-            return -1;
+    public Map<String, LatencyHistogramData> getAndResetHandlingTimeHistograms() {
+        Map<String, LatencyHistogramData> handlingTimeHistograms = new HashMap<>();
+        if (classNameToWorkerPoolMapping != null) {
+            classNameToWorkerPoolMapping.forEach((className, workerPool) ->
+                    handlingTimeHistograms.put(getSimpleClassName(className), workerPool.getHandlingTimeHistogram().getAndReset()));
         }
+        return handlingTimeHistograms;
     }
 
     @Override
@@ -173,8 +182,9 @@ public class ZeroMQReceiver implements IReceiver {
                 zeroMQContext.term();
                 receiverThread.interrupt();
                 receiverThread.join();
-                messagesQueueHandlerThread.interrupt();
-                messagesQueueHandlerThread.join();
+                for (ZeroMQReceiverWorkerPool workerPool : classNameToWorkerPoolMapping.values()) {
+                    workerPool.shutdown();
+                }
                 monitorThread.interrupt();
                 monitorThread.join();
             }
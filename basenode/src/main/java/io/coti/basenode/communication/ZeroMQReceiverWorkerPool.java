@@ -0,0 +1,106 @@
+package io.coti.basenode.communication;
+
+import io.coti.basenode.communication.data.ZeroMQMessageData;
+import io.coti.basenode.communication.interfaces.ISerializer;
+import io.coti.basenode.data.interfaces.IPropagatable;
+import io.coti.basenode.utilities.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Handles the messages of one type with several workers. Each worker has its own bounded queue, and all the messages of a
+ * sender identity go to the same worker, so the messages of a sender are handled in the order they arrived. Queue time
+ * and handling time are recorded in microseconds.
+ */
+@Slf4j
+public class ZeroMQReceiverWorkerPool {
+
+    private static final String ZMQ_RECEIVER_HANDLER_ERROR = "ZMQ receiver message handler task error";
+    private final Consumer<IPropagatable> messageHandler;
+    private final ISerializer serializer;
+    private final List<BlockingQueue<ZeroMQMessageData>> workerQueues = new ArrayList<>();
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private final LatencyHistogram queueTimeHistogram = new LatencyHistogram();
+    private final LatencyHistogram handlingTimeHistogram = new LatencyHistogram();
+
+    public ZeroMQReceiverWorkerPool(String messageTypeName, Consumer<IPropagatable> messageHandler, ISerializer serializer, int workers, int workerQueueCapacity) {
+        this.messageHandler = messageHandler;
+        this.serializer = serializer;
+        for (int worker = 0; worker < workers; worker++) {
+            BlockingQueue<ZeroMQMessageData> workerQueue = new ArrayBlockingQueue<>(workerQueueCapacity);
+            workerQueues.add(workerQueue);
+            workerThreads.add(new Thread(() -> handleMessagesQueueTask(workerQueue), "ROUTER HANDLER " + messageTypeName + "-" + worker));
+        }
+    }
+
+    public void start() {
+        workerThreads.forEach(Thread::start);
+    }
+
+    /**
+     * Queues the message to the worker of the sender identity, waiting while the queue of this worker is full.
+     */
+    public void put(byte[] senderIdentity, ZeroMQMessageData zeroMQMessageData) throws InterruptedException {
+        int worker = Math.floorMod(Arrays.hashCode(senderIdentity), workerQueues.size());
+        workerQueues.get(worker).put(zeroMQMessageData);
+    }
+
+    private void handleMessagesQueueTask(BlockingQueue<ZeroMQMessageData> workerQueue) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                handleMessage(workerQueue.take());
+            } catch (InterruptedException e) {
+                log.info("ZMQ receiver message handler interrupted");
+                Thread.currentThread().interrupt();
+            }
+        }
+        LinkedList<ZeroMQMessageData> remainingMessages = new LinkedList<>();
+        workerQueue.drainTo(remainingMessages);
+        if (!remainingMessages.isEmpty()) {
+            log.info("Please wait to process {} remaining messages", remainingMessages.size());
+            remainingMessages.forEach(this::handleMessage);
+        }
+    }
+
+    private void handleMessage(ZeroMQMessageData zeroMQMessageData) {
+        long handlingStartTime = System.nanoTime();
+        queueTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(handlingStartTime - zeroMQMessageData.getReceiveNanoTime()));
+        try {
+            messageHandler.accept(serializer.deserialize(zeroMQMessageData.getMessage()));
+        } catch (Exception e) {
+            log.error(ZMQ_RECEIVER_HANDLER_ERROR, e);
+        }
+        handlingTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - handlingStartTime));
+    }
+
+    public int getQueueSize() {
+        int queueSize = 0;
+        for (BlockingQueue<ZeroMQMessageData> workerQueue : workerQueues) {
+            queueSize += workerQueue.size();
+        }
+        return queueSize;
+    }
+
+    public LatencyHistogram getQueueTimeHistogram() {
+        return queueTimeHistogram;
+    }
+
+    public LatencyHistogram getHandlingTimeHistogram() {
+        return handlingTimeHistogram;
+    }
+
+    public void shutdown() throws InterruptedException {
+        for (Thread workerThread : workerThreads) {
+            workerThread.interrupt();
+            workerThread.join();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.coti.basenode.communication;
 
 import io.coti.basenode.communication.data.MonitorSocketData;
 import io.coti.basenode.communication.data.ReconnectMonitorData;
+import io.coti.basenode.communication.data.SenderLaneMetricsData;
 import io.coti.basenode.communication.data.SenderSocketData;
 import io.coti.basenode.communication.interfaces.ISender;
 import io.coti.basenode.communication.interfaces.ISerializer;
@@ -9,17 +10,19 @@ import io.coti.basenode.data.NodeType;
 import io.coti.basenode.data.interfaces.IPropagatable;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.zeromq.SocketType;
 import org.zeromq.ZMQ;
 import org.zeromq.ZMQException;
-import zmq.SocketBase;
 
 import javax.annotation.PostConstruct;
 import java.nio.channels.ClosedSelectorException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
@@ -29,7 +32,17 @@ public class ZeroMQSender implements ISender {
     private static final String INTERRUPTED_MESSAGE = "Interrupted {}";
     private ZMQ.Context zeroMQContext;
     private SocketType socketType;
-    private Map<String, SenderSocketData> receivingAddressToSenderSocketMapping;
+    private Map<String, ZeroMQSenderLane> receivingAddressToSenderLaneMapping;
+    @Value("${zeromq.sender.queue.capacity:10000}")
+    private int senderQueueCapacity;
+    @Value("${zeromq.sender.offer.timeout:1000}")
+    private long offerTimeout;
+    @Value("${zeromq.sender.send.timeout:1000}")
+    private int sendTimeout;
+    @Value("${zeromq.sender.reconnect.interval:100}")
+    private int reconnectInterval;
+    @Value("${zeromq.sender.reconnect.interval.max:5000}")
+    private int maxReconnectInterval;
     @Autowired
     private ISerializer serializer;
     private final AtomicBoolean monitorInitialized = new AtomicBoolean(false);
@@ -40,20 +53,29 @@ public class ZeroMQSender implements ISender {
     private void init() {
         zeroMQContext = ZMQ.context(1);
         socketType = SocketType.DEALER;
-        receivingAddressToSenderSocketMapping = new ConcurrentHashMap<>();
+        receivingAddressToSenderLaneMapping = new ConcurrentHashMap<>();
     }
 
+    /**
+     * Connects a DEALER socket with its own sender lane. The socket gives up a send after the send timeout, and reconnects
+     * to an unreachable receiver with an interval that doubles up to the max reconnect interval.
+     */
     @Override
     public void connectToNode(String receivingServerAddress, NodeType nodeType) {
-        SenderSocketData senderSocketData = receivingAddressToSenderSocketMapping.get(receivingServerAddress);
-        if (senderSocketData == null) {
-            senderSocketData = new SenderSocketData(zeroMQContext, nodeType);
+        ZeroMQSenderLane senderLane = receivingAddressToSenderLaneMapping.get(receivingServerAddress);
+        if (senderLane == null) {
+            SenderSocketData senderSocketData = new SenderSocketData(zeroMQContext, nodeType);
             ZMQ.Socket senderSocket = senderSocketData.getSenderSocket();
+            senderSocket.setSendTimeOut(sendTimeout);
+            senderSocket.setReconnectIVL(reconnectInterval);
+            senderSocket.setReconnectIVLMax(maxReconnectInterval);
             ZMQ.Socket monitorSocket = senderSocketData.getMonitorSocketData().getMonitorSocket();
             senderSocketData.setMonitorThread(startMonitorThread(monitorSocket, receivingServerAddress));
             if (senderSocket.connect(receivingServerAddress)) {
                 log.info("ZeroMQ sender connected to address {}", receivingServerAddress);
-                receivingAddressToSenderSocketMapping.put(receivingServerAddress, senderSocketData);
+                senderLane = new ZeroMQSenderLane(receivingServerAddress, senderSocketData, senderQueueCapacity);
+                receivingAddressToSenderLaneMapping.put(receivingServerAddress, senderLane);
+                senderLane.start();
             } else {
                 log.error("ZeroMQ sender failed to connect to address {}", receivingServerAddress);
             }
@@ -106,46 +128,44 @@ public class ZeroMQSender implements ISender {
     }
 
     private NodeType getNodeTypeByAddress(String address) {
-        return Optional.ofNullable(receivingAddressToSenderSocketMapping.get(address)).map(SenderSocketData::getNodeType).orElse(null);
+        return Optional.ofNullable(receivingAddressToSenderLaneMapping.get(address)).map(senderLane -> senderLane.getSenderSocketData().getNodeType()).orElse(null);
     }
 
     @Override
     public <T extends IPropagatable> void send(T toSend, String address) {
+        ZeroMQSenderLane senderLane = receivingAddressToSenderLaneMapping.get(address);
+        if (senderLane == null) {
+            log.error("ZeroMQ sender doesn't have connection with address {}", address);
+            return;
+        }
         byte[] message = serializer.serialize(toSend);
-        synchronized (this) {
-            try {
-                ZMQ.Socket senderSocket = receivingAddressToSenderSocketMapping.get(address).getSenderSocket();
-                senderSocket.sendMore(toSend.getClass().getName());
-                boolean isSent = senderSocket.send(message);
-                if (!isSent) {
-                    SocketBase senderSocketBase = senderSocket.base();
-                    log.error("Error {} at sender socket. Socket channel status: {}", senderSocketBase.errno(), senderSocketBase.getFD().isOpen());
-                    return;
-                }
-                log.debug("Message {} was sent to {}", toSend, address);
-            } catch (ZMQException exception) {
-                log.error("Exception in sending", exception);
+        try {
+            if (!senderLane.offer(toSend.getClass().getName(), message, offerTimeout, TimeUnit.MILLISECONDS)) {
+                log.error("Message {} was dropped because the sender lane to {} stayed full for {} ms", toSend.getHash(), address, offerTimeout);
             }
+        } catch (InterruptedException e) {
+            log.error("Message {} was dropped because the sending thread was interrupted", toSend.getHash());
+            Thread.currentThread().interrupt();
         }
     }
 
     @Override
     public void disconnectFromNode(String receivingFullAddress, NodeType nodeType) {
-        SenderSocketData senderSocketData = receivingAddressToSenderSocketMapping.get(receivingFullAddress);
-        if (senderSocketData != null) {
-            closeSenderSocketData(senderSocketData);
+        ZeroMQSenderLane senderLane = receivingAddressToSenderLaneMapping.get(receivingFullAddress);
+        if (senderLane != null) {
+            closeSenderLane(senderLane);
             log.info("ZeroMQ sender closing connection with node of type {} and address {}", nodeType, receivingFullAddress);
-            receivingAddressToSenderSocketMapping.remove(receivingFullAddress);
+            receivingAddressToSenderLaneMapping.remove(receivingFullAddress);
             ZeroMQUtils.removeFromReconnectMonitor(addressToReconnectMonitorMap, receivingFullAddress);
         } else {
             log.error("ZeroMQ sender doesn't have connection with node of type {} and address {}", nodeType, receivingFullAddress);
         }
     }
 
-    private void closeSenderSocketData(SenderSocketData senderSocketData) {
-        ZMQ.Socket sender = senderSocketData.getSenderSocket();
-        ZeroMQUtils.closeSocket(sender);
+    private void closeSenderLane(ZeroMQSenderLane senderLane) {
         try {
+            // The sender lane closes its socket before ending
+            senderLane.close();
             // Waiting to sender socket to close
             Thread.sleep(100);
         } catch (InterruptedException e) {
@@ -153,6 +173,7 @@ public class ZeroMQSender implements ISender {
             Thread.currentThread().interrupt();
         }
 
+        SenderSocketData senderSocketData = senderLane.getSenderSocketData();
         MonitorSocketData monitorSocketData = senderSocketData.getMonitorSocketData();
         ZMQ.Socket monitorSocket = monitorSocketData.getMonitorSocket();
         ZeroMQUtils.closeSocket(monitorSocket);
@@ -167,12 +188,19 @@ public class ZeroMQSender implements ISender {
         }
     }
 
+    @Override
+    public Map<String, SenderLaneMetricsData> getAndResetSenderLaneMetrics() {
+        Map<String, SenderLaneMetricsData> senderLaneMetricsMap = new HashMap<>();
+        receivingAddressToSenderLaneMapping.forEach((receiverAddress, senderLane) -> senderLaneMetricsMap.put(receiverAddress, senderLane.getAndResetMetrics()));
+        return senderLaneMetricsMap;
+    }
+
     @Override
     public void shutdown() {
-        if (!receivingAddressToSenderSocketMapping.isEmpty()) {
+        if (!receivingAddressToSenderLaneMapping.isEmpty()) {
             log.info("Shutting down {}", this.getClass().getSimpleName());
-            receivingAddressToSenderSocketMapping.forEach((receiverAddress, senderSocketData) ->
-                    closeSenderSocketData(senderSocketData)
+            receivingAddressToSenderLaneMapping.forEach((receiverAddress, senderLane) ->
+                    closeSenderLane(senderLane)
             );
         }
         zeroMQContext.term();
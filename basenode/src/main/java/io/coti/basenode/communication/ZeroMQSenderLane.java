@@ -0,0 +1,135 @@
+package io.coti.basenode.communication;
+
+import io.coti.basenode.communication.data.SenderLaneMetricsData;
+import io.coti.basenode.communication.data.SenderSocketData;
+import io.coti.basenode.communication.data.ZeroMQSendMessageData;
+import io.coti.basenode.utilities.MpscRing;
+import lombok.extern.slf4j.Slf4j;
+import org.zeromq.ZMQ;
+import org.zeromq.ZMQException;
+import zmq.SocketBase;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Outbound lane to one receiving address. Callers only queue the serialized message, and the lane thread is the only
+ * thread that touches the DEALER socket, so a slow or unreachable receiver delays its own lane and no other. When the
+ * lane queue stays full for the offer timeout, or the socket does not accept a message within its send timeout, the
+ * message is dropped and counted.
+ */
+@Slf4j
+public class ZeroMQSenderLane {
+
+    private static final long OFFER_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final String receivingServerAddress;
+    private final SenderSocketData senderSocketData;
+    private final MpscRing<ZeroMQSendMessageData> sendMessageRing;
+    private final Thread sendMessageThread;
+    private final LongAdder droppedMessages = new LongAdder();
+    private final LongAdder sendLatencySum = new LongAdder();
+    private final LongAdder sentMessages = new LongAdder();
+    private final AtomicLong maxSendLatency = new AtomicLong();
+
+    public ZeroMQSenderLane(String receivingServerAddress, SenderSocketData senderSocketData, int queueCapacity) {
+        this.receivingServerAddress = receivingServerAddress;
+        this.senderSocketData = senderSocketData;
+        this.sendMessageRing = new MpscRing<>(queueCapacity);
+        this.sendMessageThread = new Thread(this::sendMessages, "DEALER " + receivingServerAddress);
+    }
+
+    public void start() {
+        sendMessageThread.start();
+    }
+
+    /**
+     * Queues the message, or returns false if it was dropped because the lane is full.
+     */
+    public boolean offer(String messageType, byte[] message) {
+        if (sendMessageRing.offer(new ZeroMQSendMessageData(messageType, message))) {
+            return true;
+        }
+        droppedMessages.increment();
+        return false;
+    }
+
+    /**
+     * Queues the message, waiting up to the timeout while the lane is full, or returns false if it was dropped.
+     */
+    public boolean offer(String messageType, byte[] message, long timeout, TimeUnit unit) throws InterruptedException {
+        ZeroMQSendMessageData sendMessageData = new ZeroMQSendMessageData(messageType, message);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!sendMessageRing.offer(sendMessageData)) {
+            if (System.nanoTime() - deadline >= 0) {
+                droppedMessages.increment();
+                return false;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(OFFER_RETRY_NANOS);
+        }
+        return true;
+    }
+
+    private void sendMessages() {
+        ZMQ.Socket senderSocket = senderSocketData.getSenderSocket();
+        boolean contextTerminated = false;
+        while (!contextTerminated && !Thread.currentThread().isInterrupted()) {
+            try {
+                sendMessage(senderSocket, sendMessageRing.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ZMQException e) {
+                if (e.getErrorCode() == ZMQ.Error.ETERM.getCode()) {
+                    contextTerminated = true;
+                } else {
+                    log.error("Exception in sending", e);
+                }
+            }
+        }
+        if (!sendMessageRing.isEmpty()) {
+            log.info("ZeroMQ sender lane to {} is closing with {} unsent messages", receivingServerAddress, sendMessageRing.size());
+        }
+        // The socket can not be closed by an interrupted thread
+        Thread.interrupted();
+        senderSocket.close();
+        log.info("ZeroMQ sender lane to {} is ending", receivingServerAddress);
+    }
+
+    private void sendMessage(ZMQ.Socket senderSocket, ZeroMQSendMessageData sendMessageData) {
+        if (!senderSocket.sendMore(sendMessageData.getMessageType()) || !senderSocket.send(sendMessageData.getMessage())) {
+            droppedMessages.increment();
+            SocketBase senderSocketBase = senderSocket.base();
+            log.error("Error {} at sender socket to {}. Socket channel status: {}", senderSocketBase.errno(), receivingServerAddress, senderSocketBase.getFD().isOpen());
+            return;
+        }
+        long sendLatency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sendMessageData.getCreationNanoTime());
+        sendLatencySum.add(sendLatency);
+        sentMessages.increment();
+        maxSendLatency.accumulateAndGet(sendLatency, Math::max);
+        log.debug("Message of type {} was sent to {}", sendMessageData.getMessageType(), receivingServerAddress);
+    }
+
+    public void close() throws InterruptedException {
+        sendMessageThread.interrupt();
+        sendMessageThread.join();
+    }
+
+    public SenderSocketData getSenderSocketData() {
+        return senderSocketData;
+    }
+
+    public int getQueueSize() {
+        return sendMessageRing.size();
+    }
+
+    public SenderLaneMetricsData getAndResetMetrics() {
+        long messages = sentMessages.sumThenReset();
+        long latencySum = sendLatencySum.sumThenReset();
+        return new SenderLaneMetricsData(getQueueSize(), droppedMessages.sumThenReset(), messages == 0 ? 0 : latencySum / messages, maxSendLatency.getAndSet(0));
+    }
+}
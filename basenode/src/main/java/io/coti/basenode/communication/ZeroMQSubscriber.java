@@ -2,7 +2,9 @@ package io.coti.basenode.communication;
 
 import io.coti.basenode.communication.data.ConnectedNodeData;
 import io.coti.basenode.communication.data.ReconnectMonitorData;
+import io.coti.basenode.communication.data.SubscriberChannelData;
 import io.coti.basenode.communication.data.ZeroMQMessageData;
+import io.coti.basenode.communication.data.ZeroMQPropagatedMessageData;
 import io.coti.basenode.communication.interfaces.IPropagationSubscriber;
 import io.coti.basenode.communication.interfaces.ISerializer;
 import io.coti.basenode.communication.interfaces.ISubscriberHandler;
@@ -12,6 +14,7 @@ import io.coti.basenode.data.interfaces.IPropagatable;
 import io.coti.basenode.exceptions.CotiRunTimeException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.zeromq.SocketType;
@@ -21,6 +24,7 @@ import org.zeromq.ZMQException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -34,6 +38,7 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
     private static final int FIXED_DELAY = 5000;
     private static final String ZMQ_SUBSCRIBER_CONTEXT_TERMINATED = "ZeroMQ subscriber context terminated";
     private static final String ZMQ_SUBSCRIBER_HANDLER_ERROR = "ZMQ subscriber message handler task error";
+    private static final int TRANSACTION_PARTITION_QUEUE_CAPACITY = 10000;
     private ZMQ.Context zeroMQContext;
     private SocketType socketType;
     private ZMQ.Socket propagationSubscriber;
@@ -43,10 +48,21 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
     private Thread monitorThread;
     private Thread monitorReconnectThread;
     private final Map<String, ReconnectMonitorData> addressToReconnectMonitorMap = new ConcurrentHashMap<>();
+    private final Map<String, SubscriberChannelData> channelToChannelDataMap = new ConcurrentHashMap<>();
     @Autowired
     private ISerializer serializer;
     private EnumMap<NodeType, List<Class<? extends IPropagatable>>> publisherNodeTypeToMessageTypesMap;
-    private final Map<String, Thread> queueNameToThreadMap = new HashMap<>();
+    private final Map<ZeroMQSubscriberQueue, ZeroMQSubscriberMessageQueue> messageQueueMap = new EnumMap<>(ZeroMQSubscriberQueue.class);
+    private final Map<ZeroMQSubscriberQueue, List<Thread>> queueToThreadsMap = new EnumMap<>(ZeroMQSubscriberQueue.class);
+    private final List<BlockingQueue<ZeroMQPropagatedMessageData>> transactionPartitionQueues = new ArrayList<>();
+    @Value("${zeromq.subscriber.transaction.workers:1}")
+    private int transactionWorkers;
+    @Value("${zeromq.subscriber.transaction.queue.capacity:100000}")
+    private int transactionQueueCapacity;
+    @Value("${zeromq.subscriber.transaction.overflow.policy:BLOCK}")
+    private ZeroMQOverflowPolicy transactionOverflowPolicy;
+    @Value("${zeromq.subscriber.offer.timeout:100}")
+    private long offerTimeout;
     private NodeType subscriberNodeType;
     @Autowired
     private ISubscriberHandler subscriberHandler;
@@ -54,12 +70,45 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
 
     @Override
     public void init() {
+        initMessageQueues();
         initSockets();
-        BlockingQueue<ZeroMQMessageData> messageQueue = ZeroMQSubscriberQueue.HEARTBEAT.getQueue();
-        queueNameToThreadMap.put(ZeroMQSubscriberQueue.HEARTBEAT.name(), new Thread(() -> this.handleMessagesQueueTask(messageQueue), ZeroMQSubscriberQueue.HEARTBEAT.name() + " SUB"));
+        queueToThreadsMap.put(ZeroMQSubscriberQueue.HEARTBEAT, createHandlerThreads(ZeroMQSubscriberQueue.HEARTBEAT));
         subscriberHandler.init();
     }
 
+    private void initMessageQueues() {
+        EnumSet.allOf(ZeroMQSubscriberQueue.class).forEach(zeroMQSubscriberQueue -> {
+            if (zeroMQSubscriberQueue.equals(ZeroMQSubscriberQueue.TRANSACTION)) {
+                messageQueueMap.put(zeroMQSubscriberQueue, new ZeroMQSubscriberMessageQueue(transactionQueueCapacity, transactionOverflowPolicy, offerTimeout));
+            } else {
+                messageQueueMap.put(zeroMQSubscriberQueue, new ZeroMQSubscriberMessageQueue(zeroMQSubscriberQueue.getDefaultCapacity(), zeroMQSubscriberQueue.getDefaultOverflowPolicy(), offerTimeout));
+            }
+        });
+    }
+
+    /**
+     * Every queue is drained by its own handler thread, so a burst of transactions never delays the heartbeats. With
+     * several transaction workers, the decoder threads deserialize the transaction messages and route them by hash to
+     * one partition per handler thread, so a transaction and its consensus result are handled by the same thread.
+     */
+    private List<Thread> createHandlerThreads(ZeroMQSubscriberQueue zeroMQSubscriberQueue) {
+        ZeroMQSubscriberMessageQueue messageQueue = messageQueueMap.get(zeroMQSubscriberQueue);
+        List<Thread> handlerThreads = new ArrayList<>();
+        if (zeroMQSubscriberQueue.equals(ZeroMQSubscriberQueue.TRANSACTION) && transactionWorkers > 1) {
+            for (int worker = 0; worker < transactionWorkers; worker++) {
+                handlerThreads.add(new Thread(() -> this.decodeTransactionMessagesTask(messageQueue), zeroMQSubscriberQueue.name() + " SUB DECODER-" + worker));
+            }
+            for (int worker = 0; worker < transactionWorkers; worker++) {
+                BlockingQueue<ZeroMQPropagatedMessageData> partitionQueue = new ArrayBlockingQueue<>(TRANSACTION_PARTITION_QUEUE_CAPACITY);
+                transactionPartitionQueues.add(partitionQueue);
+                handlerThreads.add(new Thread(() -> this.handlePartitionQueueTask(partitionQueue), zeroMQSubscriberQueue.name() + " SUB-" + worker));
+            }
+        } else {
+            handlerThreads.add(new Thread(() -> this.handleMessagesQueueTask(messageQueue), zeroMQSubscriberQueue.name() + " SUB"));
+        }
+        return handlerThreads;
+    }
+
     private void initSockets() {
         zeroMQContext = ZMQ.context(1);
         socketType = SocketType.SUB;
@@ -81,7 +130,7 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
         this.publisherNodeTypeToMessageTypesMap = publisherNodeTypeToMessageTypesMap;
         publisherNodeTypeToMessageTypesMap.forEach(((nodeType, messageTypes) -> messageTypes.forEach(messageType -> {
             ZeroMQSubscriberQueue queueEnum = ZeroMQSubscriberQueue.getQueueEnum(messageType);
-            queueNameToThreadMap.putIfAbsent(queueEnum.toString(), new Thread(() -> this.handleMessagesQueueTask(queueEnum.getQueue()), queueEnum.name() + " SUB"));
+            queueToThreadsMap.computeIfAbsent(queueEnum, this::createHandlerThreads);
         })));
     }
 
@@ -154,10 +203,14 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
             String channel = propagationSubscriber.recvStr();
             if (channel != null) {
                 log.debug("Received a new message on channel: {}", channel);
-                String[] channelArray = channel.split("-");
-                Class<? extends IPropagatable> propagatedMessageType = (Class<? extends IPropagatable>) Class.forName(channelArray[0]);
                 byte[] message = propagationSubscriber.recv();
-                ZeroMQSubscriberQueue.getQueue(propagatedMessageType).put(new ZeroMQMessageData(channel, message));
+                SubscriberChannelData channelData = getChannelData(channel);
+                ZeroMQSubscriberQueue subscriberQueue = ZeroMQSubscriberQueue.getQueueEnum(channelData.getMessageType());
+                if (subscriberQueue == null) {
+                    log.warn("Dropped a message without a subscriber queue on channel: {}", channel);
+                } else if (!messageQueueMap.get(subscriberQueue).add(new ZeroMQMessageData(channel, channelData, message))) {
+                    log.warn("Dropped a message of the full {} queue on channel: {}", subscriberQueue, channel);
+                }
             }
         } catch (InterruptedException e) {
             log.info("ZMQ subscriber propagation receiver interrupted");
@@ -167,7 +220,7 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
 
     @Override
     public void initPropagationHandler() {
-        queueNameToThreadMap.values().forEach(Thread::start);
+        queueToThreadsMap.values().forEach(handlerThreads -> handlerThreads.forEach(Thread::start));
     }
 
     @Override
@@ -175,7 +228,7 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
         monitorInitialized.set(true);
     }
 
-    private void handleMessagesQueueTask(BlockingQueue<ZeroMQMessageData> messageQueue) {
+    private void handleMessagesQueueTask(ZeroMQSubscriberMessageQueue messageQueue) {
         while (!Thread.currentThread().isInterrupted()) {
             try {
                 ZeroMQMessageData zeroMQMessageData = messageQueue.take();
@@ -191,6 +244,10 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
                 log.error(ZMQ_SUBSCRIBER_HANDLER_ERROR, e);
             }
         }
+        handleRemainingMessages(messageQueue);
+    }
+
+    private void handleRemainingMessages(ZeroMQSubscriberMessageQueue messageQueue) {
         LinkedList<ZeroMQMessageData> remainingMessages = new LinkedList<>();
         messageQueue.drainTo(remainingMessages);
         if (!remainingMessages.isEmpty()) {
@@ -206,31 +263,105 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
                 }
             });
         }
+    }
+
+    private void decodeTransactionMessagesTask(ZeroMQSubscriberMessageQueue messageQueue) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                ZeroMQMessageData zeroMQMessageData = messageQueue.take();
+                log.debug("ZMQ message arrived: {}", zeroMQMessageData.getChannel());
+                ZeroMQPropagatedMessageData propagatedMessageData = decode(zeroMQMessageData);
+                if (propagatedMessageData != null) {
+                    getTransactionPartitionQueue(propagatedMessageData.getMessageData()).put(propagatedMessageData);
+                }
+            } catch (InterruptedException e) {
+                log.info("ZMQ subscriber message decoder interrupted");
+                Thread.currentThread().interrupt();
+            } catch (CotiRunTimeException e) {
+                log.error(ZMQ_SUBSCRIBER_HANDLER_ERROR);
+                e.logMessage();
+            } catch (Exception e) {
+                log.error(ZMQ_SUBSCRIBER_HANDLER_ERROR, e);
+            }
+        }
+        handleRemainingMessages(messageQueue);
+    }
 
+    private BlockingQueue<ZeroMQPropagatedMessageData> getTransactionPartitionQueue(IPropagatable messageData) {
+        int partition = Math.floorMod(messageData.getHash().hashCode(), transactionPartitionQueues.size());
+        return transactionPartitionQueues.get(partition);
+    }
+
+    private void handlePartitionQueueTask(BlockingQueue<ZeroMQPropagatedMessageData> partitionQueue) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                handlePropagatedMessageData(partitionQueue.take());
+            } catch (InterruptedException e) {
+                log.info("ZMQ subscriber message handler interrupted");
+                Thread.currentThread().interrupt();
+            }
+        }
+        LinkedList<ZeroMQPropagatedMessageData> remainingMessages = new LinkedList<>();
+        partitionQueue.drainTo(remainingMessages);
+        if (!remainingMessages.isEmpty()) {
+            log.info("Please wait to process {} remaining messages", remainingMessages.size());
+            remainingMessages.forEach(this::handlePropagatedMessageData);
+        }
+    }
+
+    private void handlePropagatedMessageData(ZeroMQPropagatedMessageData propagatedMessageData) {
+        SubscriberChannelData channelData = propagatedMessageData.getChannelData();
+        handleMessageData(propagatedMessageData.getMessageData(), channelData.getMessageType(), channelData.getPublisherNodeType());
     }
 
     private void propagationProcess(ZeroMQMessageData zeroMQMessageData) throws ClassNotFoundException {
-        String channel = zeroMQMessageData.getChannel();
-        byte[] message = zeroMQMessageData.getMessage();
-        IPropagatable messageData = serializer.deserialize(message);
-        if (messageData != null) {
-            String[] channelArray = channel.split("-");
-            Class<? extends IPropagatable> propagatedMessageType = (Class<? extends IPropagatable>) Class.forName(channelArray[0]);
-            if (propagatedMessageType.equals(PublisherHeartBeatData.class)) {
-                String serverAddress = ((PublisherHeartBeatData) messageData).getServerAddress();
-                updatePublisherLastConnectionTime(serverAddress);
-            } else {
-                String serverAddress = channelArray[1];
-                NodeType publisherNodeType = NodeType.valueOf(channelArray[2]);
-                updatePublisherLastConnectionTime(serverAddress);
-                publisherNodeTypeToMessageTypesMap.get(publisherNodeType).forEach(messageType -> {
+        ZeroMQPropagatedMessageData propagatedMessageData = decode(zeroMQMessageData);
+        if (propagatedMessageData != null) {
+            handlePropagatedMessageData(propagatedMessageData);
+        }
+    }
 
-                    if (messageType.equals(propagatedMessageType)) {
-                        handleMessageData(messageData, propagatedMessageType, publisherNodeType);
-                    }
-                });
+    /**
+     * Deserializes the message and refreshes the publisher connection time. Returns null for heartbeats, which need no
+     * further handling, and for messages that are unexpected or fail to deserialize.
+     */
+    private ZeroMQPropagatedMessageData decode(ZeroMQMessageData zeroMQMessageData) throws ClassNotFoundException {
+        SubscriberChannelData channelData = zeroMQMessageData.getChannelData();
+        if (channelData == null) {
+            channelData = getChannelData(zeroMQMessageData.getChannel());
+        }
+        Class<? extends IPropagatable> propagatedMessageType = channelData.getMessageType();
+        if (propagatedMessageType.equals(PublisherHeartBeatData.class)) {
+            IPropagatable messageData = serializer.deserialize(zeroMQMessageData.getMessage());
+            if (messageData != null) {
+                updatePublisherLastConnectionTime(((PublisherHeartBeatData) messageData).getServerAddress());
             }
+            return null;
+        }
+        NodeType publisherNodeType = channelData.getPublisherNodeType();
+        List<Class<? extends IPropagatable>> messageTypes = publisherNodeTypeToMessageTypesMap.get(publisherNodeType);
+        if (messageTypes == null || !messageTypes.contains(propagatedMessageType)) {
+            log.debug("Dropped an unexpected message on channel: {}", zeroMQMessageData.getChannel());
+            return null;
         }
+        IPropagatable messageData = serializer.deserialize(zeroMQMessageData.getMessage());
+        if (messageData == null) {
+            return null;
+        }
+        updatePublisherLastConnectionTime(channelData.getServerAddress());
+        return new ZeroMQPropagatedMessageData(messageData, channelData);
+    }
+
+    private SubscriberChannelData getChannelData(String channel) throws ClassNotFoundException {
+        SubscriberChannelData channelData = channelToChannelDataMap.get(channel);
+        if (channelData == null) {
+            String[] channelArray = channel.split("-");
+            Class<? extends IPropagatable> propagatedMessageType = (Class<? extends IPropagatable>) Class.forName(channelArray[0]);
+            channelData = channelArray.length > 2 ? new SubscriberChannelData(propagatedMessageType, channelArray[1], NodeType.valueOf(channelArray[2]))
+                    : new SubscriberChannelData(propagatedMessageType, channelArray[1], null);
+            channelToChannelDataMap.put(channel, channelData);
+        }
+        return channelData;
     }
 
     private void updatePublisherLastConnectionTime(String publisherAddressAndPort) {
@@ -321,21 +452,39 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
 
     @Override
     public int getMessageQueueSize(ZeroMQSubscriberQueue zeroMQSubscriberQueue) {
-        return zeroMQSubscriberQueue.getQueue().size();
+        int queueSize = messageQueueMap.get(zeroMQSubscriberQueue).size();
+        if (zeroMQSubscriberQueue.equals(ZeroMQSubscriberQueue.TRANSACTION)) {
+            for (BlockingQueue<ZeroMQPropagatedMessageData> partitionQueue : transactionPartitionQueues) {
+                queueSize += partitionQueue.size();
+            }
+        }
+        return queueSize;
     }
 
     @Override
     public Map<String, String> getQueueSizeMap() {
         Map<String, String> queueSizeMap = new HashMap<>();
-        EnumSet.allOf(ZeroMQSubscriberQueue.class).forEach(zeroMQSubscriberQueue -> {
-            if (queueNameToThreadMap.containsKey(zeroMQSubscriberQueue.toString())) {
-                int queueSize = this.getMessageQueueSize(zeroMQSubscriberQueue);
-                queueSizeMap.put(zeroMQSubscriberQueue.toString(), String.valueOf(queueSize));
-            }
-        });
+        queueToThreadsMap.keySet().forEach(zeroMQSubscriberQueue ->
+                queueSizeMap.put(zeroMQSubscriberQueue.toString(), String.valueOf(getMessageQueueSize(zeroMQSubscriberQueue))));
         return queueSizeMap;
     }
 
+    @Override
+    public Map<String, Long> getAndResetDroppedMessagesMap() {
+        Map<String, Long> droppedMessagesMap = new HashMap<>();
+        queueToThreadsMap.keySet().forEach(zeroMQSubscriberQueue ->
+                droppedMessagesMap.put(zeroMQSubscriberQueue.toString(), messageQueueMap.get(zeroMQSubscriberQueue).getAndResetDroppedMessages()));
+        return droppedMessagesMap;
+    }
+
+    @Override
+    public Map<String, Long> getAndResetMaxLagMap() {
+        Map<String, Long> maxLagMap = new HashMap<>();
+        queueToThreadsMap.keySet().forEach(zeroMQSubscriberQueue ->
+                maxLagMap.put(zeroMQSubscriberQueue.toString(), messageQueueMap.get(zeroMQSubscriberQueue).getAndResetMaxLag()));
+        return maxLagMap;
+    }
+
     @Override
     public void shutdown() {
         try {
@@ -350,7 +499,7 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
                     monitorReconnectThread.interrupt();
                     monitorReconnectThread.join();
                 }
-                queueNameToThreadMap.values().forEach(thread -> {
+                queueToThreadsMap.values().forEach(handlerThreads -> handlerThreads.forEach(thread -> {
                     try {
                         thread.interrupt();
                         thread.join();
@@ -358,7 +507,7 @@ public class ZeroMQSubscriber implements IPropagationSubscriber {
                         log.error("Interrupted shutdown ZeroMQ subscriber");
                         Thread.currentThread().interrupt();
                     }
-                });
+                }));
             }
         } catch (InterruptedException e) {
             log.error("Interrupted shutdown ZeroMQ subscriber");
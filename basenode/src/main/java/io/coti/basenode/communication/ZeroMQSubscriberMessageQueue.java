@@ -0,0 +1,107 @@
+package io.coti.basenode.communication;
+
+import io.coti.basenode.communication.data.ZeroMQMessageData;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded queue between the SUB thread and the message handlers. When the queue is full, the overflow policy decides
+ * whether the SUB thread waits, drops the arriving message or drops the oldest queued one. Dropped messages and the
+ * longest time a message waited in the queue are counted for the metrics.
+ * <p>
+ * The SUB thread also reads the heartbeats of every publisher, so it never waits for more than the offer timeout. Once
+ * an offer timed out, the queue is saturated and further messages are dropped without waiting until the handlers have
+ * freed half of the queue.
+ */
+public class ZeroMQSubscriberMessageQueue {
+
+    private final BlockingQueue<ZeroMQMessageData> messageQueue;
+    private final int capacity;
+    private final ZeroMQOverflowPolicy overflowPolicy;
+    private final long offerTimeout;
+    private boolean saturated;
+    private final LongAdder droppedMessages = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    public ZeroMQSubscriberMessageQueue(int capacity, ZeroMQOverflowPolicy overflowPolicy, long offerTimeout) {
+        this.messageQueue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeout = offerTimeout;
+    }
+
+    /**
+     * Returns false if a message was dropped because the queue is full.
+     */
+    public boolean add(ZeroMQMessageData zeroMQMessageData) throws InterruptedException {
+        switch (overflowPolicy) {
+            case BLOCK:
+                if (offer(zeroMQMessageData)) {
+                    return true;
+                }
+                droppedMessages.increment();
+                return false;
+            case DROP_OLDEST:
+                boolean droppedOldest = false;
+                while (!messageQueue.offer(zeroMQMessageData)) {
+                    if (messageQueue.poll() != null) {
+                        droppedMessages.increment();
+                        droppedOldest = true;
+                    }
+                }
+                return !droppedOldest;
+            default:
+                if (messageQueue.offer(zeroMQMessageData)) {
+                    return true;
+                }
+                droppedMessages.increment();
+                return false;
+        }
+    }
+
+    private boolean offer(ZeroMQMessageData zeroMQMessageData) throws InterruptedException {
+        if (saturated && messageQueue.remainingCapacity() >= capacity / 2) {
+            saturated = false;
+        }
+        if (saturated) {
+            return messageQueue.offer(zeroMQMessageData);
+        }
+        if (messageQueue.offer(zeroMQMessageData, offerTimeout, TimeUnit.MILLISECONDS)) {
+            return true;
+        }
+        saturated = true;
+        return false;
+    }
+
+    public ZeroMQMessageData take() throws InterruptedException {
+        ZeroMQMessageData zeroMQMessageData = messageQueue.take();
+        updateMaxLag(zeroMQMessageData);
+        return zeroMQMessageData;
+    }
+
+    public int drainTo(Collection<ZeroMQMessageData> messages) {
+        return messageQueue.drainTo(messages);
+    }
+
+    public int size() {
+        return messageQueue.size();
+    }
+
+    public long getAndResetDroppedMessages() {
+        return droppedMessages.sumThenReset();
+    }
+
+    public long getAndResetMaxLag() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLagNanos.getAndSet(0));
+    }
+
+    private void updateMaxLag(ZeroMQMessageData zeroMQMessageData) {
+        long lagNanos = System.nanoTime() - zeroMQMessageData.getReceiveNanoTime();
+        maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+}
@@ -1,36 +1,35 @@
 package io.coti.basenode.communication;
 
-import io.coti.basenode.communication.data.ZeroMQMessageData;
 import io.coti.basenode.data.*;
 import io.coti.basenode.data.interfaces.IPropagatable;
 
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 public enum ZeroMQSubscriberQueue {
-    HEARTBEAT(new HashSet<>(Collections.singletonList(PublisherHeartBeatData.class))),
-    NETWORK(new HashSet<>(Collections.singletonList(NetworkData.class))),
-    ADDRESS(new HashSet<>(Collections.singletonList(AddressData.class))),
-    TRANSACTION(new HashSet<>(Arrays.asList(TransactionData.class, DspConsensusResult.class)));
+    HEARTBEAT(new HashSet<>(Collections.singletonList(PublisherHeartBeatData.class)), 1000, ZeroMQOverflowPolicy.DROP_OLDEST),
+    NETWORK(new HashSet<>(Collections.singletonList(NetworkData.class)), 1000, ZeroMQOverflowPolicy.DROP_OLDEST),
+    ADDRESS(new HashSet<>(Collections.singletonList(AddressData.class)), 100000, ZeroMQOverflowPolicy.BLOCK),
+    TRANSACTION(new HashSet<>(Arrays.asList(TransactionData.class, DspConsensusResult.class)), 100000, ZeroMQOverflowPolicy.BLOCK);
 
-    private final BlockingQueue<ZeroMQMessageData> queue = new LinkedBlockingQueue<>();
+    private final int defaultCapacity;
+    private final ZeroMQOverflowPolicy defaultOverflowPolicy;
 
     private static class ZeroMQSubscriberQueues {
         private static final Map<Class<? extends IPropagatable>, ZeroMQSubscriberQueue> messageTypeToQueueMap = new HashMap<>();
     }
 
-    ZeroMQSubscriberQueue(Set<Class<? extends IPropagatable>> messageTypeSet) {
+    ZeroMQSubscriberQueue(Set<Class<? extends IPropagatable>> messageTypeSet, int defaultCapacity, ZeroMQOverflowPolicy defaultOverflowPolicy) {
         messageTypeSet.forEach(messageType -> ZeroMQSubscriberQueues.messageTypeToQueueMap.put(messageType, this));
-
+        this.defaultCapacity = defaultCapacity;
+        this.defaultOverflowPolicy = defaultOverflowPolicy;
     }
 
-    public BlockingQueue<ZeroMQMessageData> getQueue() {
-        return this.queue;
+    public int getDefaultCapacity() {
+        return defaultCapacity;
     }
 
-    public static <T extends IPropagatable> BlockingQueue<ZeroMQMessageData> getQueue(Class<T> messageType) {
-        return getQueueEnum(messageType).queue;
+    public ZeroMQOverflowPolicy getDefaultOverflowPolicy() {
+        return defaultOverflowPolicy;
     }
 
     public static <T extends IPropagatable> ZeroMQSubscriberQueue getQueueEnum(Class<T> messageType) {
@@ -0,0 +1,19 @@
+package io.coti.basenode.communication.data;
+
+import lombok.Data;
+
+@Data
+public class SenderLaneMetricsData {
+
+    private int queueSize;
+    private long droppedMessages;
+    private long averageSendLatency;
+    private long maxSendLatency;
+
+    public SenderLaneMetricsData(int queueSize, long droppedMessages, long averageSendLatency, long maxSendLatency) {
+        this.queueSize = queueSize;
+        this.droppedMessages = droppedMessages;
+        this.averageSendLatency = averageSendLatency;
+        this.maxSendLatency = maxSendLatency;
+    }
+}
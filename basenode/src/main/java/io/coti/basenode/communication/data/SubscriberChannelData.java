@@ -0,0 +1,19 @@
+package io.coti.basenode.communication.data;
+
+import io.coti.basenode.data.NodeType;
+import io.coti.basenode.data.interfaces.IPropagatable;
+import lombok.Data;
+
+@Data
+public class SubscriberChannelData {
+
+    private Class<? extends IPropagatable> messageType;
+    private String serverAddress;
+    private NodeType publisherNodeType;
+
+    public SubscriberChannelData(Class<? extends IPropagatable> messageType, String serverAddress, NodeType publisherNodeType) {
+        this.messageType = messageType;
+        this.serverAddress = serverAddress;
+        this.publisherNodeType = publisherNodeType;
+    }
+}
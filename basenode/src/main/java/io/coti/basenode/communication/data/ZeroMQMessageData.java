@@ -6,10 +6,18 @@ import lombok.Data;
 public class ZeroMQMessageData {
 
     private String channel;
+    private SubscriberChannelData channelData;
     private byte[] message;
+    private long receiveNanoTime;
 
     public ZeroMQMessageData(String channel, byte[] message) {
         this.channel = channel;
         this.message = message;
+        this.receiveNanoTime = System.nanoTime();
+    }
+
+    public ZeroMQMessageData(String channel, SubscriberChannelData channelData, byte[] message) {
+        this(channel, message);
+        this.channelData = channelData;
     }
 }
@@ -0,0 +1,16 @@
+package io.coti.basenode.communication.data;
+
+import io.coti.basenode.data.interfaces.IPropagatable;
+import lombok.Data;
+
+@Data
+public class ZeroMQPropagatedMessageData {
+
+    private IPropagatable messageData;
+    private SubscriberChannelData channelData;
+
+    public ZeroMQPropagatedMessageData(IPropagatable messageData, SubscriberChannelData channelData) {
+        this.messageData = messageData;
+        this.channelData = channelData;
+    }
+}
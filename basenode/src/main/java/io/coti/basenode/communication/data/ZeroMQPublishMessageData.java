@@ -0,0 +1,19 @@
+package io.coti.basenode.communication.data;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ZeroMQPublishMessageData {
+
+    private List<byte[]> channels;
+    private byte[] message;
+    private long creationNanoTime;
+
+    public ZeroMQPublishMessageData(List<byte[]> channels, byte[] message) {
+        this.channels = channels;
+        this.message = message;
+        this.creationNanoTime = System.nanoTime();
+    }
+}
@@ -0,0 +1,17 @@
+package io.coti.basenode.communication.data;
+
+import lombok.Data;
+
+@Data
+public class ZeroMQSendMessageData {
+
+    private String messageType;
+    private byte[] message;
+    private long creationNanoTime;
+
+    public ZeroMQSendMessageData(String messageType, byte[] message) {
+        this.messageType = messageType;
+        this.message = message;
+        this.creationNanoTime = System.nanoTime();
+    }
+}
@@ -15,5 +15,15 @@ public interface IPropagationPublisher {
 
     int getQueueSize();
 
+    /**
+     * Returns the average time in microseconds from propagation until publishing, since the previous call.
+     */
+    long getAndResetAveragePublishLatency();
+
+    /**
+     * Returns the maximal time in microseconds from propagation until publishing, since the previous call.
+     */
+    long getAndResetMaxPublishLatency();
+
     void shutdown();
 }
@@ -30,5 +30,9 @@ public interface IPropagationSubscriber {
 
     Map<String, String> getQueueSizeMap();
 
+    Map<String, Long> getAndResetDroppedMessagesMap();
+
+    Map<String, Long> getAndResetMaxLagMap();
+
     void shutdown();
 }
@@ -1,8 +1,10 @@
 package io.coti.basenode.communication.interfaces;
 
+import io.coti.basenode.data.LatencyHistogramData;
 import io.coti.basenode.data.interfaces.IPropagatable;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Consumer;
 
 public interface IReceiver {
@@ -17,5 +19,9 @@ public interface IReceiver {
 
     int getQueueSize();
 
+    Map<String, LatencyHistogramData> getAndResetQueueTimeHistograms();
+
+    Map<String, LatencyHistogramData> getAndResetHandlingTimeHistograms();
+
     void shutdown();
 }
@@ -1,8 +1,11 @@
 package io.coti.basenode.communication.interfaces;
 
+import io.coti.basenode.communication.data.SenderLaneMetricsData;
 import io.coti.basenode.data.NodeType;
 import io.coti.basenode.data.interfaces.IPropagatable;
 
+import java.util.Map;
+
 public interface ISender {
 
     void connectToNode(String receivingServerAddress, NodeType nodeType);
@@ -13,5 +16,7 @@ public interface ISender {
 
     void disconnectFromNode(String receivingFullAddress, NodeType nodeType);
 
+    Map<String, SenderLaneMetricsData> getAndResetSenderLaneMetrics();
+
     void shutdown();
 }
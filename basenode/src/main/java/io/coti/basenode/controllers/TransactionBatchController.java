@@ -30,6 +30,11 @@ public class TransactionBatchController {
         transactionService.getTransactionBatch(startingIndex, response);
     }
 
+    @GetMapping(value = "/framed", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public void getFramedTransactionBatch(@RequestParam(name = "starting_index") @Valid @NotNull Long startingIndex, HttpServletResponse response) {
+        transactionService.getFramedTransactionBatch(startingIndex, response);
+    }
+
     @GetMapping(value = "/reactive", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
     public Flux<byte[]> getTransactionBatchReactive(@RequestParam(name = "starting_index") @Valid @NotNull Long startingIndex) {
         return Flux.create(fluxSink -> transactionService.getTransactionBatch(startingIndex, fluxSink));
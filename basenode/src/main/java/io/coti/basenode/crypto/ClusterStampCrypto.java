@@ -10,6 +10,9 @@ public class ClusterStampCrypto extends SignatureCrypto<ClusterStampData> {
 
     @Override
     public byte[] getSignatureMessage(ClusterStampData clusterStampData) {
+        if (clusterStampData.getSignatureMessageHash() != null) {
+            return clusterStampData.getSignatureMessageHash().getBytes();
+        }
 
         ByteBuffer clusterStampDataBuffer =
                 ByteBuffer.allocate(clusterStampData.getMessageByteSize());
@@ -1,9 +1,12 @@
 package io.coti.basenode.crypto;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.coti.basenode.data.Hash;
 import io.coti.basenode.data.SignatureData;
 import org.bouncycastle.asn1.sec.SECNamedCurves;
 import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
 import org.bouncycastle.crypto.params.ECDomainParameters;
 import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
 import org.bouncycastle.crypto.params.ECPublicKeyParameters;
@@ -19,7 +22,9 @@ import javax.xml.bind.DatatypeConverter;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.security.KeyFactory;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Arrays;
@@ -33,6 +38,11 @@ public class CryptoHelper {
     private static final X9ECParameters curve = SECNamedCurves.getByName(EC_SPEC);
     private static final ECDomainParameters domain = new ECDomainParameters(curve.getCurve(), curve.getG(), curve.getN(), curve.getH());
     private static final ECParameterSpec spec = new ECParameterSpec(curve.getCurve(), curve.getG(), curve.getN(), curve.getH());
+    private static final X9ECParameters verificationCurve = CustomNamedCurves.getByName(EC_SPEC);
+    private static final ECDomainParameters verificationDomain = new ECDomainParameters(verificationCurve.getCurve(), verificationCurve.getG(), verificationCurve.getN(), verificationCurve.getH());
+    private static final Provider bouncyCastleProvider = new BouncyCastleProvider();
+    private static final int PUBLIC_KEY_CACHE_SIZE = 100000;
+    private static final Cache<Hash, ECPublicKeyParameters> publicKeyCache = CacheBuilder.newBuilder().maximumSize(PUBLIC_KEY_CACHE_SIZE).build();
     public static final int ADDRESS_SIZE_IN_BYTES = 68;
     public static final int ADDRESS_CHECKSUM_SIZE_IN_BYTES = 4;
     public static final int DEFAULT_HASH_BYTE_SIZE = 32;
@@ -50,13 +60,50 @@ public class CryptoHelper {
 
         ECPoint point = curve.getCurve().createPoint(p256X, p256Y);
         ECPublicKeySpec publicSpec = new ECPublicKeySpec(point, spec);
-        KeyFactory keyfac = KeyFactory.getInstance(EC_ALGORITHM, new BouncyCastleProvider());
+        KeyFactory keyfac = KeyFactory.getInstance(EC_ALGORITHM, bouncyCastleProvider);
 
         return keyfac.generatePublic(publicSpec);
     }
 
-    public static boolean verifyByPublicKey(byte[] originalMessageToVerify, String rHex, String sHex, String publicKey) throws InvalidKeySpecException, NoSuchAlgorithmException {
-        return verifyByPublicKey(originalMessageToVerify, rHex, sHex, getPublicKeyFromHexString(publicKey));
+    public static boolean verifyByPublicKey(byte[] originalMessageToVerify, String rHex, String sHex, String publicKey) {
+        return verifyByPublicKey(originalMessageToVerify, rHex, sHex, new Hash(publicKey));
+    }
+
+    /**
+     * Verifies the signature with the public key given either as a public key or as an address, whose checksum is ignored.
+     * Decoded public keys are cached, and since BouncyCastle keeps the window precomputation of a point on the point
+     * itself, repeated verifications by the same signer also reuse that precomputation.
+     */
+    public static boolean verifyByPublicKey(byte[] originalDataToVerify, String rHex, String sHex, Hash publicKeyHash) {
+        ECPublicKeyParameters publicKeyParameters = getPublicKeyParameters(publicKeyHash);
+        if (publicKeyParameters == null) {
+            return false;
+        }
+        ECDSASigner signer = new ECDSASigner();
+        signer.init(false, publicKeyParameters);
+        BigInteger r = new BigInteger(rHex, 16);
+        BigInteger s = new BigInteger(sHex, 16);
+        return signer.verifySignature(originalDataToVerify, r, s);
+    }
+
+    private static ECPublicKeyParameters getPublicKeyParameters(Hash publicKeyHash) {
+        ECPublicKeyParameters publicKeyParameters = publicKeyCache.getIfPresent(publicKeyHash);
+        if (publicKeyParameters == null) {
+            byte[] publicKeyBytes = publicKeyHash.getBytes();
+            int publicKeyLength = publicKeyBytes.length == ADDRESS_SIZE_IN_BYTES ? ADDRESS_SIZE_IN_BYTES - ADDRESS_CHECKSUM_SIZE_IN_BYTES : publicKeyBytes.length;
+            if (publicKeyLength == 0) {
+                return null;
+            }
+            BigInteger pointX = new BigInteger(1, Arrays.copyOfRange(publicKeyBytes, 0, publicKeyLength / 2));
+            BigInteger pointY = new BigInteger(1, Arrays.copyOfRange(publicKeyBytes, publicKeyLength / 2, publicKeyLength));
+            ECPoint point = verificationCurve.getCurve().createPoint(pointX, pointY);
+            if (!point.isValid()) {
+                return null;
+            }
+            publicKeyParameters = new ECPublicKeyParameters(point, verificationDomain);
+            publicKeyCache.put(publicKeyHash, publicKeyParameters);
+        }
+        return publicKeyParameters;
     }
 
     public static byte[] removeLeadingZerosFromAddress(byte[] addressBytesWithoutChecksum) {
@@ -183,6 +230,10 @@ public class CryptoHelper {
         return cryptoHash(input, 256);
     }
 
+    public static MessageDigest getCryptoHashDigest() {
+        return new Keccak.DigestKeccak(256);
+    }
+
     public static Hash cryptoHash(byte[] input, int bit) {
         Keccak.DigestKeccak digest = new Keccak.DigestKeccak(bit);
         digest.update(input);
@@ -4,16 +4,48 @@ import io.coti.basenode.data.BaseTransactionData;
 import io.coti.basenode.data.Hash;
 import io.coti.basenode.data.TransactionData;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
 public class TransactionCrypto extends SignatureCrypto<TransactionData> {
 
     private static final int BASE_TRANSACTION_HASH_SIZE = 32;
+    @Value("${transaction.verification.threads:0}")
+    private int verificationThreads;
+    @Value("${transaction.verification.queue.capacity:10000}")
+    private int verificationQueueCapacity;
+    private ExecutorService verificationExecutorService;
+
+    /**
+     * The base transactions of all validated transactions are verified on one bounded pool. When its queue is full, or
+     * after shutdown, the validating thread verifies the base transaction itself.
+     */
+    @PostConstruct
+    private void init() {
+        int threads = verificationThreads > 0 ? verificationThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        verificationExecutorService = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(verificationQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Transaction Verification " + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, executor) -> runnable.run());
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        verificationExecutorService.shutdownNow();
+    }
 
     @Override
     public byte[] getSignatureMessage(TransactionData transactionData) {
@@ -79,13 +111,44 @@ public class TransactionCrypto extends SignatureCrypto<TransactionData> {
         if (!this.isTransactionHashCorrect(transactionData)) {
             return false;
         }
-        for (BaseTransactionData baseTransactionData : transactionData.getBaseTransactions()) {
-            if (!BaseTransactionCrypto.getByBaseTransactionClass(baseTransactionData.getClass()).isBaseTransactionValid(transactionData, baseTransactionData)) {
+        return areBaseTransactionsValid(transactionData);
+    }
+
+    /**
+     * Verifies the base transactions of a transaction in parallel on the verification pool. The first base transaction
+     * is verified by the calling thread meanwhile.
+     */
+    private boolean areBaseTransactionsValid(TransactionData transactionData) {
+        List<BaseTransactionData> baseTransactions = transactionData.getBaseTransactions();
+        List<Future<Boolean>> verifications = new ArrayList<>();
+        try {
+            for (BaseTransactionData baseTransactionData : baseTransactions.subList(Math.min(1, baseTransactions.size()), baseTransactions.size())) {
+                verifications.add(verificationExecutorService.submit(() -> isBaseTransactionValid(transactionData, baseTransactionData)));
+            }
+            if (!baseTransactions.isEmpty() && !isBaseTransactionValid(transactionData, baseTransactions.get(0))) {
                 return false;
             }
+            for (Future<Boolean> verification : verifications) {
+                if (!verification.get()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            log.error("Interrupted while verifying the base transactions of transaction {}", transactionData.getHash());
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Error at verifying the base transactions of transaction " + transactionData.getHash(), e.getCause());
+        } finally {
+            verifications.forEach(verification -> verification.cancel(false));
         }
-        return true;
     }
 
-
+    private boolean isBaseTransactionValid(TransactionData transactionData, BaseTransactionData baseTransactionData) {
+        return BaseTransactionCrypto.getByBaseTransactionClass(baseTransactionData.getClass()).isBaseTransactionValid(transactionData, baseTransactionData);
+    }
 }
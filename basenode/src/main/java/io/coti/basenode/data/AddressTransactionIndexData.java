@@ -0,0 +1,75 @@
+package io.coti.basenode.data;
+
+import io.coti.basenode.data.interfaces.IEntity;
+import lombok.Data;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+
+@Data
+public class AddressTransactionIndexData implements IEntity {
+
+    private static final long serialVersionUID = -2381675946236581837L;
+    public static final int ATTACHMENT_TIME_SIZE = Long.BYTES + Integer.BYTES;
+    private Hash addressHash;
+    private Instant attachmentTime;
+    private Hash transactionHash;
+
+    private AddressTransactionIndexData() {
+    }
+
+    public AddressTransactionIndexData(Hash addressHash, Instant attachmentTime, Hash transactionHash) {
+        this.addressHash = addressHash;
+        this.attachmentTime = attachmentTime != null ? attachmentTime : Instant.EPOCH;
+        this.transactionHash = transactionHash;
+    }
+
+    @Override
+    public Hash getHash() {
+        byte[] addressBytes = addressHash.getBytes();
+        byte[] transactionBytes = transactionHash.getBytes();
+        ByteBuffer key = ByteBuffer.allocate(1 + addressBytes.length + ATTACHMENT_TIME_SIZE + transactionBytes.length);
+        key.put((byte) addressBytes.length).put(addressBytes);
+        putAttachmentTime(key, attachmentTime);
+        key.put(transactionBytes);
+        return new Hash(key.array());
+    }
+
+    @Override
+    public void setHash(Hash hash) {
+        byte[] key = hash.getBytes();
+        int addressLength = key[0] & 0xFF;
+        int attachmentTimeOffset = 1 + addressLength;
+        addressHash = new Hash(Arrays.copyOfRange(key, 1, attachmentTimeOffset));
+        attachmentTime = getAttachmentTime(key, attachmentTimeOffset);
+        transactionHash = new Hash(Arrays.copyOfRange(key, attachmentTimeOffset + ATTACHMENT_TIME_SIZE, key.length));
+    }
+
+    public static Hash getTransactionHash(byte[] key) {
+        return new Hash(Arrays.copyOfRange(key, 1 + (key[0] & 0xFF) + ATTACHMENT_TIME_SIZE, key.length));
+    }
+
+    public static byte[] getAddressPrefix(Hash addressHash) {
+        byte[] addressBytes = addressHash.getBytes();
+        return ByteBuffer.allocate(1 + addressBytes.length).put((byte) addressBytes.length).put(addressBytes).array();
+    }
+
+    public static byte[] getAddressPrefix(Hash addressHash, Instant attachmentTime) {
+        byte[] addressBytes = addressHash.getBytes();
+        ByteBuffer prefix = ByteBuffer.allocate(1 + addressBytes.length + ATTACHMENT_TIME_SIZE);
+        prefix.put((byte) addressBytes.length).put(addressBytes);
+        putAttachmentTime(prefix, attachmentTime);
+        return prefix.array();
+    }
+
+    private static void putAttachmentTime(ByteBuffer buffer, Instant attachmentTime) {
+        buffer.putLong(attachmentTime.getEpochSecond() ^ Long.MIN_VALUE).putInt(attachmentTime.getNano());
+    }
+
+    private static Instant getAttachmentTime(byte[] key, int offset) {
+        ByteBuffer buffer = ByteBuffer.wrap(key, offset, ATTACHMENT_TIME_SIZE);
+        long epochSecond = buffer.getLong() ^ Long.MIN_VALUE;
+        return Instant.ofEpochSecond(epochSecond, buffer.getInt());
+    }
+}
@@ -0,0 +1,22 @@
+package io.coti.basenode.data;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class BackupCatalogData implements Serializable {
+
+    private static final long serialVersionUID = -5723380271549624385L;
+    private List<BackupCatalogEntryData> backups;
+    private Map<String, String> fileChecksums;
+
+    public BackupCatalogData() {
+        backups = new ArrayList<>();
+        fileChecksums = new HashMap<>();
+    }
+}
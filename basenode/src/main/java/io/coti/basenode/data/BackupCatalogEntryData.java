@@ -0,0 +1,31 @@
+package io.coti.basenode.data;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class BackupCatalogEntryData implements Serializable {
+
+    private static final long serialVersionUID = 6147215735329813064L;
+    private String backupName;
+    private long creationTime;
+    private int numberOfFiles;
+    private long size;
+    private int uploadedFiles;
+    private long uploadedSize;
+    private long duration;
+
+    private BackupCatalogEntryData() {
+    }
+
+    public BackupCatalogEntryData(String backupName, long creationTime, int numberOfFiles, long size, int uploadedFiles, long uploadedSize, long duration) {
+        this.backupName = backupName;
+        this.creationTime = creationTime;
+        this.numberOfFiles = numberOfFiles;
+        this.size = size;
+        this.uploadedFiles = uploadedFiles;
+        this.uploadedSize = uploadedSize;
+        this.duration = duration;
+    }
+}
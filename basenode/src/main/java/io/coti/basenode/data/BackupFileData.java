@@ -0,0 +1,25 @@
+package io.coti.basenode.data;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class BackupFileData implements Serializable {
+
+    private static final long serialVersionUID = -3406224386093914472L;
+    private String fileName;
+    private String remoteKey;
+    private long size;
+    private String checksum;
+
+    private BackupFileData() {
+    }
+
+    public BackupFileData(String fileName, String remoteKey, long size, String checksum) {
+        this.fileName = fileName;
+        this.remoteKey = remoteKey;
+        this.size = size;
+        this.checksum = checksum;
+    }
+}
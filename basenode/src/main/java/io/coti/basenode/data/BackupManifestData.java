@@ -0,0 +1,30 @@
+package io.coti.basenode.data;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+public class BackupManifestData implements Serializable {
+
+    private static final long serialVersionUID = 2087406539386245718L;
+    private String backupName;
+    private long creationTime;
+    private List<BackupFileData> files;
+
+    private BackupManifestData() {
+    }
+
+    public BackupManifestData(String backupName, long creationTime, List<BackupFileData> files) {
+        this.backupName = backupName;
+        this.creationTime = creationTime;
+        this.files = files;
+    }
+
+    @JsonIgnore
+    public long getSize() {
+        return files.stream().mapToLong(BackupFileData::getSize).sum();
+    }
+}
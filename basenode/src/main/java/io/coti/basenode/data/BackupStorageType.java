@@ -0,0 +1,6 @@
+package io.coti.basenode.data;
+
+public enum BackupStorageType {
+    S3,
+    Local
+}
@@ -0,0 +1,492 @@
+package io.coti.basenode.data;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+public class BalanceLedger {
+
+    public static final int SCALE = 8;
+    private static final int BALANCE = 0;
+    private static final int PRE_BALANCE = 1;
+    private static final int NO_SCALE = Integer.MIN_VALUE;
+    private static final int MIN_STRIPES = 16;
+    private static final int STRIPES_PER_PROCESSOR = 8;
+    private final Stripe[] stripes;
+
+    public BalanceLedger() {
+        this(Runtime.getRuntime().availableProcessors() * STRIPES_PER_PROCESSOR);
+    }
+
+    public BalanceLedger(int minimumStripes) {
+        int numberOfStripes = MIN_STRIPES;
+        while (numberOfStripes < minimumStripes) {
+            numberOfStripes <<= 1;
+        }
+        stripes = new Stripe[numberOfStripes];
+        for (int i = 0; i < numberOfStripes; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public BigDecimal getBalance(Hash addressHash, Hash currencyHash) {
+        return get(addressHash, currencyHash, BALANCE);
+    }
+
+    public BigDecimal getPreBalance(Hash addressHash, Hash currencyHash) {
+        return get(addressHash, currencyHash, PRE_BALANCE);
+    }
+
+    public boolean hasBalance(Hash addressHash, Hash currencyHash) {
+        Stripe stripe = getStripe(addressHash);
+        stripe.lock.lock();
+        try {
+            AddressBalances addressBalances = stripe.get(addressHash);
+            if (addressBalances == null) {
+                return false;
+            }
+            int slot = addressBalances.indexOf(currencyHash);
+            return slot >= 0 && addressBalances.isPresent(slot, BALANCE);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void addToBalance(Hash addressHash, Hash currencyHash, BigDecimal amount) {
+        add(addressHash, currencyHash, amount, BALANCE);
+    }
+
+    public void addToPreBalance(Hash addressHash, Hash currencyHash, BigDecimal amount) {
+        add(addressHash, currencyHash, amount, PRE_BALANCE);
+    }
+
+    /**
+     * Adds the amount to both the balance and the preBalance unless the address already has a balance for the currency.
+     * The check and the update are done under the same stripe lock, so concurrent loaders can not both add the address.
+     */
+    public boolean addToBalanceAndPreBalanceIfAbsent(Hash addressHash, Hash currencyHash, BigDecimal amount) {
+        Long scaledAmount = toScaled(amount);
+        Stripe stripe = getStripe(addressHash);
+        stripe.lock.lock();
+        try {
+            AddressBalances addressBalances = stripe.getOrCreate(addressHash);
+            int slot = addressBalances.getOrCreateSlot(currencyHash);
+            if (addressBalances.isPresent(slot, BALANCE)) {
+                return false;
+            }
+            addressBalances.add(slot, BALANCE, scaledAmount, amount);
+            addressBalances.add(slot, PRE_BALANCE, scaledAmount, amount);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void addToPreBalanceIfPresent(Hash addressHash, Hash currencyHash, BigDecimal amount) {
+        Stripe stripe = getStripe(addressHash);
+        stripe.lock.lock();
+        try {
+            AddressBalances addressBalances = stripe.get(addressHash);
+            if (addressBalances != null) {
+                int slot = addressBalances.indexOf(currencyHash);
+                if (slot >= 0 && addressBalances.isPresent(slot, PRE_BALANCE)) {
+                    addressBalances.add(slot, PRE_BALANCE, toScaled(amount), amount);
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Checks every change against the balance and the running preBalance of its address and currency, and adds all changes
+     * to the preBalances only if none of them fails. Only the stripes of the involved addresses are locked, always in
+     * ascending order, so concurrent reservations on disjoint addresses do not wait for each other.
+     */
+    public boolean checkAndReserve(List<BalanceChange> balanceChanges) {
+        int[] stripeIndexes = balanceChanges.stream().mapToInt(balanceChange -> getStripeIndex(balanceChange.getAddressHash())).distinct().sorted().toArray();
+        for (int stripeIndex : stripeIndexes) {
+            stripes[stripeIndex].lock.lock();
+        }
+        try {
+            return checkAndReserveLocked(balanceChanges);
+        } finally {
+            for (int i = stripeIndexes.length - 1; i >= 0; i--) {
+                stripes[stripeIndexes[i]].lock.unlock();
+            }
+        }
+    }
+
+    private boolean checkAndReserveLocked(List<BalanceChange> balanceChanges) {
+        List<ReservedPreBalance> reservedPreBalances = new ArrayList<>();
+        long[] reservedCompactAmounts = new long[balanceChanges.size()];
+        BigDecimal[] reservedExactAmounts = new BigDecimal[balanceChanges.size()];
+        int[] reservedScales = new int[balanceChanges.size()];
+        Arrays.fill(reservedScales, NO_SCALE);
+        for (BalanceChange balanceChange : balanceChanges) {
+            Hash addressHash = balanceChange.getAddressHash();
+            Hash currencyHash = balanceChange.getCurrencyHash();
+            BigDecimal amount = balanceChange.getAmount();
+            Long scaledAmount = toScaled(amount);
+            AddressBalances addressBalances = stripes[getStripeIndex(addressHash)].get(addressHash);
+            int slot = addressBalances != null ? addressBalances.indexOf(currencyHash) : -1;
+
+            int reservedIndex = indexOf(reservedPreBalances, addressHash, currencyHash);
+            if (reservedIndex < 0) {
+                reservedIndex = reservedPreBalances.size();
+                reservedPreBalances.add(new ReservedPreBalance(addressHash, currencyHash));
+                if (slot >= 0) {
+                    reservedCompactAmounts[reservedIndex] = addressBalances.compactAmounts[slot * 2 + PRE_BALANCE];
+                    reservedExactAmounts[reservedIndex] = addressBalances.exactAmounts[slot * 2 + PRE_BALANCE];
+                    reservedScales[reservedIndex] = addressBalances.scales[slot * 2 + PRE_BALANCE];
+                }
+            }
+            long compactBalance = slot >= 0 ? addressBalances.compactAmounts[slot * 2 + BALANCE] : 0;
+            BigDecimal exactBalance = slot >= 0 ? addressBalances.exactAmounts[slot * 2 + BALANCE] : null;
+            int balanceScale = slot >= 0 ? addressBalances.scales[slot * 2 + BALANCE] : NO_SCALE;
+            if (isNegativeSum(compactBalance, exactBalance, balanceScale, scaledAmount, amount)) {
+                log.error("Error in Balance check. Address {},  amount {}, current Balance {} ", addressHash, amount, toBigDecimal(compactBalance, exactBalance, balanceScale));
+                return false;
+            }
+            if (isNegativeSum(reservedCompactAmounts[reservedIndex], reservedExactAmounts[reservedIndex], reservedScales[reservedIndex], scaledAmount, amount)) {
+                log.error("Error in PreBalance check. Address {},  amount {}, current PreBalance {} ", addressHash, amount,
+                        toBigDecimal(reservedCompactAmounts[reservedIndex], reservedExactAmounts[reservedIndex], reservedScales[reservedIndex]));
+                return false;
+            }
+            add(reservedCompactAmounts, reservedExactAmounts, reservedScales, reservedIndex, scaledAmount, amount);
+        }
+        for (int i = 0; i < reservedPreBalances.size(); i++) {
+            ReservedPreBalance reservedPreBalance = reservedPreBalances.get(i);
+            AddressBalances addressBalances = stripes[getStripeIndex(reservedPreBalance.addressHash)].getOrCreate(reservedPreBalance.addressHash);
+            int slot = addressBalances.getOrCreateSlot(reservedPreBalance.currencyHash);
+            addressBalances.set(slot, PRE_BALANCE, reservedCompactAmounts[i], reservedExactAmounts[i], reservedScales[i]);
+        }
+        return true;
+    }
+
+    public List<CurrencyBalance> getCurrencyBalances(Hash addressHash) {
+        List<CurrencyBalance> currencyBalances = new ArrayList<>();
+        Stripe stripe = getStripe(addressHash);
+        stripe.lock.lock();
+        try {
+            AddressBalances addressBalances = stripe.get(addressHash);
+            if (addressBalances != null) {
+                for (int slot = 0; slot < addressBalances.size; slot++) {
+                    currencyBalances.add(addressBalances.toCurrencyBalance(slot));
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        return currencyBalances;
+    }
+
+    public void forEach(BalanceConsumer balanceConsumer) {
+        for (Stripe stripe : stripes) {
+            List<CurrencyBalance> currencyBalances = new ArrayList<>();
+            List<Hash> addressHashes = new ArrayList<>();
+            stripe.lock.lock();
+            try {
+                for (AddressBalances addressBalances : stripe.values) {
+                    if (addressBalances != null) {
+                        for (int slot = 0; slot < addressBalances.size; slot++) {
+                            addressHashes.add(addressBalances.addressHash);
+                            currencyBalances.add(addressBalances.toCurrencyBalance(slot));
+                        }
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+            for (int i = 0; i < currencyBalances.size(); i++) {
+                balanceConsumer.accept(addressHashes.get(i), currencyBalances.get(i));
+            }
+        }
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private BigDecimal get(Hash addressHash, Hash currencyHash, int kind) {
+        Stripe stripe = getStripe(addressHash);
+        long compactAmount;
+        BigDecimal exactAmount;
+        int scale;
+        stripe.lock.lock();
+        try {
+            AddressBalances addressBalances = stripe.get(addressHash);
+            int slot = addressBalances != null ? addressBalances.indexOf(currencyHash) : -1;
+            if (slot < 0) {
+                return BigDecimal.ZERO;
+            }
+            compactAmount = addressBalances.compactAmounts[slot * 2 + kind];
+            exactAmount = addressBalances.exactAmounts[slot * 2 + kind];
+            scale = addressBalances.scales[slot * 2 + kind];
+        } finally {
+            stripe.lock.unlock();
+        }
+        return toBigDecimal(compactAmount, exactAmount, scale);
+    }
+
+    private void add(Hash addressHash, Hash currencyHash, BigDecimal amount, int kind) {
+        Long scaledAmount = toScaled(amount);
+        Stripe stripe = getStripe(addressHash);
+        stripe.lock.lock();
+        try {
+            AddressBalances addressBalances = stripe.getOrCreate(addressHash);
+            addressBalances.add(addressBalances.getOrCreateSlot(currencyHash), kind, scaledAmount, amount);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe getStripe(Hash addressHash) {
+        return stripes[getStripeIndex(addressHash)];
+    }
+
+    private int getStripeIndex(Hash addressHash) {
+        return spread(addressHash.hashCode()) & (stripes.length - 1);
+    }
+
+    private static int spread(int hashCode) {
+        int spreadHashCode = hashCode * 0x9E3779B9;
+        return spreadHashCode ^ (spreadHashCode >>> 16);
+    }
+
+    private static int indexOf(List<ReservedPreBalance> reservedPreBalances, Hash addressHash, Hash currencyHash) {
+        for (int i = 0; i < reservedPreBalances.size(); i++) {
+            ReservedPreBalance reservedPreBalance = reservedPreBalances.get(i);
+            if (reservedPreBalance.addressHash.equals(addressHash) && reservedPreBalance.currencyHash.equals(currencyHash)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Long toScaled(BigDecimal amount) {
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the amount with the scale of a plain BigDecimal sum of the added amounts, which is the largest scale among them.
+     */
+    private static BigDecimal toBigDecimal(long compactAmount, BigDecimal exactAmount, int scale) {
+        if (exactAmount != null) {
+            return exactAmount;
+        }
+        if (scale == NO_SCALE) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(compactAmount, SCALE).setScale(scale, RoundingMode.UNNECESSARY);
+    }
+
+    private static boolean isNegativeSum(long compactAmount, BigDecimal exactAmount, int scale, Long scaledAmount, BigDecimal amount) {
+        if (exactAmount == null && scaledAmount != null) {
+            long sum = compactAmount + scaledAmount;
+            if (((compactAmount ^ sum) & (scaledAmount ^ sum)) >= 0) {
+                return sum < 0;
+            }
+        }
+        return toBigDecimal(compactAmount, exactAmount, scale).add(amount).signum() < 0;
+    }
+
+    /**
+     * Adds to a compact amount as long as the result fits into a scaled long, and moves it to an exact amount otherwise.
+     */
+    private static void add(long[] compactAmounts, BigDecimal[] exactAmounts, int[] scales, int index, Long scaledAmount, BigDecimal amount) {
+        int scale = scales[index];
+        scales[index] = scale == NO_SCALE ? amount.scale() : Math.max(scale, amount.scale());
+        if (exactAmounts[index] == null && scaledAmount != null) {
+            long compactAmount = compactAmounts[index];
+            long sum = compactAmount + scaledAmount;
+            if (((compactAmount ^ sum) & (scaledAmount ^ sum)) >= 0) {
+                compactAmounts[index] = sum;
+                return;
+            }
+        }
+        exactAmounts[index] = toBigDecimal(compactAmounts[index], exactAmounts[index], scale).add(amount);
+        compactAmounts[index] = 0;
+    }
+
+    private static class Stripe {
+
+        private static final int INITIAL_CAPACITY = 16;
+        private final ReentrantLock lock = new ReentrantLock();
+        private Hash[] keys = new Hash[INITIAL_CAPACITY];
+        private AddressBalances[] values = new AddressBalances[INITIAL_CAPACITY];
+        private int size;
+
+        private AddressBalances get(Hash addressHash) {
+            int mask = keys.length - 1;
+            int index = Integer.rotateLeft(spread(addressHash.hashCode()), 16) & mask;
+            while (keys[index] != null) {
+                if (keys[index].equals(addressHash)) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private AddressBalances getOrCreate(Hash addressHash) {
+            AddressBalances addressBalances = get(addressHash);
+            if (addressBalances == null) {
+                if ((size + 1) * 2 > keys.length) {
+                    resize();
+                }
+                addressBalances = new AddressBalances(addressHash);
+                insert(addressHash, addressBalances);
+                size++;
+            }
+            return addressBalances;
+        }
+
+        private void insert(Hash addressHash, AddressBalances addressBalances) {
+            int mask = keys.length - 1;
+            int index = Integer.rotateLeft(spread(addressHash.hashCode()), 16) & mask;
+            while (keys[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = addressHash;
+            values[index] = addressBalances;
+        }
+
+        private void resize() {
+            Hash[] oldKeys = keys;
+            AddressBalances[] oldValues = values;
+            keys = new Hash[oldKeys.length * 2];
+            values = new AddressBalances[oldValues.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private void clear() {
+            keys = new Hash[INITIAL_CAPACITY];
+            values = new AddressBalances[INITIAL_CAPACITY];
+            size = 0;
+        }
+    }
+
+    private static class AddressBalances {
+
+        private static final byte BALANCE_PRESENT = 1;
+        private static final byte PRE_BALANCE_PRESENT = 2;
+        private final Hash addressHash;
+        private Hash[] currencyHashes = new Hash[1];
+        private long[] compactAmounts = new long[2];
+        private BigDecimal[] exactAmounts = new BigDecimal[2];
+        private int[] scales = {NO_SCALE, NO_SCALE};
+        private byte[] presence = new byte[1];
+        private int size;
+
+        private AddressBalances(Hash addressHash) {
+            this.addressHash = addressHash;
+        }
+
+        private int indexOf(Hash currencyHash) {
+            for (int slot = 0; slot < size; slot++) {
+                if (currencyHashes[slot].equals(currencyHash)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private int getOrCreateSlot(Hash currencyHash) {
+            int slot = indexOf(currencyHash);
+            if (slot >= 0) {
+                return slot;
+            }
+            if (size == currencyHashes.length) {
+                currencyHashes = Arrays.copyOf(currencyHashes, size * 2);
+                compactAmounts = Arrays.copyOf(compactAmounts, size * 4);
+                exactAmounts = Arrays.copyOf(exactAmounts, size * 4);
+                scales = Arrays.copyOf(scales, size * 4);
+                Arrays.fill(scales, size * 2, size * 4, NO_SCALE);
+                presence = Arrays.copyOf(presence, size * 2);
+            }
+            currencyHashes[size] = currencyHash;
+            return size++;
+        }
+
+        private boolean isPresent(int slot, int kind) {
+            return (presence[slot] & (kind == BALANCE ? BALANCE_PRESENT : PRE_BALANCE_PRESENT)) != 0;
+        }
+
+        private void add(int slot, int kind, Long scaledAmount, BigDecimal amount) {
+            BalanceLedger.add(compactAmounts, exactAmounts, scales, slot * 2 + kind, scaledAmount, amount);
+            presence[slot] |= kind == BALANCE ? BALANCE_PRESENT : PRE_BALANCE_PRESENT;
+        }
+
+        private void set(int slot, int kind, long compactAmount, BigDecimal exactAmount, int scale) {
+            compactAmounts[slot * 2 + kind] = compactAmount;
+            exactAmounts[slot * 2 + kind] = exactAmount;
+            scales[slot * 2 + kind] = scale;
+            presence[slot] |= kind == BALANCE ? BALANCE_PRESENT : PRE_BALANCE_PRESENT;
+        }
+
+        private CurrencyBalance toCurrencyBalance(int slot) {
+            return new CurrencyBalance(currencyHashes[slot],
+                    isPresent(slot, BALANCE) ? toBigDecimal(compactAmounts[slot * 2 + BALANCE], exactAmounts[slot * 2 + BALANCE], scales[slot * 2 + BALANCE]) : null,
+                    isPresent(slot, PRE_BALANCE) ? toBigDecimal(compactAmounts[slot * 2 + PRE_BALANCE], exactAmounts[slot * 2 + PRE_BALANCE], scales[slot * 2 + PRE_BALANCE]) : null);
+        }
+    }
+
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class ReservedPreBalance {
+
+        private final Hash addressHash;
+        private final Hash currencyHash;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class BalanceChange {
+
+        private final Hash addressHash;
+        private final Hash currencyHash;
+        private final BigDecimal amount;
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class CurrencyBalance {
+
+        private final Hash currencyHash;
+        /**
+         * The balance, or null if no balance was ever added for this currency.
+         */
+        private final BigDecimal balance;
+        /**
+         * The preBalance, or null if no preBalance was ever added for this currency.
+         */
+        private final BigDecimal preBalance;
+    }
+
+    public interface BalanceConsumer {
+
+        void accept(Hash addressHash, CurrencyBalance currencyBalance);
+    }
+}
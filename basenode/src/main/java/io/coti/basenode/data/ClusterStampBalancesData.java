@@ -0,0 +1,15 @@
+package io.coti.basenode.data;
+
+import lombok.Data;
+
+@Data
+public class ClusterStampBalancesData {
+
+    private long balanceLines;
+    private String trailingSection;
+
+    public ClusterStampBalancesData(long balanceLines, String trailingSection) {
+        this.balanceLines = balanceLines;
+        this.trailingSection = trailingSection;
+    }
+}
@@ -15,6 +15,7 @@ public class ClusterStampData implements ISignable, ISignValidatable {
     private Hash zeroSpendServerHash;
     private List<byte[]> signatureMessage = new ArrayList<>();
     private int messageByteSize = 0;
+    private Hash signatureMessageHash;
     private SignatureData zeroSpendSignature;
 
     @Override
@@ -11,6 +11,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Slf4j
 @Data
@@ -30,6 +31,26 @@ public class ExecutorData {
         futures.add(executorService.submit(runnable));
     }
 
+    /**
+     * Handles a batch of transactions on the executor thread. A transaction whose handling fails is logged and skipped,
+     * so the rest of its batch is still handled.
+     */
+    public void submit(List<TransactionData> transactionBatch, Consumer<TransactionData> transactionHandler, Runnable batchCompleted) {
+        submit(() -> {
+            try {
+                transactionBatch.forEach(transactionData -> {
+                    try {
+                        transactionHandler.accept(transactionData);
+                    } catch (Exception e) {
+                        log.error("Error at handling transaction {} by initial handler type {}", transactionData.getHash(), initializationTransactionHandlerType, e);
+                    }
+                });
+            } finally {
+                batchCompleted.run();
+            }
+        });
+    }
+
     public void waitForTermination() {
         AtomicInteger completedFutures = new AtomicInteger(0);
         Thread monitorCompletionThread = getMonitorCompletionThread(completedFutures);
@@ -41,7 +62,7 @@ public class ExecutorData {
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             } catch (ExecutionException e) {
-                log.error(e.getMessage());
+                log.error("Error at initial handler type {}", initializationTransactionHandlerType, e.getCause());
             }
         }
         executorService.shutdown();
@@ -0,0 +1,19 @@
+package io.coti.basenode.data;
+
+import lombok.Data;
+
+@Data
+public class LatencyHistogramData {
+
+    private long count;
+    private long median;
+    private long percentile99;
+    private long max;
+
+    public LatencyHistogramData(long count, long median, long percentile99, long max) {
+        this.count = count;
+        this.median = median;
+        this.percentile99 = percentile99;
+        this.max = max;
+    }
+}
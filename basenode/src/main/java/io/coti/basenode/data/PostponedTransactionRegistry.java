@@ -0,0 +1,96 @@
+package io.coti.basenode.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+public class PostponedTransactionRegistry {
+
+    private final Map<Hash, PostponedTransactionData> postponedTransactions = new LinkedHashMap<>();
+    private final Map<Hash, List<Hash>> missingParentHashToChildHashes = new HashMap<>();
+    private final AtomicLong releasedTransactions = new AtomicLong(0);
+
+    public synchronized boolean postpone(TransactionData transactionData, boolean isTransactionFromFullNode, Predicate<Hash> isParentMissing) {
+        Hash transactionHash = transactionData.getHash();
+        if (postponedTransactions.containsKey(transactionHash)) {
+            return true;
+        }
+        Set<Hash> missingParentHashes = new HashSet<>();
+        Arrays.asList(transactionData.getLeftParentHash(), transactionData.getRightParentHash()).forEach(parentHash -> {
+            if (parentHash != null && isParentMissing.test(parentHash)) {
+                missingParentHashes.add(parentHash);
+            }
+        });
+        if (missingParentHashes.isEmpty()) {
+            return false;
+        }
+        postponedTransactions.put(transactionHash, new PostponedTransactionData(transactionData, isTransactionFromFullNode, missingParentHashes.size()));
+        missingParentHashes.forEach(missingParentHash -> missingParentHashToChildHashes.computeIfAbsent(missingParentHash, hash -> new ArrayList<>()).add(transactionHash));
+        return true;
+    }
+
+    public synchronized List<PostponedTransactionData> release(Hash parentHash) {
+        List<Hash> childHashes = missingParentHashToChildHashes.remove(parentHash);
+        if (childHashes == null) {
+            return Collections.emptyList();
+        }
+        List<PostponedTransactionData> releasedTransactionDataList = new ArrayList<>();
+        childHashes.forEach(childHash -> {
+            PostponedTransactionData postponedTransactionData = postponedTransactions.get(childHash);
+            if (postponedTransactionData != null && --postponedTransactionData.pendingParents == 0) {
+                postponedTransactions.remove(childHash);
+                releasedTransactionDataList.add(postponedTransactionData);
+            }
+        });
+        releasedTransactions.addAndGet(releasedTransactionDataList.size());
+        return releasedTransactionDataList;
+    }
+
+    public synchronized List<TransactionData> getTransactions() {
+        List<TransactionData> transactions = new ArrayList<>(postponedTransactions.size());
+        postponedTransactions.values().forEach(postponedTransactionData -> transactions.add(postponedTransactionData.getTransactionData()));
+        return transactions;
+    }
+
+    public synchronized int size() {
+        return postponedTransactions.size();
+    }
+
+    public synchronized long getOldestAgeInMillis() {
+        Iterator<PostponedTransactionData> iterator = postponedTransactions.values().iterator();
+        return iterator.hasNext() ? Duration.between(iterator.next().getPostponedTime(), Instant.now()).toMillis() : 0;
+    }
+
+    public long getReleasedTransactions() {
+        return releasedTransactions.get();
+    }
+
+    public static class PostponedTransactionData {
+
+        private final TransactionData transactionData;
+        private final boolean transactionFromFullNode;
+        private final Instant postponedTime;
+        private int pendingParents;
+
+        private PostponedTransactionData(TransactionData transactionData, boolean transactionFromFullNode, int pendingParents) {
+            this.transactionData = transactionData;
+            this.transactionFromFullNode = transactionFromFullNode;
+            this.postponedTime = Instant.now();
+            this.pendingParents = pendingParents;
+        }
+
+        public TransactionData getTransactionData() {
+            return transactionData;
+        }
+
+        public boolean isTransactionFromFullNode() {
+            return transactionFromFullNode;
+        }
+
+        public Instant getPostponedTime() {
+            return postponedTime;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package io.coti.basenode.data;
+
+import java.time.Instant;
+import java.util.*;
+
+public class SourcePool {
+
+    public static final int MAX_TRUST_SCORE_BUCKET = 100;
+    private final Map<Hash, SourceHandle> sourceHandles = new HashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(createEmptyBuckets(), 0);
+
+    public synchronized boolean add(TransactionData transactionData) {
+        if (sourceHandles.containsKey(transactionData.getHash())) {
+            return false;
+        }
+        SourceHandle sourceHandle = new SourceHandle(transactionData);
+        sourceHandles.put(sourceHandle.getHash(), sourceHandle);
+        SourceBucket[] buckets = snapshot.buckets.clone();
+        buckets[sourceHandle.getTrustScoreBucket()] = buckets[sourceHandle.getTrustScoreBucket()].add(sourceHandle);
+        snapshot = new Snapshot(buckets, snapshot.size + 1);
+        return true;
+    }
+
+    public synchronized SourceHandle remove(Hash transactionHash) {
+        SourceHandle sourceHandle = sourceHandles.remove(transactionHash);
+        if (sourceHandle != null) {
+            SourceBucket[] buckets = snapshot.buckets.clone();
+            buckets[sourceHandle.getTrustScoreBucket()] = buckets[sourceHandle.getTrustScoreBucket()].remove(sourceHandle);
+            snapshot = new Snapshot(buckets, snapshot.size - 1);
+        }
+        return sourceHandle;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    private static SourceBucket[] createEmptyBuckets() {
+        SourceBucket[] buckets = new SourceBucket[MAX_TRUST_SCORE_BUCKET + 1];
+        Arrays.fill(buckets, SourceBucket.EMPTY);
+        return buckets;
+    }
+
+    public static class Snapshot {
+
+        private final SourceBucket[] buckets;
+        private final int size;
+
+        private Snapshot(SourceBucket[] buckets, int size) {
+            this.buckets = buckets;
+            this.size = size;
+        }
+
+        public SourceBucket getBucket(int trustScoreBucket) {
+            return buckets[trustScoreBucket];
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    public static class SourceBucket {
+
+        private static final SourceBucket EMPTY = new SourceBucket(new SourceHandle[0]);
+        private final SourceHandle[] sources;
+        private final long[] cumulativeAttachmentMillis;
+
+        private SourceBucket(SourceHandle[] sources) {
+            this.sources = sources;
+            cumulativeAttachmentMillis = new long[sources.length + 1];
+            for (int i = 0; i < sources.length; i++) {
+                cumulativeAttachmentMillis[i + 1] = cumulativeAttachmentMillis[i] + sources[i].getAttachmentMillis();
+            }
+        }
+
+        private SourceBucket add(SourceHandle sourceHandle) {
+            int insertionIndex = upperBound(sourceHandle.getAttachmentMillis());
+            SourceHandle[] updatedSources = new SourceHandle[sources.length + 1];
+            System.arraycopy(sources, 0, updatedSources, 0, insertionIndex);
+            updatedSources[insertionIndex] = sourceHandle;
+            System.arraycopy(sources, insertionIndex, updatedSources, insertionIndex + 1, sources.length - insertionIndex);
+            return new SourceBucket(updatedSources);
+        }
+
+        private SourceBucket remove(SourceHandle sourceHandle) {
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i] == sourceHandle) {
+                    SourceHandle[] updatedSources = new SourceHandle[sources.length - 1];
+                    System.arraycopy(sources, 0, updatedSources, 0, i);
+                    System.arraycopy(sources, i + 1, updatedSources, i, sources.length - i - 1);
+                    return updatedSources.length == 0 ? EMPTY : new SourceBucket(updatedSources);
+                }
+            }
+            return this;
+        }
+
+        public int size() {
+            return sources.length;
+        }
+
+        public SourceHandle get(int index) {
+            return sources[index];
+        }
+
+        /**
+         * Returns the number of sources attached at or before the given time. Sources are kept ordered by attachment time,
+         * so these are always the first sources of the bucket.
+         */
+        public int countAttachedUntil(long nowMillis) {
+            return upperBound(nowMillis);
+        }
+
+        /**
+         * Returns the total age in milliseconds of the first {@code count} sources.
+         */
+        public long getTotalAge(int count, long nowMillis) {
+            return count * nowMillis - cumulativeAttachmentMillis[count];
+        }
+
+        /**
+         * Returns the index of the source, among the first {@code count} sources, at which the cumulative age exceeds
+         * {@code ageOffset}. Runs a binary search over the cumulative attachment times.
+         */
+        public int findByTotalAge(long ageOffset, int count, long nowMillis) {
+            int low = 0;
+            int high = count - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (getTotalAge(middle + 1, nowMillis) > ageOffset) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+
+        private int upperBound(long attachmentMillis) {
+            int low = 0;
+            int high = sources.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sources[middle].getAttachmentMillis() <= attachmentMillis) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    public static class SourceHandle {
+
+        private final Hash hash;
+        private final int trustScoreBucket;
+        private final long attachmentMillis;
+        private final TransactionData transactionData;
+
+        private SourceHandle(TransactionData transactionData) {
+            this.hash = transactionData.getHash();
+            this.trustScoreBucket = Math.max(0, Math.min(MAX_TRUST_SCORE_BUCKET, transactionData.getRoundedSenderTrustScore()));
+            Instant attachmentTime = transactionData.getAttachmentTime();
+            this.attachmentMillis = attachmentTime != null ? attachmentTime.toEpochMilli() : Long.MAX_VALUE;
+            this.transactionData = transactionData;
+        }
+
+        public Hash getHash() {
+            return hash;
+        }
+
+        public int getTrustScoreBucket() {
+            return trustScoreBucket;
+        }
+
+        public long getAttachmentMillis() {
+            return attachmentMillis;
+        }
+
+        public TransactionData getTransactionData() {
+            return transactionData;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import io.coti.basenode.exceptions.DataBaseException;
 import io.coti.basenode.model.Collection;
 import io.coti.basenode.model.*;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 import org.rocksdb.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,8 +16,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.SerializationUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
@@ -29,6 +33,8 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
     private static final boolean CREATE_IF_MISSING = true;
     private static final boolean CREATE_MISSING_COLUMN_FAMILIES = true;
     private static final int MAX_TOTAL_WAL_SIZE_IN_BYTES = 536870912;
+    private static final String REPLACED_DB_FILES_FOLDER_SUFFIX = "-replaced";
+    private static final String DB_CURRENT_FILE_NAME = "CURRENT";
     @Value("${data.path:./}")
     protected String databaseFolder;
     @Value("${database.folder.name}")
@@ -39,6 +45,10 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
     private boolean dropNotListedColumnFamilies;
     @Value("${reset.transactions}")
     private boolean resetTransactions;
+    @Value("${db.block.cache.size:0}")
+    private long blockCacheSize;
+    @Value("${db.entity.codec.migrate:false}")
+    private boolean migrateToBinaryEntityCodec;
     @Autowired
     private ApplicationContext ctx;
     private String dbPath;
@@ -47,7 +57,12 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
     protected List<String> resetColumnFamilyNames = new ArrayList<>();
     protected List<String> resetTransactionColumnFamilyNames;
     private final Map<String, ColumnFamilyHandle> classNameToColumnFamilyHandleMapping = new LinkedHashMap<>();
-    private final ColumnFamilyOptions columnFamilyOptions = new ColumnFamilyOptions().optimizeUniversalStyleCompaction();
+    private final Map<String, ColumnFamilyProfile> columnFamilyNameToProfileMapping = new HashMap<>();
+    private final List<Collection<?>> collections = new ArrayList<>();
+    private final Map<String, ColumnFamilyOptions> columnFamilyNameToOptionsMapping = new HashMap<>();
+    private final Map<String, CompactionStyle> columnFamilyNameToCompactionStyleMapping = new HashMap<>();
+    private final List<Filter> bloomFilters = new ArrayList<>();
+    private Cache sharedBlockCache;
 
     @Override
     public void init() {
@@ -67,6 +82,7 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
                 Transactions.class.getName(),
                 Addresses.class.getName(),
                 AddressTransactionsHistories.class.getName(),
+                AddressTransactionsIndexes.class.getName(),
                 TransactionIndexes.class.getName(),
                 TransactionVotes.class.getName(),
                 NodeRegistrations.class.getName(),
@@ -78,6 +94,7 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
         resetTransactionColumnFamilyNames = new ArrayList<>(Arrays.asList(
                 Transactions.class.getName(),
                 AddressTransactionsHistories.class.getName(),
+                AddressTransactionsIndexes.class.getName(),
                 TransactionIndexes.class.getName()
         ));
     }
@@ -96,6 +113,9 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
 
             populateResetColumnFamilyNames();
             resetColumnFamilies();
+            if (migrateToBinaryEntityCodec) {
+                migrateColumnFamiliesToBinaryEntityCodec();
+            }
 
         } catch (DataBaseException e) {
             throw new DataBaseException("Error initiating Rocks DB.\n" + e.getMessage(), e);
@@ -104,6 +124,12 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
         }
     }
 
+    private void migrateColumnFamiliesToBinaryEntityCodec() {
+        log.info("Starting migration of column families to binary entity codec");
+        collections.stream().filter(Collection::hasEntityCodec).forEach(Collection::migrateToBinaryCodec);
+        log.info("Finished migration of column families to binary entity codec");
+    }
+
     protected void populateResetColumnFamilyNames() {
         if (resetTransactions) {
             resetColumnFamilyNames.addAll(resetTransactionColumnFamilyNames);
@@ -173,7 +199,7 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
                     columnFamilyHandle.close();
                     classNameToColumnFamilyHandleMapping.remove(columnFamilyName);
                     if (create) {
-                        columnFamilyHandle = db.createColumnFamily(new ColumnFamilyDescriptor(columnFamilyName.getBytes(StandardCharsets.UTF_8), columnFamilyOptions));
+                        columnFamilyHandle = db.createColumnFamily(new ColumnFamilyDescriptor(columnFamilyName.getBytes(StandardCharsets.UTF_8), getColumnFamilyOptions(columnFamilyName)));
                         classNameToColumnFamilyHandleMapping.put(columnFamilyName, columnFamilyHandle);
                         log.info("Column family {} reset", columnFamilyName);
                     } else {
@@ -193,6 +219,7 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
     private void openDB(List<String> dbColumnFamilies) {
         try (DBOptions dbOptions = new DBOptions()) {
 
+            initColumnFamilyOptions();
             List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>();
             List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>();
             initiateColumnFamilyDescriptors(dbColumnFamilies, columnFamilyDescriptors);
@@ -212,13 +239,83 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
     private void initColumnFamilyClasses() {
         for (int i = 1; i < columnFamilyClassNames.size(); i++) {
             try {
-                ((Collection<?>) ctx.getBean(Class.forName(columnFamilyClassNames.get(i)))).init();
+                Collection<?> collection = (Collection<?>) ctx.getBean(Class.forName(columnFamilyClassNames.get(i)));
+                collection.init();
+                collections.add(collection);
+                columnFamilyNameToProfileMapping.put(columnFamilyClassNames.get(i), collection.getColumnFamilyProfile());
             } catch (Exception e) {
                 throw new DataBaseException("Error at init column family classes.", e);
             }
         }
     }
 
+    private void initColumnFamilyOptions() {
+        if (sharedBlockCache != null) {
+            return;
+        }
+        long sharedBlockCacheSize = blockCacheSize > 0 ? blockCacheSize : getProfile(new String(RocksDB.DEFAULT_COLUMN_FAMILY)).getBlockCacheSizeInBytes() +
+                columnFamilyNameToProfileMapping.values().stream().mapToLong(ColumnFamilyProfile::getBlockCacheSizeInBytes).sum();
+        sharedBlockCache = new LRUCache(sharedBlockCacheSize);
+        log.info("RocksDB shared block cache of {} bytes created", sharedBlockCacheSize);
+        columnFamilyNameToCompactionStyleMapping.putAll(getColumnFamilyCompactionStylesFromDB());
+        columnFamilyNameToProfileMapping.forEach((columnFamilyName, columnFamilyProfile) ->
+                log.info("Column family {} uses profile {} with {} compaction", columnFamilyName, columnFamilyProfile, getCompactionStyle(columnFamilyName)));
+    }
+
+    /**
+     * Reads the compaction style of every column family from the options file of an existing database. Switching the
+     * compaction style of a column family that already has data is not supported by RocksDB without a full manual
+     * compaction, so the existing column families are opened with the style they were created with.
+     */
+    private Map<String, CompactionStyle> getColumnFamilyCompactionStylesFromDB() {
+        Map<String, CompactionStyle> columnFamilyNameToCompactionStyle = new HashMap<>();
+        if (!new File(dbPath, DB_CURRENT_FILE_NAME).isFile()) {
+            return columnFamilyNameToCompactionStyle;
+        }
+        List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>();
+        try (DBOptions dbOptions = new DBOptions()) {
+            OptionsUtil.loadLatestOptions(dbPath, Env.getDefault(), dbOptions, columnFamilyDescriptors, true);
+            columnFamilyDescriptors.forEach(columnFamilyDescriptor -> columnFamilyNameToCompactionStyle.put(
+                    new String(columnFamilyDescriptor.getName(), StandardCharsets.UTF_8), columnFamilyDescriptor.getOptions().compactionStyle()));
+            return columnFamilyNameToCompactionStyle;
+        } catch (Exception e) {
+            throw new DataBaseException("Error at getting column family compaction styles.", e);
+        } finally {
+            columnFamilyDescriptors.forEach(columnFamilyDescriptor -> columnFamilyDescriptor.getOptions().close());
+        }
+    }
+
+    private CompactionStyle getCompactionStyle(String columnFamilyName) {
+        return columnFamilyNameToCompactionStyleMapping.getOrDefault(columnFamilyName, getProfile(columnFamilyName).getCompactionStyle());
+    }
+
+    private ColumnFamilyProfile getProfile(String columnFamilyName) {
+        return columnFamilyNameToProfileMapping.getOrDefault(columnFamilyName, ColumnFamilyProfile.DEFAULT);
+    }
+
+    private ColumnFamilyOptions getColumnFamilyOptions(String columnFamilyName) {
+        return columnFamilyNameToOptionsMapping.computeIfAbsent(columnFamilyName, name -> {
+            ColumnFamilyProfile columnFamilyProfile = getProfile(name);
+            Filter bloomFilter = columnFamilyProfile.createBloomFilter();
+            if (bloomFilter != null) {
+                bloomFilters.add(bloomFilter);
+            }
+            return columnFamilyProfile.createColumnFamilyOptions(sharedBlockCache, bloomFilter, getCompactionStyle(name));
+        });
+    }
+
+    private void closeColumnFamilyOptions() {
+        columnFamilyNameToOptionsMapping.values().forEach(ColumnFamilyOptions::close);
+        columnFamilyNameToOptionsMapping.clear();
+        bloomFilters.forEach(Filter::close);
+        bloomFilters.clear();
+        columnFamilyNameToCompactionStyleMapping.clear();
+        if (sharedBlockCache != null) {
+            sharedBlockCache.close();
+            sharedBlockCache = null;
+        }
+    }
+
     private void populateColumnFamilies(List<String> dbColumnFamilyNames, List<ColumnFamilyHandle> columnFamilyHandles) {
         List<String> columnFamilyNamesToPopulate = Optional.ofNullable(dbColumnFamilyNames).orElse(columnFamilyClassNames);
         for (int i = 1; i < columnFamilyNamesToPopulate.size(); i++) {
@@ -230,7 +327,7 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
     private void initiateColumnFamilyDescriptors(List<String> dbColumnFamilies, List<ColumnFamilyDescriptor> columnFamilyDescriptors) {
         List<String> columnFamilyNamesToInit = Optional.ofNullable(dbColumnFamilies).orElse(columnFamilyClassNames);
         columnFamilyNamesToInit.forEach(columnFamilyName -> columnFamilyDescriptors.add(
-                new ColumnFamilyDescriptor(columnFamilyName.getBytes(StandardCharsets.UTF_8), columnFamilyOptions)));
+                new ColumnFamilyDescriptor(columnFamilyName.getBytes(StandardCharsets.UTF_8), getColumnFamilyOptions(columnFamilyName))));
     }
 
     @Override
@@ -274,6 +371,81 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
         }
     }
 
+    @Override
+    public void createCheckpoint(String checkpointPath) {
+        log.info("Starting database checkpoint to {}", checkpointPath);
+        try (Checkpoint checkpoint = Checkpoint.create(db)) {
+            checkpoint.createCheckpoint(checkpointPath);
+            log.info("Finished database checkpoint to {}", checkpointPath);
+        } catch (Exception e) {
+            throw new DataBaseException("Failed to create database checkpoint.", e);
+        }
+    }
+
+    /**
+     * Switches the database to the files of the checkpoint folder. The database files are moved aside and the checkpoint
+     * files moved in, all by renames within the same file system, and the moved aside files are put back if the database
+     * can not be opened with the checkpoint files.
+     */
+    @Override
+    public void restoreDataBaseFromCheckpoint(String checkpointPath) {
+        log.info("Starting database restore from checkpoint {}", checkpointPath);
+        File dbFolder = new File(dbPath);
+        File checkpointFolder = new File(checkpointPath);
+        File replacedFolder = new File(checkpointPath + REPLACED_DB_FILES_FOLDER_SUFFIX);
+        File[] checkpointFiles = checkpointFolder.listFiles(File::isFile);
+        if (checkpointFiles == null || checkpointFiles.length == 0) {
+            throw new DataBaseException(String.format("Failed to restore database. No files in checkpoint folder %s", checkpointPath));
+        }
+        try {
+            FileUtils.deleteDirectory(replacedFolder);
+            Files.createDirectories(replacedFolder.toPath());
+        } catch (Exception e) {
+            throw new DataBaseException("Failed to restore database from checkpoint", e);
+        }
+        closeDB();
+        try {
+            moveFiles(dbFolder, replacedFolder);
+            moveFiles(checkpointFolder, dbFolder);
+            checkIfBackupHasNotListedColumnFamilies();
+            openDB();
+        } catch (Exception e) {
+            log.error("Failed to open database from checkpoint {}, putting back the former database files", checkpointPath);
+            putBackReplacedFiles(dbFolder, replacedFolder);
+            if (e instanceof DataBaseException) {
+                throw new DataBaseException("Failed to restore database from checkpoint.\n" + e.getMessage(), e);
+            }
+            throw new DataBaseException("Failed to restore database from checkpoint", e);
+        }
+        FileUtils.deleteQuietly(replacedFolder);
+        log.info("Finished database restore from checkpoint {}", checkpointPath);
+    }
+
+    private void putBackReplacedFiles(File dbFolder, File replacedFolder) {
+        try {
+            File[] restoredFiles = dbFolder.listFiles(File::isFile);
+            if (restoredFiles != null) {
+                for (File restoredFile : restoredFiles) {
+                    Files.delete(restoredFile.toPath());
+                }
+            }
+            moveFiles(replacedFolder, dbFolder);
+            openDB();
+        } catch (Exception e) {
+            throw new DataBaseException(String.format("Failed to put back the former database files, they are kept at %s", replacedFolder), e);
+        }
+    }
+
+    private void moveFiles(File sourceFolder, File targetFolder) throws IOException {
+        File[] files = sourceFolder.listFiles(File::isFile);
+        if (files == null) {
+            throw new IOException(String.format("Unable to list folder %s", sourceFolder));
+        }
+        for (File file : files) {
+            Files.move(file.toPath(), new File(targetFolder, file.getName()).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
     private void checkIfBackupHasNotListedColumnFamilies() {
         List<String> dbColumnFamilyNames = getColumnFamilyNamesFromDB();
         List<String> notListedColumnFamilyNames = getNotListedColumnNames(dbColumnFamilyNames);
@@ -292,6 +464,22 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
         }
     }
 
+    @Override
+    public List<byte[]> multiGetByKeys(String columnFamilyName, List<byte[]> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        ColumnFamilyHandle columnFamilyHandle = classNameToColumnFamilyHandleMapping.get(columnFamilyName);
+        if (columnFamilyHandle == null) {
+            throw new DataBaseException(String.format("Column family %s wasn't found", columnFamilyName));
+        }
+        try {
+            return db.multiGetAsList(Collections.nCopies(keys.size(), columnFamilyHandle), keys);
+        } catch (RocksDBException e) {
+            throw new DataBaseException(String.format("Error at multi getting by keys from column family %s", columnFamilyName), e);
+        }
+    }
+
     public RocksIterator getIterator(String columnFamilyName) {
         try (ReadOptions readOptions = new ReadOptions()) {
             ColumnFamilyHandle columnFamilyHandler = classNameToColumnFamilyHandleMapping.get(columnFamilyName);
@@ -306,6 +494,25 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
         }
     }
 
+    @Override
+    public RocksIterator getIterator(String columnFamilyName, ReadOptions readOptions) {
+        ColumnFamilyHandle columnFamilyHandler = classNameToColumnFamilyHandleMapping.get(columnFamilyName);
+        if (columnFamilyHandler == null) {
+            throw new DataBaseException(String.format("Column family %s iterator wasn't found", columnFamilyName));
+        }
+        return db.newIterator(columnFamilyHandler, readOptions);
+    }
+
+    @Override
+    public long getEstimatedNumberOfKeys(String columnFamilyName) {
+        try {
+            return db.getLongProperty(classNameToColumnFamilyHandleMapping.get(columnFamilyName), "rocksdb.estimate-num-keys");
+        } catch (RocksDBException e) {
+            log.error("Error at getting the estimated number of keys of {}", columnFamilyName, e);
+            return 0;
+        }
+    }
+
     @Override
     public boolean isEmpty(String columnFamilyName) {
         RocksIterator iterator = getIterator(columnFamilyName);
@@ -365,6 +572,16 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
         }
     }
 
+    @Override
+    public boolean delete(String columnFamilyName, WriteBatch writeBatch, byte[] key) {
+        try {
+            writeBatch.delete(classNameToColumnFamilyHandleMapping.get(columnFamilyName), key);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
     @Override
     public IEntity get(Class<?> entityClass, Hash key) {
         try {
@@ -414,6 +631,7 @@ public class BaseNodeRocksDBConnector implements IDatabaseConnector {
         }
         db.close();
         db = null;
+        closeColumnFamilyOptions();
         log.info("RocksDB closed");
     }
 
@@ -0,0 +1,64 @@
+package io.coti.basenode.database;
+
+import lombok.Getter;
+import org.rocksdb.*;
+import org.rocksdb.util.SizeUnit;
+
+@Getter
+public enum ColumnFamilyProfile {
+    DEFAULT(8 * SizeUnit.MB, 0, CompactionStyle.UNIVERSAL, 128 * SizeUnit.MB, CompressionType.NO_COMPRESSION),
+    POINT_LOOKUP(128 * SizeUnit.MB, 10, CompactionStyle.LEVEL, 64 * SizeUnit.MB, CompressionType.LZ4_COMPRESSION),
+    INDEX(32 * SizeUnit.MB, 10, CompactionStyle.LEVEL, 32 * SizeUnit.MB, CompressionType.NO_COMPRESSION),
+    WRITE_HEAVY(64 * SizeUnit.MB, 10, CompactionStyle.UNIVERSAL, 128 * SizeUnit.MB, CompressionType.LZ4_COMPRESSION);
+
+    private static final long BLOCK_SIZE_IN_BYTES = 16 * SizeUnit.KB;
+    private static final int UNIVERSAL_MEMTABLE_BUDGET_MULTIPLIER = 4;
+    private final long blockCacheSizeInBytes;
+    private final int bloomBitsPerKey;
+    private final CompactionStyle compactionStyle;
+    private final long writeBufferSizeInBytes;
+    private final CompressionType compressionType;
+
+    ColumnFamilyProfile(long blockCacheSizeInBytes, int bloomBitsPerKey, CompactionStyle compactionStyle, long writeBufferSizeInBytes, CompressionType compressionType) {
+        this.blockCacheSizeInBytes = blockCacheSizeInBytes;
+        this.bloomBitsPerKey = bloomBitsPerKey;
+        this.compactionStyle = compactionStyle;
+        this.writeBufferSizeInBytes = writeBufferSizeInBytes;
+        this.compressionType = compressionType;
+    }
+
+    /**
+     * Returns a new bloom filter for the profile, or null if the profile has none. The caller closes the filter once the
+     * options using it are closed.
+     */
+    public Filter createBloomFilter() {
+        return bloomBitsPerKey > 0 ? new BloomFilter(bloomBitsPerKey, false) : null;
+    }
+
+    /**
+     * Creates the options of a column family with this profile. The compaction style is given by the caller, since a
+     * column family keeps the style it was created with and only a new one gets the style of its profile.
+     */
+    public ColumnFamilyOptions createColumnFamilyOptions(Cache sharedBlockCache, Filter bloomFilter, CompactionStyle columnFamilyCompactionStyle) {
+        BlockBasedTableConfig tableConfig = new BlockBasedTableConfig()
+                .setBlockCache(sharedBlockCache)
+                .setBlockSize(BLOCK_SIZE_IN_BYTES)
+                .setCacheIndexAndFilterBlocks(true)
+                .setPinL0FilterAndIndexBlocksInCache(true);
+        if (bloomFilter != null) {
+            tableConfig.setFilterPolicy(bloomFilter);
+        }
+
+        ColumnFamilyOptions columnFamilyOptions = new ColumnFamilyOptions();
+        if (columnFamilyCompactionStyle == CompactionStyle.UNIVERSAL) {
+            columnFamilyOptions.optimizeUniversalStyleCompaction(writeBufferSizeInBytes * UNIVERSAL_MEMTABLE_BUDGET_MULTIPLIER);
+        } else {
+            columnFamilyOptions.setLevelCompactionDynamicLevelBytes(true);
+        }
+        return columnFamilyOptions
+                .setCompactionStyle(columnFamilyCompactionStyle)
+                .setWriteBufferSize(writeBufferSizeInBytes)
+                .setCompressionType(compressionType)
+                .setTableFormatConfig(tableConfig);
+    }
+}
@@ -0,0 +1,77 @@
+package io.coti.basenode.database.backup;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.coti.basenode.data.BackupCatalogData;
+import io.coti.basenode.data.BackupCatalogEntryData;
+import io.coti.basenode.exceptions.FileSystemException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The backups made by the node and the checksums of the SST files already read, kept in a json file next to the local
+ * backups. The remote manifests stay the source of truth, so a missing or unreadable catalog only means the checksums
+ * are computed again.
+ */
+@Slf4j
+public class BackupCatalog {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Path catalogPath;
+    private final BackupCatalogData backupCatalogData;
+
+    public BackupCatalog(Path catalogPath) {
+        this.catalogPath = catalogPath;
+        this.backupCatalogData = load();
+    }
+
+    private BackupCatalogData load() {
+        if (Files.exists(catalogPath)) {
+            try {
+                return OBJECT_MAPPER.readValue(catalogPath.toFile(), BackupCatalogData.class);
+            } catch (IOException e) {
+                log.error("Unable to read the backup catalog {}, starting a new one", catalogPath, e);
+            }
+        }
+        return new BackupCatalogData();
+    }
+
+    public synchronized String getFileChecksum(String fileChecksumKey) {
+        return backupCatalogData.getFileChecksums().get(fileChecksumKey);
+    }
+
+    public synchronized void addBackup(BackupCatalogEntryData backupCatalogEntryData, Map<String, String> fileChecksums) {
+        backupCatalogData.getBackups().add(backupCatalogEntryData);
+        backupCatalogData.getFileChecksums().clear();
+        backupCatalogData.getFileChecksums().putAll(fileChecksums);
+        save();
+    }
+
+    public synchronized void retainBackups(Set<String> backupNames) {
+        if (backupCatalogData.getBackups().removeIf(backupCatalogEntryData -> !backupNames.contains(backupCatalogEntryData.getBackupName()))) {
+            save();
+        }
+    }
+
+    public synchronized List<BackupCatalogEntryData> getBackups() {
+        return new ArrayList<>(backupCatalogData.getBackups());
+    }
+
+    private void save() {
+        try {
+            Path temporaryPath = catalogPath.resolveSibling(catalogPath.getFileName() + ".tmp");
+            OBJECT_MAPPER.writeValue(temporaryPath.toFile(), backupCatalogData);
+            Files.move(temporaryPath, catalogPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new FileSystemException(String.format("Unable to write the backup catalog %s", catalogPath), e);
+        }
+    }
+}
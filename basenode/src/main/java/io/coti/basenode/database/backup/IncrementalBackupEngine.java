@@ -0,0 +1,338 @@
+package io.coti.basenode.database.backup;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.RateLimiter;
+import io.coti.basenode.data.BackupCatalogEntryData;
+import io.coti.basenode.data.BackupFileData;
+import io.coti.basenode.data.BackupManifestData;
+import io.coti.basenode.database.interfaces.IBackupStorage;
+import io.coti.basenode.exceptions.DataBaseBackupException;
+import io.coti.basenode.exceptions.DataBaseRestoreException;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Backs up RocksDB checkpoints incrementally. A checkpoint hard links the live SST files, which never change once
+ * written, so every SST file is stored once under a key made of its name, size and SHA-256 checksum and is shared by all
+ * the backups that contain it. A backup uploads only the SST files whose key is not in the storage yet, together with the
+ * small metadata files of the checkpoint, and its manifest is uploaded last, so a backup is complete once its manifest
+ * exists.
+ * <p>
+ * A restore downloads the files of the latest manifest in parallel and verifies the size and checksum of every file
+ * before the database is switched to them.
+ */
+@Slf4j
+public class IncrementalBackupEngine {
+
+    public static final String BACKUP_FOLDER_PREFIX = "checkpoint-";
+    public static final String MANIFEST_FILE_NAME = "backup-manifest.json";
+    private static final String SST_FOLDER = "sst";
+    private static final String SST_FILE_SUFFIX = ".sst";
+    private static final String CHECKSUM_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 65536;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final IBackupStorage backupStorage;
+    private final BackupCatalog backupCatalog;
+    private final int threads;
+    private final RateLimiter rateLimiter;
+
+    public IncrementalBackupEngine(IBackupStorage backupStorage, BackupCatalog backupCatalog, int threads, long bytesPerSecond) {
+        this.backupStorage = backupStorage;
+        this.backupCatalog = backupCatalog;
+        this.threads = Math.max(threads, 1);
+        this.rateLimiter = bytesPerSecond > 0 ? RateLimiter.create(bytesPerSecond) : null;
+    }
+
+    public BackupCatalogEntryData backup(File checkpointFolder, String bucketName, String backupPath) {
+        long startTime = System.currentTimeMillis();
+        String backupName = BACKUP_FOLDER_PREFIX + startTime;
+        File[] checkpointFiles = checkpointFolder.listFiles(File::isFile);
+        if (checkpointFiles == null || checkpointFiles.length == 0) {
+            throw new DataBaseBackupException(String.format("No files to back up in checkpoint folder %s", checkpointFolder));
+        }
+        Set<String> storedSstKeys = new HashSet<>(backupStorage.listKeys(bucketName, backupPath + "/" + SST_FOLDER));
+        Map<String, String> fileChecksums = new ConcurrentHashMap<>();
+        AtomicInteger uploadedFiles = new AtomicInteger(0);
+        AtomicLong uploadedSize = new AtomicLong(0);
+        List<BackupFileData> backupFiles;
+        try {
+            backupFiles = runInParallel(Arrays.asList(checkpointFiles), "Backup", checkpointFile -> {
+                BackupFileData backupFileData = backupFile(checkpointFile, bucketName, backupPath, backupName, storedSstKeys, fileChecksums);
+                if (!storedSstKeys.contains(backupFileData.getRemoteKey())) {
+                    uploadedFiles.incrementAndGet();
+                    uploadedSize.addAndGet(backupFileData.getSize());
+                }
+                return backupFileData;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataBaseBackupException(String.format("Backup %s was interrupted", backupName), e);
+        } catch (ExecutionException e) {
+            throw new DataBaseBackupException(String.format("Backup %s failed", backupName), e.getCause());
+        }
+
+        BackupManifestData backupManifestData = new BackupManifestData(backupName, startTime, backupFiles);
+        uploadManifest(bucketName, getManifestKey(backupPath, backupName), backupManifestData);
+        BackupCatalogEntryData backupCatalogEntryData = new BackupCatalogEntryData(backupName, startTime, backupFiles.size(), backupManifestData.getSize(),
+                uploadedFiles.get(), uploadedSize.get(), System.currentTimeMillis() - startTime);
+        backupCatalog.addBackup(backupCatalogEntryData, fileChecksums);
+        log.info("Backup {} has {} files of {} bytes, uploaded {} files of {} bytes in {} ms", backupName, backupCatalogEntryData.getNumberOfFiles(),
+                backupCatalogEntryData.getSize(), backupCatalogEntryData.getUploadedFiles(), backupCatalogEntryData.getUploadedSize(), backupCatalogEntryData.getDuration());
+        return backupCatalogEntryData;
+    }
+
+    private BackupFileData backupFile(File checkpointFile, String bucketName, String backupPath, String backupName, Set<String> storedSstKeys,
+                                      Map<String, String> fileChecksums) throws IOException {
+        String fileName = checkpointFile.getName();
+        BasicFileAttributes fileAttributes = Files.readAttributes(checkpointFile.toPath(), BasicFileAttributes.class);
+        long size = fileAttributes.size();
+        if (!fileName.endsWith(SST_FILE_SUFFIX)) {
+            String remoteKey = backupPath + "/" + backupName + "/" + fileName;
+            String checksum = uploadFile(checkpointFile, size, bucketName, remoteKey, null);
+            return new BackupFileData(fileName, remoteKey, size, checksum);
+        }
+
+        String fileChecksumKey = getFileChecksumKey(fileName, fileAttributes);
+        String checksum = fileChecksumKey != null ? backupCatalog.getFileChecksum(fileChecksumKey) : null;
+        if (checksum == null) {
+            checksum = computeChecksum(checkpointFile);
+        }
+        if (fileChecksumKey != null) {
+            fileChecksums.put(fileChecksumKey, checksum);
+        }
+        String remoteKey = backupPath + "/" + SST_FOLDER + "/" + fileName.substring(0, fileName.length() - SST_FILE_SUFFIX.length()) + "-" + size + "-"
+                + checksum + SST_FILE_SUFFIX;
+        if (!storedSstKeys.contains(remoteKey)) {
+            uploadFile(checkpointFile, size, bucketName, remoteKey, checksum);
+        }
+        return new BackupFileData(fileName, remoteKey, size, checksum);
+    }
+
+    /**
+     * The checkpoint file is a hard link to the live SST file, so the file key, which is the inode on Linux, together with
+     * the name, size and modification time identify the same SST file in every checkpoint.
+     */
+    private String getFileChecksumKey(String fileName, BasicFileAttributes fileAttributes) {
+        Object fileKey = fileAttributes.fileKey();
+        if (fileKey == null) {
+            return null;
+        }
+        return fileName + "|" + fileAttributes.size() + "|" + fileAttributes.lastModifiedTime().toMillis() + "|" + fileKey;
+    }
+
+    private String uploadFile(File file, long size, String bucketName, String remoteKey, String expectedChecksum) throws IOException {
+        String checksum;
+        try (ChecksumInputStream inputStream = new ChecksumInputStream(getInputStream(new FileInputStream(file)))) {
+            backupStorage.upload(bucketName, remoteKey, inputStream, size);
+            checksum = inputStream.getChecksum();
+        }
+        if (expectedChecksum != null && !expectedChecksum.equals(checksum)) {
+            backupStorage.delete(bucketName, Collections.singletonList(remoteKey));
+            throw new DataBaseBackupException(String.format("Checksum of %s changed while uploading it", file.getName()));
+        }
+        return checksum;
+    }
+
+    private String computeChecksum(File file) throws IOException {
+        try (ChecksumInputStream inputStream = new ChecksumInputStream(getInputStream(new FileInputStream(file)))) {
+            ByteStreams.exhaust(inputStream);
+            return inputStream.getChecksum();
+        }
+    }
+
+    private void uploadManifest(String bucketName, String manifestKey, BackupManifestData backupManifestData) {
+        try {
+            byte[] manifest = OBJECT_MAPPER.writeValueAsBytes(backupManifestData);
+            backupStorage.upload(bucketName, manifestKey, new ByteArrayInputStream(manifest), manifest.length);
+        } catch (IOException e) {
+            throw new DataBaseBackupException(String.format("Unable to upload the manifest of backup %s", backupManifestData.getBackupName()), e);
+        }
+    }
+
+    /**
+     * Keeps the newest backups and deletes the older ones, the backups that never got a manifest, the backups of the
+     * former full backup format and the SST files no kept manifest refers to.
+     */
+    public void removeOlderBackups(String bucketName, String backupPath, int allowedNumberOfBackups) {
+        List<String> storedKeys = backupStorage.listKeys(bucketName, backupPath);
+        List<String> keptBackupNames = getCompleteBackupNames(storedKeys, backupPath).stream().limit(allowedNumberOfBackups).collect(Collectors.toList());
+        if (keptBackupNames.isEmpty()) {
+            return;
+        }
+        Set<String> referencedKeys = new HashSet<>();
+        keptBackupNames.forEach(backupName -> downloadManifest(bucketName, getManifestKey(backupPath, backupName)).getFiles()
+                .forEach(backupFileData -> referencedKeys.add(backupFileData.getRemoteKey())));
+
+        List<String> keysToRemove = storedKeys.stream().filter(storedKey -> {
+            String folderName = getFolderName(storedKey, backupPath);
+            if (folderName == null) {
+                return false;
+            }
+            if (folderName.equals(SST_FOLDER)) {
+                return !referencedKeys.contains(storedKey);
+            }
+            return !keptBackupNames.contains(folderName);
+        }).collect(Collectors.toList());
+        if (!keysToRemove.isEmpty()) {
+            log.info("Deleting {} files of older backups, keeping backups {}", keysToRemove.size(), keptBackupNames);
+            backupStorage.delete(bucketName, keysToRemove);
+        }
+        backupCatalog.retainBackups(new HashSet<>(keptBackupNames));
+    }
+
+    /**
+     * Downloads and verifies the files of the latest complete backup into the restore folder. Returns false when the
+     * storage has no complete backup.
+     */
+    public boolean restoreLatestBackup(String bucketName, String backupPath, File restoreFolder) {
+        List<String> storedKeys = backupStorage.listKeys(bucketName, backupPath);
+        Optional<String> latestBackupName = getCompleteBackupNames(storedKeys, backupPath).stream().findFirst();
+        if (!latestBackupName.isPresent()) {
+            return false;
+        }
+        BackupManifestData backupManifestData = downloadManifest(bucketName, getManifestKey(backupPath, latestBackupName.get()));
+        log.info("Downloading backup {} with {} files of {} bytes", backupManifestData.getBackupName(), backupManifestData.getFiles().size(), backupManifestData.getSize());
+        try {
+            runInParallel(backupManifestData.getFiles(), "Restore", backupFileData -> {
+                restoreFile(bucketName, backupPath, backupFileData, restoreFolder);
+                return backupFileData;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataBaseRestoreException(String.format("Restore of backup %s was interrupted", backupManifestData.getBackupName()), e);
+        } catch (ExecutionException e) {
+            throw new DataBaseRestoreException(String.format("Restore of backup %s failed", backupManifestData.getBackupName()), e.getCause());
+        }
+        log.info("Downloaded and verified backup {}", backupManifestData.getBackupName());
+        return true;
+    }
+
+    private void restoreFile(String bucketName, String backupPath, BackupFileData backupFileData, File restoreFolder) throws IOException {
+        String fileName = backupFileData.getFileName();
+        if (fileName.contains("/") || fileName.contains("\\") || fileName.startsWith(".") || !backupFileData.getRemoteKey().startsWith(backupPath + "/")) {
+            throw new DataBaseRestoreException(String.format("Invalid file %s in backup manifest", fileName));
+        }
+        File restoredFile = new File(restoreFolder, fileName);
+        String checksum;
+        try (ChecksumInputStream inputStream = new ChecksumInputStream(getInputStream(backupStorage.download(bucketName, backupFileData.getRemoteKey())))) {
+            Files.copy(inputStream, restoredFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            checksum = inputStream.getChecksum();
+        }
+        if (restoredFile.length() != backupFileData.getSize() || !checksum.equals(backupFileData.getChecksum())) {
+            throw new DataBaseRestoreException(String.format("Restored file %s does not match its size and checksum in the backup manifest", fileName));
+        }
+    }
+
+    private BackupManifestData downloadManifest(String bucketName, String manifestKey) {
+        try (InputStream inputStream = backupStorage.download(bucketName, manifestKey)) {
+            return OBJECT_MAPPER.readValue(inputStream, BackupManifestData.class);
+        } catch (IOException e) {
+            throw new DataBaseRestoreException(String.format("Unable to read the backup manifest %s", manifestKey), e);
+        }
+    }
+
+    /**
+     * Returns the names of the backups that have a manifest, newest first.
+     */
+    private List<String> getCompleteBackupNames(List<String> storedKeys, String backupPath) {
+        return storedKeys.stream()
+                .filter(storedKey -> {
+                    String folderName = getFolderName(storedKey, backupPath);
+                    return folderName != null && folderName.startsWith(BACKUP_FOLDER_PREFIX) && storedKey.equals(getManifestKey(backupPath, folderName));
+                })
+                .map(storedKey -> getFolderName(storedKey, backupPath))
+                .sorted(Comparator.comparingLong((String backupName) -> getBackupTime(backupName)).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private long getBackupTime(String backupName) {
+        try {
+            return Long.parseLong(backupName.substring(BACKUP_FOLDER_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private String getFolderName(String storedKey, String backupPath) {
+        if (!storedKey.startsWith(backupPath + "/")) {
+            return null;
+        }
+        String relativeKey = storedKey.substring(backupPath.length() + 1);
+        int folderEnd = relativeKey.indexOf('/');
+        return folderEnd > 0 ? relativeKey.substring(0, folderEnd) : null;
+    }
+
+    private String getManifestKey(String backupPath, String backupName) {
+        return backupPath + "/" + backupName + "/" + MANIFEST_FILE_NAME;
+    }
+
+    private InputStream getInputStream(InputStream inputStream) {
+        InputStream bufferedInputStream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        return rateLimiter != null ? new RateLimitedInputStream(bufferedInputStream, rateLimiter) : bufferedInputStream;
+    }
+
+    private <T, R> List<R> runInParallel(List<T> items, String threadName, ParallelTask<T, R> parallelTask) throws InterruptedException, ExecutionException {
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threads, Math.max(items.size(), 1)),
+                runnable -> new Thread(runnable, threadName + " " + threadNumber.getAndIncrement()));
+        try {
+            List<Future<R>> futures = new ArrayList<>(items.size());
+            items.forEach(item -> futures.add(executorService.submit(() -> parallelTask.run(item))));
+            List<R> results = new ArrayList<>(items.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private interface ParallelTask<T, R> {
+
+        R run(T item) throws Exception;
+    }
+
+    /**
+     * Computes the checksum of the bytes read. Mark and reset are not supported, so a storage client that retries a
+     * request has to buffer the stream itself instead of reading bytes again through the digest.
+     */
+    private static class ChecksumInputStream extends DigestInputStream {
+
+        private ChecksumInputStream(InputStream inputStream) {
+            super(inputStream, createMessageDigest());
+        }
+
+        private static MessageDigest createMessageDigest() {
+            try {
+                return MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private String getChecksum() {
+            return DatatypeConverter.printHexBinary(getMessageDigest().digest()).toLowerCase();
+        }
+    }
+}
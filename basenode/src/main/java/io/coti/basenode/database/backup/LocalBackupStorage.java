@@ -0,0 +1,95 @@
+package io.coti.basenode.database.backup;
+
+import io.coti.basenode.database.interfaces.IBackupStorage;
+import io.coti.basenode.exceptions.FileSystemException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the backups in a local folder, with a sub folder for every bucket. Files are written to a temporary file and
+ * moved to their key when complete, so a key is never seen with partial content.
+ */
+public class LocalBackupStorage implements IBackupStorage {
+
+    private static final String TEMPORARY_FILE_PREFIX = ".upload-";
+    private final Path storagePath;
+
+    public LocalBackupStorage(Path storagePath) {
+        this.storagePath = storagePath;
+    }
+
+    @Override
+    public List<String> listKeys(String bucketName, String folderPath) {
+        Path bucketPath = storagePath.resolve(bucketName);
+        Path folder = bucketPath.resolve(folderPath);
+        if (!Files.isDirectory(folder)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.walk(folder)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith(TEMPORARY_FILE_PREFIX))
+                    .map(path -> bucketPath.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/"))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new FileSystemException(String.format("Unable to list the backup storage folder %s", folder), e);
+        }
+    }
+
+    @Override
+    public void upload(String bucketName, String key, InputStream inputStream, long length) {
+        Path target = storagePath.resolve(bucketName).resolve(key);
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temporaryFile = Files.createTempFile(target.getParent(), TEMPORARY_FILE_PREFIX, null);
+            long copied = Files.copy(inputStream, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            if (copied != length) {
+                throw new FileSystemException(String.format("Stored %d bytes of %s instead of %d", copied, key, length));
+            }
+            Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new FileSystemException(String.format("Unable to store %s in the backup storage", key), e);
+        } finally {
+            deleteTemporaryFile(temporaryFile);
+        }
+    }
+
+    @Override
+    public InputStream download(String bucketName, String key) {
+        try {
+            return Files.newInputStream(storagePath.resolve(bucketName).resolve(key));
+        } catch (IOException e) {
+            throw new FileSystemException(String.format("Unable to read %s from the backup storage", key), e);
+        }
+    }
+
+    @Override
+    public void delete(String bucketName, List<String> keys) {
+        Path bucketPath = storagePath.resolve(bucketName);
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(bucketPath.resolve(key));
+            } catch (IOException e) {
+                throw new FileSystemException(String.format("Unable to delete %s from the backup storage", key), e);
+            }
+        }
+    }
+
+    private void deleteTemporaryFile(Path temporaryFile) {
+        try {
+            if (temporaryFile != null) {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            throw new FileSystemException(String.format("Unable to delete the temporary file %s", temporaryFile), e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.coti.basenode.database.backup;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Takes a permit of the rate limiter for every byte read, so all the streams that share a rate limiter together read at
+ * most its rate.
+ */
+public class RateLimitedInputStream extends FilterInputStream {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitedInputStream(InputStream inputStream, RateLimiter rateLimiter) {
+        super(inputStream);
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read >= 0) {
+            rateLimiter.acquire();
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        int read = super.read(bytes, offset, length);
+        if (read > 0) {
+            rateLimiter.acquire(read);
+        }
+        return read;
+    }
+}
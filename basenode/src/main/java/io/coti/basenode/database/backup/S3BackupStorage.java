@@ -0,0 +1,38 @@
+package io.coti.basenode.database.backup;
+
+import io.coti.basenode.database.interfaces.IBackupStorage;
+import io.coti.basenode.services.interfaces.IAwsService;
+
+import java.io.InputStream;
+import java.util.List;
+
+public class S3BackupStorage implements IBackupStorage {
+
+    private final IAwsService awsService;
+
+    public S3BackupStorage(IAwsService awsService) {
+        this.awsService = awsService;
+    }
+
+    @Override
+    public List<String> listKeys(String bucketName, String folderPath) {
+        return awsService.listS3Paths(bucketName, folderPath);
+    }
+
+    @Override
+    public void upload(String bucketName, String key, InputStream inputStream, long length) {
+        awsService.uploadStreamToS3(bucketName, key, inputStream, length);
+    }
+
+    @Override
+    public InputStream download(String bucketName, String key) {
+        return awsService.getS3ObjectContent(bucketName, key);
+    }
+
+    @Override
+    public void delete(String bucketName, List<String> keys) {
+        if (!keys.isEmpty()) {
+            awsService.deleteFolderAndContentsFromS3(keys, bucketName);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.coti.basenode.database.codec;
+
+import io.coti.basenode.data.AddressTransactionIndexData;
+import io.coti.basenode.data.interfaces.IEntity;
+import io.coti.basenode.database.interfaces.IEntityCodec;
+
+public class AddressTransactionIndexDataCodec implements IEntityCodec<AddressTransactionIndexData> {
+
+    private static final byte CODEC_ID = 4;
+    private static final byte VERSION = 1;
+
+    @Override
+    public byte getCodecId() {
+        return CODEC_ID;
+    }
+
+    @Override
+    public byte getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public boolean canEncode(IEntity entity) {
+        return entity != null && entity.getClass() == AddressTransactionIndexData.class;
+    }
+
+    @Override
+    public void encode(AddressTransactionIndexData addressTransactionIndexData, BinaryEntityWriter writer) {
+        writer.writeHash(addressTransactionIndexData.getAddressHash());
+        writer.writeInstant(addressTransactionIndexData.getAttachmentTime());
+        writer.writeHash(addressTransactionIndexData.getTransactionHash());
+    }
+
+    @Override
+    public AddressTransactionIndexData decode(BinaryEntityReader reader, byte version) {
+        return new AddressTransactionIndexData(reader.readHash(), reader.readInstant(), reader.readHash());
+    }
+}
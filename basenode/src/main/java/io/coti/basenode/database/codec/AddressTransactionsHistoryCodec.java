@@ -0,0 +1,46 @@
+package io.coti.basenode.database.codec;
+
+import io.coti.basenode.data.AddressTransactionsHistory;
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.interfaces.IEntity;
+import io.coti.basenode.database.interfaces.IEntityCodec;
+
+public class AddressTransactionsHistoryCodec implements IEntityCodec<AddressTransactionsHistory> {
+
+    private static final byte CODEC_ID = 3;
+    private static final byte VERSION = 1;
+
+    @Override
+    public byte getCodecId() {
+        return CODEC_ID;
+    }
+
+    @Override
+    public byte getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public boolean canEncode(IEntity entity) {
+        return entity != null && entity.getClass() == AddressTransactionsHistory.class && ((AddressTransactionsHistory) entity).getTransactionsHistory() != null;
+    }
+
+    @Override
+    public void encode(AddressTransactionsHistory addressTransactionsHistory, BinaryEntityWriter writer) {
+        writer.writeHash(addressTransactionsHistory.getHash());
+        writer.writeInstant(addressTransactionsHistory.getCreationTime());
+        writer.writeCollection(addressTransactionsHistory.getTransactionsHistory(), BinaryEntityWriter::writeHash);
+    }
+
+    @Override
+    public AddressTransactionsHistory decode(BinaryEntityReader reader, byte version) {
+        AddressTransactionsHistory addressTransactionsHistory = new AddressTransactionsHistory(reader.readHash());
+        addressTransactionsHistory.setCreationTime(reader.readInstant());
+        int size = reader.readVarInt();
+        for (int i = 0; i < size; i++) {
+            Hash transactionHash = reader.readHash();
+            addressTransactionsHistory.addTransactionHashToHistory(transactionHash);
+        }
+        return addressTransactionsHistory;
+    }
+}
@@ -0,0 +1,172 @@
+package io.coti.basenode.database.codec;
+
+import io.coti.basenode.data.*;
+import io.coti.basenode.exceptions.EntityCodecException;
+
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BaseTransactionDataCodec {
+
+    private static final List<Class<? extends BaseTransactionData>> tagToBaseTransactionClass = new ArrayList<>();
+    private static final Map<Class<? extends BaseTransactionData>, Integer> baseTransactionClassToTag = new HashMap<>();
+    private static final Map<Class<? extends BaseTransactionData>, Constructor<? extends BaseTransactionData>> baseTransactionClassToConstructor = new HashMap<>();
+
+    static {
+        registerBaseTransactionClass(InputBaseTransactionData.class);
+        registerBaseTransactionClass(PaymentInputBaseTransactionData.class);
+        registerBaseTransactionClass(EventInputBaseTransactionData.class);
+        registerBaseTransactionClass(FullNodeFeeData.class);
+        registerBaseTransactionClass(NetworkFeeData.class);
+        registerBaseTransactionClass(RollingReserveData.class);
+        registerBaseTransactionClass(ReceiverBaseTransactionData.class);
+    }
+
+    private BaseTransactionDataCodec() {
+
+    }
+
+    private static void registerBaseTransactionClass(Class<? extends BaseTransactionData> baseTransactionClass) {
+        try {
+            Constructor<? extends BaseTransactionData> constructor = baseTransactionClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            baseTransactionClassToTag.put(baseTransactionClass, tagToBaseTransactionClass.size());
+            tagToBaseTransactionClass.add(baseTransactionClass);
+            baseTransactionClassToConstructor.put(baseTransactionClass, constructor);
+        } catch (NoSuchMethodException e) {
+            throw new EntityCodecException(String.format("No default constructor for %s", baseTransactionClass.getName()), e);
+        }
+    }
+
+    public static boolean canEncode(BaseTransactionData baseTransactionData) {
+        return baseTransactionData != null && baseTransactionClassToTag.containsKey(baseTransactionData.getClass());
+    }
+
+    public static void encode(BinaryEntityWriter writer, BaseTransactionData baseTransactionData) {
+        writer.writeVarInt(baseTransactionClassToTag.get(baseTransactionData.getClass()));
+        writer.writeHash(baseTransactionData.getHash());
+        writer.writeHash(baseTransactionData.getAddressHash());
+        writer.writeHash(baseTransactionData.getCurrencyHash());
+        writer.writeBigDecimal(baseTransactionData.getAmount());
+        writer.writeInstant(baseTransactionData.getCreateTime());
+        writer.writeSignatureData(baseTransactionData.getSignatureData());
+
+        if (baseTransactionData instanceof OutputBaseTransactionData) {
+            OutputBaseTransactionData outputBaseTransactionData = (OutputBaseTransactionData) baseTransactionData;
+            writer.writeHash(outputBaseTransactionData.getOriginalCurrencyHash());
+            writer.writeBigDecimal(outputBaseTransactionData.getOriginalAmount());
+        }
+        if (baseTransactionData instanceof PaymentInputBaseTransactionData) {
+            PaymentInputBaseTransactionData paymentInputBaseTransactionData = (PaymentInputBaseTransactionData) baseTransactionData;
+            writer.writeCollection(paymentInputBaseTransactionData.getItems(), BaseTransactionDataCodec::encodePaymentItem);
+            writer.writeString(paymentInputBaseTransactionData.getEncryptedMerchantName());
+        } else if (baseTransactionData instanceof EventInputBaseTransactionData) {
+            writer.writeEnum(((EventInputBaseTransactionData) baseTransactionData).getEvent());
+        } else if (baseTransactionData instanceof NetworkFeeData) {
+            NetworkFeeData networkFeeData = (NetworkFeeData) baseTransactionData;
+            writer.writeCollection(networkFeeData.getNetworkFeeTrustScoreNodeResult(), BaseTransactionDataCodec::encodeTrustScoreNodeResult);
+            writer.writeBigDecimal(networkFeeData.getReducedAmount());
+        } else if (baseTransactionData instanceof RollingReserveData) {
+            RollingReserveData rollingReserveData = (RollingReserveData) baseTransactionData;
+            writer.writeCollection(rollingReserveData.getRollingReserveTrustScoreNodeResult(), BaseTransactionDataCodec::encodeTrustScoreNodeResult);
+            writer.writeBigDecimal(rollingReserveData.getReducedAmount());
+        } else if (baseTransactionData instanceof ReceiverBaseTransactionData) {
+            writer.writeHash(((ReceiverBaseTransactionData) baseTransactionData).getReceiverDescription());
+        }
+    }
+
+    public static BaseTransactionData decode(BinaryEntityReader reader) {
+        int tag = reader.readVarInt();
+        if (tag < 0 || tag >= tagToBaseTransactionClass.size()) {
+            throw new EntityCodecException("Unknown base transaction tag " + tag);
+        }
+        BaseTransactionData baseTransactionData = newInstance(tagToBaseTransactionClass.get(tag));
+        baseTransactionData.setHash(reader.readHash());
+        baseTransactionData.setAddressHash(reader.readHash());
+        baseTransactionData.setCurrencyHash(reader.readHash());
+        BigDecimal amount = reader.readBigDecimal();
+        if (amount != null) {
+            baseTransactionData.setAmount(amount);
+        }
+        baseTransactionData.setCreateTime(reader.readInstant());
+        baseTransactionData.setSignatureData(reader.readSignatureData());
+
+        if (baseTransactionData instanceof OutputBaseTransactionData) {
+            OutputBaseTransactionData outputBaseTransactionData = (OutputBaseTransactionData) baseTransactionData;
+            outputBaseTransactionData.setOriginalCurrencyHash(reader.readHash());
+            BigDecimal originalAmount = reader.readBigDecimal();
+            if (originalAmount != null) {
+                outputBaseTransactionData.setOriginalAmount(originalAmount);
+            }
+        }
+        if (baseTransactionData instanceof PaymentInputBaseTransactionData) {
+            PaymentInputBaseTransactionData paymentInputBaseTransactionData = (PaymentInputBaseTransactionData) baseTransactionData;
+            paymentInputBaseTransactionData.setItems(reader.readCollection(ArrayList::new, BaseTransactionDataCodec::decodePaymentItem));
+            paymentInputBaseTransactionData.setEncryptedMerchantName(reader.readString());
+        } else if (baseTransactionData instanceof EventInputBaseTransactionData) {
+            ((EventInputBaseTransactionData) baseTransactionData).setEvent(reader.readEnum(Event.class));
+        } else if (baseTransactionData instanceof NetworkFeeData) {
+            NetworkFeeData networkFeeData = (NetworkFeeData) baseTransactionData;
+            networkFeeData.setNetworkFeeTrustScoreNodeResult(reader.readCollection(ArrayList::new, BaseTransactionDataCodec::decodeTrustScoreNodeResult));
+            BigDecimal reducedAmount = reader.readBigDecimal();
+            if (reducedAmount != null) {
+                networkFeeData.setReducedAmount(reducedAmount);
+            }
+        } else if (baseTransactionData instanceof RollingReserveData) {
+            RollingReserveData rollingReserveData = (RollingReserveData) baseTransactionData;
+            rollingReserveData.setRollingReserveTrustScoreNodeResult(reader.readCollection(ArrayList::new, BaseTransactionDataCodec::decodeTrustScoreNodeResult));
+            BigDecimal reducedAmount = reader.readBigDecimal();
+            if (reducedAmount != null) {
+                rollingReserveData.setReducedAmount(reducedAmount);
+            }
+        } else if (baseTransactionData instanceof ReceiverBaseTransactionData) {
+            ((ReceiverBaseTransactionData) baseTransactionData).setReceiverDescription(reader.readHash());
+        }
+        return baseTransactionData;
+    }
+
+    private static BaseTransactionData newInstance(Class<? extends BaseTransactionData> baseTransactionClass) {
+        try {
+            return baseTransactionClassToConstructor.get(baseTransactionClass).newInstance();
+        } catch (Exception e) {
+            throw new EntityCodecException(String.format("Unable to instantiate %s", baseTransactionClass.getName()), e);
+        }
+    }
+
+    private static void encodePaymentItem(BinaryEntityWriter writer, PaymentItemData paymentItemData) {
+        writer.writeBoolean(paymentItemData.getItemId() != null);
+        if (paymentItemData.getItemId() != null) {
+            writer.writeVarLong(paymentItemData.getItemId());
+        }
+        writer.writeBigDecimal(paymentItemData.getItemPrice());
+        writer.writeString(paymentItemData.getItemName());
+        writer.writeVarInt(paymentItemData.getItemQuantity());
+    }
+
+    private static PaymentItemData decodePaymentItem(BinaryEntityReader reader) {
+        PaymentItemData paymentItemData = new PaymentItemData();
+        paymentItemData.setItemId(reader.readBoolean() ? reader.readVarLong() : null);
+        paymentItemData.setItemPrice(reader.readBigDecimal());
+        paymentItemData.setItemName(reader.readString());
+        paymentItemData.setItemQuantity(reader.readVarInt());
+        return paymentItemData;
+    }
+
+    private static void encodeTrustScoreNodeResult(BinaryEntityWriter writer, TrustScoreNodeResultData trustScoreNodeResultData) {
+        writer.writeHash(trustScoreNodeResultData.getTrustScoreNodeHash());
+        writer.writeSignatureData(trustScoreNodeResultData.getTrustScoreNodeSignature());
+        writer.writeBoolean(trustScoreNodeResultData.isValid());
+    }
+
+    private static TrustScoreNodeResultData decodeTrustScoreNodeResult(BinaryEntityReader reader) {
+        Hash trustScoreNodeHash = reader.readHash();
+        SignatureData trustScoreNodeSignature = reader.readSignatureData();
+        TrustScoreNodeResultData trustScoreNodeResultData = new TrustScoreNodeResultData(trustScoreNodeHash, reader.readBoolean());
+        trustScoreNodeResultData.setTrustScoreNodeSignature(trustScoreNodeSignature);
+        return trustScoreNodeResultData;
+    }
+}
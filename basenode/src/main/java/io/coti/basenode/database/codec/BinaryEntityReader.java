@@ -0,0 +1,170 @@
+package io.coti.basenode.database.codec;
+
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.SignatureData;
+import io.coti.basenode.exceptions.EntityCodecException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+public class BinaryEntityReader {
+
+    private static final Map<Class<?>, Map<String, Enum<?>>> ENUM_NAME_TABLES = new ConcurrentHashMap<>();
+    private final byte[] buffer;
+    private int position;
+
+    public BinaryEntityReader(byte[] buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    public boolean hasRemaining() {
+        return position < buffer.length;
+    }
+
+    public byte readByte() {
+        if (position >= buffer.length) {
+            throw new EntityCodecException("Unexpected end of encoded entity");
+        }
+        return buffer[position++];
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public Boolean readNullableBoolean() {
+        byte value = readByte();
+        return value == 2 ? null : value == 1;
+    }
+
+    public long readLong() {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (readByte() & 0xFF);
+        }
+        return value;
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public long readVarLong() {
+        long zigZag = 0;
+        int shift = 0;
+        byte current;
+        do {
+            if (shift > 63) {
+                throw new EntityCodecException("Malformed variable length number");
+            }
+            current = readByte();
+            zigZag |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    public int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    public byte[] readBytes() {
+        int length = readVarInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.length - position) {
+            throw new EntityCodecException("Encoded length exceeds entity size");
+        }
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    public String readString() {
+        byte[] bytes = readBytes();
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public Hash readHash() {
+        return readBoolean() ? new Hash(readBytes()) : null;
+    }
+
+    public BigDecimal readBigDecimal() {
+        if (!readBoolean()) {
+            return null;
+        }
+        int scale = readVarInt();
+        return new BigDecimal(new BigInteger(readBytes()), scale);
+    }
+
+    public Instant readInstant() {
+        if (!readBoolean()) {
+            return null;
+        }
+        long epochSecond = readVarLong();
+        return Instant.ofEpochSecond(epochSecond, readVarInt());
+    }
+
+    public SignatureData readSignatureData() {
+        if (!readBoolean()) {
+            return null;
+        }
+        String r = readString();
+        return new SignatureData(r, readString());
+    }
+
+    public <E extends Enum<E>> E readEnum(Class<E> enumClass) {
+        String name = readString();
+        if (name == null) {
+            return null;
+        }
+        Enum<?> value = ENUM_NAME_TABLES.computeIfAbsent(enumClass, BinaryEntityReader::createEnumNameTable).get(name);
+        if (value == null) {
+            throw new EntityCodecException(String.format("Unknown %s constant %s", enumClass.getSimpleName(), name));
+        }
+        return enumClass.cast(value);
+    }
+
+    private static Map<String, Enum<?>> createEnumNameTable(Class<?> enumClass) {
+        Map<String, Enum<?>> enumNameTable = new HashMap<>();
+        for (Object constant : enumClass.getEnumConstants()) {
+            enumNameTable.put(((Enum<?>) constant).name(), (Enum<?>) constant);
+        }
+        return enumNameTable;
+    }
+
+    public int[] readIntArray() {
+        int length = readVarInt();
+        if (length < 0) {
+            return null;
+        }
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = readVarInt();
+        }
+        return values;
+    }
+
+    public <E, C extends Collection<E>> C readCollection(IntFunction<C> collectionSupplier, Function<BinaryEntityReader, E> elementReader) {
+        int size = readVarInt();
+        if (size < 0) {
+            return null;
+        }
+        C values = collectionSupplier.apply(size);
+        for (int i = 0; i < size; i++) {
+            values.add(elementReader.apply(this));
+        }
+        return values;
+    }
+}
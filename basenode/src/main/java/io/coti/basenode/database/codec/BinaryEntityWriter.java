@@ -0,0 +1,161 @@
+package io.coti.basenode.database.codec;
+
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.SignatureData;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+public class BinaryEntityWriter {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 512;
+    private static final int NULL_LENGTH = -1;
+    private byte[] buffer;
+    private int position;
+
+    public BinaryEntityWriter() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public BinaryEntityWriter(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    public void reset() {
+        position = 0;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeNullableBoolean(Boolean value) {
+        writeByte(value == null ? 2 : (value ? 1 : 0));
+    }
+
+    public void writeLong(long value) {
+        ensureCapacity(Long.BYTES);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        buffer[position++] = (byte) zigZag;
+    }
+
+    public void writeVarInt(int value) {
+        writeVarLong(value);
+    }
+
+    public void writeBytes(byte[] bytes) {
+        if (bytes == null) {
+            writeVarInt(NULL_LENGTH);
+            return;
+        }
+        writeVarInt(bytes.length);
+        writeRawBytes(bytes);
+    }
+
+    public void writeRawBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    public void writeString(String value) {
+        writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void writeHash(Hash hash) {
+        writeBoolean(hash != null);
+        if (hash != null) {
+            writeBytes(hash.getBytes());
+        }
+    }
+
+    public void writeBigDecimal(BigDecimal value) {
+        writeBoolean(value != null);
+        if (value != null) {
+            writeVarInt(value.scale());
+            writeBytes(value.unscaledValue().toByteArray());
+        }
+    }
+
+    public void writeInstant(Instant instant) {
+        writeBoolean(instant != null);
+        if (instant != null) {
+            writeVarLong(instant.getEpochSecond());
+            writeVarInt(instant.getNano());
+        }
+    }
+
+    public void writeSignatureData(SignatureData signatureData) {
+        writeBoolean(signatureData != null);
+        if (signatureData != null) {
+            writeString(signatureData.getR());
+            writeString(signatureData.getS());
+        }
+    }
+
+    /**
+     * Writes the name of the constant, so that reordering or adding constants does not change the stored value.
+     */
+    public void writeEnum(Enum<?> value) {
+        writeString(value == null ? null : value.name());
+    }
+
+    public void writeIntArray(int[] values) {
+        if (values == null) {
+            writeVarInt(NULL_LENGTH);
+            return;
+        }
+        writeVarInt(values.length);
+        for (int value : values) {
+            writeVarInt(value);
+        }
+    }
+
+    public <E> void writeCollection(Collection<E> values, BiConsumer<BinaryEntityWriter, E> elementWriter) {
+        if (values == null) {
+            writeVarInt(NULL_LENGTH);
+            return;
+        }
+        writeVarInt(values.size());
+        values.forEach(value -> elementWriter.accept(this, value));
+    }
+
+    private void ensureCapacity(int additionalBytes) {
+        int requiredCapacity = position + additionalBytes;
+        if (requiredCapacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(requiredCapacity, buffer.length << 1));
+        }
+    }
+}
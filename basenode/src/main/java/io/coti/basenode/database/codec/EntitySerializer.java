@@ -0,0 +1,54 @@
+package io.coti.basenode.database.codec;
+
+import io.coti.basenode.data.interfaces.IEntity;
+import io.coti.basenode.database.interfaces.IEntityCodec;
+import io.coti.basenode.exceptions.EntityCodecException;
+import org.springframework.util.SerializationUtils;
+
+public class EntitySerializer {
+
+    public static final byte BINARY_FORMAT_MARKER = (byte) 0xC0;
+    private static final byte JAVA_SERIALIZATION_MAGIC_FIRST_BYTE = (byte) 0xAC;
+    private static final byte JAVA_SERIALIZATION_MAGIC_SECOND_BYTE = (byte) 0xED;
+    private static final int HEADER_SIZE = 3;
+    private static final ThreadLocal<BinaryEntityWriter> writerThreadLocal = ThreadLocal.withInitial(BinaryEntityWriter::new);
+
+    private EntitySerializer() {
+
+    }
+
+    public static <T extends IEntity> byte[] serialize(IEntity entity, IEntityCodec<T> entityCodec) {
+        if (entityCodec == null || !entityCodec.canEncode(entity)) {
+            return SerializationUtils.serialize(entity);
+        }
+        BinaryEntityWriter writer = writerThreadLocal.get();
+        writer.reset();
+        writer.writeByte(BINARY_FORMAT_MARKER);
+        writer.writeByte(entityCodec.getCodecId());
+        writer.writeByte(entityCodec.getVersion());
+        entityCodec.encode((T) entity, writer);
+        return writer.toByteArray();
+    }
+
+    public static <T extends IEntity> T deserialize(byte[] bytes, IEntityCodec<T> entityCodec) {
+        if (!isBinaryFormat(bytes)) {
+            return (T) SerializationUtils.deserialize(bytes);
+        }
+        if (entityCodec == null || bytes[1] != entityCodec.getCodecId()) {
+            throw new EntityCodecException(String.format("No entity codec registered for codec id %d", bytes[1]));
+        }
+        byte version = bytes[2];
+        if (version > entityCodec.getVersion()) {
+            throw new EntityCodecException(String.format("Unsupported version %d of codec %s", version, entityCodec.getClass().getSimpleName()));
+        }
+        return entityCodec.decode(new BinaryEntityReader(bytes, HEADER_SIZE), version);
+    }
+
+    public static boolean isBinaryFormat(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_SIZE && bytes[0] == BINARY_FORMAT_MARKER;
+    }
+
+    public static boolean isLegacyFormat(byte[] bytes) {
+        return bytes != null && bytes.length >= 2 && bytes[0] == JAVA_SERIALIZATION_MAGIC_FIRST_BYTE && bytes[1] == JAVA_SERIALIZATION_MAGIC_SECOND_BYTE;
+    }
+}
@@ -0,0 +1,169 @@
+package io.coti.basenode.database.codec;
+
+import io.coti.basenode.data.*;
+import io.coti.basenode.data.interfaces.IEntity;
+import io.coti.basenode.database.interfaces.IEntityCodec;
+import io.coti.basenode.exceptions.EntityCodecException;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionDataCodec implements IEntityCodec<TransactionData> {
+
+    private static final byte CODEC_ID = 1;
+    private static final byte VERSION = 1;
+    private static final Constructor<DspVote> dspVoteConstructor = getDspVoteConstructor();
+
+    private static Constructor<DspVote> getDspVoteConstructor() {
+        try {
+            Constructor<DspVote> constructor = DspVote.class.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException e) {
+            throw new EntityCodecException("No default constructor for DspVote", e);
+        }
+    }
+
+    @Override
+    public byte getCodecId() {
+        return CODEC_ID;
+    }
+
+    @Override
+    public byte getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public boolean canEncode(IEntity entity) {
+        if (entity == null || entity.getClass() != TransactionData.class) {
+            return false;
+        }
+        TransactionData transactionData = (TransactionData) entity;
+        if (transactionData.getBaseTransactions() != null && !transactionData.getBaseTransactions().stream().allMatch(BaseTransactionDataCodec::canEncode)) {
+            return false;
+        }
+        DspConsensusResult dspConsensusResult = transactionData.getDspConsensusResult();
+        return dspConsensusResult == null || (dspConsensusResult.getClass() == DspConsensusResult.class &&
+                (dspConsensusResult.getDspVotes() == null || dspConsensusResult.getDspVotes().stream().allMatch(dspVote -> dspVote != null && dspVote.getClass() == DspVote.class)));
+    }
+
+    @Override
+    public void encode(TransactionData transactionData, BinaryEntityWriter writer) {
+        writer.writeCollection(transactionData.getBaseTransactions(), BaseTransactionDataCodec::encode);
+        writer.writeHash(transactionData.getHash());
+        writer.writeBigDecimal(transactionData.getAmount());
+        writer.writeEnum(transactionData.getType());
+        writer.writeHash(transactionData.getLeftParentHash());
+        writer.writeHash(transactionData.getRightParentHash());
+        writer.writeBoolean(transactionData.isTrustChainConsensus());
+        writer.writeDouble(transactionData.getTrustChainTrustScore());
+        writer.writeInstant(transactionData.getTrustChainConsensusTime());
+        writer.writeInstant(transactionData.getTransactionConsensusUpdateTime());
+        writer.writeInstant(transactionData.getCreateTime());
+        writer.writeInstant(transactionData.getAttachmentTime());
+        writer.writeDouble(transactionData.getSenderTrustScore());
+        writer.writeHash(transactionData.getSenderHash());
+        writer.writeSignatureData(transactionData.getSenderSignature());
+        writer.writeHash(transactionData.getNodeHash());
+        writer.writeSignatureData(transactionData.getNodeSignature());
+        writer.writeCollection(transactionData.getChildrenTransactionHashes(), BinaryEntityWriter::writeHash);
+        writer.writeNullableBoolean(transactionData.getValid());
+        writer.writeString(transactionData.getTransactionDescription());
+        encodeDspConsensusResult(writer, transactionData.getDspConsensusResult());
+        writer.writeCollection(transactionData.getTrustScoreResults(), TransactionDataCodec::encodeTransactionTrustScore);
+        writer.writeIntArray(transactionData.getNonces());
+    }
+
+    @Override
+    public TransactionData decode(BinaryEntityReader reader, byte version) {
+        List<BaseTransactionData> baseTransactions = reader.readCollection(ArrayList::new, BaseTransactionDataCodec::decode);
+        TransactionData transactionData = new TransactionData(baseTransactions);
+        transactionData.setHash(reader.readHash());
+        transactionData.setAmount(reader.readBigDecimal());
+        transactionData.setType(reader.readEnum(TransactionType.class));
+        transactionData.setLeftParentHash(reader.readHash());
+        transactionData.setRightParentHash(reader.readHash());
+        transactionData.setTrustChainConsensus(reader.readBoolean());
+        transactionData.setTrustChainTrustScore(reader.readDouble());
+        transactionData.setTrustChainConsensusTime(reader.readInstant());
+        transactionData.setTransactionConsensusUpdateTime(reader.readInstant());
+        transactionData.setCreateTime(reader.readInstant());
+        transactionData.setAttachmentTime(reader.readInstant());
+        transactionData.setSenderTrustScore(reader.readDouble());
+        transactionData.setSenderHash(reader.readHash());
+        transactionData.setSenderSignature(reader.readSignatureData());
+        transactionData.setNodeHash(reader.readHash());
+        transactionData.setNodeSignature(reader.readSignatureData());
+        transactionData.setChildrenTransactionHashes(reader.readCollection(ArrayList::new, BinaryEntityReader::readHash));
+        transactionData.setValid(reader.readNullableBoolean());
+        transactionData.setTransactionDescription(reader.readString());
+        transactionData.setDspConsensusResult(decodeDspConsensusResult(reader));
+        transactionData.setTrustScoreResults(reader.readCollection(ArrayList::new, TransactionDataCodec::decodeTransactionTrustScore));
+        transactionData.setNonces(reader.readIntArray());
+        return transactionData;
+    }
+
+    private static void encodeDspConsensusResult(BinaryEntityWriter writer, DspConsensusResult dspConsensusResult) {
+        writer.writeBoolean(dspConsensusResult != null);
+        if (dspConsensusResult != null) {
+            writer.writeHash(dspConsensusResult.getTransactionHash());
+            writer.writeHash(dspConsensusResult.getZeroSpendServerHash());
+            writer.writeVarLong(dspConsensusResult.getIndex());
+            writer.writeInstant(dspConsensusResult.getIndexingTime());
+            writer.writeSignatureData(dspConsensusResult.getZeroSpendSignature());
+            writer.writeCollection(dspConsensusResult.getDspVotes(), TransactionDataCodec::encodeDspVote);
+            writer.writeBoolean(dspConsensusResult.isDspConsensus());
+        }
+    }
+
+    private static DspConsensusResult decodeDspConsensusResult(BinaryEntityReader reader) {
+        if (!reader.readBoolean()) {
+            return null;
+        }
+        DspConsensusResult dspConsensusResult = new DspConsensusResult(reader.readHash());
+        dspConsensusResult.setZeroSpendServerHash(reader.readHash());
+        dspConsensusResult.setIndex(reader.readVarLong());
+        dspConsensusResult.setIndexingTime(reader.readInstant());
+        dspConsensusResult.setZeroSpendSignature(reader.readSignatureData());
+        dspConsensusResult.setDspVotes(reader.readCollection(ArrayList::new, TransactionDataCodec::decodeDspVote));
+        dspConsensusResult.setDspConsensus(reader.readBoolean());
+        return dspConsensusResult;
+    }
+
+    private static void encodeDspVote(BinaryEntityWriter writer, DspVote dspVote) {
+        writer.writeBoolean(dspVote.isValidTransaction());
+        writer.writeHash(dspVote.getVoterDspHash());
+        writer.writeSignatureData(dspVote.getSignature());
+    }
+
+    private static DspVote decodeDspVote(BinaryEntityReader reader) {
+        try {
+            DspVote dspVote = dspVoteConstructor.newInstance();
+            dspVote.setValidTransaction(reader.readBoolean());
+            dspVote.setVoterDspHash(reader.readHash());
+            dspVote.setSignature(reader.readSignatureData());
+            return dspVote;
+        } catch (ReflectiveOperationException e) {
+            throw new EntityCodecException("Unable to instantiate DspVote", e);
+        }
+    }
+
+    private static void encodeTransactionTrustScore(BinaryEntityWriter writer, TransactionTrustScoreData transactionTrustScoreData) {
+        writer.writeBoolean(transactionTrustScoreData.getTrustScore() != null);
+        if (transactionTrustScoreData.getTrustScore() != null) {
+            writer.writeDouble(transactionTrustScoreData.getTrustScore());
+        }
+        writer.writeHash(transactionTrustScoreData.getTrustScoreNodeHash());
+        writer.writeSignatureData(transactionTrustScoreData.getTrustScoreNodeSignature());
+    }
+
+    private static TransactionTrustScoreData decodeTransactionTrustScore(BinaryEntityReader reader) {
+        TransactionTrustScoreData transactionTrustScoreData = new TransactionTrustScoreData(0);
+        transactionTrustScoreData.setTrustScore(reader.readBoolean() ? reader.readDouble() : null);
+        transactionTrustScoreData.setTrustScoreNodeHash(reader.readHash());
+        transactionTrustScoreData.setTrustScoreNodeSignature(reader.readSignatureData());
+        return transactionTrustScoreData;
+    }
+}
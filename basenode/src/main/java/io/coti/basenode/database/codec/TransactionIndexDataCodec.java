@@ -0,0 +1,38 @@
+package io.coti.basenode.database.codec;
+
+import io.coti.basenode.data.TransactionIndexData;
+import io.coti.basenode.data.interfaces.IEntity;
+import io.coti.basenode.database.interfaces.IEntityCodec;
+
+public class TransactionIndexDataCodec implements IEntityCodec<TransactionIndexData> {
+
+    private static final byte CODEC_ID = 2;
+    private static final byte VERSION = 1;
+
+    @Override
+    public byte getCodecId() {
+        return CODEC_ID;
+    }
+
+    @Override
+    public byte getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public boolean canEncode(IEntity entity) {
+        return entity != null && entity.getClass() == TransactionIndexData.class;
+    }
+
+    @Override
+    public void encode(TransactionIndexData transactionIndexData, BinaryEntityWriter writer) {
+        writer.writeHash(transactionIndexData.getTransactionHash());
+        writer.writeVarLong(transactionIndexData.getIndex());
+        writer.writeBytes(transactionIndexData.getAccumulatedHash());
+    }
+
+    @Override
+    public TransactionIndexData decode(BinaryEntityReader reader, byte version) {
+        return new TransactionIndexData(reader.readHash(), reader.readVarLong(), reader.readBytes());
+    }
+}
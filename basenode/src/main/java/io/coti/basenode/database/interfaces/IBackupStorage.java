@@ -0,0 +1,15 @@
+package io.coti.basenode.database.interfaces;
+
+import java.io.InputStream;
+import java.util.List;
+
+public interface IBackupStorage {
+
+    List<String> listKeys(String bucketName, String folderPath);
+
+    void upload(String bucketName, String key, InputStream inputStream, long length);
+
+    InputStream download(String bucketName, String key);
+
+    void delete(String bucketName, List<String> keys);
+}
@@ -3,6 +3,7 @@ package io.coti.basenode.database.interfaces;
 import io.coti.basenode.data.Hash;
 import io.coti.basenode.data.interfaces.IEntity;
 import org.rocksdb.BackupInfo;
+import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksIterator;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
@@ -21,6 +22,10 @@ public interface IDatabaseConnector {
 
     void restoreDataBase(String backupPath);
 
+    void createCheckpoint(String checkpointPath);
+
+    void restoreDataBaseFromCheckpoint(String checkpointPath);
+
     String getDBPath();
 
     boolean put(String columnFamilyName, byte[] key, byte[] value);
@@ -33,10 +38,18 @@ public interface IDatabaseConnector {
 
     byte[] getByKey(String columnFamilyName, byte[] key);
 
+    List<byte[]> multiGetByKeys(String columnFamilyName, List<byte[]> keys);
+
     void delete(String columnFamilyName, byte[] key);
 
+    boolean delete(String columnFamilyName, WriteBatch writeBatch, byte[] key);
+
     RocksIterator getIterator(String columnFamilyName);
 
+    RocksIterator getIterator(String columnFamilyName, ReadOptions readOptions);
+
+    long getEstimatedNumberOfKeys(String columnFamilyName);
+
     boolean isEmpty(String columnFamilyName);
 
     IEntity get(Class<?> entityClass, Hash key);
@@ -0,0 +1,18 @@
+package io.coti.basenode.database.interfaces;
+
+import io.coti.basenode.data.interfaces.IEntity;
+import io.coti.basenode.database.codec.BinaryEntityReader;
+import io.coti.basenode.database.codec.BinaryEntityWriter;
+
+public interface IEntityCodec<T extends IEntity> {
+
+    byte getCodecId();
+
+    byte getVersion();
+
+    boolean canEncode(IEntity entity);
+
+    void encode(T entity, BinaryEntityWriter writer);
+
+    T decode(BinaryEntityReader reader, byte version);
+}
@@ -5,4 +5,8 @@ public class DataBaseBackupException extends RuntimeException {
     public DataBaseBackupException(String message) {
         super(message);
     }
+
+    public DataBaseBackupException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
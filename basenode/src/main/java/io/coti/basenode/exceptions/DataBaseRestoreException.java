@@ -5,4 +5,8 @@ public class DataBaseRestoreException extends RuntimeException {
     public DataBaseRestoreException(String message) {
         super(message);
     }
+
+    public DataBaseRestoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -0,0 +1,12 @@
+package io.coti.basenode.exceptions;
+
+public class EntityCodecException extends CotiRunTimeException {
+
+    public EntityCodecException(String message) {
+        super(message);
+    }
+
+    public EntityCodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
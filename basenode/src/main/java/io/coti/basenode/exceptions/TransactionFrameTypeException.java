@@ -0,0 +1,8 @@
+package io.coti.basenode.exceptions;
+
+public class TransactionFrameTypeException extends TransactionSyncException {
+
+    public TransactionFrameTypeException(String message) {
+        super(message);
+    }
+}
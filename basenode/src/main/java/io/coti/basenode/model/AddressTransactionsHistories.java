@@ -1,9 +1,15 @@
 package io.coti.basenode.model;
 
 import io.coti.basenode.data.AddressTransactionsHistory;
+import io.coti.basenode.database.ColumnFamilyProfile;
+import io.coti.basenode.database.codec.AddressTransactionsHistoryCodec;
 import org.springframework.stereotype.Service;
 
 @Service
 public class AddressTransactionsHistories extends Collection<AddressTransactionsHistory> {
 
+    public AddressTransactionsHistories() {
+        columnFamilyProfile = ColumnFamilyProfile.WRITE_HEAVY;
+        entityCodec = new AddressTransactionsHistoryCodec();
+    }
 }
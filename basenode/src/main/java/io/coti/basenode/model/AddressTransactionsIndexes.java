@@ -0,0 +1,220 @@
+package io.coti.basenode.model;
+
+import io.coti.basenode.data.AddressTransactionIndexData;
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.data.interfaces.IEntity;
+import io.coti.basenode.database.ColumnFamilyProfile;
+import io.coti.basenode.database.codec.AddressTransactionIndexDataCodec;
+import io.coti.basenode.exceptions.DataBaseWriteException;
+import lombok.extern.slf4j.Slf4j;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+@Slf4j
+@Service
+public class AddressTransactionsIndexes extends Collection<AddressTransactionIndexData> {
+
+    private static final int MIGRATION_BATCH_SIZE = 10000;
+    private static final int MIGRATION_MULTI_GET_SIZE = 1000;
+    private static final AddressTransactionIndexData MIGRATION_COMPLETED_ENTRY = new AddressTransactionIndexData(new Hash(new byte[0]), Instant.EPOCH,
+            new Hash("AddressTransactionsHistoriesMigrated".getBytes(StandardCharsets.UTF_8)));
+
+    public AddressTransactionsIndexes() {
+        columnFamilyProfile = ColumnFamilyProfile.INDEX;
+        entityCodec = new AddressTransactionIndexDataCodec();
+    }
+
+    public List<AddressTransactionIndexData> getByAddressHash(Hash addressHash, Instant startTime, Instant endTime, boolean descending, Integer limit) {
+        List<AddressTransactionIndexData> addressTransactionIndexDataList = new ArrayList<>();
+        forEachByAddressHash(addressHash, startTime, endTime, descending, limit, addressTransactionIndexDataList::add);
+        return addressTransactionIndexDataList;
+    }
+
+    public long forEachByAddressHash(Hash addressHash, Consumer<AddressTransactionIndexData> consumer) {
+        return forEachByAddressHash(addressHash, null, null, false, null, addressTransactionIndexData -> {
+            consumer.accept(addressTransactionIndexData);
+            return true;
+        });
+    }
+
+    /**
+     * Iterates the transactions of the address in attachment time order, once per transaction hash. The consumer returns
+     * whether the entry counts toward the limit.
+     */
+    public long forEachByAddressHash(Hash addressHash, Instant startTime, Instant endTime, boolean descending, Integer limit, Predicate<AddressTransactionIndexData> consumer) {
+        byte[] addressPrefix = AddressTransactionIndexData.getAddressPrefix(addressHash);
+        Set<Hash> iteratedTransactionHashes = new HashSet<>();
+        long iteratedEntries = 0;
+        try (RocksIterator iterator = databaseConnector.getIterator(columnFamilyName)) {
+            seek(iterator, addressHash, startTime, endTime, descending);
+            while (iterator.isValid() && startsWith(iterator.key(), addressPrefix) && (limit == null || iteratedEntries < limit)) {
+                AddressTransactionIndexData addressTransactionIndexData = getDeserializedValue(iterator);
+                Instant attachmentTime = addressTransactionIndexData.getAttachmentTime();
+                if ((descending && startTime != null && attachmentTime.isBefore(startTime)) || (!descending && endTime != null && attachmentTime.isAfter(endTime))) {
+                    break;
+                }
+                if (iteratedTransactionHashes.add(addressTransactionIndexData.getTransactionHash()) && consumer.test(addressTransactionIndexData)) {
+                    iteratedEntries++;
+                }
+                if (descending) {
+                    iterator.prev();
+                } else {
+                    iterator.next();
+                }
+            }
+        }
+        return iteratedEntries;
+    }
+
+    public long countByAddressHash(Hash addressHash) {
+        byte[] addressPrefix = AddressTransactionIndexData.getAddressPrefix(addressHash);
+        Set<Hash> transactionHashes = new HashSet<>();
+        try (RocksIterator iterator = databaseConnector.getIterator(columnFamilyName)) {
+            iterator.seek(addressPrefix);
+            while (iterator.isValid() && startsWith(iterator.key(), addressPrefix)) {
+                transactionHashes.add(AddressTransactionIndexData.getTransactionHash(iterator.key()));
+                iterator.next();
+            }
+        }
+        return transactionHashes.size();
+    }
+
+    /**
+     * Writes the entries and removes the entry of the same transaction without attachment time, which the migration
+     * writes for a transaction missing from the database, so that the address keeps one entry per transaction.
+     */
+    @Override
+    public void putBatch(Map<Hash, ? extends IEntity> entities) {
+        try (WriteBatch writeBatch = new WriteBatch()) {
+            entities.forEach((hash, entity) -> {
+                if (entity == null) {
+                    throw new DataBaseWriteException("Null entity to write from database");
+                }
+                AddressTransactionIndexData addressTransactionIndexData = (AddressTransactionIndexData) entity;
+                if (!addressTransactionIndexData.getAttachmentTime().equals(Instant.EPOCH)) {
+                    byte[] unknownAttachmentTimeKey = new AddressTransactionIndexData(addressTransactionIndexData.getAddressHash(), Instant.EPOCH,
+                            addressTransactionIndexData.getTransactionHash()).getHash().getBytes();
+                    if (databaseConnector.getByKey(columnFamilyName, unknownAttachmentTimeKey) != null) {
+                        databaseConnector.delete(columnFamilyName, writeBatch, unknownAttachmentTimeKey);
+                    }
+                }
+                databaseConnector.put(columnFamilyName, writeBatch, hash.getBytes(), serialize(entity));
+            });
+            databaseConnector.putBatch(writeBatch);
+        }
+    }
+
+    private void seek(RocksIterator iterator, Hash addressHash, Instant startTime, Instant endTime, boolean descending) {
+        if (descending) {
+            byte[] upperBound;
+            if (endTime != null) {
+                upperBound = AddressTransactionIndexData.getAddressPrefix(addressHash, endTime.plusNanos(1));
+            } else {
+                byte[] addressPrefix = AddressTransactionIndexData.getAddressPrefix(addressHash);
+                upperBound = Arrays.copyOf(addressPrefix, addressPrefix.length + AddressTransactionIndexData.ATTACHMENT_TIME_SIZE);
+                Arrays.fill(upperBound, addressPrefix.length, upperBound.length, (byte) 0xFF);
+            }
+            iterator.seekForPrev(upperBound);
+        } else {
+            iterator.seek(startTime != null ? AddressTransactionIndexData.getAddressPrefix(addressHash, startTime) : AddressTransactionIndexData.getAddressPrefix(addressHash));
+        }
+    }
+
+    private boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the address transactions histories to the index. The copy writes the same keys when it runs again, so a
+     * migration stopped midway is completed at the next start, and the completion marker is written only after the whole
+     * copy. The histories are deleted at a later start, once the marker is set and every history is found in the index.
+     */
+    public void migrateFromAddressTransactionsHistories(AddressTransactionsHistories addressTransactionsHistories, Transactions transactions) {
+        if (isMigrationCompleted()) {
+            deleteMigratedAddressTransactionsHistories(addressTransactionsHistories);
+            return;
+        }
+        if (addressTransactionsHistories.isEmpty()) {
+            markMigrationCompleted();
+            return;
+        }
+        log.info("Starting migration of address transactions histories to {}", columnFamilyName);
+        AtomicLong migratedEntries = new AtomicLong(0);
+        WriteBatch[] writeBatch = {new WriteBatch()};
+        try {
+            addressTransactionsHistories.forEach(addressTransactionsHistory -> {
+                List<Hash> transactionHashes = new ArrayList<>(addressTransactionsHistory.getTransactionsHistory());
+                for (int i = 0; i < transactionHashes.size(); i += MIGRATION_MULTI_GET_SIZE) {
+                    List<Hash> transactionHashesChunk = transactionHashes.subList(i, Math.min(i + MIGRATION_MULTI_GET_SIZE, transactionHashes.size()));
+                    List<TransactionData> transactionDataList = transactions.multiGetByHashes(transactionHashesChunk);
+                    for (int j = 0; j < transactionHashesChunk.size(); j++) {
+                        TransactionData transactionData = transactionDataList.get(j);
+                        AddressTransactionIndexData addressTransactionIndexData = new AddressTransactionIndexData(addressTransactionsHistory.getHash(),
+                                transactionData != null ? transactionData.getAttachmentTime() : null, transactionHashesChunk.get(j));
+                        databaseConnector.put(columnFamilyName, writeBatch[0], addressTransactionIndexData.getHash().getBytes(), serialize(addressTransactionIndexData));
+                        migratedEntries.incrementAndGet();
+                    }
+                    if (writeBatch[0].count() >= MIGRATION_BATCH_SIZE) {
+                        databaseConnector.putBatch(writeBatch[0]);
+                        writeBatch[0].close();
+                        writeBatch[0] = new WriteBatch();
+                        log.info("Column family {}: {} address transaction entries migrated", columnFamilyName, migratedEntries);
+                    }
+                }
+            });
+            if (writeBatch[0].count() > 0) {
+                databaseConnector.putBatch(writeBatch[0]);
+            }
+        } finally {
+            writeBatch[0].close();
+        }
+        markMigrationCompleted();
+        log.info("Finished migration of {} address transaction entries to {}. The histories are deleted at the next start after verification",
+                migratedEntries, columnFamilyName);
+    }
+
+    private void deleteMigratedAddressTransactionsHistories(AddressTransactionsHistories addressTransactionsHistories) {
+        if (addressTransactionsHistories.isEmpty()) {
+            return;
+        }
+        log.info("Verifying the migrated address transactions histories");
+        AtomicLong missingEntries = new AtomicLong(0);
+        addressTransactionsHistories.forEach(addressTransactionsHistory -> {
+            Set<Hash> indexedTransactionHashes = new HashSet<>();
+            forEachByAddressHash(addressTransactionsHistory.getHash(), addressTransactionIndexData -> indexedTransactionHashes.add(addressTransactionIndexData.getTransactionHash()));
+            addressTransactionsHistory.getTransactionsHistory().stream().filter(transactionHash -> !indexedTransactionHashes.contains(transactionHash))
+                    .forEach(transactionHash -> missingEntries.incrementAndGet());
+        });
+        if (missingEntries.get() > 0) {
+            log.error("{} address transaction entries are missing from {}. Keeping the address transactions histories", missingEntries, columnFamilyName);
+            return;
+        }
+        addressTransactionsHistories.deleteAll();
+        log.info("Deleted the migrated address transactions histories");
+    }
+
+    private boolean isMigrationCompleted() {
+        return databaseConnector.getByKey(columnFamilyName, MIGRATION_COMPLETED_ENTRY.getHash().getBytes()) != null;
+    }
+
+    private void markMigrationCompleted() {
+        put(MIGRATION_COMPLETED_ENTRY);
+    }
+}
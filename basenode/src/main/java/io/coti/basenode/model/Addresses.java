@@ -1,9 +1,13 @@
 package io.coti.basenode.model;
 
 import io.coti.basenode.data.AddressData;
+import io.coti.basenode.database.ColumnFamilyProfile;
 import org.springframework.stereotype.Service;
 
 @Service
 public class Addresses extends Collection<AddressData> {
 
+    public Addresses() {
+        columnFamilyProfile = ColumnFamilyProfile.INDEX;
+    }
 }
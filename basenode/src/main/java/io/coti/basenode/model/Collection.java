@@ -2,47 +2,68 @@ package io.coti.basenode.model;
 
 import io.coti.basenode.data.Hash;
 import io.coti.basenode.data.interfaces.IEntity;
+import io.coti.basenode.database.ColumnFamilyProfile;
+import io.coti.basenode.database.codec.EntitySerializer;
 import io.coti.basenode.database.interfaces.IDatabaseConnector;
+import io.coti.basenode.database.interfaces.IEntityCodec;
 import io.coti.basenode.exceptions.DataBaseDeleteException;
 import io.coti.basenode.exceptions.DataBaseWriteException;
 import lombok.extern.slf4j.Slf4j;
+import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.util.SerializationUtils;
+import org.springframework.beans.factory.annotation.Value;
 
-import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 public abstract class Collection<T extends IEntity> {
 
     private static final int LOCK_BYTE_ARRAY_SIZE = 2;
+    private static final int MIGRATION_BATCH_SIZE = 10000;
     @Autowired
     public IDatabaseConnector databaseConnector;
     protected String columnFamilyName = getClass().getName();
+    protected ColumnFamilyProfile columnFamilyProfile = ColumnFamilyProfile.DEFAULT;
+    protected IEntityCodec<T> entityCodec;
+    @Value("${db.entity.codec.binary:true}")
+    private boolean binaryEntityCodec;
     private Map<Hash, byte[]> lockByteArrayMap;
 
     public void init() {
         log.info("Collection init running. Class: " + columnFamilyName);
     }
 
+    public ColumnFamilyProfile getColumnFamilyProfile() {
+        return columnFamilyProfile;
+    }
+
+    public boolean hasEntityCodec() {
+        return entityCodec != null;
+    }
+
+    protected byte[] serialize(IEntity entity) {
+        return EntitySerializer.serialize(entity, binaryEntityCodec ? entityCodec : null);
+    }
+
     public void put(IEntity entity) {
         if (entity == null) {
             throw new DataBaseWriteException("Null entity to write to database");
         }
-        databaseConnector.put(columnFamilyName, entity.getHash().getBytes(), SerializationUtils.serialize(entity));
+        databaseConnector.put(columnFamilyName, entity.getHash().getBytes(), serialize(entity));
     }
 
     public void put(WriteOptions writeOptions, IEntity entity) {
         if (entity == null) {
             throw new DataBaseWriteException("Null entity to write to database");
         }
-        databaseConnector.put(columnFamilyName, writeOptions, entity.getHash().getBytes(), SerializationUtils.serialize(entity));
+        databaseConnector.put(columnFamilyName, writeOptions, entity.getHash().getBytes(), serialize(entity));
     }
 
     public void putBatch(Map<Hash, ? extends IEntity> entities) {
@@ -51,7 +72,7 @@ public abstract class Collection<T extends IEntity> {
                     if (entity == null) {
                         throw new DataBaseWriteException("Null entity to write from database");
                     }
-                    databaseConnector.put(columnFamilyName, writeBatch, hash.getBytes(), SerializationUtils.serialize(entity));
+                    databaseConnector.put(columnFamilyName, writeBatch, hash.getBytes(), serialize(entity));
 
                 }
         );
@@ -82,8 +103,44 @@ public abstract class Collection<T extends IEntity> {
         }
     }
 
-    private T getDeserializedValue(Hash hash, byte[] serializedValue) {
-        T deserialized = (T) SerializationUtils.deserialize(serializedValue);
+    public List<T> multiGetByHashes(java.util.Collection<Hash> hashes) {
+        List<byte[]> keys = hashes.stream().map(Hash::getBytes).collect(Collectors.toList());
+        List<byte[]> values = databaseConnector.multiGetByKeys(columnFamilyName, keys);
+        List<T> entities = new ArrayList<>(keys.size());
+        Iterator<Hash> hashIterator = hashes.iterator();
+        for (int i = 0; i < keys.size(); i++) {
+            Hash hash = hashIterator.next();
+            byte[] bytes = i < values.size() ? values.get(i) : null;
+            if (bytes == null || bytes.length == 0) {
+                entities.add(null);
+                continue;
+            }
+            try {
+                entities.add(getDeserializedValue(hash, bytes));
+            } catch (Exception e) {
+                log.error("Error at multi getting hash {} from column family {}", hash, columnFamilyName, e);
+                entities.add(null);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * Returns the stored values as they are, without decoding them, with null for the missing keys.
+     */
+    public List<byte[]> multiGetSerializedByHashes(List<Hash> hashes) {
+        List<byte[]> keys = hashes.stream().map(Hash::getBytes).collect(Collectors.toList());
+        List<byte[]> values = databaseConnector.multiGetByKeys(columnFamilyName, keys);
+        List<byte[]> serializedValues = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] bytes = i < values.size() ? values.get(i) : null;
+            serializedValues.add(bytes == null || bytes.length == 0 ? null : bytes);
+        }
+        return serializedValues;
+    }
+
+    public T getDeserializedValue(Hash hash, byte[] serializedValue) {
+        T deserialized = EntitySerializer.deserialize(serializedValue, entityCodec);
         if (deserialized != null) {
             deserialized.setHash(hash);
         }
@@ -111,6 +168,42 @@ public abstract class Collection<T extends IEntity> {
         }
     }
 
+    /**
+     * Iterates the keys from the lower bound, inclusive, to the upper bound, exclusive. A null bound leaves that side
+     * open. The scan reads ahead and does not fill the block cache, so a full replay does not evict the hot blocks.
+     */
+    public void forEachInRange(byte[] lowerBound, byte[] upperBound, long readaheadSize, Consumer<T> consumer) {
+        forEachInRange(lowerBound, upperBound, readaheadSize, (key, value) -> consumer.accept(getDeserializedValue(new Hash(key), value)));
+    }
+
+    public void forEachInRange(byte[] lowerBound, byte[] upperBound, long readaheadSize, BiConsumer<byte[], byte[]> biConsumer) {
+        try (Slice lowerBoundSlice = lowerBound != null ? new Slice(lowerBound) : null;
+             Slice upperBoundSlice = upperBound != null ? new Slice(upperBound) : null;
+             ReadOptions readOptions = new ReadOptions().setFillCache(false).setReadaheadSize(readaheadSize)) {
+            if (lowerBoundSlice != null) {
+                readOptions.setIterateLowerBound(lowerBoundSlice);
+            }
+            if (upperBoundSlice != null) {
+                readOptions.setIterateUpperBound(upperBoundSlice);
+            }
+            try (RocksIterator iterator = databaseConnector.getIterator(columnFamilyName, readOptions)) {
+                if (lowerBound != null) {
+                    iterator.seek(lowerBound);
+                } else {
+                    iterator.seekToFirst();
+                }
+                while (iterator.isValid()) {
+                    biConsumer.accept(iterator.key(), iterator.value());
+                    iterator.next();
+                }
+            }
+        }
+    }
+
+    public long getEstimatedNumberOfEntities() {
+        return databaseConnector.getEstimatedNumberOfKeys(columnFamilyName);
+    }
+
     public void forEachWithLastIteration(BiConsumer<T, Boolean> biConsumer) {
         try (RocksIterator iterator = getIterator()) {
             if (iterator != null) {
@@ -125,7 +218,7 @@ public abstract class Collection<T extends IEntity> {
         }
     }
 
-    private T getDeserializedValue(RocksIterator iterator) {
+    protected T getDeserializedValue(RocksIterator iterator) {
         return getDeserializedValue(new Hash(iterator.key()), iterator.value());
     }
 
@@ -174,6 +267,41 @@ public abstract class Collection<T extends IEntity> {
         }
     }
 
+    public long migrateToBinaryCodec() {
+        if (entityCodec == null) {
+            return 0;
+        }
+        long migratedEntities = 0;
+        WriteBatch writeBatch = new WriteBatch();
+        try (RocksIterator iterator = getIterator()) {
+            iterator.seekToFirst();
+            while (iterator.isValid()) {
+                byte[] value = iterator.value();
+                if (EntitySerializer.isLegacyFormat(value)) {
+                    byte[] encodedValue = EntitySerializer.serialize(getDeserializedValue(iterator), entityCodec);
+                    if (EntitySerializer.isBinaryFormat(encodedValue)) {
+                        databaseConnector.put(columnFamilyName, writeBatch, iterator.key(), encodedValue);
+                        migratedEntities++;
+                    }
+                }
+                if (writeBatch.count() >= MIGRATION_BATCH_SIZE) {
+                    databaseConnector.putBatch(writeBatch);
+                    writeBatch.close();
+                    writeBatch = new WriteBatch();
+                    log.info("Column family {}: {} entities migrated to binary codec", columnFamilyName, migratedEntities);
+                }
+                iterator.next();
+            }
+            if (writeBatch.count() > 0) {
+                databaseConnector.putBatch(writeBatch);
+            }
+        } finally {
+            writeBatch.close();
+        }
+        log.info("Column family {}: finished migration of {} entities to binary codec", columnFamilyName, migratedEntities);
+        return migratedEntities;
+    }
+
     protected void generateLockObjects() {
         lockByteArrayMap = new LinkedHashMap<>();
         for (int i = Byte.MIN_VALUE; i <= Byte.MAX_VALUE; i++) {
@@ -1,9 +1,15 @@
 package io.coti.basenode.model;
 
 import io.coti.basenode.data.TransactionIndexData;
+import io.coti.basenode.database.ColumnFamilyProfile;
+import io.coti.basenode.database.codec.TransactionIndexDataCodec;
 import org.springframework.stereotype.Component;
 
 @Component
 public class TransactionIndexes extends Collection<TransactionIndexData> {
 
-}
\ No newline at end of file
+    public TransactionIndexes() {
+        columnFamilyProfile = ColumnFamilyProfile.INDEX;
+        entityCodec = new TransactionIndexDataCodec();
+    }
+}
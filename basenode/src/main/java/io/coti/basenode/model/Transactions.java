@@ -1,6 +1,8 @@
 package io.coti.basenode.model;
 
 import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.database.ColumnFamilyProfile;
+import io.coti.basenode.database.codec.TransactionDataCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -8,6 +10,11 @@ import org.springframework.stereotype.Service;
 @Service
 public class Transactions extends Collection<TransactionData> {
 
+    public Transactions() {
+        columnFamilyProfile = ColumnFamilyProfile.POINT_LOOKUP;
+        entityCodec = new TransactionDataCodec();
+    }
+
     @Override
     public void init() {
         super.init();
@@ -10,11 +10,17 @@ public class PotRunnableTask implements Comparable<PotRunnableTask>, Runnable {
     private byte[] targetDifficulty;
     private final TransactionData transactionData;
     private final AtomicInteger lock;
+    private final int nonceSearchWorkers;
 
     public PotRunnableTask(TransactionData transactionData, byte[] targetDifficulty, AtomicInteger lock) {
+        this(transactionData, targetDifficulty, lock, 1);
+    }
+
+    public PotRunnableTask(TransactionData transactionData, byte[] targetDifficulty, AtomicInteger lock, int nonceSearchWorkers) {
         this.transactionData = transactionData;
         this.targetDifficulty = targetDifficulty;
         this.lock = lock;
+        this.nonceSearchWorkers = nonceSearchWorkers;
     }
 
     public int getPriority() {
@@ -30,7 +36,7 @@ public class PotRunnableTask implements Comparable<PotRunnableTask>, Runnable {
     }
 
     private void potAction(TransactionData transactionData) {
-        ProofOfTrust pot = new ProofOfTrust(transactionData.getRoundedSenderTrustScore());
+        ProofOfTrust pot = new ProofOfTrust(transactionData.getRoundedSenderTrustScore(), nonceSearchWorkers);
         int[] nonces = pot.hash(transactionData.getHash().getBytes(), this.targetDifficulty);
         transactionData.setNonces(nonces);
     }
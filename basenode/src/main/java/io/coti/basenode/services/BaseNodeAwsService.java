@@ -80,6 +80,28 @@ public class BaseNodeAwsService implements IAwsService {
         }
     }
 
+    @Override
+    public void uploadStreamToS3(String bucketName, String s3FilePath, InputStream inputStream, long contentLength) {
+        try {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(contentLength);
+            PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, s3FilePath, inputStream, metadata)
+                    .withCannedAcl(CannedAccessControlList.PublicRead);
+            s3Client.putObject(putObjectRequest);
+        } catch (Exception e) {
+            throw new AwsDataTransferException("Upload stream to S3 error.", e);
+        }
+    }
+
+    @Override
+    public InputStream getS3ObjectContent(String bucketName, String s3FilePath) {
+        try {
+            return s3Client.getObject(bucketName, s3FilePath).getObjectContent();
+        } catch (Exception e) {
+            throw new AwsDataTransferException("Get S3 object content error.", e);
+        }
+    }
+
     @Override
     public void downloadFolderAndContents(String bucketName, String s3folderPath, String directoryToDownload) {
 
@@ -1,9 +1,6 @@
 package io.coti.basenode.services;
 
-import io.coti.basenode.data.BaseTransactionData;
-import io.coti.basenode.data.Event;
-import io.coti.basenode.data.Hash;
-import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.data.*;
 import io.coti.basenode.exceptions.BalanceException;
 import io.coti.basenode.http.*;
 import io.coti.basenode.http.data.AddressBalance;
@@ -11,6 +8,7 @@ import io.coti.basenode.http.interfaces.IResponse;
 import io.coti.basenode.services.interfaces.IBalanceService;
 import io.coti.basenode.services.interfaces.ICurrencyService;
 import io.coti.basenode.services.interfaces.IEventService;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -18,11 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.*;
 
 import static io.coti.basenode.http.BaseNodeHttpStringConstants.MULTI_DAG_IS_NOT_SUPPORTED;
 import static io.coti.basenode.http.BaseNodeHttpStringConstants.STATUS_ERROR;
@@ -31,52 +25,30 @@ import static io.coti.basenode.http.BaseNodeHttpStringConstants.STATUS_ERROR;
 @Service
 public class BaseNodeBalanceService implements IBalanceService {
 
-    protected Map<Hash, Map<Hash, BigDecimal>> balanceMap;
-    protected Map<Hash, Map<Hash, BigDecimal>> preBalanceMap;
+    protected BalanceLedger balanceLedger;
     @Autowired
     protected ICurrencyService currencyService;
     @Autowired
     private IEventService baseNodeEventService;
 
     public void init() {
-        balanceMap = new ConcurrentHashMap<>();
-        preBalanceMap = new ConcurrentHashMap<>();
+        balanceLedger = new BalanceLedger();
         log.info("{} is up", this.getClass().getSimpleName());
     }
 
     @Override
-    public synchronized boolean checkBalancesAndAddToPreBalance(List<BaseTransactionData> baseTransactions) {
-        Map<Hash, Map<Hash, BigDecimal>> balanceInChangeMap = new HashMap<>();
-        Map<Hash, Map<Hash, BigDecimal>> preBalanceInChangeMap = new HashMap<>();
+    public boolean checkBalancesAndAddToPreBalance(List<BaseTransactionData> baseTransactions) {
+        List<BalanceLedger.BalanceChange> balanceChanges = new ArrayList<>(baseTransactions.size());
         for (BaseTransactionData baseTransactionData : baseTransactions) {
-
-            BigDecimal amount = baseTransactionData.getAmount();
-            Hash addressHash = baseTransactionData.getAddressHash();
             Hash currencyHash = currencyService.getNativeCurrencyHashIfNull(baseTransactionData.getCurrencyHash());
-            balanceInChangeMap.putIfAbsent(addressHash, new ConcurrentHashMap<>());
-            balanceInChangeMap.get(addressHash).putIfAbsent(currencyHash, getBalance(addressHash, currencyHash));
-            preBalanceInChangeMap.putIfAbsent(addressHash, new ConcurrentHashMap<>());
-            preBalanceInChangeMap.get(addressHash).putIfAbsent(currencyHash, getPreBalance(addressHash, currencyHash));
-            if (amount.add(balanceInChangeMap.get(addressHash).get(currencyHash)).signum() < 0) {
-                log.error("Error in Balance check. Address {},  amount {}, current Balance {} ", addressHash,
-                        amount, balanceInChangeMap.get(addressHash).get(currencyHash));
-                return false;
-            }
-            if (amount.add(preBalanceInChangeMap.get(addressHash).get(currencyHash)).signum() < 0) {
-                log.error("Error in PreBalance check. Address {},  amount {}, current PreBalance {} ", addressHash,
-                        amount, preBalanceInChangeMap.get(addressHash).get(currencyHash));
-                return false;
-            }
-            preBalanceInChangeMap.get(addressHash).put(currencyHash, amount.add(preBalanceInChangeMap.get(addressHash).get(currencyHash)));
+            balanceChanges.add(new BalanceLedger.BalanceChange(baseTransactionData.getAddressHash(), currencyHash, baseTransactionData.getAmount()));
         }
-        preBalanceInChangeMap.forEach((addressHash, currencyHashPreBalanceMap) -> {
-            preBalanceMap.putIfAbsent(addressHash, new ConcurrentHashMap<>());
-            currencyHashPreBalanceMap.forEach((currencyHash, preBalanceInChange) -> {
-                preBalanceMap.get(addressHash).put(currencyHash, preBalanceInChange);
-                continueHandleBalanceChanges(addressHash, currencyHash);
-            });
-
-        });
+        if (!balanceLedger.checkAndReserve(balanceChanges)) {
+            return false;
+        }
+        Set<BalanceKey> changedBalanceKeys = new LinkedHashSet<>();
+        balanceChanges.forEach(balanceChange -> changedBalanceKeys.add(new BalanceKey(balanceChange.getAddressHash(), balanceChange.getCurrencyHash())));
+        changedBalanceKeys.forEach(balanceKey -> continueHandleBalanceChanges(balanceKey.getAddressHash(), balanceKey.getCurrencyHash()));
         return true;
     }
 
@@ -105,17 +77,15 @@ public class BaseNodeBalanceService implements IBalanceService {
             return ResponseEntity.badRequest().body(new Response(MULTI_DAG_IS_NOT_SUPPORTED, STATUS_ERROR));
         }
         Map<Hash, Map<Hash, AddressBalance>> addressToTokenBalances = new HashMap<>();
-        getTokenBalancesRequest.getAddresses().forEach(address -> {
-            Map<Hash, BigDecimal> addressToPreBalanceMap = preBalanceMap.get(address);
-            if (addressToPreBalanceMap != null) {
-                addressToPreBalanceMap.forEach((currencyHash, preBalance) -> {
-                    if (!currencyService.isNativeCurrency(currencyHash)) {
+        getTokenBalancesRequest.getAddresses().forEach(address ->
+                balanceLedger.getCurrencyBalances(address).forEach(currencyBalance -> {
+                    Hash currencyHash = currencyBalance.getCurrencyHash();
+                    if (currencyBalance.getPreBalance() != null && !currencyService.isNativeCurrency(currencyHash)) {
                         addressToTokenBalances.putIfAbsent(address, new HashMap<>());
-                        addressToTokenBalances.get(address).putIfAbsent(currencyHash, new AddressBalance(getBalance(address, currencyHash), preBalance));
+                        addressToTokenBalances.get(address).putIfAbsent(currencyHash, new AddressBalance(Optional.ofNullable(currencyBalance.getBalance()).orElse(BigDecimal.ZERO), currencyBalance.getPreBalance()));
                     }
-                });
-            }
-        });
+                })
+        );
 
         return ResponseEntity.status(HttpStatus.OK).body(new GetTokenBalancesResponse(addressToTokenBalances));
     }
@@ -124,87 +94,62 @@ public class BaseNodeBalanceService implements IBalanceService {
     public void rollbackBaseTransactions(TransactionData transactionData) {
         transactionData.getBaseTransactions().forEach(baseTransactionData -> {
             Hash currencyHash = currencyService.getNativeCurrencyHashIfNull(baseTransactionData.getCurrencyHash());
-            preBalanceMap.computeIfPresent(baseTransactionData.getAddressHash(), (addressHash, currencyHashPreBalanceMap) -> {
-                currencyHashPreBalanceMap.computeIfPresent(currencyHash, (currentCurrencyHash, currentAmount) ->
-                        currentAmount.add(baseTransactionData.getAmount().negate())
-                );
-                return currencyHashPreBalanceMap;
-            });
+            balanceLedger.addToPreBalanceIfPresent(baseTransactionData.getAddressHash(), currencyHash, baseTransactionData.getAmount().negate());
         });
     }
 
     @Override
     public void validateBalances() {
-        preBalanceMap.forEach((hash, currencyHashPreBalanceMap) ->
-                currencyHashPreBalanceMap.forEach((currencyHash, preBalance) -> {
-                    if (preBalance.signum() == -1) {
-                        throw new BalanceException(String.format("PreBalance Validation failed with preBalance %s for address %s and currency %s", preBalance, hash, currencyHash));
-                    }
-                })
-        );
-        balanceMap.forEach((hash, currencyHashBalanceMap) ->
-                currencyHashBalanceMap.forEach((currencyHash, balance) -> {
-                    if (balance.signum() == -1) {
-                        throw new BalanceException(String.format("Balance Validation failed with balance %s for address %s and currency %s", balance, hash, currencyHash));
-                    }
-                })
-        );
+        balanceLedger.forEach((hash, currencyBalance) -> {
+            BigDecimal preBalance = currencyBalance.getPreBalance();
+            if (preBalance != null && preBalance.signum() == -1) {
+                throw new BalanceException(String.format("PreBalance Validation failed with preBalance %s for address %s and currency %s", preBalance, hash, currencyBalance.getCurrencyHash()));
+            }
+        });
+        balanceLedger.forEach((hash, currencyBalance) -> {
+            BigDecimal balance = currencyBalance.getBalance();
+            if (balance != null && balance.signum() == -1) {
+                throw new BalanceException(String.format("Balance Validation failed with balance %s for address %s and currency %s", balance, hash, currencyBalance.getCurrencyHash()));
+            }
+        });
         log.info("Balance Validation completed");
     }
 
     @Override
     public void updateBalanceAndPreBalanceFromClusterStamp(Hash addressHash, Hash currencyHash, BigDecimal amount) {
         currencyHash = currencyService.getNativeCurrencyHashIfNull(currencyHash);
-        if (balanceMap.containsKey(addressHash) && balanceMap.get(addressHash).containsKey(currencyHash)) {
+        if (!balanceLedger.addToBalanceAndPreBalanceIfAbsent(addressHash, currencyHash, amount)) {
             log.error("The address {} for currency {} was already found in the clusterstamp", addressHash, currencyHash);
             throw new IllegalArgumentException(String.format("The address %s for currency %s was already found in the clusterstamp", addressHash, currencyHash));
         }
-        balanceMap.putIfAbsent(addressHash, new ConcurrentHashMap<>());
-        balanceMap.get(addressHash).put(currencyHash, amount);
-        preBalanceMap.putIfAbsent(addressHash, new ConcurrentHashMap<>());
-        preBalanceMap.get(addressHash).put(currencyHash, amount);
         log.trace("Loading from clusterstamp into inMem balance+preBalance address {} and amount {}", addressHash, amount);
     }
 
     @Override
     public void updateBalance(Hash addressHash, Hash currencyHash, BigDecimal amount) {
-        updateBalance(addressHash, currencyHash, amount, balanceMap);
+        balanceLedger.addToBalance(addressHash, currencyService.getNativeCurrencyHashIfNull(currencyHash), amount);
     }
 
     @Override
     public void updatePreBalance(Hash addressHash, Hash currencyHash, BigDecimal amount) {
-        updateBalance(addressHash, currencyHash, amount, preBalanceMap);
-    }
-
-    private void updateBalance(Hash addressHash, Hash currencyHash, BigDecimal amount, Map<Hash, Map<Hash, BigDecimal>> balanceMap) {
-        final Hash finalCurrencyHash = currencyService.getNativeCurrencyHashIfNull(currencyHash);
-        balanceMap.computeIfPresent(addressHash, (currentHash, currentCurrencyHashBalanceMap) -> {
-            currentCurrencyHashBalanceMap.computeIfPresent(finalCurrencyHash, (currentCurrencyHash, currentBalance) -> currentBalance.add(amount));
-            currentCurrencyHashBalanceMap.putIfAbsent(finalCurrencyHash, amount);
-            return currentCurrencyHashBalanceMap;
-        });
-        balanceMap.putIfAbsent(addressHash, getInitialCurrencyHashBalanceMap(finalCurrencyHash, amount));
-    }
-
-    private Map<Hash, BigDecimal> getInitialCurrencyHashBalanceMap(Hash currencyHash, BigDecimal amount) {
-        Map<Hash, BigDecimal> currencyHashBalanceMap = new ConcurrentHashMap<>();
-        currencyHashBalanceMap.put(currencyHash, amount);
-        return currencyHashBalanceMap;
+        balanceLedger.addToPreBalance(addressHash, currencyService.getNativeCurrencyHashIfNull(currencyHash), amount);
     }
 
     @Override
     public BigDecimal getBalance(Hash addressHash, Hash currencyHash) {
-        return getBalance(addressHash, currencyHash, balanceMap);
+        return balanceLedger.getBalance(addressHash, currencyService.getNativeCurrencyHashIfNull(currencyHash));
     }
 
     @Override
     public BigDecimal getPreBalance(Hash addressHash, Hash currencyHash) {
-        return getBalance(addressHash, currencyHash, preBalanceMap);
+        return balanceLedger.getPreBalance(addressHash, currencyService.getNativeCurrencyHashIfNull(currencyHash));
     }
 
-    private BigDecimal getBalance(Hash addressHash, Hash
-            currencyHash, Map<Hash, Map<Hash, BigDecimal>> balanceMap) {
-        return new BigDecimal(Optional.ofNullable(Optional.ofNullable(balanceMap.get(addressHash)).orElse(new ConcurrentHashMap<>()).get(currencyService.getNativeCurrencyHashIfNull(currencyHash))).orElse(BigDecimal.ZERO).toString());
+    @Data
+    private static class BalanceKey {
+
+        private final Hash addressHash;
+        private final Hash currencyHash;
     }
 
 }
@@ -32,8 +32,22 @@ public class BaseNodeChunkService implements IChunkService {
 
     @Override
     public void sendChunk(String string, PrintWriter output) {
+        writeChunk(string, output);
+        flushChunk(output);
+    }
+
+    @Override
+    public void writeChunk(String string, PrintWriter output) {
         try {
             output.write(string);
+        } catch (Exception e) {
+            throw new ChunkException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void flushChunk(PrintWriter output) {
+        try {
             output.flush();
         } catch (Exception e) {
             throw new ChunkException(e.getMessage());
@@ -16,9 +16,8 @@ import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.math.BigDecimal;
-import java.nio.ByteBuffer;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -28,12 +27,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class BaseNodeClusterStampService implements IClusterStampService {
 
     protected static final String CLUSTERSTAMP_FILE_SUFFIX = "_clusterstamp.csv";
+    protected static final String BINARY_CLUSTERSTAMP_FILE_SUFFIX = "_clusterstamp.bin";
     private static final int NUMBER_OF_GENESIS_ADDRESSES_MIN_LINES = 1; // Genesis One and Two + heading
-    private static final int DETAILS_IN_CLUSTERSTAMP_LINE_WITHOUT_CURRENCY_HASH = 2;
-    private static final int DETAILS_IN_CLUSTERSTAMP_LINE_WITH_CURRENCY_HASH = 3;
-    private static final int ADDRESS_HASH_INDEX_IN_CLUSTERSTAMP_LINE = 0;
-    private static final int AMOUNT_INDEX_IN_CLUSTERSTAMP_LINE = 1;
-    private static final int CURRENCY_HASH_INDEX_IN_CLUSTERSTAMP_LINE = 2;
     protected static final String BAD_CSV_FILE_FORMAT = "Bad csv file format";
     private static final String SIGNATURE_LINE_TOKEN = "# Signature";
     private static final int NUMBER_OF_SIGNATURE_LINE_DETAILS = 2;
@@ -41,6 +36,8 @@ public class BaseNodeClusterStampService implements IClusterStampService {
     protected String clusterStampFilePrefix;
     @Value("${data.path:./}")
     protected String clusterStampFolder;
+    @Value("${clusterstamp.binary:false}")
+    private boolean binaryClusterStamp;
     @Autowired
     protected IBalanceService balanceService;
     @Autowired
@@ -53,6 +50,8 @@ public class BaseNodeClusterStampService implements IClusterStampService {
     protected INetworkService networkService;
     @Autowired
     protected ICurrencyService currencyService;
+    @Autowired
+    protected ClusterStampLoader clusterStampLoader;
 
     @Override
     public void init() {
@@ -62,13 +61,41 @@ public class BaseNodeClusterStampService implements IClusterStampService {
 
     @Override
     public void loadClusterStamp() {
-        String clusterStampFileLocation = clusterStampFolder + clusterStampFilePrefix + CLUSTERSTAMP_FILE_SUFFIX;
-        File clusterStampFile = new File(clusterStampFileLocation);
-        ClusterStampData clusterStampData = new ClusterStampData();
+        File clusterStampFile = new File(clusterStampFolder + clusterStampFilePrefix + CLUSTERSTAMP_FILE_SUFFIX);
+        File binaryClusterStampFile = new File(clusterStampFolder + clusterStampFilePrefix + BINARY_CLUSTERSTAMP_FILE_SUFFIX);
+
+        try {
+            if (binaryClusterStamp && binaryClusterStampFile.exists()) {
+                if (clusterStampLoader.isBinaryClusterStampCurrent(clusterStampFile, binaryClusterStampFile)) {
+                    handleClusterStampWithSignature(clusterStampLoader.loadBinaryClusterStamp(binaryClusterStampFile, balanceService::updateBalanceAndPreBalanceFromClusterStamp));
+                    return;
+                }
+                log.info("Binary clusterstamp {} does not match the csv clusterstamp and will be rebuilt", binaryClusterStampFile.getName());
+            }
+            ClusterStampData clusterStampData = new ClusterStampData();
+            ClusterStampBalancesData clusterStampBalancesData = clusterStampLoader.loadCsvBalances(clusterStampFile, clusterStampData, balanceService::updateBalanceAndPreBalanceFromClusterStamp);
+            int signatureRelevantLines = fillSignatureDataFromTrailingSection(clusterStampData, clusterStampBalancesData);
+            if (signatureRelevantLines == 0) {
+                handleClusterStampWithoutSignature(clusterStampData);
+            } else if (signatureRelevantLines == 1) {
+                throw new ClusterStampValidationException("Signature lines can not be a single line at clusterstamp file");
+            } else {
+                handleClusterStampWithSignature(clusterStampData);
+                if (binaryClusterStamp) {
+                    convertToBinaryClusterStamp(clusterStampFile, binaryClusterStampFile, clusterStampData);
+                }
+            }
+        } catch (ClusterStampException e) {
+            throw new ClusterStampException("Errors on balance clusterstamp file loading.%n" + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new ClusterStampException("Errors on balance clusterstamp file loading.", e);
+        }
+    }
 
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(clusterStampFile))) {
+    private int fillSignatureDataFromTrailingSection(ClusterStampData clusterStampData, ClusterStampBalancesData clusterStampBalancesData) throws IOException {
+        try (BufferedReader bufferedReader = new BufferedReader(new StringReader(clusterStampBalancesData.getTrailingSection()))) {
             String line;
-            AtomicInteger relevantLineNumber = new AtomicInteger(0);
+            AtomicInteger relevantLineNumber = new AtomicInteger((int) clusterStampBalancesData.getBalanceLines());
             AtomicInteger signatureRelevantLines = new AtomicInteger(0);
             AtomicBoolean reachedSignatureSection = new AtomicBoolean(false);
             AtomicBoolean finishedBalances = new AtomicBoolean(false);
@@ -82,17 +109,15 @@ public class BaseNodeClusterStampService implements IClusterStampService {
                     fillDataFromLine(clusterStampData, line, signatureRelevantLines, reachedSignatureSection, finishedBalances);
                 }
             }
-            if (signatureRelevantLines.get() == 0) {
-                handleClusterStampWithoutSignature(clusterStampData);
-            } else if (signatureRelevantLines.get() == 1) {
-                throw new ClusterStampValidationException("Signature lines can not be a single line at clusterstamp file");
-            } else {
-                handleClusterStampWithSignature(clusterStampData);
-            }
-        } catch (ClusterStampException e) {
-            throw new ClusterStampException("Errors on balance clusterstamp file loading.%n" + e.getMessage(), e);
+            return signatureRelevantLines.get();
+        }
+    }
+
+    private void convertToBinaryClusterStamp(File clusterStampFile, File binaryClusterStampFile, ClusterStampData clusterStampData) {
+        try {
+            clusterStampLoader.convertToBinaryClusterStamp(clusterStampFile, binaryClusterStampFile, clusterStampData.getSignature());
         } catch (Exception e) {
-            throw new ClusterStampException("Errors on balance clusterstamp file loading.", e);
+            log.error("Error at converting the clusterstamp to binary format", e);
         }
     }
 
@@ -110,7 +135,7 @@ public class BaseNodeClusterStampService implements IClusterStampService {
 
     private void fillDataFromLine(ClusterStampData clusterStampData, String line, AtomicInteger signatureRelevantLines, AtomicBoolean reachedSignatureSection, AtomicBoolean finishedBalances) {
         if (!finishedBalances.get()) {
-            fillBalanceFromLine(clusterStampData, line);
+            throw new ClusterStampValidationException(BAD_CSV_FILE_FORMAT);
         } else {
             if (!reachedSignatureSection.get()) {
                 if (!line.contentEquals(SIGNATURE_LINE_TOKEN)) {
@@ -125,29 +150,6 @@ public class BaseNodeClusterStampService implements IClusterStampService {
         }
     }
 
-    private void fillBalanceFromLine(ClusterStampData clusterStampData, String line) {
-        String[] lineDetails = line.split(",");
-        int numOfDetailsInLine = lineDetails.length;
-        if (numOfDetailsInLine != DETAILS_IN_CLUSTERSTAMP_LINE_WITH_CURRENCY_HASH && numOfDetailsInLine != DETAILS_IN_CLUSTERSTAMP_LINE_WITHOUT_CURRENCY_HASH) {
-            throw new ClusterStampValidationException(BAD_CSV_FILE_FORMAT);
-        }
-        Hash addressHash = new Hash(lineDetails[ADDRESS_HASH_INDEX_IN_CLUSTERSTAMP_LINE]);
-        BigDecimal currencyAmountInAddress = new BigDecimal(lineDetails[AMOUNT_INDEX_IN_CLUSTERSTAMP_LINE]);
-        Hash currencyHash = numOfDetailsInLine == DETAILS_IN_CLUSTERSTAMP_LINE_WITH_CURRENCY_HASH && !lineDetails[CURRENCY_HASH_INDEX_IN_CLUSTERSTAMP_LINE].isEmpty() ? new Hash(lineDetails[CURRENCY_HASH_INDEX_IN_CLUSTERSTAMP_LINE]) : null;
-        currencyHash = currencyService.getNativeCurrencyHashIfNull(currencyHash);
-
-        balanceService.updateBalanceAndPreBalanceFromClusterStamp(addressHash, currencyHash, currencyAmountInAddress);
-        log.trace("The address hash {} for currency hash {} was loaded from the clusterstamp with amount {}", addressHash, currencyHash, currencyAmountInAddress);
-
-        byte[] addressHashInBytes = addressHash.getBytes();
-        byte[] addressCurrencyAmountInBytes = currencyAmountInAddress.stripTrailingZeros().toPlainString().getBytes();
-        byte[] currencyHashInBytes = numOfDetailsInLine == DETAILS_IN_CLUSTERSTAMP_LINE_WITH_CURRENCY_HASH ? currencyHash.getBytes() : new byte[0];
-        byte[] balanceInBytes = ByteBuffer.allocate(addressHashInBytes.length + addressCurrencyAmountInBytes.length + currencyHashInBytes.length)
-                .put(addressHashInBytes).put(addressCurrencyAmountInBytes).put(currencyHashInBytes).array();
-        clusterStampData.getSignatureMessage().add(balanceInBytes);
-        clusterStampData.incrementMessageByteSize(balanceInBytes.length);
-    }
-
     private void fillSignatureDataFromLine(ClusterStampData clusterStampData, String line, AtomicInteger signatureRelevantLines) {
         if (signatureRelevantLines.get() > 2) {
             throw new ClusterStampValidationException(BAD_CSV_FILE_FORMAT);
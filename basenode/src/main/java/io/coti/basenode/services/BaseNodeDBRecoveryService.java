@@ -2,9 +2,12 @@ package io.coti.basenode.services;
 
 import com.google.gson.Gson;
 import io.coti.basenode.crypto.NodeCryptoHelper;
-import io.coti.basenode.data.DbRestoreSource;
-import io.coti.basenode.data.Hash;
-import io.coti.basenode.data.NetworkNodeData;
+import io.coti.basenode.data.*;
+import io.coti.basenode.database.backup.BackupCatalog;
+import io.coti.basenode.database.backup.IncrementalBackupEngine;
+import io.coti.basenode.database.backup.LocalBackupStorage;
+import io.coti.basenode.database.backup.S3BackupStorage;
+import io.coti.basenode.database.interfaces.IBackupStorage;
 import io.coti.basenode.database.interfaces.IDatabaseConnector;
 import io.coti.basenode.exceptions.CotiRunTimeException;
 import io.coti.basenode.exceptions.DataBaseBackupException;
@@ -19,8 +22,6 @@ import io.coti.basenode.services.interfaces.IDBRecoveryService;
 import io.coti.basenode.services.interfaces.INetworkService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.lang3.StringUtils;
-import org.rocksdb.BackupInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -33,10 +34,9 @@ import org.springframework.web.client.RestTemplate;
 
 import java.io.File;
 import java.io.IOException;
-import java.time.Instant;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
 import static io.coti.basenode.http.BaseNodeHttpStringConstants.*;
 
@@ -47,7 +47,10 @@ public class BaseNodeDBRecoveryService implements IDBRecoveryService {
     private static final int INDEX_OF_BACKUP_TIMESTAMP_IN_PATH = 3;
     private static final int INDEX_OF_BACKUP_TIMESTAMP_IN_FOLDER_NAME = 1;
     private static final int ALLOWED_NUMBER_OF_BACKUPS = 2;
-    private static final String BACK_UP_FOLDER_PREFIX = "/backup-";
+    private static final String BACK_UP_FOLDER_NAME_PREFIX = "backup-";
+    private static final String BACK_UP_FOLDER_PREFIX = "/" + BACK_UP_FOLDER_NAME_PREFIX;
+    private static final String CHECKPOINT_FOLDER = "/checkpoint";
+    private static final String BACKUP_CATALOG_FILE_NAME = "backup-catalog.json";
     private final AtomicBoolean backupInProgress = new AtomicBoolean(false);
     private final HashMap<String, HashMap<String, Long>> backupLog = new HashMap<>();
     @Value("${db.backup}")
@@ -68,6 +71,14 @@ public class BaseNodeDBRecoveryService implements IDBRecoveryService {
     private Hash restoreNodeHash;
     @Value("${db.restore.source}")
     private DbRestoreSource restoreSource;
+    @Value("${db.backup.storage:S3}")
+    private BackupStorageType backupStorageType;
+    @Value("${db.backup.storage.local.path:}")
+    private String localBackupStoragePath;
+    @Value("${db.backup.threads:4}")
+    private int backupThreads;
+    @Value("${db.backup.rate.limit:0}")
+    private long backupRateLimit;
     @Autowired
     private IDatabaseConnector dBConnector;
     @Autowired
@@ -80,7 +91,7 @@ public class BaseNodeDBRecoveryService implements IDBRecoveryService {
     private String remoteBackupFolderPath;
     private String backupS3Path;
     private String restoreS3Path;
-    private String s3FolderName;
+    private IncrementalBackupEngine incrementalBackupEngine;
 
     @Override
     public void init() {
@@ -92,6 +103,8 @@ public class BaseNodeDBRecoveryService implements IDBRecoveryService {
             createBackupFolder(remoteBackupFolderPath);
             validateInjectedProperties();
             initBackupNodeHashS3Path();
+            incrementalBackupEngine = new IncrementalBackupEngine(getBackupStorage(), new BackupCatalog(Paths.get(dbPath, "backups", BACKUP_CATALOG_FILE_NAME)),
+                    backupThreads, backupRateLimit);
             if (restore) {
                 restoreDB();
             }
@@ -102,9 +115,19 @@ public class BaseNodeDBRecoveryService implements IDBRecoveryService {
         }
     }
 
+    private IBackupStorage getBackupStorage() {
+        if (backupStorageType.equals(BackupStorageType.Local)) {
+            return new LocalBackupStorage(Paths.get(localBackupStoragePath));
+        }
+        return new S3BackupStorage(awsService);
+    }
+
     private void validateInjectedProperties() {
+        if (backupStorageType.equals(BackupStorageType.Local) && localBackupStoragePath.isEmpty()) {
+            throw new DataBaseRecoveryException("Local backup storage path can not be empty when the backup storage is local");
+        }
         if (backup || manualBackup) {
-            if (!awsService.isBuildS3ClientWithCredentials()) {
+            if (backupStorageType.equals(BackupStorageType.S3) && !awsService.isBuildS3ClientWithCredentials()) {
                 throw new DataBaseRecoveryException("Aws s3 client should be with credentials when backup flag is set to true");
             }
             if (backupBucket.isEmpty()) {
@@ -122,49 +145,21 @@ public class BaseNodeDBRecoveryService implements IDBRecoveryService {
 
     }
 
-    private void removeOlderBackupsFromS3(List<String> backupFiles) {
-        if (!backupFiles.isEmpty()) {
-            Set<Long> s3BackupTimeStampSet = getS3BackupTimeStampSet(backupFiles);
-            if (s3BackupTimeStampSet.size() >= ALLOWED_NUMBER_OF_BACKUPS) {
-                List<Long> s3BackupTimeStamps = new ArrayList<>(s3BackupTimeStampSet);
-                Collections.sort(s3BackupTimeStamps);
-                String[] backupFoldersToRemove = s3BackupTimeStamps.stream().limit((long) s3BackupTimeStampSet.size() - ALLOWED_NUMBER_OF_BACKUPS + 1).map(s3BackupTimeStamp -> backupS3Path + BACK_UP_FOLDER_PREFIX + s3BackupTimeStamp.toString()).toArray(String[]::new);
-                List<String> backupFilesToRemove = backupFiles.stream().filter(backupFile -> StringUtils.startsWithAny(backupFile, backupFoldersToRemove)).collect(Collectors.toList());
-                log.info("Deleting {} older backup folder(s) with total {} file(s).", backupFoldersToRemove.length, backupFilesToRemove.size());
-                log.info("Folders: {}", Arrays.toString(backupFoldersToRemove));
-                awsService.deleteFolderAndContentsFromS3(backupFilesToRemove, backupBucket);
-                log.info("Finished to delete older backup folders");
-            }
-        }
-    }
-
-    private void uploadRecentBackupToS3(List<String> backupFiles) {
-        if (backupFiles.isEmpty()) {
-            awsService.createS3Folder(backupBucket, backupS3Path);
-        }
-        File backupFolderToUpload = new File(remoteBackupFolderPath);
-        s3FolderName = BACK_UP_FOLDER_PREFIX + Instant.now().toEpochMilli();
-        log.info("Uploading remote backup to S3 bucket {} and folderName {}", backupBucket, s3FolderName);
-        awsService.uploadFolderAndContentsToS3(backupBucket, backupS3Path + s3FolderName, backupFolderToUpload);
-    }
-
-    private List<String> getBackupFiles() {
-        return awsService.listS3Paths(backupBucket, backupS3Path);
-    }
-
-    private void generateBackupLog(BackupInfo lastBackupInfo, long backupStartedTime, long entireDuration, long backupDuration,
+    private void generateBackupLog(BackupCatalogEntryData backupCatalogEntryData, long backupStartedTime, long entireDuration, long backupDuration,
                                    long uploadDuration, long removalDuration) {
         HashMap<String, Long> metricsList = new HashMap<>();
         metricsList.put("success", 1L);
         metricsList.put("epoch", backupStartedTime);
-        metricsList.put("number_of_files", (long) lastBackupInfo.numberFiles());
-        metricsList.put("size", lastBackupInfo.size());
+        metricsList.put("number_of_files", (long) backupCatalogEntryData.getNumberOfFiles());
+        metricsList.put("size", backupCatalogEntryData.getSize());
+        metricsList.put("uploaded_files", (long) backupCatalogEntryData.getUploadedFiles());
+        metricsList.put("uploaded_size", backupCatalogEntryData.getUploadedSize());
         metricsList.put("entire_duration", entireDuration);
         metricsList.put("backup_duration", backupDuration);
         metricsList.put("upload_duration", uploadDuration);
         metricsList.put("removal_duration", removalDuration);
         synchronized (backupLog) {
-            backupLog.put(s3FolderName, metricsList);
+            backupLog.put(backupCatalogEntryData.getBackupName(), metricsList);
         }
     }
 
@@ -199,18 +194,18 @@ public class BaseNodeDBRecoveryService implements IDBRecoveryService {
                 long backupStartedTime = java.time.Instant.now().getEpochSecond();
                 log.info("Starting DB backup flow");
                 deleteBackup(remoteBackupFolderPath);
-                BackupInfo lastBackupInfo = dBConnector.generateDataBaseBackup(remoteBackupFolderPath);
-                long backupDuration = java.time.Instant.now().getEpochSecond() - lastBackupInfo.timestamp();
-                List<String> uploadedBackupFiles = getBackupFiles();
+                String checkpointPath = remoteBackupFolderPath + CHECKPOINT_FOLDER;
+                dBConnector.createCheckpoint(checkpointPath);
+                long backupDuration = java.time.Instant.now().getEpochSecond() - backupStartedTime;
                 long uploadBackupStartedTime = java.time.Instant.now().getEpochSecond();
-                uploadRecentBackupToS3(uploadedBackupFiles);
+                BackupCatalogEntryData backupCatalogEntryData = incrementalBackupEngine.backup(new File(checkpointPath), backupBucket, backupS3Path);
                 long uploadDuration = java.time.Instant.now().getEpochSecond() - uploadBackupStartedTime;
                 long removalBackupStartedTime = java.time.Instant.now().getEpochSecond();
-                removeOlderBackupsFromS3(uploadedBackupFiles);
+                incrementalBackupEngine.removeOlderBackups(backupBucket, backupS3Path, ALLOWED_NUMBER_OF_BACKUPS);
                 long removalDuration = java.time.Instant.now().getEpochSecond() - removalBackupStartedTime;
                 log.info("Finished DB backup flow");
                 long entireDuration = java.time.Instant.now().getEpochSecond() - backupStartedTime;
-                generateBackupLog(lastBackupInfo, backupStartedTime, entireDuration, backupDuration, uploadDuration, removalDuration);
+                generateBackupLog(backupCatalogEntryData, backupStartedTime, entireDuration, backupDuration, uploadDuration, removalDuration);
             } catch (CotiRunTimeException e) {
                 log.error("Backup DB error.");
                 e.logMessage();
@@ -267,15 +262,13 @@ public class BaseNodeDBRecoveryService implements IDBRecoveryService {
         try {
             deleteBackup(remoteBackupFolderPath);
             final String restoreBucket = getBackupBucketFromRestoreNode();
-            List<String> s3BackupFolderAndContents = awsService.listS3Paths(restoreBucket, restoreS3Path);
-            if (s3BackupFolderAndContents.isEmpty()) {
-                throw new DataBaseRestoreException(String.format("Couldn't complete restore. No backups found at %s/%s", restoreBucket, restoreS3Path));
-
+            String checkpointPath = remoteBackupFolderPath + CHECKPOINT_FOLDER;
+            createBackupFolder(checkpointPath);
+            if (incrementalBackupEngine.restoreLatestBackup(restoreBucket, restoreS3Path, new File(checkpointPath))) {
+                dBConnector.restoreDataBaseFromCheckpoint(checkpointPath);
+            } else {
+                restoreDBFromRemoteFullBackup(restoreBucket);
             }
-            String latestS3Backup = getLatestS3Backup(s3BackupFolderAndContents, restoreS3Path);
-            log.info("Downloading remote backup from S3 bucket");
-            awsService.downloadFolderAndContents(restoreBucket, latestS3Backup, remoteBackupFolderPath);
-            dBConnector.restoreDataBase(remoteBackupFolderPath);
         } catch (Exception e) {
             if (e.getCause() != null) {
                 log.error("Error while trying to restore DB from Remote:" + e.getCause());
@@ -290,6 +283,21 @@ public class BaseNodeDBRecoveryService implements IDBRecoveryService {
         }
     }
 
+    private void restoreDBFromRemoteFullBackup(String restoreBucket) {
+        if (backupStorageType.equals(BackupStorageType.Local)) {
+            throw new DataBaseRestoreException(String.format("Couldn't complete restore. No backups found at %s/%s", restoreBucket, restoreS3Path));
+        }
+        List<String> s3BackupFolderAndContents = awsService.listS3Paths(restoreBucket, restoreS3Path);
+        Set<Long> s3BackupTimeStampSet = getS3BackupTimeStampSet(s3BackupFolderAndContents);
+        if (s3BackupTimeStampSet.isEmpty()) {
+            throw new DataBaseRestoreException(String.format("Couldn't complete restore. No backups found at %s/%s", restoreBucket, restoreS3Path));
+        }
+        String latestS3Backup = restoreS3Path + BACK_UP_FOLDER_PREFIX + Collections.max(s3BackupTimeStampSet);
+        log.info("Downloading remote full backup from S3 bucket");
+        awsService.downloadFolderAndContents(restoreBucket, latestS3Backup, remoteBackupFolderPath);
+        dBConnector.restoreDataBase(remoteBackupFolderPath);
+    }
+
     private String getBackupBucketFromRestoreNode() {
 
         if (NodeCryptoHelper.getNodeHash().equals(restoreNodeHash)) {
@@ -354,19 +362,13 @@ public class BaseNodeDBRecoveryService implements IDBRecoveryService {
         }
     }
 
-    private String getLatestS3Backup(List<String> remoteBackups, String backupNodeHashS3Path) {
-        Set<Long> s3Backups = getS3BackupTimeStampSet(remoteBackups);
-        Long backupTimeStamp = Collections.max(s3Backups);
-        return backupNodeHashS3Path + BACK_UP_FOLDER_PREFIX + backupTimeStamp.toString();
-    }
-
     private Set<Long> getS3BackupTimeStampSet(List<String> remoteBackups) {
         String folderDelimiter = "/";
         String folderNameDelimiter = "-";
         Set<Long> s3Backups = new HashSet<>();
         remoteBackups.forEach(remoteBackup -> {
             String[] backupPathArray = remoteBackup.split(folderDelimiter);
-            if (backupPathArray.length > INDEX_OF_BACKUP_TIMESTAMP_IN_PATH) {
+            if (backupPathArray.length > INDEX_OF_BACKUP_TIMESTAMP_IN_PATH && backupPathArray[INDEX_OF_BACKUP_TIMESTAMP_IN_PATH].startsWith(BACK_UP_FOLDER_NAME_PREFIX)) {
                 String[] folderNameArray = backupPathArray[INDEX_OF_BACKUP_TIMESTAMP_IN_PATH].split(folderNameDelimiter);
                 if (folderNameArray.length > INDEX_OF_BACKUP_TIMESTAMP_IN_FOLDER_NAME) {
                     s3Backups.add(Long.parseLong(folderNameArray[INDEX_OF_BACKUP_TIMESTAMP_IN_FOLDER_NAME]));
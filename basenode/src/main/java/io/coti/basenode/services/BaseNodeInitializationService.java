@@ -12,6 +12,8 @@ import io.coti.basenode.exceptions.NetworkNodeValidationException;
 import io.coti.basenode.exceptions.NodeRegistrationValidationException;
 import io.coti.basenode.exceptions.TransactionSyncException;
 import io.coti.basenode.http.*;
+import io.coti.basenode.model.AddressTransactionsHistories;
+import io.coti.basenode.model.AddressTransactionsIndexes;
 import io.coti.basenode.model.NodeRegistrations;
 import io.coti.basenode.model.Transactions;
 import io.coti.basenode.services.interfaces.*;
@@ -28,11 +30,8 @@ import org.springframework.web.client.RestTemplate;
 
 import javax.annotation.PreDestroy;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
@@ -57,6 +56,8 @@ public abstract class BaseNodeInitializationService {
     private String kycServerAddress;
     @Value("${kycserver.public.key}")
     private String kycServerPublicKey;
+    @Value("${db.replay.max.in.flight.batches:64}")
+    private int maxInFlightReplayBatches;
     @Autowired
     protected INetworkService networkService;
     @Autowired
@@ -68,6 +69,10 @@ public abstract class BaseNodeInitializationService {
     @Autowired
     private Transactions transactions;
     @Autowired
+    private AddressTransactionsHistories addressTransactionsHistories;
+    @Autowired
+    private AddressTransactionsIndexes addressTransactionsIndexes;
+    @Autowired
     private TransactionIndexService transactionIndexService;
     @Autowired
     private IBalanceService balanceService;
@@ -126,6 +131,8 @@ public abstract class BaseNodeInitializationService {
     protected List<NodeFeeType> nodeFeeTypeList = new ArrayList<>();
     @Autowired
     private INodeFeesService nodeFeesService;
+    @Autowired
+    private ParallelReplayService parallelReplayService;
 
     public void init() {
         log.info("Application name: {}, version: {}", buildProperties.getName(), buildProperties.getVersion());
@@ -162,32 +169,11 @@ public abstract class BaseNodeInitializationService {
     public void initTransactionSync() {
         try {
             log.info("Starting to read existing transactions");
-            AtomicLong completedExistedTransactionNumber = new AtomicLong(0);
-            Thread monitorExistingTransactions = transactionService.monitorTransactionThread("existing", completedExistedTransactionNumber, null, "Db Txs Monitor");
-            final AtomicBoolean executorServicesInitiated = new AtomicBoolean(false);
-            final AtomicReference<ExecutorService> handleExistingExecutorService = new AtomicReference<>();
-            transactions.forEach(transactionData -> {
-                if (!executorServicesInitiated.get()) {
-                    existingTransactionExecutorMap = new EnumMap<>(InitializationTransactionHandlerType.class);
-                    EnumSet.allOf(InitializationTransactionHandlerType.class).forEach(initializationTransactionHandlerType -> existingTransactionExecutorMap.put(initializationTransactionHandlerType, new ExecutorData(initializationTransactionHandlerType)));
-                    handleExistingExecutorService.set(Executors.newFixedThreadPool(10));
-                    executorServicesInitiated.set(true);
-                }
-
-                if (!monitorExistingTransactions.isAlive()) {
-                    monitorExistingTransactions.start();
-                }
-                handleExistingExecutorService.get().execute(() -> handleExistingTransaction(transactionData));
-                completedExistedTransactionNumber.incrementAndGet();
-            });
-            if (monitorExistingTransactions.isAlive()) {
-                monitorExistingTransactions.interrupt();
-                monitorExistingTransactions.join();
-            }
-            if (executorServicesInitiated.get()) {
-                existingTransactionExecutorMap.forEach((initializationTransactionHandlerType, executorData) -> executorData.waitForTermination());
-                handleExistingExecutorService.get().shutdown();
-            }
+            existingTransactionExecutorMap = new EnumMap<>(InitializationTransactionHandlerType.class);
+            EnumSet.allOf(InitializationTransactionHandlerType.class).forEach(initializationTransactionHandlerType -> existingTransactionExecutorMap.put(initializationTransactionHandlerType, new ExecutorData(initializationTransactionHandlerType)));
+            Semaphore inFlightReplayBatches = new Semaphore(maxInFlightReplayBatches);
+            parallelReplayService.replay(transactions, "transactions", transactionBatch -> handleExistingTransactions(transactionBatch, inFlightReplayBatches));
+            existingTransactionExecutorMap.forEach((initializationTransactionHandlerType, executorData) -> executorData.waitForTermination());
             confirmationService.setLastDspConfirmationIndex(indexToTransactionMap);
             indexToTransactionMap.clear();
             log.info("Finished to read existing transactions");
@@ -224,18 +210,41 @@ public abstract class BaseNodeInitializationService {
 
     protected void initDB() {
         databaseConnector.init();
+        addressTransactionsIndexes.migrateFromAddressTransactionsHistories(addressTransactionsHistories, transactions);
     }
 
-    private void handleExistingTransaction(TransactionData transactionData) {
-        existingTransactionExecutorMap.get(InitializationTransactionHandlerType.CLUSTER).submit(() -> clusterService.addExistingTransactionOnInit(transactionData));
-        existingTransactionExecutorMap.get(InitializationTransactionHandlerType.CONFIRMATION).submit(() -> {
+    /**
+     * Called concurrently by the replay range threads. Every handler type still runs on its single thread, so the service
+     * state is updated by one writer per type, and the number of batches waiting for the handlers is bounded.
+     */
+    private void handleExistingTransactions(List<TransactionData> transactionBatch, Semaphore inFlightReplayBatches) {
+        try {
+            inFlightReplayBatches.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionSyncException("Interrupted while waiting for the existing transaction handlers", e);
+        }
+        AtomicInteger remainingHandlers = new AtomicInteger(existingTransactionExecutorMap.size());
+        Runnable handlerCompleted = () -> {
+            if (remainingHandlers.decrementAndGet() == 0) {
+                inFlightReplayBatches.release();
+            }
+        };
+        existingTransactionExecutorMap.get(InitializationTransactionHandlerType.CLUSTER).submit(transactionBatch, clusterService::addExistingTransactionOnInit, handlerCompleted);
+        existingTransactionExecutorMap.get(InitializationTransactionHandlerType.CONFIRMATION).submit(transactionBatch, transactionData -> {
             confirmationService.insertSavedTransaction(transactionData, indexToTransactionMap);
             currencyService.handleExistingTransaction(transactionData);
             mintingService.handleExistingTransaction(transactionData);
+        }, handlerCompleted);
+        existingTransactionExecutorMap.get(InitializationTransactionHandlerType.TRANSACTION).submit(transactionBatch, transactionService::addDataToMemory, handlerCompleted);
+        transactionBatch.forEach(transactionData -> {
+            try {
+                eventService.handleExistingTransaction(transactionData);
+            } catch (Exception e) {
+                log.error("Error at handling the event of existing transaction {}", transactionData.getHash(), e);
+            }
         });
-        existingTransactionExecutorMap.get(InitializationTransactionHandlerType.TRANSACTION).submit(() -> transactionService.addDataToMemory(transactionData));
-        eventService.handleExistingTransaction(transactionData);
-        transactionHelper.incrementTotalTransactions();
+        transactionHelper.addTotalTransactions(transactionBatch.size());
     }
 
     protected void createNetworkNodeData() {
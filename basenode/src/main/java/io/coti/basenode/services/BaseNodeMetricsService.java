@@ -3,6 +3,8 @@ package io.coti.basenode.services;
 import io.coti.basenode.communication.interfaces.IPropagationPublisher;
 import io.coti.basenode.communication.interfaces.IPropagationSubscriber;
 import io.coti.basenode.communication.interfaces.IReceiver;
+import io.coti.basenode.communication.interfaces.ISender;
+import io.coti.basenode.data.LatencyHistogramData;
 import io.coti.basenode.database.interfaces.IDatabaseConnector;
 import io.coti.basenode.services.interfaces.*;
 import lombok.extern.slf4j.Slf4j;
@@ -31,12 +33,16 @@ public class BaseNodeMetricsService implements IMetricsService {
     private IReceiver receiver;
     @Autowired
     private IPropagationPublisher propagationPublisher;
+    @Autowired
+    private ISender sender;
     private String metricTemplate = "coti_node{host=\"nodeTemplate\",components=\"componentTemplate\",metric=\"metricTemplate\"}";
     private String metricTemplateSubComponent = "coti_node{host=\"nodeTemplate\",components=\"componentTemplate\",componentName=\"componentNameTemplate\",metric=\"metricTemplate\"}";
     private String metricQueuesTemplate;
     private String metricTransactionsTemplate;
     private String metricBackupsTemplate;
     private String metricDatabaseTemplate;
+    private String metricLatenciesTemplate;
+    private String metricSendersTemplate;
     private Thread sampleThread;
     private final AtomicInteger numberOfNonFetchedSamples = new AtomicInteger(0);
     @Autowired
@@ -89,6 +95,8 @@ public class BaseNodeMetricsService implements IMetricsService {
         metricTransactionsTemplate = metricTemplate.replace(COMPONENT_TEMPLATE, "transactions");
         metricBackupsTemplate = metricTemplateSubComponent.replace(COMPONENT_TEMPLATE, "backups");
         metricDatabaseTemplate = metricTemplate.replace(COMPONENT_TEMPLATE, "database");
+        metricLatenciesTemplate = metricTemplate.replace(COMPONENT_TEMPLATE, "latencies");
+        metricSendersTemplate = metricTemplateSubComponent.replace(COMPONENT_TEMPLATE, "senders");
 
         sampleThread = new Thread(this::getMetricsSample, "MetricsSample");
         sampleThread.start();
@@ -130,6 +138,32 @@ public class BaseNodeMetricsService implements IMetricsService {
                 .concat(" ").concat(String.valueOf(value)).concat(" ").concat(String.valueOf(Instant.now().toEpochMilli())));
     }
 
+    private void addLatency(String latencyMetric, long value) {
+        metrics.add(metricLatenciesTemplate.replace(METRIC_TEMPLATE, latencyMetric)
+                .concat(" ").concat(String.valueOf(value)).concat(" ").concat(String.valueOf(Instant.now().toEpochMilli())));
+    }
+
+    private void addLatencyHistogram(String latencyMetric, LatencyHistogramData latencyHistogramData) {
+        addLatency(latencyMetric + "_Count", latencyHistogramData.getCount());
+        addLatency(latencyMetric + "_P50", latencyHistogramData.getMedian());
+        addLatency(latencyMetric + "_P99", latencyHistogramData.getPercentile99());
+        addLatency(latencyMetric + "_Max", latencyHistogramData.getMax());
+    }
+
+    private void addSender(String senderMetric, String receiverAddress, long value) {
+        metrics.add(metricSendersTemplate.replace(METRIC_TEMPLATE, senderMetric).replace("componentNameTemplate", receiverAddress)
+                .concat(" ").concat(String.valueOf(value)).concat(" ").concat(String.valueOf(Instant.now().toEpochMilli())));
+    }
+
+    private void addSenders() {
+        sender.getAndResetSenderLaneMetrics().forEach((receiverAddress, senderLaneMetricsData) -> {
+            addSender("QueueSize", receiverAddress, senderLaneMetricsData.getQueueSize());
+            addSender("DroppedMessages", receiverAddress, senderLaneMetricsData.getDroppedMessages());
+            addSender("AverageSendMicros", receiverAddress, senderLaneMetricsData.getAverageSendLatency());
+            addSender("MaxSendMicros", receiverAddress, senderLaneMetricsData.getMaxSendLatency());
+        });
+    }
+
     private void addBackups() {
         HashMap<String, HashMap<String, Long>> backupLog = dbRecoveryService.getBackUpLog();
         for (Map.Entry<String, HashMap<String, Long>> entry : backupLog.entrySet()) {
@@ -152,12 +186,23 @@ public class BaseNodeMetricsService implements IMetricsService {
                     metrics.clear();
                 }
                 addQueue("ZeroMQReceiver", receiver.getQueueSize());
+                receiver.getAndResetQueueTimeHistograms().forEach((messageType, latencyHistogramData) ->
+                        addLatencyHistogram("ZeroMQReceiverQueueMicros_" + messageType, latencyHistogramData));
+                receiver.getAndResetHandlingTimeHistograms().forEach((messageType, latencyHistogramData) ->
+                        addLatencyHistogram("ZeroMQReceiverHandlingMicros_" + messageType, latencyHistogramData));
                 addQueue("PropagationPublisher", propagationPublisher.getQueueSize());
+                addLatency("PropagationPublisherAverageMicros", propagationPublisher.getAndResetAveragePublishLatency());
+                addLatency("PropagationPublisherMaxMicros", propagationPublisher.getAndResetMaxPublishLatency());
+                addSenders();
 
                 Map<String, String> maps = propagationSubscriber.getQueueSizeMap();
                 for (Map.Entry<String, String> entry : maps.entrySet()) {
                     addQueue("PropagationSubscriber_" + entry.getKey(), Integer.parseInt(entry.getValue()));
                 }
+                propagationSubscriber.getAndResetDroppedMessagesMap().forEach((queueName, droppedMessages) ->
+                        addQueue("PropagationSubscriberDropped_" + queueName, droppedMessages));
+                propagationSubscriber.getAndResetMaxLagMap().forEach((queueName, maxLag) ->
+                        addLatency("PropagationSubscriberMaxLagMicros_" + queueName, maxLag));
 
                 addQueue("Confirmations", confirmationService.getQueueSize());
                 addQueue("WebSocketMessages", webSocketMessageService.getMessageQueueSize());
@@ -173,6 +218,9 @@ public class BaseNodeMetricsService implements IMetricsService {
                 addTransaction("WaitingMissingTransactionIndexes", confirmationService.getWaitingMissingTransactionIndexesSize());
                 addTransaction("Sources", clusterService.getTotalSources());
                 addTransaction("TotalPostponedTransactions", transactionService.totalPostponedTransactions());
+                addTransaction("PostponedTransactionsOldestAge", transactionService.getPostponedTransactionsOldestAge());
+                transactionService.getAndResetLatencyHistograms().forEach(this::addLatencyHistogram);
+                addTransaction("ReleasedPostponedTransactions", transactionService.getReleasedPostponedTransactions());
                 addTransaction("DSPHealthState", baseNodeMonitorService.getDspConfirmedState().ordinal());
                 addTransaction("DSPOutsideNormalCounter", baseNodeMonitorService.getDspOutsideNormalCounter());
                 addTransaction("TCCHealthState", baseNodeMonitorService.getTccConfirmedState().ordinal());
@@ -129,6 +129,7 @@ public class BaseNodeMonitorService implements IMonitorService {
         appendOutput(output, "TCCWaitingConfirmation", trustChainConfirmationService.getTccWaitingConfirmation());
         appendOutput(output, "TCCOutsideNormalCounter", trustChainConfirmationService.getTccOutsideNormalCounter());
         appendOutput(output, "PostponedTransactions", transactionService.totalPostponedTransactions());
+        appendOutput(output, "PostponedTransactionsOldestAge", transactionService.getPostponedTransactionsOldestAge());
         appendOutput(output, "PropagationQueue", propagationSubscriber.getMessageQueueSize(ZeroMQSubscriberQueue.TRANSACTION));
         appendOutput(output, "WebSocketMessagesQueueLength", webSocketMessageService.getMessageQueueSize());
         appendOutput(output, "waitingDspConsensus", confirmationService.getWaitingDspConsensusResultsMapSize());
@@ -15,6 +15,8 @@ public class BaseNodePotService implements IPotService {
 
     @Value("${network.difficulty}")
     protected String difficulty;
+    @Value("${pot.nonce.search.workers:1}")
+    protected int nonceSearchWorkers;
     protected byte[] targetDifficulty;
 
     public void init() {
@@ -6,7 +6,7 @@ import io.coti.basenode.crypto.ExpandedTransactionTrustScoreCrypto;
 import io.coti.basenode.crypto.TransactionCrypto;
 import io.coti.basenode.data.*;
 import io.coti.basenode.data.interfaces.ITrustScoreNodeValidatable;
-import io.coti.basenode.model.AddressTransactionsHistories;
+import io.coti.basenode.model.AddressTransactionsIndexes;
 import io.coti.basenode.model.TransactionIndexes;
 import io.coti.basenode.model.Transactions;
 import io.coti.basenode.services.interfaces.*;
@@ -30,7 +30,7 @@ public class BaseNodeTransactionHelper implements ITransactionHelper {
 
     public static final int CURRENCY_SCALE = 8;
     @Autowired
-    private AddressTransactionsHistories addressTransactionsHistories;
+    private AddressTransactionsIndexes addressTransactionsIndexes;
     @Autowired
     private TransactionCrypto transactionCrypto;
     @Autowired
@@ -99,50 +99,32 @@ public class BaseNodeTransactionHelper implements ITransactionHelper {
 
     @Override
     public void updateAddressTransactionHistory(TransactionData transactionData) {
-        transactionData.getBaseTransactions().forEach(baseTransactionData ->
-                updateAddressTransactionsHistories(baseTransactionData.getAddressHash(), transactionData)
-        );
-        updateMintedAddress(transactionData);
+        Map<Hash, AddressTransactionIndexData> addressTransactionIndexMap = new HashMap<>();
+        updateAddressTransactionHistory(addressTransactionIndexMap, transactionData);
+        addressTransactionsIndexes.putBatch(addressTransactionIndexMap);
     }
 
-    public void updateMintedAddress(TransactionData transactionData) {
+    private void updateMintedAddress(Map<Hash, AddressTransactionIndexData> addressTransactionIndexMap, TransactionData transactionData) {
         TokenMintingFeeBaseTransactionData tokenMintingFeeBaseTransactionData = transactionHelper.getTokenMintingFeeData(transactionData);
         if (tokenMintingFeeBaseTransactionData != null) {
             Hash receiverAddressHash = tokenMintingFeeBaseTransactionData.getServiceData().getReceiverAddress();
             Optional<BaseTransactionData> identicalAddresses = transactionData.getBaseTransactions().stream().filter(t -> t.getAddressHash().equals(receiverAddressHash)).findFirst();
             if (!identicalAddresses.isPresent()) {
-                updateAddressTransactionsHistories(receiverAddressHash, transactionData);
+                addAddressTransactionIndex(addressTransactionIndexMap, receiverAddressHash, transactionData);
             }
         }
     }
 
-    private void updateAddressTransactionsHistories(Hash addressHash, TransactionData transactionData) {
-        AddressTransactionsHistory addressHistory = Optional.ofNullable(addressTransactionsHistories.getByHash(addressHash))
-                .orElse(new AddressTransactionsHistory(addressHash));
+    public void updateAddressTransactionHistory(Map<Hash, AddressTransactionIndexData> addressTransactionIndexMap, TransactionData transactionData) {
+        transactionData.getBaseTransactions().forEach(baseTransactionData ->
+                addAddressTransactionIndex(addressTransactionIndexMap, baseTransactionData.getAddressHash(), transactionData)
+        );
+        updateMintedAddress(addressTransactionIndexMap, transactionData);
+    }
 
-        if (!addressHistory.addTransactionHashToHistory(transactionData.getHash())) {
-            log.debug("Transaction {} is already in history of address {}", transactionData.getHash(), addressHash);
-        }
-        addressTransactionsHistories.put(addressHistory);
-    }
-
-    public void updateAddressTransactionHistory(Map<Hash, AddressTransactionsHistory> addressToTransactionsHistoryMap, TransactionData transactionData) {
-        transactionData.getBaseTransactions().forEach(baseTransactionData -> {
-            AddressTransactionsHistory addressHistory;
-            if (!addressToTransactionsHistoryMap.containsKey(baseTransactionData.getAddressHash())) {
-                addressHistory = addressTransactionsHistories.getByHash(baseTransactionData.getAddressHash());
-                if (addressHistory == null) {
-                    addressHistory = new AddressTransactionsHistory(baseTransactionData.getAddressHash());
-                }
-            } else {
-                addressHistory = addressToTransactionsHistoryMap.get(baseTransactionData.getAddressHash());
-            }
-            if (!addressHistory.addTransactionHashToHistory(transactionData.getHash())) {
-                log.debug("Transaction {} is already in history of address {}", transactionData.getHash(), baseTransactionData.getAddressHash());
-            }
-            addressToTransactionsHistoryMap.put(baseTransactionData.getAddressHash(), addressHistory);
-        });
-        updateMintedAddress(transactionData);
+    private void addAddressTransactionIndex(Map<Hash, AddressTransactionIndexData> addressTransactionIndexMap, Hash addressHash, TransactionData transactionData) {
+        AddressTransactionIndexData addressTransactionIndexData = new AddressTransactionIndexData(addressHash, transactionData.getAttachmentTime(), transactionData.getHash());
+        addressTransactionIndexMap.put(addressTransactionIndexData.getHash(), addressTransactionIndexData);
     }
 
     public boolean validateTransactionCrypto(TransactionData transactionData) {
@@ -466,6 +448,11 @@ public class BaseNodeTransactionHelper implements ITransactionHelper {
         return totalTransactions.incrementAndGet();
     }
 
+    @Override
+    public long addTotalTransactions(long transactionCount) {
+        return totalTransactions.addAndGet(transactionCount);
+    }
+
     @Override
     public void addNoneIndexedTransaction(TransactionData transactionData) {
         noneIndexedTransactionHashes.add(transactionData.getHash());
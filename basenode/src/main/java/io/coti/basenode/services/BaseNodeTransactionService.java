@@ -1,15 +1,18 @@
 package io.coti.basenode.services;
 
+import com.google.gson.Gson;
 import io.coti.basenode.communication.JacksonSerializer;
+import io.coti.basenode.communication.TransactionFrameWriter;
 import io.coti.basenode.data.*;
+import io.coti.basenode.database.codec.EntitySerializer;
 import io.coti.basenode.exceptions.ChunkException;
+import io.coti.basenode.exceptions.TransactionException;
 import io.coti.basenode.http.*;
 import io.coti.basenode.http.data.ExtendedTransactionResponseData;
 import io.coti.basenode.http.data.ReducedTransactionResponseData;
 import io.coti.basenode.http.data.TransactionResponseData;
 import io.coti.basenode.http.data.interfaces.ITransactionResponseData;
 import io.coti.basenode.http.interfaces.IResponse;
-import io.coti.basenode.model.TransactionIndexes;
 import io.coti.basenode.model.Transactions;
 import io.coti.basenode.services.interfaces.*;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +38,7 @@ import static io.coti.basenode.http.BaseNodeHttpStringConstants.*;
 @Service
 public class BaseNodeTransactionService implements ITransactionService {
 
+    private final Gson gson = new CustomGson().getInstance();
     @Autowired
     private ITransactionHelper transactionHelper;
     @Autowired
@@ -54,12 +58,12 @@ public class BaseNodeTransactionService implements ITransactionService {
     @Autowired
     private JacksonSerializer jacksonSerializer;
     @Autowired
-    private TransactionIndexes transactionIndexes;
+    private TransactionBatchService transactionBatchService;
     @Autowired
     private ICurrencyService currencyService;
     @Autowired
     private IMintingService mintingService;
-    protected Map<TransactionData, Boolean> postponedTransactionMap = new ConcurrentHashMap<>();  // true/false means new from full node or propagated transaction
+    protected final PostponedTransactionRegistry postponedTransactionRegistry = new PostponedTransactionRegistry();
     private final LockData transactionLockData = new LockData();
     @Autowired
     protected IChunkService chunkService;
@@ -96,9 +100,17 @@ public class BaseNodeTransactionService implements ITransactionService {
             chunkService.startOfChunk(output);
             isChunkStarted = true;
             long limit = (endingIndex == -1) ? transactionIndexService.getLastTransactionIndexData().getIndex() : endingIndex;
-            for (long i = startingIndex; i <= limit; i++) {
-                sendTransactionResponse(transactionIndexes.getByHash(new Hash(i)).getTransactionHash(), firstTransactionSent, output, isExtended, isIncludeRuntimeTrustScore);
-            }
+            transactionBatchService.sendTransactions(startingIndex, limit, false, new ITransactionBatchWriter() {
+                @Override
+                public void writeTransaction(Hash transactionHash, byte[] serializedTransaction) {
+                    writeTransactionResponse(transactions.getDeserializedValue(transactionHash, serializedTransaction), transactionHash, firstTransactionSent, output, null, false, isExtended, isIncludeRuntimeTrustScore);
+                }
+
+                @Override
+                public void endOfChunk() {
+                    chunkService.flushChunk(output);
+                }
+            });
             chunkService.endOfChunk(output);
 
         } catch (Exception e) {
@@ -121,83 +133,78 @@ public class BaseNodeTransactionService implements ITransactionService {
 
     @Override
     public void getTransactionBatch(long startingIndex, HttpServletResponse response) {
-
-        AtomicLong transactionNumber = new AtomicLong(0);
-        Thread monitorTransactionBatch = monitorTransactionBatch(Thread.currentThread().getId(), transactionNumber);
-
         try {
             ServletOutputStream output = response.getOutputStream();
+            transactionBatchService.sendTransactions(startingIndex, TransactionBatchService.LAST_INDEX, true, new ITransactionBatchWriter() {
+                @Override
+                public void writeTransaction(Hash transactionHash, byte[] serializedTransaction) throws IOException {
+                    jacksonSerializer.serialize(transactions.getDeserializedValue(transactionHash, serializedTransaction), output);
+                }
 
-            monitorTransactionBatch.start();
-
-            if (startingIndex <= transactionIndexService.getLastTransactionIndexData().getIndex()) {
-                for (long i = startingIndex; i <= transactionIndexService.getLastTransactionIndexData().getIndex(); i++) {
-                    output.write(jacksonSerializer.serialize(transactions.getByHash(transactionIndexes.getByHash(new Hash(i)).getTransactionHash())));
+                @Override
+                public void endOfChunk() throws IOException {
                     output.flush();
-                    transactionNumber.incrementAndGet();
                 }
-            }
-            for (Hash hash : transactionHelper.getNoneIndexedTransactionHashes()) {
-                output.write(jacksonSerializer.serialize(transactions.getByHash(hash)));
-                output.flush();
-                transactionNumber.incrementAndGet();
-
-            }
-
+            });
         } catch (Exception e) {
             log.error("Error sending transaction batch");
             log.error(e.getMessage());
-        } finally {
-            if (monitorTransactionBatch.isAlive()) {
-                monitorTransactionBatch.interrupt();
-            }
         }
     }
 
     @Override
-    public void getTransactionBatch(long startingIndex, FluxSink<byte[]> sink) {
-        AtomicLong transactionNumber = new AtomicLong(0);
-        Thread monitorTransactionBatch = monitorTransactionBatch(Thread.currentThread().getId(), transactionNumber);
-
+    public void getFramedTransactionBatch(long startingIndex, HttpServletResponse response) {
         try {
-            monitorTransactionBatch.start();
+            TransactionFrameWriter transactionFrameWriter = new TransactionFrameWriter(response.getOutputStream(), jacksonSerializer);
+            transactionBatchService.sendTransactions(startingIndex, TransactionBatchService.LAST_INDEX, true, new ITransactionBatchWriter() {
+                @Override
+                public void writeTransaction(Hash transactionHash, byte[] serializedTransaction) throws IOException {
+                    if (EntitySerializer.isBinaryFormat(serializedTransaction)) {
+                        transactionFrameWriter.writeBinaryTransaction(serializedTransaction);
+                    } else {
+                        transactionFrameWriter.writeTransaction(transactions.getDeserializedValue(transactionHash, serializedTransaction));
+                    }
+                }
 
-            if (startingIndex <= transactionIndexService.getLastTransactionIndexData().getIndex()) {
-                for (long i = startingIndex; i <= transactionIndexService.getLastTransactionIndexData().getIndex(); i++) {
-                    sink.next((jacksonSerializer.serialize(transactions.getByHash(transactionIndexes.getByHash(new Hash(i)).getTransactionHash()))));
-                    transactionNumber.incrementAndGet();
+                @Override
+                public void endOfChunk() throws IOException {
+                    transactionFrameWriter.flush();
                 }
-            }
 
-            for (Hash hash : transactionHelper.getNoneIndexedTransactionHashes()) {
-                sink.next(jacksonSerializer.serialize((transactions.getByHash(hash))));
-                transactionNumber.incrementAndGet();
+                @Override
+                public void startOfNoneIndexedTransactions() throws IOException {
+                    transactionFrameWriter.writeNoneIndexedTransactionsStart();
+                }
+            });
+            transactionFrameWriter.writeEndOfStream();
+        } catch (Exception e) {
+            log.error("Error sending framed transaction batch", e);
+        }
+    }
 
-            }
+    @Override
+    public void getTransactionBatch(long startingIndex, FluxSink<byte[]> sink) {
+        try {
+            transactionBatchService.sendTransactions(startingIndex, TransactionBatchService.LAST_INDEX, true, new ITransactionBatchWriter() {
+                @Override
+                public void writeTransaction(Hash transactionHash, byte[] serializedTransaction) {
+                    sink.next(jacksonSerializer.serialize(transactions.getDeserializedValue(transactionHash, serializedTransaction)));
+                }
+
+                @Override
+                public void endOfChunk() {
+                    if (sink.isCancelled()) {
+                        throw new TransactionException("Reactive transaction batch was cancelled");
+                    }
+                }
+            });
             sink.complete();
         } catch (Exception e) {
             log.error("Error sending reactive transaction batch");
             log.error(e.getMessage());
-        } finally {
-            if (monitorTransactionBatch.isAlive()) {
-                monitorTransactionBatch.interrupt();
-            }
         }
     }
 
-    private Thread monitorTransactionBatch(long threadId, AtomicLong transactionNumber) {
-        return new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    Thread.sleep(5000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-                log.info("Transaction batch: thread id = {}, transactionNumber= {}", threadId, transactionNumber);
-            }
-        });
-    }
-
     @Override
     public ResponseEntity<IResponse> getNoneIndexedTransactions() {
         try {
@@ -245,7 +252,7 @@ public class BaseNodeTransactionService implements ITransactionService {
     public ResponseEntity<IResponse> getPostponedTransactions() {
         try {
             ConcurrentHashMap<Hash, TransactionData> postponedTransactionCluster = new ConcurrentHashMap<>();
-            postponedTransactionCluster.putAll(postponedTransactionMap.keySet().stream().collect(Collectors.toMap(TransactionData::getHash, transactionData -> transactionData)));
+            postponedTransactionCluster.putAll(postponedTransactionRegistry.getTransactions().stream().collect(Collectors.toMap(TransactionData::getHash, transactionData -> transactionData)));
             LinkedList<TransactionData> topologicalOrderedPostponedTransactions = new LinkedList<>();
             clusterHelper.sortByTopologicalOrder(postponedTransactionCluster, topologicalOrderedPostponedTransactions);
             return ResponseEntity.ok(new GetExtendedTransactionsResponse(topologicalOrderedPostponedTransactions));
@@ -274,8 +281,7 @@ public class BaseNodeTransactionService implements ITransactionService {
                 log.error("Data Integrity validation failed: {}", transactionData.getHash());
                 return;
             }
-            if (hasOneOfParentsMissing(transactionData)) {
-                postponedTransactionMap.putIfAbsent(transactionData, false);
+            if (hasOneOfParentsMissing(transactionData) && postponeTransaction(transactionData, false)) {
                 return;
             }
             if (!validateAndAttachTransaction(transactionData)) {
@@ -345,20 +351,17 @@ public class BaseNodeTransactionService implements ITransactionService {
         if (postponedDspConsensusResult != null) {
             dspVoteService.handleVoteConclusion(postponedDspConsensusResult);
         }
-        Map<TransactionData, Boolean> postponedParentTransactionMap = postponedTransactionMap.entrySet().stream().filter(
-                        postponedTransactionMapEntry ->
-                                (postponedTransactionMapEntry.getKey().getRightParentHash() != null
-                                        && postponedTransactionMapEntry.getKey().getRightParentHash().equals(transactionData.getHash()))
-                                        || (postponedTransactionMapEntry.getKey().getLeftParentHash() != null
-                                        && postponedTransactionMapEntry.getKey().getLeftParentHash().equals(transactionData.getHash())))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        postponedParentTransactionMap.forEach((postponedTransaction, isTransactionFromFullNode) -> {
-            log.debug("Handling postponed transaction : {}, parent of transaction: {}", postponedTransaction.getHash(), transactionData.getHash());
-            postponedTransactionMap.remove(postponedTransaction);
-            handlePostponedTransaction(postponedTransaction, isTransactionFromFullNode);
+        postponedTransactionRegistry.release(transactionData.getHash()).forEach(postponedTransactionData -> {
+            TransactionData postponedTransaction = postponedTransactionData.getTransactionData();
+            log.debug("Handling postponed transaction : {}, child of transaction: {}", postponedTransaction.getHash(), transactionData.getHash());
+            handlePostponedTransaction(postponedTransaction, postponedTransactionData.isTransactionFromFullNode());
         });
     }
 
+    protected boolean postponeTransaction(TransactionData transactionData, boolean isTransactionFromFullNode) {
+        return postponedTransactionRegistry.postpone(transactionData, isTransactionFromFullNode, parentHash -> transactions.getByHash(parentHash) == null);
+    }
+
     protected void handlePostponedTransaction(TransactionData postponedTransaction,
                                               boolean isTransactionFromFullNode) {
         if (!isTransactionFromFullNode) {
@@ -433,7 +436,22 @@ public class BaseNodeTransactionService implements ITransactionService {
     }
 
     public int totalPostponedTransactions() {
-        return postponedTransactionMap.size();
+        return postponedTransactionRegistry.size();
+    }
+
+    @Override
+    public long getPostponedTransactionsOldestAge() {
+        return postponedTransactionRegistry.getOldestAgeInMillis();
+    }
+
+    @Override
+    public long getReleasedPostponedTransactions() {
+        return postponedTransactionRegistry.getReleasedTransactions();
+    }
+
+    @Override
+    public Map<String, LatencyHistogramData> getAndResetLatencyHistograms() {
+        return new HashMap<>();
     }
 
     protected void sendTransactionResponse(Hash transactionHash, AtomicBoolean firstTransactionSent, PrintWriter
@@ -443,8 +461,25 @@ public class BaseNodeTransactionService implements ITransactionService {
 
     protected void sendTransactionResponse(Hash transactionHash, AtomicBoolean firstTransactionSent, PrintWriter
             output, Hash addressHash, boolean reduced, boolean extended, boolean includeRuntimeTrustScore) {
+        sendTransactionResponse(transactions.getByHash(transactionHash), transactionHash, firstTransactionSent, output, addressHash, reduced, extended, includeRuntimeTrustScore);
+    }
+
+    protected void sendTransactionResponse(TransactionData transactionData, AtomicBoolean firstTransactionSent, PrintWriter
+            output, Hash addressHash, boolean reduced, boolean extended, boolean includeRuntimeTrustScore) {
+        if (transactionData != null) {
+            sendTransactionResponse(transactionData, transactionData.getHash(), firstTransactionSent, output, addressHash, reduced, extended, includeRuntimeTrustScore);
+        }
+    }
+
+    private void sendTransactionResponse(TransactionData transactionData, Hash transactionHash, AtomicBoolean firstTransactionSent, PrintWriter
+            output, Hash addressHash, boolean reduced, boolean extended, boolean includeRuntimeTrustScore) {
+        writeTransactionResponse(transactionData, transactionHash, firstTransactionSent, output, addressHash, reduced, extended, includeRuntimeTrustScore);
+        chunkService.flushChunk(output);
+    }
+
+    private void writeTransactionResponse(TransactionData transactionData, Hash transactionHash, AtomicBoolean firstTransactionSent, PrintWriter
+            output, Hash addressHash, boolean reduced, boolean extended, boolean includeRuntimeTrustScore) {
         try {
-            TransactionData transactionData = transactions.getByHash(transactionHash);
             if (transactionData != null) {
                 setRunTimeTrustChainTrustScore(transactionData, includeRuntimeTrustScore);
                 ITransactionResponseData transactionResponseData;
@@ -454,11 +489,11 @@ public class BaseNodeTransactionService implements ITransactionService {
                     transactionResponseData = extended ? new ExtendedTransactionResponseData(transactionData) : new TransactionResponseData(transactionData);
                 }
                 if (firstTransactionSent.get()) {
-                    chunkService.sendChunk(",", output);
+                    chunkService.writeChunk(",", output);
                 } else {
                     firstTransactionSent.set(true);
                 }
-                chunkService.sendChunk(new CustomGson().getInstance().toJson(transactionResponseData), output);
+                chunkService.writeChunk(gson.toJson(transactionResponseData), output);
             }
         } catch (ChunkException e) {
             log.error("Error at transaction response data for {}", transactionHash);
@@ -1,19 +1,30 @@
 package io.coti.basenode.services;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import io.coti.basenode.communication.JacksonSerializer;
+import io.coti.basenode.communication.TransactionFrameReader;
+import io.coti.basenode.communication.TransactionFrameType;
 import io.coti.basenode.data.*;
+import io.coti.basenode.data.interfaces.IPropagatable;
+import io.coti.basenode.exceptions.TransactionFrameTypeException;
 import io.coti.basenode.exceptions.TransactionSyncException;
-import io.coti.basenode.model.AddressTransactionsHistories;
+import io.coti.basenode.model.AddressTransactionsIndexes;
 import io.coti.basenode.services.interfaces.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
@@ -23,8 +34,15 @@ import java.util.function.Consumer;
 public class BaseNodeTransactionSynchronizationService implements ITransactionSynchronizationService {
 
     private static final String RECOVERY_NODE_GET_BATCH_ENDPOINT = "/transaction_batch";
+    private static final String RECOVERY_NODE_GET_FRAMED_BATCH_ENDPOINT = "/transaction_batch/framed";
     private static final String STARTING_INDEX_URL_PARAM_ENDPOINT = "?starting_index=";
-    private static final long MAXIMUM_BUFFER_SIZE = 300000;
+    private static final long INSERTION_POLL_TIMEOUT = 100;
+    @Value("${transaction.sync.queue.capacity:10000}")
+    private int syncQueueCapacity;
+    @Value("${transaction.sync.max.frame.size:16777216}")
+    private int maximumFrameSize;
+    @Value("${transaction.sync.max.attempts:5}")
+    private int maximumSyncAttempts;
     @Autowired
     private ITransactionHelper transactionHelper;
     @Autowired
@@ -34,36 +52,40 @@ public class BaseNodeTransactionSynchronizationService implements ITransactionSy
     @Autowired
     private INetworkService networkService;
     @Autowired
-    private AddressTransactionsHistories addressTransactionsHistories;
+    private AddressTransactionsIndexes addressTransactionsIndexes;
     @Autowired
     private JacksonSerializer jacksonSerializer;
     @Autowired
     private RestTemplate restTemplate;
-    private final Object finishLock = new Object();
     private EnumMap<InitializationTransactionHandlerType, ExecutorData> missingTransactionExecutorMap;
 
+    /**
+     * Streams the missing transactions from the recovery node. The receiving thread decodes one frame at a time and
+     * hands the transactions to the insertion thread through a bounded queue, so a slow insertion slows down the
+     * download instead of buffering it. If the stream breaks, it is requested again from the index following the last
+     * received transaction. A recovery server without the framed batch, or sending a frame type this node does not know,
+     * is asked for the legacy json stream instead.
+     */
     public synchronized void requestMissingTransactions(long firstMissingTransactionIndex) {
         try {
             log.info("Starting to get missing transactions");
-            List<TransactionData> missingTransactions = new ArrayList<>();
+            BlockingQueue<TransactionData> missingTransactions = new ArrayBlockingQueue<>(syncQueueCapacity);
             Set<Hash> trustChainUnconfirmedExistingTransactionHashes = clusterService.getTrustChainConfirmationTransactionHashes();
             AtomicLong completedMissingTransactionNumber = new AtomicLong(0);
             AtomicLong receivedMissingTransactionNumber = new AtomicLong(0);
             final AtomicBoolean finishedToReceive = new AtomicBoolean(false);
-            final AtomicBoolean finishedToInsert = new AtomicBoolean(false);
+            missingTransactionExecutorMap = new EnumMap<>(InitializationTransactionHandlerType.class);
+            EnumSet.allOf(InitializationTransactionHandlerType.class).forEach(initializationTransactionHandlerType -> missingTransactionExecutorMap.put(initializationTransactionHandlerType, new ExecutorData(initializationTransactionHandlerType)));
             Thread monitorMissingTransactionThread = transactionService.monitorTransactionThread("missing", completedMissingTransactionNumber, receivedMissingTransactionNumber, "Sync Txs Monitor");
-            Thread insertMissingTransactionThread = insertMissingTransactionThread(missingTransactions, trustChainUnconfirmedExistingTransactionHashes, completedMissingTransactionNumber, monitorMissingTransactionThread, finishedToReceive, finishedToInsert);
-            ResponseExtractor<Void> responseExtractor = getResponseExtractorForMissingTransactionChunks(missingTransactions, receivedMissingTransactionNumber, insertMissingTransactionThread);
-            restTemplate.execute(networkService.getRecoveryServerAddress() + RECOVERY_NODE_GET_BATCH_ENDPOINT
-                    + STARTING_INDEX_URL_PARAM_ENDPOINT + firstMissingTransactionIndex, HttpMethod.GET, null, responseExtractor);
-            if (insertMissingTransactionThread.isAlive()) {
-                log.info("Received all {} missing transactions from recovery server", receivedMissingTransactionNumber);
-                synchronized (finishLock) {
-                    finishedToReceive.set(true);
-                    while (!finishedToInsert.get()) {
-                        finishLock.wait(1000);
-                    }
-                }
+            Thread insertMissingTransactionThread = insertMissingTransactionThread(missingTransactions, trustChainUnconfirmedExistingTransactionHashes, completedMissingTransactionNumber, monitorMissingTransactionThread, finishedToReceive);
+            insertMissingTransactionThread.start();
+
+            MissingTransactionStreamState streamState = new MissingTransactionStreamState(firstMissingTransactionIndex);
+            try {
+                receiveMissingTransactions(missingTransactions, receivedMissingTransactionNumber, streamState, insertMissingTransactionThread);
+            } finally {
+                finishedToReceive.set(true);
+                insertMissingTransactionThread.join();
             }
             log.info("Finished to get missing transactions");
         } catch (TransactionSyncException e) {
@@ -77,42 +99,115 @@ public class BaseNodeTransactionSynchronizationService implements ITransactionSy
 
     }
 
-    private ResponseExtractor<Void> getResponseExtractorForMissingTransactionChunks(List<TransactionData> missingTransactions, AtomicLong receivedMissingTransactionNumber, Thread insertMissingTransactionThread) {
+    private void receiveMissingTransactions(BlockingQueue<TransactionData> missingTransactions, AtomicLong receivedMissingTransactionNumber, MissingTransactionStreamState streamState, Thread insertMissingTransactionThread) {
+        boolean framedStream = true;
+        int attempt = 0;
+        while (!streamState.completed) {
+            try {
+                if (framedStream) {
+                    restTemplate.execute(getMissingTransactionsUrl(RECOVERY_NODE_GET_FRAMED_BATCH_ENDPOINT, streamState), HttpMethod.GET, null,
+                            getResponseExtractorForMissingTransactionFrames(missingTransactions, receivedMissingTransactionNumber, streamState, insertMissingTransactionThread));
+                } else {
+                    restTemplate.execute(getMissingTransactionsUrl(RECOVERY_NODE_GET_BATCH_ENDPOINT, streamState), HttpMethod.GET, null,
+                            getResponseExtractorForMissingTransactionChunks(missingTransactions, receivedMissingTransactionNumber, streamState, insertMissingTransactionThread));
+                }
+                log.info("Received all {} missing transactions from recovery server", receivedMissingTransactionNumber);
+            } catch (Exception e) {
+                if (framedStream && isFramedStreamUnsupported(e)) {
+                    log.warn("Recovery server does not support the framed transaction batch, falling back to the legacy stream from index {}: {}", streamState.nextIndex, e.getMessage());
+                    framedStream = false;
+                    continue;
+                }
+                attempt++;
+                if (Thread.currentThread().isInterrupted() || !insertMissingTransactionThread.isAlive() || attempt >= maximumSyncAttempts) {
+                    throw new TransactionSyncException(String.format("Missing transactions stream failed after %d attempts", attempt), e);
+                }
+                log.warn("Missing transactions stream broke after {} transactions, resuming from index {}: {}", receivedMissingTransactionNumber, streamState.nextIndex, e.getMessage());
+            }
+        }
+    }
+
+    private String getMissingTransactionsUrl(String endpoint, MissingTransactionStreamState streamState) {
+        return networkService.getRecoveryServerAddress() + endpoint + STARTING_INDEX_URL_PARAM_ENDPOINT + streamState.nextIndex;
+    }
+
+    private boolean isFramedStreamUnsupported(Exception e) {
+        return e instanceof TransactionFrameTypeException
+                || (e instanceof HttpClientErrorException && ((HttpClientErrorException) e).getStatusCode() == HttpStatus.NOT_FOUND);
+    }
+
+    private ResponseExtractor<Void> getResponseExtractorForMissingTransactionFrames(BlockingQueue<TransactionData> missingTransactions, AtomicLong receivedMissingTransactionNumber, MissingTransactionStreamState streamState,
+                                                                                   Thread insertMissingTransactionThread) {
         return response -> {
-            byte[] buf = new byte[Math.toIntExact(MAXIMUM_BUFFER_SIZE)];
-            int offset = 0;
-            int n;
-            while ((n = response.getBody().read(buf, offset, buf.length - offset)) > 0) {
-                try {
-                    TransactionData missingTransaction = (TransactionData) jacksonSerializer.deserialize(buf);
-                    if (missingTransaction != null) {
-                        missingTransactions.add(missingTransaction);
-                        receivedMissingTransactionNumber.incrementAndGet();
-                        if (!insertMissingTransactionThread.isAlive()) {
-                            missingTransactionExecutorMap = new EnumMap<>(InitializationTransactionHandlerType.class);
-                            EnumSet.allOf(InitializationTransactionHandlerType.class).forEach(initializationTransactionHandlerType -> missingTransactionExecutorMap.put(initializationTransactionHandlerType, new ExecutorData(initializationTransactionHandlerType)));
-                            insertMissingTransactionThread.start();
-                        }
-                        Arrays.fill(buf, 0, offset + n, (byte) 0);
-                        offset = 0;
-                    } else {
-                        offset += n;
-                    }
+            TransactionFrameReader transactionFrameReader = new TransactionFrameReader(response.getBody(), jacksonSerializer, maximumFrameSize);
+            boolean noneIndexedTransactions = false;
+            TransactionFrameType frameType;
+            while ((frameType = transactionFrameReader.readFrame()) != TransactionFrameType.END_OF_STREAM) {
+                if (frameType == TransactionFrameType.NONE_INDEXED_TRANSACTIONS) {
+                    noneIndexedTransactions = true;
+                    continue;
+                }
+                handOverMissingTransaction(transactionFrameReader.getTransactionData(), noneIndexedTransactions, missingTransactions, receivedMissingTransactionNumber, streamState, insertMissingTransactionThread);
+            }
+            streamState.completed = true;
+            return null;
+        };
+    }
 
-                } catch (Exception e) {
-                    throw new TransactionSyncException("Error at getting chunks", e);
+    /**
+     * Reads the legacy stream of json transactions written one after the other, for recovery servers without the framed
+     * batch. The legacy stream has no end of stream marker, so a connection closed between two transactions is taken as
+     * the end of the batch.
+     */
+    private ResponseExtractor<Void> getResponseExtractorForMissingTransactionChunks(BlockingQueue<TransactionData> missingTransactions, AtomicLong receivedMissingTransactionNumber, MissingTransactionStreamState streamState,
+                                                                                   Thread insertMissingTransactionThread) {
+        return response -> {
+            try (MappingIterator<IPropagatable> transactionIterator = jacksonSerializer.deserialize(response.getBody())) {
+                while (transactionIterator.hasNextValue()) {
+                    IPropagatable propagatable = transactionIterator.nextValue();
+                    if (!(propagatable instanceof TransactionData)) {
+                        throw new TransactionSyncException("Transaction batch holds an entity which is not a transaction");
+                    }
+                    TransactionData missingTransaction = (TransactionData) propagatable;
+                    handOverMissingTransaction(missingTransaction, missingTransaction.getDspConsensusResult() == null, missingTransactions, receivedMissingTransactionNumber, streamState, insertMissingTransactionThread);
                 }
             }
+            streamState.completed = true;
             return null;
         };
     }
 
-    private Thread insertMissingTransactionThread(List<TransactionData> missingTransactions, Set<Hash> trustChainUnconfirmedExistingTransactionHashes, AtomicLong completedMissingTransactionNumber, Thread monitorMissingTransactionThread, final AtomicBoolean finishedToReceive, final AtomicBoolean finishedToInsert) {
+    private void handOverMissingTransaction(TransactionData missingTransaction, boolean noneIndexedTransaction, BlockingQueue<TransactionData> missingTransactions, AtomicLong receivedMissingTransactionNumber,
+                                            MissingTransactionStreamState streamState, Thread insertMissingTransactionThread) {
+        if (noneIndexedTransaction) {
+            if (!streamState.receivedNoneIndexedTransactionHashes.add(missingTransaction.getHash())) {
+                return;
+            }
+        } else {
+            long index = missingTransaction.getDspConsensusResult().getIndex();
+            if (index < streamState.nextIndex) {
+                return;
+            }
+            streamState.nextIndex = index + 1;
+        }
+        try {
+            while (!missingTransactions.offer(missingTransaction, INSERTION_POLL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                if (!insertMissingTransactionThread.isAlive()) {
+                    throw new TransactionSyncException("Insertion of missing transactions stopped");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionSyncException("Interrupted while handing over missing transactions", e);
+        }
+        receivedMissingTransactionNumber.incrementAndGet();
+    }
+
+    private Thread insertMissingTransactionThread(BlockingQueue<TransactionData> missingTransactions, Set<Hash> trustChainUnconfirmedExistingTransactionHashes, AtomicLong completedMissingTransactionNumber, Thread monitorMissingTransactionThread, final AtomicBoolean finishedToReceive) {
         return new Thread(() -> {
-            int offset = 0;
             monitorMissingTransactionThread.start();
 
-            insertMissingTransactions(missingTransactions, trustChainUnconfirmedExistingTransactionHashes, completedMissingTransactionNumber, finishedToReceive, offset);
+            insertMissingTransactions(missingTransactions, trustChainUnconfirmedExistingTransactionHashes, completedMissingTransactionNumber, finishedToReceive);
 
             monitorMissingTransactionThread.interrupt();
             try {
@@ -121,47 +216,50 @@ public class BaseNodeTransactionSynchronizationService implements ITransactionSy
                 Thread.currentThread().interrupt();
             }
             missingTransactionExecutorMap.forEach((initializationTransactionHandlerType, executorData) -> executorData.waitForTermination());
-            synchronized (finishLock) {
-                finishedToInsert.set(true);
-                finishLock.notifyAll();
-            }
-
-        });
+        }, "Sync Txs Insert");
 
     }
 
-    private void insertMissingTransactions(List<TransactionData> missingTransactions, Set<Hash> trustChainUnconfirmedExistingTransactionHashes, AtomicLong completedMissingTransactionNumber, AtomicBoolean finishedToReceive, int offset) {
-        Map<Hash, AddressTransactionsHistory> addressToTransactionsHistoryMap = new ConcurrentHashMap<>();
+    private void insertMissingTransactions(BlockingQueue<TransactionData> missingTransactions, Set<Hash> trustChainUnconfirmedExistingTransactionHashes, AtomicLong completedMissingTransactionNumber, AtomicBoolean finishedToReceive) {
+        Map<Hash, AddressTransactionIndexData> addressTransactionIndexMap = new ConcurrentHashMap<>();
         Consumer<TransactionData> handleTransactionConsumer = transactionData -> {
             transactionService.handleMissingTransaction(transactionData, trustChainUnconfirmedExistingTransactionHashes, missingTransactionExecutorMap);
-            transactionHelper.updateAddressTransactionHistory(addressToTransactionsHistoryMap, transactionData);
+            transactionHelper.updateAddressTransactionHistory(addressTransactionIndexMap, transactionData);
         };
-        handleMissingTransactions(missingTransactions, handleTransactionConsumer, completedMissingTransactionNumber, finishedToReceive, offset);
+        handleMissingTransactions(missingTransactions, handleTransactionConsumer, completedMissingTransactionNumber, finishedToReceive);
 
-        insertAddressTransactionsHistory(addressToTransactionsHistoryMap);
+        insertAddressTransactionsHistory(addressTransactionIndexMap);
     }
 
-    private void handleMissingTransactions(List<TransactionData> missingTransactions, Consumer<TransactionData> handleTransactionConsumer, AtomicLong completedMissingTransactionNumber, AtomicBoolean finishedToReceive, int offset) {
-        int missingTransactionsSize;
-        int nextOffSet;
-        while ((missingTransactionsSize = missingTransactions.size()) > offset || !finishedToReceive.get()) {
-            if (missingTransactionsSize - 1 > offset || (missingTransactionsSize - 1 == offset && missingTransactions.get(offset) != null)) {
-                nextOffSet = offset + (finishedToReceive.get() ? missingTransactionsSize - offset : 1);
-                for (int i = offset; i < nextOffSet; i++) {
-                    TransactionData transactionData = missingTransactions.get(i);
+    private void handleMissingTransactions(BlockingQueue<TransactionData> missingTransactions, Consumer<TransactionData> handleTransactionConsumer, AtomicLong completedMissingTransactionNumber, AtomicBoolean finishedToReceive) {
+        try {
+            while (!finishedToReceive.get() || !missingTransactions.isEmpty()) {
+                TransactionData transactionData = missingTransactions.poll(INSERTION_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (transactionData != null) {
                     handleTransactionConsumer.accept(transactionData);
-                    missingTransactions.set(i, null);
                     completedMissingTransactionNumber.incrementAndGet();
                 }
-                offset = nextOffSet;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Insertion of missing transactions was interrupted");
         }
     }
 
-    private void insertAddressTransactionsHistory(Map<Hash, AddressTransactionsHistory> addressToTransactionsHistoryMap) {
+    private void insertAddressTransactionsHistory(Map<Hash, AddressTransactionIndexData> addressTransactionIndexMap) {
         log.info("Starting to insert address transactions history");
-        addressTransactionsHistories.putBatch(addressToTransactionsHistoryMap);
+        addressTransactionsIndexes.putBatch(addressTransactionIndexMap);
         log.info("Finished to insert address transactions history");
     }
 
+    private static class MissingTransactionStreamState {
+
+        private long nextIndex;
+        private boolean completed;
+        private final Set<Hash> receivedNoneIndexedTransactionHashes = new HashSet<>();
+
+        private MissingTransactionStreamState(long nextIndex) {
+            this.nextIndex = nextIndex;
+        }
+    }
 }
@@ -8,7 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.LinkedList;
+import java.util.*;
 import java.util.concurrent.ConcurrentMap;
 
 @Slf4j
@@ -55,26 +55,35 @@ public class ClusterHelper implements IClusterHelper {
 
     @Override
     public void resetClusterVisit(ConcurrentMap<Hash, TransactionData> transactionsCluster) {
-        transactionsCluster.forEach((hash, transactionData) -> {
-                    transactionData.setVisit(false);
-                    completeClusterChildren(transactionsCluster, transactionData);
-                }
-        );
+        List<TransactionData> parentTransactions = new ArrayList<>(transactionsCluster.values());
+        parentTransactions.forEach(transactionData -> transactionData.setVisit(false));
+        completeClusterChildren(transactionsCluster, parentTransactions);
     }
 
-    private void completeClusterChildren(ConcurrentMap<Hash, TransactionData> transactionsCluster, TransactionData transactionData) {
-        transactionData.getChildrenTransactionHashes().forEach(childHash -> {
-            if (!transactionsCluster.containsKey(childHash)) {
-                TransactionData childTransaction = transactions.getByHash(childHash);
+    private void completeClusterChildren(ConcurrentMap<Hash, TransactionData> transactionsCluster, List<TransactionData> parentTransactions) {
+        while (!parentTransactions.isEmpty()) {
+            Map<Hash, Hash> missingChildHashToParentHash = new LinkedHashMap<>();
+            parentTransactions.forEach(transactionData -> transactionData.getChildrenTransactionHashes().forEach(childHash -> {
+                if (!transactionsCluster.containsKey(childHash)) {
+                    missingChildHashToParentHash.putIfAbsent(childHash, transactionData.getHash());
+                }
+            }));
+            List<Hash> missingChildHashes = new ArrayList<>(missingChildHashToParentHash.keySet());
+            List<TransactionData> childTransactions = transactions.multiGetByHashes(missingChildHashes);
+            parentTransactions = new ArrayList<>();
+            for (int i = 0; i < missingChildHashes.size(); i++) {
+                Hash childHash = missingChildHashes.get(i);
+                TransactionData childTransaction = childTransactions.get(i);
                 if (childTransaction == null) {
-                    log.error("Child {} of transaction {} is not in cluster", childHash, transactionData.getHash());
+                    log.error("Child {} of transaction {} is not in cluster", childHash, missingChildHashToParentHash.get(childHash));
                 } else {
                     childTransaction.setVisit(false);
-                    transactionsCluster.putIfAbsent(childHash, childTransaction);
-                    completeClusterChildren(transactionsCluster, childTransaction);
+                    if (transactionsCluster.putIfAbsent(childHash, childTransaction) == null) {
+                        parentTransactions.add(childTransaction);
+                    }
                 }
             }
-        });
+        }
     }
 
 }
@@ -1,10 +1,6 @@
 package io.coti.basenode.services;
 
-import com.google.common.collect.Sets;
-import io.coti.basenode.data.Event;
-import io.coti.basenode.data.Hash;
-import io.coti.basenode.data.TccInfo;
-import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.data.*;
 import io.coti.basenode.model.Transactions;
 import io.coti.basenode.services.interfaces.*;
 import lombok.extern.slf4j.Slf4j;
@@ -15,8 +11,6 @@ import org.springframework.stereotype.Service;
 import javax.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,8 +18,7 @@ import java.util.stream.Collectors;
 public class ClusterService implements IClusterService {
 
     private static final int TCC_CONFIRMATION_INTERVAL = 3000;
-    private ArrayList<HashSet<Hash>> sourceSetsByTrustScore;
-    private HashMap<Hash, TransactionData> sourceMap;
+    private SourcePool sourcePool;
     @Autowired
     private Transactions transactions;
     @Autowired
@@ -39,8 +32,6 @@ public class ClusterService implements IClusterService {
     @Autowired
     private IEventService eventService;
     private ConcurrentHashMap<Hash, TransactionData> trustChainConfirmationCluster;
-    private final AtomicLong totalSources = new AtomicLong(0);
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
     private Thread trustChainConfirmedTransactionsThread;
     private boolean initialConfirmation = true;
     private Object initialConfirmationLock;
@@ -49,11 +40,7 @@ public class ClusterService implements IClusterService {
     public void init() {
         initialConfirmationLock = confirmationService.getInitialConfirmationLock();
         trustChainConfirmationCluster = new ConcurrentHashMap<>();
-        sourceSetsByTrustScore = new ArrayList<>();
-        sourceMap = new HashMap<>();
-        for (int i = 0; i <= 100; i++) {
-            sourceSetsByTrustScore.add(Sets.newHashSet());
-        }
+        sourcePool = new SourcePool();
 
         trustChainConfirmedTransactionsThread = new Thread(this::checkForTrustChainConfirmedTransaction, "CLUSTER-SERVICE TCC CHECK");
         log.info("{} is up", this.getClass().getSimpleName());
@@ -93,38 +80,47 @@ public class ClusterService implements IClusterService {
     }
 
     public void checkForTrustChainConfirmedTransaction() {
-        while (!Thread.currentThread().isInterrupted()) {
-            trustChainConfirmationService.init(trustChainConfirmationCluster);
-            List<TccInfo> transactionConsensusConfirmed = trustChainConfirmationService.getTrustChainConfirmedTransactions();
-            if (initialConfirmation) {
-                if (transactionConsensusConfirmed.isEmpty()) {
-                    synchronized (initialConfirmationLock) {
-                        confirmationService.getInitialConfirmationFinished().set(true);
-                        initialConfirmationLock.notifyAll();
-                    }
-                } else {
-                    confirmationService.getInitialConfirmationStarted().set(true);
+        List<TccInfo> transactionConsensusConfirmed = trustChainConfirmationService.startIncrementalConfirmation(trustChainConfirmationCluster);
+        if (initialConfirmation) {
+            if (transactionConsensusConfirmed.isEmpty()) {
+                synchronized (initialConfirmationLock) {
+                    confirmationService.getInitialConfirmationFinished().set(true);
+                    initialConfirmationLock.notifyAll();
                 }
+            } else {
+                confirmationService.getInitialConfirmationStarted().set(true);
             }
-            transactionConsensusConfirmed.forEach(tccInfo -> {
-                trustChainConfirmationCluster.remove(tccInfo.getHash());
-                confirmationService.setTccToTrue(tccInfo);
-                log.debug("TCC has been reached for transaction {}!!", tccInfo.getHash());
-            });
-            initialConfirmation = false;
+        }
+        setTrustChainConfirmed(transactionConsensusConfirmed);
+        initialConfirmation = false;
+        while (!Thread.currentThread().isInterrupted()) {
             try {
                 Thread.sleep(TCC_CONFIRMATION_INTERVAL);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
+                return;
             }
+            trustChainConfirmationService.monitorTrustChainConfirmation();
         }
     }
 
+    private void setTrustChainConfirmed(List<TccInfo> transactionConsensusConfirmed) {
+        transactionConsensusConfirmed.forEach(tccInfo -> {
+            trustChainConfirmationCluster.remove(tccInfo.getHash());
+            confirmationService.setTccToTrue(tccInfo);
+            log.debug("TCC has been reached for transaction {}!!", tccInfo.getHash());
+        });
+    }
+
     @Override
     public void attachToCluster(TransactionData transactionData) {
         updateParents(transactionData);
 
-        addTransactionToTCCClusterAndToSources(transactionData);
+        if (!eventService.eventHappened(Event.TRUST_SCORE_CONSENSUS) || transactionHelper.isDspConfirmed(transactionData)) {
+            putTransactionOnTrustChainConfirmationCluster(transactionData);
+        }
+        addNewSourceTransactionToSources(transactionData);
+        setTrustChainConfirmed(trustChainConfirmationService.attachTransaction(transactionData));
     }
 
     private void updateParents(TransactionData transactionData) {
@@ -159,28 +155,13 @@ public class ClusterService implements IClusterService {
     }
 
     private void removeTransactionFromSources(Hash transactionHash) {
-        try {
-            readWriteLock.writeLock().lock();
-            TransactionData transactionData = sourceMap.remove(transactionHash);
-            if (transactionData != null) {
-                sourceSetsByTrustScore.get(transactionData.getRoundedSenderTrustScore()).remove(transactionHash);
-                totalSources.decrementAndGet();
-            }
-        } finally {
-            readWriteLock.writeLock().unlock();
-        }
+        sourcePool.remove(transactionHash);
     }
 
     private void addNewSourceTransactionToSources(TransactionData transactionData) {
         Hash transactionHash = transactionData.getHash();
-        try {
-            readWriteLock.writeLock().lock();
-            if (transactionData.isSource() && sourceMap.put(transactionHash, transactionData) == null) {
-                sourceSetsByTrustScore.get(transactionData.getRoundedSenderTrustScore()).add(transactionHash);
-                totalSources.incrementAndGet();
-            }
-        } finally {
-            readWriteLock.writeLock().unlock();
+        if (transactionData.isSource()) {
+            sourcePool.add(transactionData);
         }
 
         log.debug("Added New Transaction with hash:{}", transactionHash);
@@ -198,22 +179,20 @@ public class ClusterService implements IClusterService {
     }
 
     private void removeTransactionFromTrustChainConfirmationCluster(TransactionData transactionData) {
-        Hash transactionHash = transactionData.getHash();
         trustChainConfirmationCluster.remove(transactionData.getHash());
 
-        try {
-            readWriteLock.writeLock().lock();
-            if (transactionData.isSource() && sourceMap.remove(transactionHash) != null) {
-                sourceSetsByTrustScore.get(transactionData.getRoundedSenderTrustScore()).remove(transactionHash);
-                totalSources.decrementAndGet();
-            }
-        } finally {
-            readWriteLock.writeLock().unlock();
+        if (transactionData.isSource()) {
+            sourcePool.remove(transactionData.getHash());
         }
     }
 
     @Override
     public void updateTransactionOnTrustChainConfirmationCluster(TransactionData transactionData) {
+        putTransactionOnTrustChainConfirmationCluster(transactionData);
+        setTrustChainConfirmed(trustChainConfirmationService.updateTransaction(transactionData));
+    }
+
+    private void putTransactionOnTrustChainConfirmationCluster(TransactionData transactionData) {
         final TransactionData oldTransactionData = trustChainConfirmationCluster.put(transactionData.getHash(), transactionData);
         if (oldTransactionData == null) {
             log.debug("Updated cluster with a new Transaction with hash:{}", transactionData.getHash());
@@ -222,13 +201,8 @@ public class ClusterService implements IClusterService {
 
     @Override
     public List<TransactionData> findSources(TransactionData transactionData) {
-        List<Set<Hash>> trustScoreToTransactionMappingSnapshot =
-                Collections.unmodifiableList(sourceSetsByTrustScore);
-        Map<Hash, TransactionData> sourceMapSnapshot = Collections.unmodifiableMap(sourceMap);
-        return sourceSelector.selectSourcesForAttachment(
-                trustScoreToTransactionMappingSnapshot,
-                sourceMapSnapshot,
-                transactionData.getSenderTrustScore(), readWriteLock);
+        return sourceSelector.selectSourcesForAttachment(sourcePool.getSnapshot(), transactionData.getSenderTrustScore())
+                .stream().map(SourcePool.SourceHandle::getTransactionData).collect(Collectors.toList());
     }
 
     @Override
@@ -249,7 +223,7 @@ public class ClusterService implements IClusterService {
 
     @Override
     public long getTotalSources() {
-        return totalSources.get();
+        return sourcePool.size();
     }
 
     @Override
@@ -262,13 +236,29 @@ public class ClusterService implements IClusterService {
         return SerializationUtils.clone(trustChainConfirmationCluster);
     }
 
+    @Override
+    public List<TransactionData> getTrustChainConfirmationClusterTransactions() {
+        return new ArrayList<>(trustChainConfirmationCluster.values());
+    }
+
     @Override
     public ArrayList<HashSet<Hash>> getSourceSetsByTrustScore() {
-        return SerializationUtils.clone(sourceSetsByTrustScore);
+        SourcePool.Snapshot sourcePoolSnapshot = sourcePool.getSnapshot();
+        ArrayList<HashSet<Hash>> sourceSetsByTrustScore = new ArrayList<>(SourcePool.MAX_TRUST_SCORE_BUCKET + 1);
+        for (int i = 0; i <= SourcePool.MAX_TRUST_SCORE_BUCKET; i++) {
+            SourcePool.SourceBucket sourceBucket = sourcePoolSnapshot.getBucket(i);
+            HashSet<Hash> sourceHashes = new HashSet<>();
+            for (int j = 0; j < sourceBucket.size(); j++) {
+                sourceHashes.add(sourceBucket.get(j).getHash());
+            }
+            sourceSetsByTrustScore.add(sourceHashes);
+        }
+        return sourceSetsByTrustScore;
     }
 
     @Override
     public double getRuntimeTrustChainTrustScore(Hash transactionHash) {
-        return Optional.ofNullable(trustChainConfirmationCluster.get(transactionHash)).map(TransactionData::getTrustChainTrustScore).orElse((double) 0);
+        double clusterTrustChainTrustScore = Optional.ofNullable(trustChainConfirmationCluster.get(transactionHash)).map(TransactionData::getTrustChainTrustScore).orElse((double) 0);
+        return Math.max(clusterTrustChainTrustScore, trustChainConfirmationService.getTrustChainTrustScore(transactionHash));
     }
 }
@@ -0,0 +1,730 @@
+package io.coti.basenode.services;
+
+import io.coti.basenode.crypto.CryptoHelper;
+import io.coti.basenode.data.ClusterStampBalancesData;
+import io.coti.basenode.data.ClusterStampData;
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.SignatureData;
+import io.coti.basenode.exceptions.ClusterStampException;
+import io.coti.basenode.exceptions.ClusterStampValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Loads the clusterstamp balances with several threads. The csv file is memory mapped in chunks that are split on line
+ * boundaries, and every chunk is parsed straight from the mapped bytes and fed into the balances by its own thread.
+ * The signature message bytes of each chunk are collected on the side and digested in file order, so the digest is
+ * the same as the one of a sequential read. Lines the byte parser does not handle fall back to the string parsing of
+ * the sequential loader, which keeps the accepted format and its errors unchanged.
+ * <p>
+ * The binary clusterstamp holds the same balances as blocks of records, followed by the signature, and its blocks are
+ * loaded in parallel the same way. Its header records the size and the modification time of the csv it was converted
+ * from, so that a binary clusterstamp left behind by a replaced csv is not loaded.
+ */
+@Slf4j
+@Service
+public class ClusterStampLoader {
+
+    private static final int BINARY_CLUSTERSTAMP_MAGIC = 0x43535442;
+    private static final byte BINARY_CLUSTERSTAMP_VERSION = 2;
+    private static final int BINARY_CLUSTERSTAMP_HEADER_SIZE = Integer.BYTES + 1 + 2 * Long.BYTES;
+    private static final int END_OF_BLOCKS = 0;
+    private static final int NO_CURRENCY_HASH = 0xFF;
+    private static final int MAX_RECORD_FIELD_LENGTH = 0xFE;
+    private static final int MAX_COMPACT_AMOUNT_DIGITS = 18;
+    private static final int LINE_SCAN_BUFFER_SIZE = 4096;
+    private static final int MAX_TRAILING_SECTION_SIZE = 65536;
+    private static final int DETAILS_IN_CLUSTERSTAMP_LINE_WITHOUT_CURRENCY_HASH = 2;
+    private static final int DETAILS_IN_CLUSTERSTAMP_LINE_WITH_CURRENCY_HASH = 3;
+    private static final String BAD_CSV_FILE_FORMAT = "Bad csv file format";
+    private static final String BAD_BINARY_FILE_FORMAT = "Bad binary clusterstamp file format";
+    private static final byte[] HEX_VALUES = new byte[128];
+    @Value("${clusterstamp.load.threads:0}")
+    private int loadThreads;
+    @Value("${clusterstamp.load.chunk.size:8388608}")
+    private int loadChunkSize;
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    /**
+     * Loads the balance lines of the csv clusterstamp, which end at the first empty line, and sets the digest of their
+     * signature message. The text from the first empty line on is returned for the signature section to be read.
+     */
+    public ClusterStampBalancesData loadCsvBalances(File clusterStampFile, ClusterStampData clusterStampData, BalanceConsumer balanceConsumer) throws IOException {
+        long startTime = System.nanoTime();
+        try (FileChannel fileChannel = FileChannel.open(clusterStampFile.toPath(), StandardOpenOption.READ)) {
+            ExecutorService executorService = createExecutorService();
+            try {
+                long balancesEnd = findBalancesEnd(executorService, fileChannel);
+                MessageDigest digest = CryptoHelper.getCryptoHashDigest();
+                long balanceLines = parseCsvBalances(executorService, fileChannel, balancesEnd, balanceConsumer, false,
+                        chunkResult -> chunkResult.signatureMessage.updateDigest(digest));
+                clusterStampData.setSignatureMessageHash(new Hash(digest.digest()));
+                String trailingSection = readTrailingSection(fileChannel, balancesEnd);
+                log.info("Loaded {} clusterstamp balances in {} ms", balanceLines, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                return new ClusterStampBalancesData(balanceLines, trailingSection);
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the binary clusterstamp was converted from the csv clusterstamp as it is now. A binary clusterstamp
+     * of another format version, or with a header that can not be read, is not current.
+     */
+    public boolean isBinaryClusterStampCurrent(File clusterStampFile, File binaryClusterStampFile) throws IOException {
+        if (!clusterStampFile.exists() || binaryClusterStampFile.length() < BINARY_CLUSTERSTAMP_HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel fileChannel = FileChannel.open(binaryClusterStampFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(fileChannel, 0, BINARY_CLUSTERSTAMP_HEADER_SIZE);
+            return header.getInt() == BINARY_CLUSTERSTAMP_MAGIC && header.get() == BINARY_CLUSTERSTAMP_VERSION
+                    && header.getLong() == clusterStampFile.length() && header.getLong() == clusterStampFile.lastModified();
+        }
+    }
+
+    /**
+     * Loads a binary clusterstamp and returns it with its signature and the digest of its signature message.
+     */
+    public ClusterStampData loadBinaryClusterStamp(File binaryClusterStampFile, BalanceConsumer balanceConsumer) throws IOException {
+        long startTime = System.nanoTime();
+        try (FileChannel fileChannel = FileChannel.open(binaryClusterStampFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(fileChannel, 0, BINARY_CLUSTERSTAMP_HEADER_SIZE);
+            if (header.getInt() != BINARY_CLUSTERSTAMP_MAGIC || header.get() != BINARY_CLUSTERSTAMP_VERSION) {
+                throw new ClusterStampValidationException(BAD_BINARY_FILE_FORMAT);
+            }
+            List<long[]> blocks = new ArrayList<>();
+            long position = BINARY_CLUSTERSTAMP_HEADER_SIZE;
+            int recordCount;
+            while ((recordCount = readFully(fileChannel, position, Integer.BYTES).getInt()) != END_OF_BLOCKS) {
+                int blockLength = readFully(fileChannel, position + Integer.BYTES, Integer.BYTES).getInt();
+                if (recordCount < 0 || blockLength <= 0) {
+                    throw new ClusterStampValidationException(BAD_BINARY_FILE_FORMAT);
+                }
+                blocks.add(new long[]{position + 2 * Integer.BYTES, blockLength, recordCount});
+                position += 2 * Integer.BYTES + blockLength;
+            }
+            position += Integer.BYTES;
+            ClusterStampData clusterStampData = new ClusterStampData();
+            SignatureData signature = new SignatureData();
+            position = readSignatureComponent(fileChannel, position, signature::setR);
+            position = readSignatureComponent(fileChannel, position, signature::setS);
+            if (position != fileChannel.size()) {
+                throw new ClusterStampValidationException(BAD_BINARY_FILE_FORMAT);
+            }
+            clusterStampData.setSignature(signature);
+
+            ExecutorService executorService = createExecutorService();
+            try {
+                MessageDigest digest = CryptoHelper.getCryptoHashDigest();
+                long[] balances = {0};
+                processInOrder(executorService, blocks.size(), blockNumber -> () -> {
+                    long[] block = blocks.get(blockNumber);
+                    ChunkResult chunkResult = new ChunkResult(false);
+                    new RecordBlockParser(fileChannel.map(FileChannel.MapMode.READ_ONLY, block[0], block[1]), (int) block[2], balanceConsumer, chunkResult).parse();
+                    return chunkResult;
+                }, chunkResult -> {
+                    chunkResult.signatureMessage.updateDigest(digest);
+                    balances[0] += chunkResult.lines;
+                });
+                clusterStampData.setSignatureMessageHash(new Hash(digest.digest()));
+                log.info("Loaded {} binary clusterstamp balances in {} ms", balances[0], TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            } finally {
+                executorService.shutdownNow();
+            }
+            return clusterStampData;
+        }
+    }
+
+    /**
+     * Writes the balances of a csv clusterstamp as a binary clusterstamp with the given signature. The file is written
+     * next to the target and moved over it only when complete.
+     */
+    public void convertToBinaryClusterStamp(File clusterStampFile, File binaryClusterStampFile, SignatureData signature) throws IOException {
+        long startTime = System.nanoTime();
+        File temporaryFile = new File(binaryClusterStampFile.getPath() + ".tmp");
+        long clusterStampLastModified = clusterStampFile.lastModified();
+        long balanceLines;
+        try (FileChannel fileChannel = FileChannel.open(clusterStampFile.toPath(), StandardOpenOption.READ);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+            output.writeInt(BINARY_CLUSTERSTAMP_MAGIC);
+            output.writeByte(BINARY_CLUSTERSTAMP_VERSION);
+            output.writeLong(fileChannel.size());
+            output.writeLong(clusterStampLastModified);
+            ExecutorService executorService = createExecutorService();
+            try {
+                long balancesEnd = findBalancesEnd(executorService, fileChannel);
+                balanceLines = parseCsvBalances(executorService, fileChannel, balancesEnd, (addressHash, currencyHash, amount) -> {
+                }, true, chunkResult -> {
+                    if (chunkResult.lines > 0) {
+                        output.writeInt((int) chunkResult.lines);
+                        output.writeInt(chunkResult.records.size());
+                        chunkResult.records.writeTo(output);
+                    }
+                });
+            } finally {
+                executorService.shutdownNow();
+            }
+            output.writeInt(END_OF_BLOCKS);
+            writeSignatureComponent(output, signature.getR());
+            writeSignatureComponent(output, signature.getS());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile.toPath());
+            throw e;
+        }
+        Files.move(temporaryFile.toPath(), binaryClusterStampFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Converted {} clusterstamp balances to {} in {} ms", balanceLines, binaryClusterStampFile.getName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    private long findBalancesEnd(ExecutorService executorService, FileChannel fileChannel) throws IOException {
+        List<long[]> chunks = splitOnLines(fileChannel, fileChannel.size());
+        long[] balancesEnd = {fileChannel.size()};
+        processInOrder(executorService, chunks.size(), chunkNumber -> () -> {
+            long[] chunk = chunks.get(chunkNumber);
+            ChunkResult chunkResult = new ChunkResult(false);
+            chunkResult.firstEmptyLine = findFirstEmptyLine(fileChannel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]), chunk[0]);
+            return chunkResult;
+        }, chunkResult -> {
+            if (chunkResult.firstEmptyLine >= 0 && chunkResult.firstEmptyLine < balancesEnd[0]) {
+                balancesEnd[0] = chunkResult.firstEmptyLine;
+            }
+        });
+        return balancesEnd[0];
+    }
+
+    private long parseCsvBalances(ExecutorService executorService, FileChannel fileChannel, long balancesEnd, BalanceConsumer balanceConsumer,
+                                  boolean collectRecords, ChunkResultConsumer chunkResultConsumer) throws IOException {
+        List<long[]> chunks = splitOnLines(fileChannel, balancesEnd);
+        long[] balanceLines = {0};
+        processInOrder(executorService, chunks.size(), chunkNumber -> () -> {
+            long[] chunk = chunks.get(chunkNumber);
+            ChunkResult chunkResult = new ChunkResult(collectRecords);
+            new CsvChunkParser(fileChannel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]), balanceConsumer, chunkResult).parse();
+            return chunkResult;
+        }, chunkResult -> {
+            chunkResultConsumer.accept(chunkResult);
+            balanceLines[0] += chunkResult.lines;
+        });
+        return balanceLines[0];
+    }
+
+    /**
+     * Runs the chunk tasks on the executor and hands their results to the consumer in chunk order. Only a window of
+     * chunks is in flight at a time, which bounds the memory held by results waiting for an earlier chunk.
+     */
+    private void processInOrder(ExecutorService executorService, int chunks, IntFunction<Callable<ChunkResult>> chunkTask,
+                                ChunkResultConsumer chunkResultConsumer) throws IOException {
+        int window = 2 * getLoadThreads();
+        Deque<Future<ChunkResult>> chunkFutures = new ArrayDeque<>(window);
+        int submittedChunks = 0;
+        try {
+            while (submittedChunks < chunks || !chunkFutures.isEmpty()) {
+                while (submittedChunks < chunks && chunkFutures.size() < window) {
+                    chunkFutures.addLast(executorService.submit(chunkTask.apply(submittedChunks++)));
+                }
+                chunkResultConsumer.accept(chunkFutures.removeFirst().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClusterStampException("Clusterstamp loading was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ClusterStampException("Clusterstamp loading failed", cause);
+        } finally {
+            chunkFutures.forEach(chunkFuture -> chunkFuture.cancel(true));
+        }
+    }
+
+    /**
+     * Splits the file up to the end position into chunks of about the configured size that start and end on line
+     * boundaries. A line ends at a line feed, a carriage return, or both, as for {@link BufferedReader#readLine()}.
+     */
+    private List<long[]> splitOnLines(FileChannel fileChannel, long end) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer scanBuffer = ByteBuffer.allocate(LINE_SCAN_BUFFER_SIZE);
+        long chunkStart = 0;
+        while (chunkStart < end) {
+            long chunkEnd = end - chunkStart <= loadChunkSize ? end : findNextLineStart(fileChannel, chunkStart + loadChunkSize, end, scanBuffer);
+            if (chunkEnd - chunkStart > Integer.MAX_VALUE) {
+                throw new ClusterStampValidationException(BAD_CSV_FILE_FORMAT);
+            }
+            chunks.add(new long[]{chunkStart, chunkEnd});
+            chunkStart = chunkEnd;
+        }
+        return chunks;
+    }
+
+    private long findNextLineStart(FileChannel fileChannel, long position, long end, ByteBuffer scanBuffer) throws IOException {
+        long scanPosition = position - 1;
+        boolean afterCarriageReturn = false;
+        while (scanPosition < end) {
+            scanBuffer.clear();
+            scanBuffer.limit((int) Math.min(scanBuffer.capacity(), end - scanPosition));
+            int read = fileChannel.read(scanBuffer, scanPosition);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = scanBuffer.get(i);
+                if (afterCarriageReturn) {
+                    return b == '\n' ? scanPosition + i + 1 : scanPosition + i;
+                }
+                if (b == '\n') {
+                    return scanPosition + i + 1;
+                }
+                afterCarriageReturn = b == '\r';
+            }
+            scanPosition += read;
+        }
+        return end;
+    }
+
+    private static long findFirstEmptyLine(ByteBuffer buffer, long offset) {
+        int position = 0;
+        int limit = buffer.limit();
+        while (position < limit) {
+            int lineEnd = findLineEnd(buffer, position, limit);
+            boolean emptyLine = true;
+            for (int i = position; i < lineEnd && emptyLine; i++) {
+                emptyLine = isWhitespace(buffer.get(i));
+            }
+            if (emptyLine) {
+                return offset + position;
+            }
+            position = skipLineTerminator(buffer, lineEnd, limit);
+        }
+        return -1;
+    }
+
+    private static int findLineEnd(ByteBuffer buffer, int position, int limit) {
+        int lineEnd = position;
+        while (lineEnd < limit) {
+            byte b = buffer.get(lineEnd);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            lineEnd++;
+        }
+        return lineEnd;
+    }
+
+    private static int skipLineTerminator(ByteBuffer buffer, int lineEnd, int limit) {
+        if (lineEnd < limit && buffer.get(lineEnd) == '\r') {
+            lineEnd++;
+            return lineEnd < limit && buffer.get(lineEnd) == '\n' ? lineEnd + 1 : lineEnd;
+        }
+        return lineEnd < limit ? lineEnd + 1 : lineEnd;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+
+    private String readTrailingSection(FileChannel fileChannel, long balancesEnd) throws IOException {
+        long trailingSectionSize = fileChannel.size() - balancesEnd;
+        if (trailingSectionSize > MAX_TRAILING_SECTION_SIZE) {
+            throw new ClusterStampValidationException(BAD_CSV_FILE_FORMAT);
+        }
+        ByteBuffer trailingSection = readFully(fileChannel, balancesEnd, (int) trailingSectionSize);
+        return new String(trailingSection.array(), Charset.defaultCharset());
+    }
+
+    private static ByteBuffer readFully(FileChannel fileChannel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException(BAD_BINARY_FILE_FORMAT);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static long readSignatureComponent(FileChannel fileChannel, long position, java.util.function.Consumer<String> componentConsumer) throws IOException {
+        int length = readFully(fileChannel, position, Short.BYTES).getShort() & 0xFFFF;
+        componentConsumer.accept(new String(readFully(fileChannel, position + Short.BYTES, length).array(), StandardCharsets.US_ASCII));
+        return position + Short.BYTES + length;
+    }
+
+    private static void writeSignatureComponent(DataOutputStream output, String component) throws IOException {
+        byte[] componentBytes = component.getBytes(StandardCharsets.US_ASCII);
+        output.writeShort(componentBytes.length);
+        output.write(componentBytes);
+    }
+
+    private ExecutorService createExecutorService() {
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(getLoadThreads(), runnable -> new Thread(runnable, "ClusterStamp Loader " + threadNumber.getAndIncrement()));
+    }
+
+    private int getLoadThreads() {
+        return loadThreads > 0 ? loadThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public interface BalanceConsumer {
+
+        void accept(Hash addressHash, Hash currencyHash, BigDecimal amount);
+    }
+
+    private interface ChunkResultConsumer {
+
+        void accept(ChunkResult chunkResult) throws IOException;
+    }
+
+    private static class ChunkBuffer extends ByteArrayOutputStream {
+
+        private void append(byte[] bytes) {
+            write(bytes, 0, bytes.length);
+        }
+
+        private void updateDigest(MessageDigest digest) {
+            digest.update(buf, 0, count);
+        }
+    }
+
+    private static class ChunkResult {
+
+        private final ChunkBuffer signatureMessage = new ChunkBuffer();
+        private final ChunkBuffer records;
+        private long lines;
+        private long firstEmptyLine = -1;
+
+        private ChunkResult(boolean collectRecords) {
+            records = collectRecords ? new ChunkBuffer() : null;
+        }
+    }
+
+    /**
+     * Adds parsed balances to the consumer and to the signature message of the chunk, and to its records when the
+     * chunk is converted.
+     */
+    private abstract static class BalanceParser {
+
+        private final BalanceConsumer balanceConsumer;
+        private final ChunkResult chunkResult;
+        private final byte[] digits = new byte[20];
+        protected boolean compactAmount;
+        protected long compactUnscaledAmount;
+        protected int compactAmountScale;
+
+        private BalanceParser(BalanceConsumer balanceConsumer, ChunkResult chunkResult) {
+            this.balanceConsumer = balanceConsumer;
+            this.chunkResult = chunkResult;
+        }
+
+        protected void addBalance(Hash addressHash, BigDecimal amount, Hash currencyHash) {
+            balanceConsumer.accept(addressHash, currencyHash, amount);
+            ChunkBuffer signatureMessage = chunkResult.signatureMessage;
+            signatureMessage.append(addressHash.getBytes());
+            if (compactAmount) {
+                writePlainAmount(signatureMessage, compactUnscaledAmount, compactAmountScale);
+            } else {
+                signatureMessage.append(amount.stripTrailingZeros().toPlainString().getBytes());
+            }
+            if (currencyHash != null) {
+                signatureMessage.append(currencyHash.getBytes());
+            }
+            if (chunkResult.records != null) {
+                writeRecord(chunkResult.records, addressHash, amount, currencyHash);
+            }
+            chunkResult.lines++;
+        }
+
+        /**
+         * Writes the amount as {@code amount.stripTrailingZeros().toPlainString()} does, without creating it.
+         */
+        private void writePlainAmount(ChunkBuffer output, long unscaledAmount, int scale) {
+            while (scale > 0 && unscaledAmount % 10 == 0) {
+                unscaledAmount /= 10;
+                scale--;
+            }
+            if (unscaledAmount == 0) {
+                output.write('0');
+                return;
+            }
+            if (unscaledAmount < 0) {
+                output.write('-');
+                unscaledAmount = -unscaledAmount;
+            }
+            int length = 0;
+            while (unscaledAmount > 0) {
+                digits[length++] = (byte) ('0' + unscaledAmount % 10);
+                unscaledAmount /= 10;
+            }
+            if (scale >= length) {
+                output.write('0');
+                output.write('.');
+                for (int i = scale - length; i > 0; i--) {
+                    output.write('0');
+                }
+                scale = length;
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                output.write(digits[i]);
+                if (i == scale && scale > 0) {
+                    output.write('.');
+                }
+            }
+            for (int i = scale; i < 0; i++) {
+                output.write('0');
+            }
+        }
+
+        private void writeRecord(ChunkBuffer records, Hash addressHash, BigDecimal amount, Hash currencyHash) {
+            byte[] unscaledAmount = amount.unscaledValue().toByteArray();
+            if (addressHash.getBytes().length > MAX_RECORD_FIELD_LENGTH || (currencyHash != null && currencyHash.getBytes().length > MAX_RECORD_FIELD_LENGTH)
+                    || unscaledAmount.length > MAX_RECORD_FIELD_LENGTH) {
+                throw new ClusterStampValidationException(String.format("Clusterstamp balance of address %s can not be converted", addressHash));
+            }
+            records.write(addressHash.getBytes().length);
+            records.append(addressHash.getBytes());
+            if (currencyHash != null) {
+                records.write(currencyHash.getBytes().length);
+                records.append(currencyHash.getBytes());
+            } else {
+                records.write(NO_CURRENCY_HASH);
+            }
+            int scale = amount.scale();
+            records.write(scale >>> 24);
+            records.write(scale >>> 16);
+            records.write(scale >>> 8);
+            records.write(scale);
+            records.write(unscaledAmount.length);
+            records.append(unscaledAmount);
+        }
+    }
+
+    private static class CsvChunkParser extends BalanceParser {
+
+        private final ByteBuffer buffer;
+
+        private CsvChunkParser(ByteBuffer buffer, BalanceConsumer balanceConsumer, ChunkResult chunkResult) {
+            super(balanceConsumer, chunkResult);
+            this.buffer = buffer;
+        }
+
+        private void parse() {
+            int position = 0;
+            int limit = buffer.limit();
+            while (position < limit) {
+                int lineEnd = findLineEnd(buffer, position, limit);
+                int start = position;
+                int end = lineEnd;
+                while (start < end && isWhitespace(buffer.get(start))) {
+                    start++;
+                }
+                while (end > start && isWhitespace(buffer.get(end - 1))) {
+                    end--;
+                }
+                if (start == end) {
+                    throw new ClusterStampValidationException(BAD_CSV_FILE_FORMAT);
+                }
+                parseLine(start, end);
+                position = skipLineTerminator(buffer, lineEnd, limit);
+            }
+        }
+
+        private void parseLine(int start, int end) {
+            int firstComma = -1;
+            int secondComma = -1;
+            boolean simpleLine = true;
+            for (int i = start; i < end && simpleLine; i++) {
+                byte b = buffer.get(i);
+                if (b == ',') {
+                    if (firstComma < 0) {
+                        firstComma = i;
+                    } else if (secondComma < 0) {
+                        secondComma = i;
+                    } else {
+                        simpleLine = false;
+                    }
+                } else if (b < 0) {
+                    simpleLine = false;
+                }
+            }
+            int amountEnd = secondComma < 0 ? end : secondComma;
+            if (!simpleLine || firstComma <= start || amountEnd - firstComma <= 1 || (secondComma >= 0 && end - secondComma <= 1)) {
+                parseLegacyLine(decode(start, end).trim());
+                return;
+            }
+            Hash addressHash = parseHash(start, firstComma);
+            BigDecimal amount = parseAmount(firstComma + 1, amountEnd);
+            Hash currencyHash = secondComma < 0 ? null : parseHash(secondComma + 1, end);
+            addBalance(addressHash, amount, currencyHash);
+        }
+
+        private void parseLegacyLine(String line) {
+            String[] lineDetails = line.split(",");
+            int numOfDetailsInLine = lineDetails.length;
+            if (numOfDetailsInLine != DETAILS_IN_CLUSTERSTAMP_LINE_WITH_CURRENCY_HASH && numOfDetailsInLine != DETAILS_IN_CLUSTERSTAMP_LINE_WITHOUT_CURRENCY_HASH) {
+                throw new ClusterStampValidationException(BAD_CSV_FILE_FORMAT);
+            }
+            Hash addressHash = new Hash(lineDetails[0]);
+            BigDecimal amount = new BigDecimal(lineDetails[1]);
+            Hash currencyHash = numOfDetailsInLine == DETAILS_IN_CLUSTERSTAMP_LINE_WITH_CURRENCY_HASH ? new Hash(lineDetails[2]) : null;
+            compactAmount = false;
+            addBalance(addressHash, amount, currencyHash);
+        }
+
+        private Hash parseHash(int start, int end) {
+            if ((end - start) % 2 != 0) {
+                return new Hash(decode(start, end));
+            }
+            byte[] bytes = new byte[(end - start) / 2];
+            for (int i = 0; i < bytes.length; i++) {
+                int high = hexValue(buffer.get(start + 2 * i));
+                int low = hexValue(buffer.get(start + 2 * i + 1));
+                if (high < 0 || low < 0) {
+                    return new Hash(decode(start, end));
+                }
+                bytes[i] = (byte) (high << 4 | low);
+            }
+            return new Hash(bytes);
+        }
+
+        private static int hexValue(byte b) {
+            return b >= 0 ? HEX_VALUES[b] : -1;
+        }
+
+        private BigDecimal parseAmount(int start, int end) {
+            int position = start;
+            boolean negative = false;
+            byte sign = buffer.get(position);
+            if (sign == '-' || sign == '+') {
+                negative = sign == '-';
+                position++;
+            }
+            long unscaledAmount = 0;
+            int significantDigits = 0;
+            int scale = 0;
+            boolean digitFound = false;
+            boolean pointFound = false;
+            for (; position < end; position++) {
+                byte b = buffer.get(position);
+                if (b >= '0' && b <= '9') {
+                    digitFound = true;
+                    if (significantDigits > 0 || b != '0') {
+                        significantDigits++;
+                    }
+                    unscaledAmount = unscaledAmount * 10 + (b - '0');
+                    if (pointFound) {
+                        scale++;
+                    }
+                } else if (b == '.' && !pointFound) {
+                    pointFound = true;
+                } else {
+                    digitFound = false;
+                    break;
+                }
+                if (significantDigits > MAX_COMPACT_AMOUNT_DIGITS) {
+                    digitFound = false;
+                    break;
+                }
+            }
+            if (!digitFound) {
+                compactAmount = false;
+                return new BigDecimal(decode(start, end));
+            }
+            compactAmount = true;
+            compactUnscaledAmount = negative ? -unscaledAmount : unscaledAmount;
+            compactAmountScale = scale;
+            return BigDecimal.valueOf(compactUnscaledAmount, scale);
+        }
+
+        private String decode(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            return new String(bytes, Charset.defaultCharset());
+        }
+    }
+
+    private static class RecordBlockParser extends BalanceParser {
+
+        private final ByteBuffer buffer;
+        private final int recordCount;
+
+        private RecordBlockParser(ByteBuffer buffer, int recordCount, BalanceConsumer balanceConsumer, ChunkResult chunkResult) {
+            super(balanceConsumer, chunkResult);
+            this.buffer = buffer;
+            this.recordCount = recordCount;
+        }
+
+        private void parse() {
+            try {
+                for (int i = 0; i < recordCount; i++) {
+                    Hash addressHash = new Hash(readField(buffer.get() & 0xFF));
+                    int currencyHashLength = buffer.get() & 0xFF;
+                    Hash currencyHash = currencyHashLength == NO_CURRENCY_HASH ? null : new Hash(readField(currencyHashLength));
+                    int scale = buffer.getInt();
+                    byte[] unscaledAmount = readField(buffer.get() & 0xFF);
+                    addBalance(addressHash, toAmount(unscaledAmount, scale), currencyHash);
+                }
+            } catch (java.nio.BufferUnderflowException e) {
+                throw new ClusterStampValidationException(BAD_BINARY_FILE_FORMAT);
+            }
+            if (buffer.hasRemaining()) {
+                throw new ClusterStampValidationException(BAD_BINARY_FILE_FORMAT);
+            }
+        }
+
+        private byte[] readField(int length) {
+            byte[] field = new byte[length];
+            buffer.get(field);
+            return field;
+        }
+
+        private BigDecimal toAmount(byte[] unscaledAmount, int scale) {
+            if (unscaledAmount.length == 0 || unscaledAmount.length > Long.BYTES) {
+                compactAmount = false;
+                return new BigDecimal(new BigInteger(unscaledAmount), scale);
+            }
+            long unscaled = unscaledAmount[0];
+            for (int i = 1; i < unscaledAmount.length; i++) {
+                unscaled = unscaled << 8 | (unscaledAmount[i] & 0xFF);
+            }
+            compactAmount = unscaled != Long.MIN_VALUE;
+            compactUnscaledAmount = unscaled;
+            compactAmountScale = scale;
+            return BigDecimal.valueOf(unscaled, scale);
+        }
+    }
+}
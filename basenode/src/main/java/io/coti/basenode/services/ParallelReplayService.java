@@ -0,0 +1,130 @@
+package io.coti.basenode.services;
+
+import io.coti.basenode.data.interfaces.IEntity;
+import io.coti.basenode.exceptions.DataBaseException;
+import io.coti.basenode.model.Collection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Replays a whole collection with several threads. The keyspace is split into ranges by the first two key bytes, which
+ * are uniformly distributed for hashes, and every range is scanned and decoded by its own thread through its own
+ * iterator. Each thread collects the entities into a batch of its own and hands full batches to the consumer, which must
+ * therefore be thread safe.
+ */
+@Slf4j
+@Service
+public class ParallelReplayService {
+
+    private static final int KEY_PREFIX_RANGE = 1 << 16;
+    private static final long PROGRESS_LOG_INTERVAL_IN_SECONDS = 5;
+    @Value("${db.replay.ranges:0}")
+    private int replayRanges;
+    @Value("${db.replay.batch.size:1000}")
+    private int replayBatchSize;
+    @Value("${db.replay.readahead.size:2097152}")
+    private long replayReadaheadSize;
+
+    public <T extends IEntity> long replay(Collection<T> collection, String entityName, Consumer<List<T>> batchConsumer) {
+        int ranges = getReplayRanges();
+        long estimatedEntities = collection.getEstimatedNumberOfEntities();
+        AtomicLong replayedEntities = new AtomicLong(0);
+        long startTime = System.nanoTime();
+        log.info("Replaying about {} {} with {} ranges", estimatedEntities, entityName, ranges);
+
+        AtomicInteger rangeThreadNumber = new AtomicInteger(0);
+        ExecutorService replayExecutorService = Executors.newFixedThreadPool(ranges, runnable -> new Thread(runnable, "Replay " + entityName + " " + rangeThreadNumber.getAndIncrement()));
+        Thread progressThread = new Thread(() -> logProgress(entityName, estimatedEntities, replayedEntities, startTime), "Replay " + entityName + " Monitor");
+        progressThread.start();
+        try {
+            List<Future<?>> rangeFutures = new ArrayList<>(ranges);
+            for (int range = 0; range < ranges; range++) {
+                byte[] lowerBound = getRangeBound(range, ranges);
+                byte[] upperBound = getRangeBound(range + 1, ranges);
+                rangeFutures.add(replayExecutorService.submit(() -> replayRange(collection, lowerBound, upperBound, batchConsumer, replayedEntities)));
+            }
+            for (Future<?> rangeFuture : rangeFutures) {
+                rangeFuture.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataBaseException(String.format("Replay of %s was interrupted", entityName), e);
+        } catch (ExecutionException e) {
+            throw new DataBaseException(String.format("Replay of %s failed", entityName), e.getCause());
+        } finally {
+            replayExecutorService.shutdownNow();
+            progressThread.interrupt();
+        }
+
+        long durationInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        log.info("Replayed {} {} in {} ms", replayedEntities.get(), entityName, durationInMillis);
+        return replayedEntities.get();
+    }
+
+    private <T extends IEntity> void replayRange(Collection<T> collection, byte[] lowerBound, byte[] upperBound, Consumer<List<T>> batchConsumer, AtomicLong replayedEntities) {
+        List<List<T>> batchHolder = new ArrayList<>(1);
+        batchHolder.add(new ArrayList<>(replayBatchSize));
+        collection.forEachInRange(lowerBound, upperBound, replayReadaheadSize, entity -> {
+            List<T> batch = batchHolder.get(0);
+            batch.add(entity);
+            if (batch.size() >= replayBatchSize) {
+                batchConsumer.accept(batch);
+                replayedEntities.addAndGet(batch.size());
+                batchHolder.set(0, new ArrayList<>(replayBatchSize));
+            }
+        });
+        List<T> lastBatch = batchHolder.get(0);
+        if (!lastBatch.isEmpty()) {
+            batchConsumer.accept(lastBatch);
+            replayedEntities.addAndGet(lastBatch.size());
+        }
+    }
+
+    /**
+     * Returns the two byte key prefix where the range starts, or null for the open ends of the keyspace.
+     */
+    static byte[] getRangeBound(int range, int ranges) {
+        if (range <= 0 || range >= ranges) {
+            return null;
+        }
+        int prefix = (int) ((long) range * KEY_PREFIX_RANGE / ranges);
+        return new byte[]{(byte) (prefix >>> 8), (byte) prefix};
+    }
+
+    private int getReplayRanges() {
+        int ranges = replayRanges > 0 ? replayRanges : Runtime.getRuntime().availableProcessors();
+        return Math.min(ranges, KEY_PREFIX_RANGE);
+    }
+
+    private void logProgress(String entityName, long estimatedEntities, AtomicLong replayedEntities, long startTime) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(PROGRESS_LOG_INTERVAL_IN_SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long replayed = replayedEntities.get();
+            double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+            long entitiesPerSecond = (long) (replayed / elapsedSeconds);
+            if (estimatedEntities > replayed && entitiesPerSecond > 0) {
+                log.info("Replayed {} of about {} {} ({}%), {} per second, ETA {} seconds", replayed, estimatedEntities, entityName,
+                        replayed * 100 / estimatedEntities, entitiesPerSecond, (estimatedEntities - replayed) / entitiesPerSecond);
+            } else {
+                log.info("Replayed {} {}, {} per second", replayed, entityName, entitiesPerSecond);
+            }
+        }
+    }
+}
@@ -1,22 +1,15 @@
 package io.coti.basenode.services;
 
-import io.coti.basenode.data.Hash;
-import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.data.SourcePool;
 import io.coti.basenode.services.interfaces.ISourceSelector;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.SerializationUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.Duration;
 import java.time.Instant;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
-import static java.util.stream.Collectors.toList;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Slf4j
 @Component
@@ -28,102 +21,139 @@ public class SourceSelector implements ISourceSelector {
     private int maxNeighbourhoodRadius;
 
     @Override
-    public List<TransactionData> selectSourcesForAttachment(
-            List<Set<Hash>> trustScoreToTransactionMapping,
-            Map<Hash, TransactionData> sourceMap, double transactionTrustScore, ReentrantReadWriteLock readWriteLock) {
+    public List<SourcePool.SourceHandle> selectSourcesForAttachment(SourcePool.Snapshot sourcePoolSnapshot, double transactionTrustScore) {
 
-        List<TransactionData> neighbourSources = getNeighbourSources(
-                trustScoreToTransactionMapping,
-                sourceMap,
-                transactionTrustScore, readWriteLock);
+        List<SourcePool.SourceBucket> neighbourBuckets = getNeighbourBuckets(sourcePoolSnapshot, transactionTrustScore);
 
-        return selectTwoOptimalSources(neighbourSources);
+        return selectTwoOptimalSources(neighbourBuckets);
     }
 
-    private List<TransactionData> getNeighbourSources(
-            List<Set<Hash>> trustScoreToSourceListMapping,
-            Map<Hash, TransactionData> sourceMap, double transactionTrustScore, ReentrantReadWriteLock readWriteLock) {
+    private List<SourcePool.SourceBucket> getNeighbourBuckets(SourcePool.Snapshot sourcePoolSnapshot, double transactionTrustScore) {
 
-        List<TransactionData> neighbourSources = new LinkedList<>();
-        try {
-            readWriteLock.readLock().lock();
+        List<SourcePool.SourceBucket> neighbourBuckets = new ArrayList<>();
+        int numberOfSources = sourcePoolSnapshot.size();
+        if (numberOfSources > 0) {
             int roundedTrustScore = (int) Math.round(transactionTrustScore);
-            int numberOfSources = getNumberOfSources(trustScoreToSourceListMapping);
-            if (numberOfSources > 0) {
-                int lowIndex = roundedTrustScore - 1;
-                int highIndex = roundedTrustScore + 1;
-
-                neighbourSources.addAll(trustScoreToSourceListMapping.get(roundedTrustScore).stream().map(hash -> SerializationUtils.clone(sourceMap.get(hash))).collect(toList()));
-
-                for (int trustScoreDifference = 0; trustScoreDifference < maxNeighbourhoodRadius; trustScoreDifference++) {
-                    if (lowIndex >= 0) {
-                        neighbourSources.addAll(trustScoreToSourceListMapping.get(lowIndex).stream().map(hash -> SerializationUtils.clone(sourceMap.get(hash))).collect(toList()));
-                    }
-                    if (highIndex <= 100) {
-                        neighbourSources.addAll(trustScoreToSourceListMapping.get(highIndex).stream().map(hash -> SerializationUtils.clone(sourceMap.get(hash))).collect(toList()));
-                    }
-                    if ((double) neighbourSources.size() / numberOfSources > (double) minSourcePercentage / 100) {
-                        break;
-                    }
-                    lowIndex--;
-                    highIndex++;
+            int lowIndex = roundedTrustScore - 1;
+            int highIndex = roundedTrustScore + 1;
+
+            int numberOfNeighbourSources = addNeighbourBucket(sourcePoolSnapshot, roundedTrustScore, neighbourBuckets);
+
+            for (int trustScoreDifference = 0; trustScoreDifference < maxNeighbourhoodRadius; trustScoreDifference++) {
+                numberOfNeighbourSources += addNeighbourBucket(sourcePoolSnapshot, lowIndex, neighbourBuckets);
+                numberOfNeighbourSources += addNeighbourBucket(sourcePoolSnapshot, highIndex, neighbourBuckets);
+                if ((double) numberOfNeighbourSources / numberOfSources > (double) minSourcePercentage / 100) {
+                    break;
                 }
+                lowIndex--;
+                highIndex++;
             }
-            return neighbourSources;
-        } finally {
-            readWriteLock.readLock().unlock();
         }
+        return neighbourBuckets;
     }
 
-    private int getNumberOfSources(List<Set<Hash>> trustScoreToSourceListMapping) {
-        int numberOfSources = 0;
-        for (Set<Hash> hashes : trustScoreToSourceListMapping) {
-            if (hashes != null) {
-                numberOfSources += hashes.size();
-            }
+    private int addNeighbourBucket(SourcePool.Snapshot sourcePoolSnapshot, int trustScoreBucket, List<SourcePool.SourceBucket> neighbourBuckets) {
+        if (trustScoreBucket < 0 || trustScoreBucket > SourcePool.MAX_TRUST_SCORE_BUCKET) {
+            return 0;
+        }
+        SourcePool.SourceBucket sourceBucket = sourcePoolSnapshot.getBucket(trustScoreBucket);
+        if (sourceBucket.size() > 0) {
+            neighbourBuckets.add(sourceBucket);
         }
-        return numberOfSources;
+        return sourceBucket.size();
     }
 
-    private List<TransactionData> selectTwoOptimalSources(List<TransactionData> transactions) {
-
-        Instant now = Instant.now();
-        List<TransactionData> olderSources =
-                transactions.stream().
-                        filter(s -> !s.getAttachmentTime().isAfter(now)).collect(toList());
-
-        if (olderSources.size() <= 2) {
-            return olderSources;
+    private List<SourcePool.SourceHandle> selectTwoOptimalSources(List<SourcePool.SourceBucket> neighbourBuckets) {
+
+        long nowMillis = Instant.now().toEpochMilli();
+        int[] olderSourceCounts = new int[neighbourBuckets.size()];
+        long[] olderSourceAges = new long[neighbourBuckets.size()];
+        int numberOfOlderSources = 0;
+        long totalAge = 0;
+        for (int i = 0; i < neighbourBuckets.size(); i++) {
+            olderSourceCounts[i] = neighbourBuckets.get(i).countAttachedUntil(nowMillis);
+            olderSourceAges[i] = neighbourBuckets.get(i).getTotalAge(olderSourceCounts[i], nowMillis);
+            numberOfOlderSources += olderSourceCounts[i];
+            totalAge += olderSourceAges[i];
         }
 
-        // Calculate total timestamp differences from the transaction's timestamp
-        long totalWeight =
-                olderSources.stream().
-                        map(s -> Duration.between(s.getAttachmentTime(), now).toMillis()).mapToLong(Long::longValue).sum();
-
-        // Now choose sources, randomly weighted by timestamp difference ("older" transactions have a bigger chance to be selected)
-        List<TransactionData> randomWeightedSources = new LinkedList<>();
-        while (randomWeightedSources.size() < 2) {
-
-            int randomIndex = -1;
-            double random = Math.random() * totalWeight;
-            for (int i = 0; i < olderSources.size(); ++i) {
-                random -= Duration.between(olderSources.get(i).getAttachmentTime(), now).toMillis();
-                if (random < 0.0d) {
-                    randomIndex = i;
-                    break;
+        List<SourcePool.SourceHandle> randomWeightedSources = new ArrayList<>(2);
+        if (numberOfOlderSources <= 2) {
+            for (int i = 0; i < neighbourBuckets.size(); i++) {
+                for (int j = 0; j < olderSourceCounts[i]; j++) {
+                    randomWeightedSources.add(neighbourBuckets.get(i).get(j));
                 }
             }
+            return randomWeightedSources;
+        }
 
-            TransactionData randomSource = olderSources.get(randomIndex);
-
-            if (randomWeightedSources.isEmpty() || (randomWeightedSources.size() == 1 && !randomSource.equals(randomWeightedSources.iterator().next()))) {
-                randomWeightedSources.add(randomSource);
+        // Choose sources randomly weighted by their age ("older" transactions have a bigger chance to be selected)
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] firstSourceIndex = totalAge > 0 ? findByAge(neighbourBuckets, olderSourceCounts, olderSourceAges, random.nextLong(totalAge), nowMillis)
+                : findByPosition(olderSourceCounts, random.nextInt(numberOfOlderSources));
+        SourcePool.SourceHandle firstSource = neighbourBuckets.get(firstSourceIndex[0]).get(firstSourceIndex[1]);
+        long firstSourceAge = nowMillis - firstSource.getAttachmentMillis();
+
+        // The second source is drawn from the remaining sources by skipping over the weight of the first one
+        int[] secondSourceIndex;
+        long remainingAge = totalAge - firstSourceAge;
+        if (remainingAge > 0) {
+            long ageOffset = random.nextLong(remainingAge);
+            if (ageOffset >= getAgeBefore(neighbourBuckets, olderSourceAges, firstSourceIndex, nowMillis)) {
+                ageOffset += firstSourceAge;
+            }
+            secondSourceIndex = findByAge(neighbourBuckets, olderSourceCounts, olderSourceAges, ageOffset, nowMillis);
+        } else {
+            int position = random.nextInt(numberOfOlderSources - 1);
+            if (position >= getPosition(olderSourceCounts, firstSourceIndex)) {
+                position++;
             }
+            secondSourceIndex = findByPosition(olderSourceCounts, position);
         }
 
+        randomWeightedSources.add(firstSource);
+        randomWeightedSources.add(neighbourBuckets.get(secondSourceIndex[0]).get(secondSourceIndex[1]));
         return randomWeightedSources;
+    }
 
+    private int[] findByAge(List<SourcePool.SourceBucket> neighbourBuckets, int[] olderSourceCounts, long[] olderSourceAges, long ageOffset, long nowMillis) {
+        int lastBucketIndex = 0;
+        for (int i = 0; i < neighbourBuckets.size(); i++) {
+            if (ageOffset < olderSourceAges[i]) {
+                return new int[]{i, neighbourBuckets.get(i).findByTotalAge(ageOffset, olderSourceCounts[i], nowMillis)};
+            }
+            ageOffset -= olderSourceAges[i];
+            if (olderSourceCounts[i] > 0) {
+                lastBucketIndex = i;
+            }
+        }
+        return new int[]{lastBucketIndex, olderSourceCounts[lastBucketIndex] - 1};
+    }
+
+    private int[] findByPosition(int[] olderSourceCounts, int position) {
+        for (int i = 0; i < olderSourceCounts.length; i++) {
+            if (position < olderSourceCounts[i]) {
+                return new int[]{i, position};
+            }
+            position -= olderSourceCounts[i];
+        }
+        throw new IllegalArgumentException("Source position is out of range");
+    }
+
+    private long getAgeBefore(List<SourcePool.SourceBucket> neighbourBuckets, long[] olderSourceAges, int[] sourceIndex, long nowMillis) {
+        long ageBefore = 0;
+        for (int i = 0; i < sourceIndex[0]; i++) {
+            ageBefore += olderSourceAges[i];
+        }
+        return ageBefore + neighbourBuckets.get(sourceIndex[0]).getTotalAge(sourceIndex[1], nowMillis);
+    }
+
+    private int getPosition(int[] olderSourceCounts, int[] sourceIndex) {
+        int position = sourceIndex[1];
+        for (int i = 0; i < sourceIndex[0]; i++) {
+            position += olderSourceCounts[i];
+        }
+        return position;
     }
 
 }
@@ -0,0 +1,168 @@
+package io.coti.basenode.services;
+
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.TransactionIndexData;
+import io.coti.basenode.exceptions.TransactionException;
+import io.coti.basenode.model.TransactionIndexes;
+import io.coti.basenode.model.Transactions;
+import io.coti.basenode.services.interfaces.ITransactionBatchWriter;
+import io.coti.basenode.services.interfaces.ITransactionHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves transaction batches straight from the transaction index column family. The index keys sort in index order, so
+ * one bounded iterator walks the requested range, and the transactions of every chunk are read with a single multi get
+ * and handed to the writer as they are stored. The number of concurrent batches is limited, and their progress is
+ * logged by one scheduled task instead of a monitor thread per request.
+ */
+@Slf4j
+@Service
+public class TransactionBatchService {
+
+    public static final long LAST_INDEX = -1;
+    @Value("${transaction.batch.chunk.size:1000}")
+    private int chunkSize;
+    @Value("${transaction.batch.readahead.size:2097152}")
+    private long readaheadSize;
+    @Value("${transaction.batch.max.concurrent.requests:16}")
+    private int maxConcurrentRequests;
+    @Value("${transaction.batch.request.wait.seconds:30}")
+    private long requestWaitSeconds;
+    @Autowired
+    private TransactionIndexes transactionIndexes;
+    @Autowired
+    private Transactions transactions;
+    @Autowired
+    private TransactionIndexService transactionIndexService;
+    @Autowired
+    private ITransactionHelper transactionHelper;
+    private Semaphore batchRequestPermits;
+    private final Map<Long, AtomicLong> activeBatchRequestToSentTransactions = new ConcurrentHashMap<>();
+    private final AtomicLong batchRequestNumber = new AtomicLong(0);
+
+    @PostConstruct
+    private void init() {
+        batchRequestPermits = new Semaphore(maxConcurrentRequests, true);
+    }
+
+    /**
+     * Writes the transactions from the starting index up to the ending index, or up to the latest index when the ending
+     * index is {@link #LAST_INDEX}, followed by the none indexed transactions when requested.
+     *
+     * @return the number of transactions written
+     */
+    public long sendTransactions(long startingIndex, long endingIndex, boolean includeNoneIndexed, ITransactionBatchWriter transactionBatchWriter) throws IOException {
+        acquireBatchRequestPermit();
+        long requestNumber = batchRequestNumber.incrementAndGet();
+        AtomicLong sentTransactions = new AtomicLong(0);
+        activeBatchRequestToSentTransactions.put(requestNumber, sentTransactions);
+        try {
+            long nextIndex = startingIndex;
+            long lastIndex = endingIndex == LAST_INDEX ? transactionIndexService.getLastTransactionIndexData().getIndex() : endingIndex;
+            while (nextIndex <= lastIndex) {
+                nextIndex = sendIndexedTransactions(nextIndex, lastIndex, transactionBatchWriter, sentTransactions);
+                if (endingIndex == LAST_INDEX) {
+                    lastIndex = transactionIndexService.getLastTransactionIndexData().getIndex();
+                }
+            }
+            if (includeNoneIndexed) {
+                transactionBatchWriter.startOfNoneIndexedTransactions();
+                sendNoneIndexedTransactions(transactionBatchWriter, sentTransactions);
+            }
+            return sentTransactions.get();
+        } finally {
+            activeBatchRequestToSentTransactions.remove(requestNumber);
+            batchRequestPermits.release();
+        }
+    }
+
+    private long sendIndexedTransactions(long startingIndex, long endingIndex, ITransactionBatchWriter transactionBatchWriter, AtomicLong sentTransactions) throws IOException {
+        List<Hash> transactionHashes = new ArrayList<>(chunkSize);
+        long[] nextIndex = {startingIndex};
+        try {
+            transactionIndexes.forEachInRange(new Hash(startingIndex).getBytes(), new Hash(endingIndex + 1).getBytes(), readaheadSize, (key, value) -> {
+                TransactionIndexData transactionIndexData = transactionIndexes.getDeserializedValue(new Hash(key), value);
+                if (transactionIndexData == null || transactionIndexData.getIndex() != nextIndex[0]) {
+                    throw new TransactionException(String.format("Transaction index %d is missing", nextIndex[0]));
+                }
+                nextIndex[0]++;
+                transactionHashes.add(transactionIndexData.getTransactionHash());
+                if (transactionHashes.size() >= chunkSize) {
+                    try {
+                        sendChunk(transactionHashes, true, transactionBatchWriter, sentTransactions);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            sendChunk(transactionHashes, true, transactionBatchWriter, sentTransactions);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (nextIndex[0] <= endingIndex) {
+            throw new TransactionException(String.format("Transaction index %d is missing", nextIndex[0]));
+        }
+        return nextIndex[0];
+    }
+
+    private void sendNoneIndexedTransactions(ITransactionBatchWriter transactionBatchWriter, AtomicLong sentTransactions) throws IOException {
+        List<Hash> transactionHashes = new ArrayList<>(chunkSize);
+        for (Hash transactionHash : transactionHelper.getNoneIndexedTransactionHashes()) {
+            transactionHashes.add(transactionHash);
+            if (transactionHashes.size() >= chunkSize) {
+                sendChunk(transactionHashes, false, transactionBatchWriter, sentTransactions);
+            }
+        }
+        sendChunk(transactionHashes, false, transactionBatchWriter, sentTransactions);
+    }
+
+    private void sendChunk(List<Hash> transactionHashes, boolean indexed, ITransactionBatchWriter transactionBatchWriter, AtomicLong sentTransactions) throws IOException {
+        if (transactionHashes.isEmpty()) {
+            return;
+        }
+        List<byte[]> serializedTransactions = transactions.multiGetSerializedByHashes(transactionHashes);
+        for (int i = 0; i < transactionHashes.size(); i++) {
+            byte[] serializedTransaction = serializedTransactions.get(i);
+            if (serializedTransaction != null) {
+                transactionBatchWriter.writeTransaction(transactionHashes.get(i), serializedTransaction);
+                sentTransactions.incrementAndGet();
+            } else if (indexed) {
+                throw new TransactionException(String.format("Indexed transaction %s is missing", transactionHashes.get(i)));
+            }
+        }
+        transactionBatchWriter.endOfChunk();
+        transactionHashes.clear();
+    }
+
+    private void acquireBatchRequestPermit() {
+        try {
+            if (!batchRequestPermits.tryAcquire(requestWaitSeconds, TimeUnit.SECONDS)) {
+                throw new TransactionException(String.format("Too many concurrent transaction batch requests: %d", maxConcurrentRequests));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionException("Interrupted while waiting for a transaction batch permit");
+        }
+    }
+
+    @Scheduled(initialDelay = 5000, fixedDelay = 5000)
+    private void logActiveBatchRequests() {
+        activeBatchRequestToSentTransactions.forEach((requestNumber, sentTransactions) ->
+                log.info("Transaction batch request {}: {} transactions sent", requestNumber, sentTransactions.get()));
+    }
+}
@@ -16,6 +16,7 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -38,6 +39,10 @@ public class TrustChainConfirmationService {
     private ITransactionHelper transactionHelper;
     @Autowired
     private IEventService eventService;
+    private final Map<Hash, TrustChainNode> trustChainNodes = new HashMap<>();
+    private final List<TransactionData> pendingAttachedTransactions = new ArrayList<>();
+    private boolean incrementalConfirmationStarted = false;
+    private List<TrustChainNode> deferredRemovalCandidates;
 
     public void init(ConcurrentMap<Hash, TransactionData> trustChainConfirmationCluster) {
         this.trustChainConfirmationCluster = new ConcurrentHashMap<>(trustChainConfirmationCluster);
@@ -121,4 +126,232 @@ public class TrustChainConfirmationService {
         return actualWaitingTimeInMilliseconds > minimumWaitingTimeInMilliseconds;
     }
 
+    public synchronized List<TccInfo> startIncrementalConfirmation(ConcurrentMap<Hash, TransactionData> trustChainConfirmationCluster) {
+        trustChainNodes.clear();
+        init(trustChainConfirmationCluster);
+        List<TccInfo> trustChainConfirmations = getTrustChainConfirmedTransactions();
+        Set<Hash> confirmedTransactionHashes = trustChainConfirmations.stream().map(TccInfo::getHash).collect(Collectors.toSet());
+        List<TccInfo> incrementalConfirmations = new ArrayList<>();
+        addTransactionsInTopologicalOrder(topologicalOrderedGraph, confirmedTransactionHashes, incrementalConfirmations);
+        pendingAttachedTransactions.forEach(transactionData -> {
+            if (!trustChainNodes.containsKey(transactionData.getHash())) {
+                addTransaction(transactionData, transactionData.isTrustChainConsensus(), incrementalConfirmations);
+            }
+        });
+        pendingAttachedTransactions.clear();
+        topologicalOrderedGraph = new LinkedList<>();
+        this.trustChainConfirmationCluster = null;
+        incrementalConfirmationStarted = true;
+        trustChainConfirmations.addAll(getOrderedConfirmations(incrementalConfirmations));
+        log.info("Incremental trust chain confirmation started with {} tracked transactions", trustChainNodes.size());
+        return trustChainConfirmations;
+    }
+
+    public synchronized List<TccInfo> attachTransaction(TransactionData transactionData) {
+        if (!incrementalConfirmationStarted) {
+            pendingAttachedTransactions.add(transactionData);
+            return Collections.emptyList();
+        }
+        List<TccInfo> trustChainConfirmations = new ArrayList<>();
+        TrustChainNode trustChainNode = trustChainNodes.get(transactionData.getHash());
+        if (trustChainNode == null) {
+            addTransaction(transactionData, transactionData.isTrustChainConsensus(), trustChainConfirmations);
+        } else {
+            refreshTransaction(trustChainNode, transactionData, trustChainConfirmations);
+        }
+        return getOrderedConfirmations(trustChainConfirmations);
+    }
+
+    public synchronized List<TccInfo> updateTransaction(TransactionData transactionData) {
+        if (!incrementalConfirmationStarted) {
+            return Collections.emptyList();
+        }
+        List<TccInfo> trustChainConfirmations = new ArrayList<>();
+        TrustChainNode trustChainNode = trustChainNodes.get(transactionData.getHash());
+        if (trustChainNode != null) {
+            refreshTransaction(trustChainNode, transactionData, trustChainConfirmations);
+        } else if (!transactionData.isTrustChainConsensus()) {
+            ConcurrentMap<Hash, TransactionData> subCluster = new ConcurrentHashMap<>();
+            subCluster.put(transactionData.getHash(), transactionData);
+            LinkedList<TransactionData> subGraph = new LinkedList<>();
+            clusterHelper.sortByTopologicalOrder(subCluster, subGraph);
+            addTransactionsInTopologicalOrder(subGraph, Collections.emptySet(), trustChainConfirmations);
+        }
+        return getOrderedConfirmations(trustChainConfirmations);
+    }
+
+    public synchronized double getTrustChainTrustScore(Hash transactionHash) {
+        TrustChainNode trustChainNode = trustChainNodes.get(transactionHash);
+        return trustChainNode != null ? trustChainNode.trustChainTrustScore : 0;
+    }
+
+    public synchronized void monitorTrustChainConfirmation() {
+        tccWaitingConfirmation = 0;
+        trustScoreNotChanged = false;
+        trustChainNodes.values().forEach(trustChainNode -> {
+            if (!trustChainNode.confirmed && isEligible(trustChainNode)) {
+                monitorTotalTrustScore(trustChainNode.transactionData);
+            }
+        });
+        updateMonitorState();
+    }
+
+    private void addTransactionsInTopologicalOrder(List<TransactionData> childrenFirstTransactions, Set<Hash> confirmedTransactionHashes, List<TccInfo> trustChainConfirmations) {
+        // children are added before their parents, so confirmed children are kept until all their parents are linked
+        deferredRemovalCandidates = new ArrayList<>();
+        childrenFirstTransactions.forEach(transactionData -> {
+            if (!trustChainNodes.containsKey(transactionData.getHash())) {
+                addTransaction(transactionData, transactionData.isTrustChainConsensus() || confirmedTransactionHashes.contains(transactionData.getHash()), trustChainConfirmations);
+            }
+        });
+        List<TrustChainNode> removalCandidates = deferredRemovalCandidates;
+        deferredRemovalCandidates = null;
+        removalCandidates.forEach(this::removeIfNotNeeded);
+    }
+
+    private void addTransaction(TransactionData transactionData, boolean confirmed, List<TccInfo> trustChainConfirmations) {
+        TrustChainNode trustChainNode = new TrustChainNode(transactionData, confirmed);
+        trustChainNodes.put(transactionData.getHash(), trustChainNode);
+        transactionData.getChildrenTransactionHashes().forEach(childHash -> {
+            TrustChainNode childNode = trustChainNodes.get(childHash);
+            if (childNode != null) {
+                link(trustChainNode, childNode);
+            }
+        });
+        getParentNodes(trustChainNode).forEach(parentNode -> link(parentNode, trustChainNode));
+        updateTrustChainTrustScore(trustChainNode);
+        checkTrustChainConfirmation(trustChainNode, trustChainConfirmations);
+        propagateTrustChainTrustScore(trustChainNode, trustChainConfirmations);
+        removeIfNotNeeded(trustChainNode);
+    }
+
+    private void refreshTransaction(TrustChainNode trustChainNode, TransactionData transactionData, List<TccInfo> trustChainConfirmations) {
+        trustChainNode.transactionData = transactionData;
+        if (transactionData.getTrustChainTrustScore() < trustChainNode.trustChainTrustScore) {
+            transactionData.setTrustChainTrustScore(trustChainNode.trustChainTrustScore);
+        }
+        if (updateTrustChainTrustScore(trustChainNode)) {
+            propagateTrustChainTrustScore(trustChainNode, trustChainConfirmations);
+        }
+        checkTrustChainConfirmation(trustChainNode, trustChainConfirmations);
+    }
+
+    private void link(TrustChainNode parentNode, TrustChainNode childNode) {
+        Hash childHash = childNode.transactionData.getHash();
+        if (parentNode == childNode || parentNode.childHashes.contains(childHash)) {
+            return;
+        }
+        parentNode.childHashes.add(childHash);
+        childNode.trackedParents++;
+        if (childNode.trustChainTrustScore > parentNode.maxChildTrustChainTrustScore) {
+            parentNode.maxChildTrustChainTrustScore = childNode.trustChainTrustScore;
+        }
+    }
+
+    private List<TrustChainNode> getParentNodes(TrustChainNode trustChainNode) {
+        List<TrustChainNode> parentNodes = new ArrayList<>(2);
+        Hash leftParentHash = trustChainNode.transactionData.getLeftParentHash();
+        Hash rightParentHash = trustChainNode.transactionData.getRightParentHash();
+        Optional.ofNullable(leftParentHash).map(trustChainNodes::get).ifPresent(parentNodes::add);
+        if (rightParentHash != null && !rightParentHash.equals(leftParentHash)) {
+            Optional.ofNullable(trustChainNodes.get(rightParentHash)).ifPresent(parentNodes::add);
+        }
+        return parentNodes;
+    }
+
+    private void propagateTrustChainTrustScore(TrustChainNode trustChainNode, List<TccInfo> trustChainConfirmations) {
+        Deque<TrustChainNode> changedNodes = new ArrayDeque<>();
+        changedNodes.push(trustChainNode);
+        while (!changedNodes.isEmpty()) {
+            TrustChainNode changedNode = changedNodes.pop();
+            for (TrustChainNode parentNode : getParentNodes(changedNode)) {
+                if (changedNode.trustChainTrustScore > parentNode.maxChildTrustChainTrustScore) {
+                    parentNode.maxChildTrustChainTrustScore = changedNode.trustChainTrustScore;
+                    if (updateTrustChainTrustScore(parentNode)) {
+                        checkTrustChainConfirmation(parentNode, trustChainConfirmations);
+                        changedNodes.push(parentNode);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean updateTrustChainTrustScore(TrustChainNode trustChainNode) {
+        double senderTrustScore = isEligible(trustChainNode) ? trustChainNode.transactionData.getSenderTrustScore() : 0;
+        double trustChainTrustScore = senderTrustScore + trustChainNode.maxChildTrustChainTrustScore;
+        if (trustChainNode.trustChainTrustScore < trustChainTrustScore) {
+            trustChainNode.trustChainTrustScore = trustChainTrustScore;
+            trustChainNode.transactionData.setTrustChainTrustScore(trustChainTrustScore);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isEligible(TrustChainNode trustChainNode) {
+        if (!eventService.eventHappened(Event.TRUST_SCORE_CONSENSUS) || trustChainNode.dspConfirmed) {
+            return true;
+        }
+        trustChainNode.dspConfirmed = transactionHelper.isDspConfirmed(trustChainNode.transactionData);
+        return trustChainNode.dspConfirmed;
+    }
+
+    private void checkTrustChainConfirmation(TrustChainNode trustChainNode, List<TccInfo> trustChainConfirmations) {
+        if (trustChainNode.confirmed || trustChainNode.trustChainTrustScore < threshold || !isEligible(trustChainNode)) {
+            return;
+        }
+        TransactionData transactionData = trustChainNode.transactionData;
+        trustChainNode.confirmed = true;
+        nonZeroSpendTransactionTSValuesMap.remove(transactionData.getHash());
+        Instant trustScoreConsensusTime = Optional.ofNullable(transactionData.getTrustChainConsensusTime()).orElse(Instant.now());
+        trustChainConfirmations.add(new TccInfo(transactionData.getHash(), trustChainNode.trustChainTrustScore, trustScoreConsensusTime));
+        log.debug("transaction with hash:{} is confirmed with trustScore: {} and totalTrustScore:{} ", transactionData.getHash(), transactionData.getSenderTrustScore(), trustChainNode.trustChainTrustScore);
+        removeIfNotNeeded(trustChainNode);
+    }
+
+    private void removeIfNotNeeded(TrustChainNode trustChainNode) {
+        if (deferredRemovalCandidates != null) {
+            deferredRemovalCandidates.add(trustChainNode);
+            return;
+        }
+        Deque<TrustChainNode> removalCandidates = new ArrayDeque<>();
+        removalCandidates.push(trustChainNode);
+        while (!removalCandidates.isEmpty()) {
+            TrustChainNode removalCandidate = removalCandidates.pop();
+            Hash transactionHash = removalCandidate.transactionData.getHash();
+            if (!removalCandidate.confirmed || removalCandidate.trackedParents > 0 || trustChainNodes.get(transactionHash) != removalCandidate) {
+                continue;
+            }
+            trustChainNodes.remove(transactionHash);
+            removalCandidate.childHashes.forEach(childHash -> {
+                TrustChainNode childNode = trustChainNodes.get(childHash);
+                if (childNode != null) {
+                    childNode.trackedParents--;
+                    removalCandidates.push(childNode);
+                }
+            });
+        }
+    }
+
+    private List<TccInfo> getOrderedConfirmations(List<TccInfo> trustChainConfirmations) {
+        Collections.reverse(trustChainConfirmations);
+        return trustChainConfirmations;
+    }
+
+    private static class TrustChainNode {
+
+        private TransactionData transactionData;
+        private double trustChainTrustScore;
+        private double maxChildTrustChainTrustScore;
+        private boolean confirmed;
+        private boolean dspConfirmed;
+        private int trackedParents;
+        private final List<Hash> childHashes = new ArrayList<>();
+
+        private TrustChainNode(TransactionData transactionData, boolean confirmed) {
+            this.transactionData = transactionData;
+            this.trustChainTrustScore = transactionData.getTrustChainTrustScore();
+            this.confirmed = confirmed;
+        }
+    }
+
 }
@@ -2,6 +2,7 @@ package io.coti.basenode.services.interfaces;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 public interface IAwsService {
@@ -12,6 +13,10 @@ public interface IAwsService {
 
     void uploadFolderAndContentsToS3(String bucketName, String s3folderPath, File directoryToUpload);
 
+    void uploadStreamToS3(String bucketName, String s3FilePath, InputStream inputStream, long contentLength);
+
+    InputStream getS3ObjectContent(String bucketName, String s3FilePath);
+
     void downloadFolderAndContents(String bucketName, String s3folderPath, String directoryToDownload);
 
     List<String> listS3Paths(String bucketName, String path);
@@ -14,5 +14,9 @@ public interface IChunkService {
 
     void sendChunk(String string, PrintWriter output);
 
+    void writeChunk(String string, PrintWriter output);
+
+    void flushChunk(PrintWriter output);
+
     ResponseExtractor<Void> getResponseExtractor(Consumer<IPropagatable> consumer, int maxBufferSize);
 }
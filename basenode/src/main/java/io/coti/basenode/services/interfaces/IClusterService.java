@@ -29,6 +29,8 @@ public interface IClusterService {
 
     ConcurrentHashMap<Hash, TransactionData> getCopyTrustChainConfirmationCluster();
 
+    List<TransactionData> getTrustChainConfirmationClusterTransactions();
+
     ArrayList<HashSet<Hash>> getSourceSetsByTrustScore();
 
     void checkForTrustChainConfirmedTransaction();
@@ -1,16 +1,10 @@
 package io.coti.basenode.services.interfaces;
 
-import io.coti.basenode.data.Hash;
-import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.data.SourcePool;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public interface ISourceSelector {
 
-    List<TransactionData> selectSourcesForAttachment(
-            List<Set<Hash>> trustScoreToTransactionMapping,
-            Map<Hash, TransactionData> sourceMap, double transactionTrustScore, ReentrantReadWriteLock readWriteLock);
+    List<SourcePool.SourceHandle> selectSourcesForAttachment(SourcePool.Snapshot sourcePoolSnapshot, double transactionTrustScore);
 }
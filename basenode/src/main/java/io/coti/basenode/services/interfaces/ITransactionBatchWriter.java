@@ -0,0 +1,15 @@
+package io.coti.basenode.services.interfaces;
+
+import io.coti.basenode.data.Hash;
+
+import java.io.IOException;
+
+public interface ITransactionBatchWriter {
+
+    void writeTransaction(Hash transactionHash, byte[] serializedTransaction) throws IOException;
+
+    void endOfChunk() throws IOException;
+
+    default void startOfNoneIndexedTransactions() throws IOException {
+    }
+}
@@ -19,7 +19,7 @@ public interface ITransactionHelper {
 
     void updateAddressTransactionHistory(TransactionData transactionData);
 
-    void updateAddressTransactionHistory(Map<Hash, AddressTransactionsHistory> addressToTransactionsHistoryMap, TransactionData transactionData);
+    void updateAddressTransactionHistory(Map<Hash, AddressTransactionIndexData> addressTransactionIndexMap, TransactionData transactionData);
 
     boolean validateTransactionCrypto(TransactionData transactionData);
 
@@ -77,6 +77,8 @@ public interface ITransactionHelper {
 
     long incrementTotalTransactions();
 
+    long addTotalTransactions(long transactionCount);
+
     void addNoneIndexedTransaction(TransactionData transactionData);
 
     void removeNoneIndexedTransaction(TransactionData transactionData);
@@ -3,6 +3,7 @@ package io.coti.basenode.services.interfaces;
 import io.coti.basenode.data.ExecutorData;
 import io.coti.basenode.data.Hash;
 import io.coti.basenode.data.InitializationTransactionHandlerType;
+import io.coti.basenode.data.LatencyHistogramData;
 import io.coti.basenode.data.TransactionData;
 import io.coti.basenode.http.interfaces.IResponse;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +11,7 @@ import reactor.core.publisher.FluxSink;
 
 import javax.servlet.http.HttpServletResponse;
 import java.util.EnumMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -23,6 +25,8 @@ public interface ITransactionService {
 
     void getTransactionBatch(long startingIndex, FluxSink<byte[]> sink);
 
+    void getFramedTransactionBatch(long startingIndex, HttpServletResponse response);
+
     ResponseEntity<IResponse> getNoneIndexedTransactions();
 
     void getNoneIndexedTransactionBatch(HttpServletResponse response, boolean isExtended);
@@ -37,5 +41,11 @@ public interface ITransactionService {
 
     int totalPostponedTransactions();
 
+    long getPostponedTransactionsOldestAge();
+
+    long getReleasedPostponedTransactions();
+
+    Map<String, LatencyHistogramData> getAndResetLatencyHistograms();
+
     void addDataToMemory(TransactionData transactionData);
 }
@@ -0,0 +1,51 @@
+package io.coti.basenode.utilities;
+
+import io.coti.basenode.data.LatencyHistogramData;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram with power of two buckets. Bucket {@code i > 0} counts the values in {@code [2^(i-1), 2^i)}, so a
+ * percentile is reported as the upper bound of its bucket, which is at most twice the exact value.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = Long.SIZE + 1;
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void record(long value) {
+        long nonNegativeValue = Math.max(0, value);
+        bucketCounts.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nonNegativeValue));
+        maxValue.accumulateAndGet(nonNegativeValue, Math::max);
+    }
+
+    public LatencyHistogramData getAndReset() {
+        long[] counts = new long[BUCKETS];
+        long totalCount = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = bucketCounts.getAndSet(i, 0);
+            totalCount += counts[i];
+        }
+        long max = maxValue.getAndSet(0);
+        return new LatencyHistogramData(totalCount, getPercentile(counts, totalCount, 0.5, max),
+                getPercentile(counts, totalCount, 0.99, max), max);
+    }
+
+    private long getPercentile(long[] counts, long totalCount, double percentile, long max) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(totalCount * percentile);
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulativeCount += counts[i];
+            if (cumulativeCount >= rank) {
+                long bucketUpperBound = i == 0 ? 0 : (i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1);
+                return Math.min(bucketUpperBound, max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,117 @@
+package io.coti.basenode.utilities;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free ring buffer for many producer threads and a single consumer thread. Producers claim a slot with one
+ * compare-and-set on the tail and publish the element through the slot sequence, so they never block each other on a
+ * lock. The consumer owns the head and parks while the ring is empty.
+ */
+public class MpscRing<E> {
+
+    private static final long CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile Thread waitingConsumer;
+
+    public MpscRing(int minimumCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, minimumCapacity - 1)) << 1;
+        elements = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds the element, or returns false if the ring is full.
+     */
+    public boolean offer(E element) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long sequenceDifference = sequences.get(index) - position;
+            if (sequenceDifference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (sequenceDifference < 0) {
+                return false;
+            }
+        }
+        elements.lazySet(index, element);
+        sequences.set(index, position + 1);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the element, yielding while the ring is full.
+     */
+    public void put(E element) throws InterruptedException {
+        while (!offer(element)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Removes the oldest element, or returns null if the ring is empty. Must only be called by the consumer thread.
+     */
+    public E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Removes the oldest element, parking while the ring is empty. Must only be called by the consumer thread.
+     */
+    public E take() throws InterruptedException {
+        E element = poll();
+        while (element == null) {
+            waitingConsumer = Thread.currentThread();
+            element = poll();
+            if (element == null) {
+                LockSupport.parkNanos(this, CONSUMER_PARK_NANOS);
+                if (Thread.interrupted()) {
+                    waitingConsumer = null;
+                    throw new InterruptedException();
+                }
+                element = poll();
+            }
+            waitingConsumer = null;
+        }
+        return element;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
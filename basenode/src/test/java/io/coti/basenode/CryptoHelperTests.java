@@ -3,8 +3,10 @@ package io.coti.basenode;
 import io.coti.basenode.crypto.CryptoHelper;
 import io.coti.basenode.data.Hash;
 import io.coti.basenode.data.SignatureData;
+import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.jce.interfaces.ECPublicKey;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -17,13 +19,19 @@ import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Arrays;
+import java.util.Random;
 
+@Slf4j
 @TestPropertySource(locations = "classpath:test.properties")
 @ContextConfiguration(classes = {CryptoHelper.class})
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = {CryptoHelper.class})
 public class CryptoHelperTests {
 
+    private static final int BENCHMARK_SIGNERS = 50;
+    private static final int BENCHMARK_WARMUP_ITERATIONS = 2;
+    private static final int BENCHMARK_MEASUREMENT_ITERATIONS = 5;
+    private static final int BENCHMARK_VERIFICATIONS_PER_ITERATION = 500;
 
     @Test
     public void checkPublicKeyRecovery() throws InvalidKeySpecException, NoSuchAlgorithmException {
@@ -123,9 +131,66 @@ public class CryptoHelperTests {
         Assert.assertEquals("a053a4ddfd9c4e27b919a26ccb2d99a55f679c13fec197efc48fc887661a626db19a99660f8ae3babddebf924923afb22c7d4fe251f96f1880c4b8f89106d139", publicKey);
     }
 
+    @Test
+    public void verifyByPublicKey_cachedAddressKey_matchesKeyFactoryPath() throws InvalidKeySpecException, NoSuchAlgorithmException {
+        Random random = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            String privateKey = CryptoHelper.generatePrivateKey("1731ceb7b1d3a9c78d6a3009ca7021569eeb6a4ece86f0b744afbc3fabf82f8e", i).toHexString();
+            byte[] message = new byte[32];
+            random.nextBytes(message);
+            SignatureData signatureData = CryptoHelper.signBytes(message, privateKey);
+            if (i % 2 == 1) {
+                message[0]++;
+            }
+            PublicKey publicKey = CryptoHelper.getPublicKeyFromHexString(CryptoHelper.getPublicKeyFromPrivateKey(privateKey));
+            boolean expectedResult = CryptoHelper.verifyByPublicKey(message, signatureData.getR(), signatureData.getS(), publicKey);
+
+            Assert.assertEquals(i % 2 == 0, expectedResult);
+            for (int repeat = 0; repeat < 2; repeat++) {
+                Assert.assertEquals(expectedResult, CryptoHelper.verifyByPublicKey(message, signatureData.getR(), signatureData.getS(), CryptoHelper.getAddressFromPrivateKey(privateKey)));
+                Assert.assertEquals(expectedResult, CryptoHelper.verifyByPublicKey(message, signatureData.getR(), signatureData.getS(), new Hash(CryptoHelper.getPublicKeyFromPrivateKey(privateKey))));
+            }
+        }
+    }
 
+    @Test
+    public void benchmark_verifyByPublicKey_keyFactoryPathAgainstCachedPath() throws InvalidKeySpecException, NoSuchAlgorithmException {
+        Assume.assumeTrue("Run with -Dcrypto.benchmark=true", Boolean.getBoolean("crypto.benchmark"));
+        Random random = new Random(7);
+        String[] publicKeys = new String[BENCHMARK_SIGNERS];
+        Hash[] addressHashes = new Hash[BENCHMARK_SIGNERS];
+        byte[][] messages = new byte[BENCHMARK_SIGNERS][32];
+        SignatureData[] signatures = new SignatureData[BENCHMARK_SIGNERS];
+        for (int i = 0; i < BENCHMARK_SIGNERS; i++) {
+            String privateKey = CryptoHelper.generatePrivateKey("989fc9a6b0829cd4aa83e3d7f2d24322dc6c08db80fcef988f8fba226de8f28f", i).toHexString();
+            publicKeys[i] = CryptoHelper.getPublicKeyFromPrivateKey(privateKey);
+            addressHashes[i] = CryptoHelper.getAddressFromPrivateKey(privateKey);
+            random.nextBytes(messages[i]);
+            signatures[i] = CryptoHelper.signBytes(messages[i], privateKey);
+        }
+
+        double keyFactoryOperationsPerSecond = 0;
+        double cachedOperationsPerSecond = 0;
+        for (int iteration = 0; iteration < BENCHMARK_WARMUP_ITERATIONS + BENCHMARK_MEASUREMENT_ITERATIONS; iteration++) {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_VERIFICATIONS_PER_ITERATION; i++) {
+                int signer = i % BENCHMARK_SIGNERS;
+                Assert.assertTrue(CryptoHelper.verifyByPublicKey(messages[signer], signatures[signer].getR(), signatures[signer].getS(), CryptoHelper.getPublicKeyFromHexString(publicKeys[signer])));
+            }
+            long keyFactoryNanos = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_VERIFICATIONS_PER_ITERATION; i++) {
+                int signer = i % BENCHMARK_SIGNERS;
+                Assert.assertTrue(CryptoHelper.verifyByPublicKey(messages[signer], signatures[signer].getR(), signatures[signer].getS(), addressHashes[signer]));
+            }
+            long cachedNanos = System.nanoTime() - startTime;
+
+            if (iteration >= BENCHMARK_WARMUP_ITERATIONS) {
+                keyFactoryOperationsPerSecond += BENCHMARK_VERIFICATIONS_PER_ITERATION * 1e9 / keyFactoryNanos / BENCHMARK_MEASUREMENT_ITERATIONS;
+                cachedOperationsPerSecond += BENCHMARK_VERIFICATIONS_PER_ITERATION * 1e9 / cachedNanos / BENCHMARK_MEASUREMENT_ITERATIONS;
+            }
+        }
+        log.info("Signature verification: key factory path {} ops/sec, cached key path {} ops/sec", (long) keyFactoryOperationsPerSecond, (long) cachedOperationsPerSecond);
+    }
 }
-
-
-
-
@@ -0,0 +1,90 @@
+package io.coti.basenode.communication;
+
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.exceptions.TransactionFrameTypeException;
+import io.coti.basenode.exceptions.TransactionSyncException;
+import io.coti.basenode.utils.TransactionTestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TransactionFrameReaderTest {
+
+    private static final int MAXIMUM_FRAME_SIZE = 1 << 20;
+
+    @Test
+    public void readFrame_writtenStream_sameTransactionsAndMarkers() throws IOException {
+        List<TransactionData> transactions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            transactions.add(TransactionTestUtils.createRandomTransactionWithSenderAddress());
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TransactionFrameWriter transactionFrameWriter = new TransactionFrameWriter(outputStream, null);
+        transactionFrameWriter.writeTransaction(transactions.get(0));
+        transactionFrameWriter.writeTransaction(transactions.get(1));
+        transactionFrameWriter.writeNoneIndexedTransactionsStart();
+        transactionFrameWriter.writeTransaction(transactions.get(2));
+        transactionFrameWriter.writeEndOfStream();
+
+        TransactionFrameReader transactionFrameReader = new TransactionFrameReader(new ByteArrayInputStream(outputStream.toByteArray()), null, MAXIMUM_FRAME_SIZE);
+        Assert.assertEquals(TransactionFrameType.BINARY_TRANSACTION, transactionFrameReader.readFrame());
+        Assert.assertEquals(transactions.get(0).getHash(), transactionFrameReader.getTransactionData().getHash());
+        Assert.assertEquals(TransactionFrameType.BINARY_TRANSACTION, transactionFrameReader.readFrame());
+        Assert.assertEquals(transactions.get(1).getHash(), transactionFrameReader.getTransactionData().getHash());
+        Assert.assertEquals(TransactionFrameType.NONE_INDEXED_TRANSACTIONS, transactionFrameReader.readFrame());
+        Assert.assertNull(transactionFrameReader.getTransactionData());
+        Assert.assertEquals(TransactionFrameType.BINARY_TRANSACTION, transactionFrameReader.readFrame());
+        Assert.assertEquals(transactions.get(2).getHash(), transactionFrameReader.getTransactionData().getHash());
+        Assert.assertEquals(TransactionFrameType.END_OF_STREAM, transactionFrameReader.readFrame());
+    }
+
+    @Test(expected = EOFException.class)
+    public void readFrame_brokenStream_eofException() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TransactionFrameWriter transactionFrameWriter = new TransactionFrameWriter(outputStream, null);
+        transactionFrameWriter.writeTransaction(TransactionTestUtils.createRandomTransactionWithSenderAddress());
+        transactionFrameWriter.flush();
+        byte[] brokenStream = Arrays.copyOf(outputStream.toByteArray(), outputStream.size() - 1);
+
+        new TransactionFrameReader(new ByteArrayInputStream(brokenStream), null, MAXIMUM_FRAME_SIZE).readFrame();
+    }
+
+    @Test(expected = TransactionSyncException.class)
+    public void readFrame_frameTooLarge_rejectedBeforeReading() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.writeByte(TransactionFrameType.BINARY_TRANSACTION.getCode());
+        dataOutputStream.writeInt(MAXIMUM_FRAME_SIZE + 1);
+
+        new TransactionFrameReader(new ByteArrayInputStream(outputStream.toByteArray()), null, MAXIMUM_FRAME_SIZE).readFrame();
+    }
+
+    @Test
+    public void readFrame_endOfStream_writtenWithStableCode() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new TransactionFrameWriter(outputStream, null).writeEndOfStream();
+
+        Assert.assertArrayEquals(new byte[]{0, 0, 0, 0, 0}, outputStream.toByteArray());
+        Assert.assertEquals(TransactionFrameType.BINARY_TRANSACTION, TransactionFrameType.getByCode(1));
+        Assert.assertEquals(TransactionFrameType.JSON_TRANSACTION, TransactionFrameType.getByCode(2));
+        Assert.assertEquals(TransactionFrameType.NONE_INDEXED_TRANSACTIONS, TransactionFrameType.getByCode(3));
+    }
+
+    @Test(expected = TransactionFrameTypeException.class)
+    public void readFrame_unknownFrameType_frameTypeException() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.writeByte(TransactionFrameType.values().length);
+        dataOutputStream.writeInt(0);
+
+        new TransactionFrameReader(new ByteArrayInputStream(outputStream.toByteArray()), null, MAXIMUM_FRAME_SIZE).readFrame();
+    }
+}
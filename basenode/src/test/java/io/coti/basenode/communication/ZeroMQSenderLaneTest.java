@@ -0,0 +1,156 @@
+package io.coti.basenode.communication;
+
+import io.coti.basenode.communication.data.SenderSocketData;
+import io.coti.basenode.data.NodeType;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.zeromq.SocketType;
+import org.zeromq.ZMQ;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class ZeroMQSenderLaneTest {
+
+    private static final int MESSAGES_PER_RECEIVER = 20000;
+    private static final int SEND_TIMEOUT = 100;
+    private static final int DELIVERY_TIMEOUT_SECONDS = 30;
+    private static final byte[] MESSAGE = new byte[512];
+    private ZMQ.Context zeroMQContext;
+    private final List<ZeroMQSenderLane> senderLanes = new ArrayList<>();
+    private final List<Thread> receiverThreads = new ArrayList<>();
+    private final List<ZMQ.Socket> closedSockets = new ArrayList<>();
+
+    @Before
+    public void init() {
+        zeroMQContext = ZMQ.context(1);
+    }
+
+    @After
+    public void close() throws InterruptedException {
+        for (ZeroMQSenderLane senderLane : senderLanes) {
+            senderLane.close();
+            senderLane.getSenderSocketData().getMonitorSocketData().getMonitorSocket().close();
+        }
+        closedSockets.forEach(ZMQ.Socket::close);
+        for (Thread receiverThread : receiverThreads) {
+            receiverThread.interrupt();
+            receiverThread.join();
+        }
+        zeroMQContext.term();
+    }
+
+    @Test
+    public void send_unreachableReceiver_otherLanesDeliver() throws IOException, InterruptedException {
+        CountDownLatch deliveredMessages = new CountDownLatch(3 * MESSAGES_PER_RECEIVER);
+        List<ZeroMQSenderLane> liveLanes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            liveLanes.add(createSenderLane(startReceiver(deliveredMessages)));
+        }
+        ZeroMQSenderLane unreachableLane = createSenderLane("tcp://127.0.0.1:" + getUnusedPort());
+
+        for (int i = 0; i < MESSAGES_PER_RECEIVER; i++) {
+            unreachableLane.offer(String.class.getName(), MESSAGE);
+            liveLanes.forEach(senderLane -> senderLane.offer(String.class.getName(), MESSAGE));
+        }
+
+        Assert.assertTrue(deliveredMessages.await(DELIVERY_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void offer_fullLane_droppedAfterTimeout() throws InterruptedException {
+        ZeroMQSenderLane senderLane = createSenderLane("tcp://127.0.0.1:1", false, 1);
+        int queuedMessages = 0;
+        while (senderLane.offer(String.class.getName(), MESSAGE)) {
+            queuedMessages++;
+        }
+        senderLane.getAndResetMetrics();
+        Assert.assertEquals(queuedMessages, senderLane.getQueueSize());
+
+        long startTime = System.nanoTime();
+        Assert.assertFalse(senderLane.offer(String.class.getName(), MESSAGE, 50, TimeUnit.MILLISECONDS));
+
+        Assert.assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50));
+        Assert.assertEquals(1, senderLane.getAndResetMetrics().getDroppedMessages());
+    }
+
+    @Test
+    public void send_severalReceivers_aggregateThroughputScales() throws InterruptedException {
+        Assume.assumeTrue("Run with -Dzeromq.benchmark=true", Boolean.getBoolean("zeromq.benchmark"));
+        double singleReceiverThroughput = measureThroughput(1);
+        double severalReceiversThroughput = measureThroughput(4);
+        log.info("Sender throughput: 1 receiver {} messages/s, 4 receivers {} messages/s", (long) singleReceiverThroughput, (long) severalReceiversThroughput);
+        Assert.assertTrue(severalReceiversThroughput > 1.5 * singleReceiverThroughput);
+    }
+
+    private double measureThroughput(int receivers) throws InterruptedException {
+        CountDownLatch deliveredMessages = new CountDownLatch(receivers * MESSAGES_PER_RECEIVER);
+        List<ZeroMQSenderLane> lanes = new ArrayList<>();
+        for (int i = 0; i < receivers; i++) {
+            lanes.add(createSenderLane(startReceiver(deliveredMessages)));
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < MESSAGES_PER_RECEIVER; i++) {
+            for (ZeroMQSenderLane senderLane : lanes) {
+                while (!senderLane.offer(String.class.getName(), MESSAGE)) {
+                    Thread.yield();
+                }
+            }
+        }
+        Assert.assertTrue(deliveredMessages.await(DELIVERY_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        return receivers * MESSAGES_PER_RECEIVER / ((System.nanoTime() - startTime) / 1e9);
+    }
+
+    private ZeroMQSenderLane createSenderLane(String receivingServerAddress) {
+        return createSenderLane(receivingServerAddress, true, MESSAGES_PER_RECEIVER);
+    }
+
+    private ZeroMQSenderLane createSenderLane(String receivingServerAddress, boolean start, int queueCapacity) {
+        SenderSocketData senderSocketData = new SenderSocketData(zeroMQContext, NodeType.DspNode);
+        senderSocketData.getSenderSocket().setSendTimeOut(SEND_TIMEOUT);
+        senderSocketData.getSenderSocket().connect(receivingServerAddress);
+        ZeroMQSenderLane senderLane = new ZeroMQSenderLane(receivingServerAddress, senderSocketData, queueCapacity);
+        senderLanes.add(senderLane);
+        if (start) {
+            senderLane.start();
+        } else {
+            closedSockets.add(senderSocketData.getSenderSocket());
+        }
+        return senderLane;
+    }
+
+    private String startReceiver(CountDownLatch deliveredMessages) {
+        ZMQ.Socket receiver = zeroMQContext.socket(SocketType.ROUTER);
+        receiver.setReceiveTimeOut(100);
+        int port = receiver.bindToRandomPort("tcp://127.0.0.1");
+        Thread receiverThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (receiver.recv() != null) {
+                    receiver.recv();
+                    receiver.recv();
+                    deliveredMessages.countDown();
+                }
+            }
+            Thread.interrupted();
+            receiver.close();
+        });
+        receiverThreads.add(receiverThread);
+        receiverThread.start();
+        return "tcp://127.0.0.1:" + port;
+    }
+
+    private int getUnusedPort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.coti.basenode.communication;
+
+import io.coti.basenode.communication.data.ZeroMQMessageData;
+import io.coti.basenode.data.DspConsensusResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ZeroMQSubscriberMessageQueueTest {
+
+    private static final long OFFER_TIMEOUT = 1000;
+
+    @Test
+    public void add_dropNewest_keepsQueuedMessages() throws InterruptedException {
+        ZeroMQSubscriberMessageQueue messageQueue = new ZeroMQSubscriberMessageQueue(2, ZeroMQOverflowPolicy.DROP_NEWEST, OFFER_TIMEOUT);
+        Assert.assertTrue(messageQueue.add(new ZeroMQMessageData("0", new byte[0])));
+        Assert.assertTrue(messageQueue.add(new ZeroMQMessageData("1", new byte[0])));
+        Assert.assertFalse(messageQueue.add(new ZeroMQMessageData("2", new byte[0])));
+
+        Assert.assertEquals(1, messageQueue.getAndResetDroppedMessages());
+        Assert.assertEquals(0, messageQueue.getAndResetDroppedMessages());
+        Assert.assertEquals("0", messageQueue.take().getChannel());
+        Assert.assertEquals("1", messageQueue.take().getChannel());
+    }
+
+    @Test
+    public void add_dropOldest_keepsLatestMessages() throws InterruptedException {
+        ZeroMQSubscriberMessageQueue messageQueue = new ZeroMQSubscriberMessageQueue(2, ZeroMQOverflowPolicy.DROP_OLDEST, OFFER_TIMEOUT);
+        for (int i = 0; i < 5; i++) {
+            messageQueue.add(new ZeroMQMessageData(String.valueOf(i), new byte[0]));
+        }
+
+        Assert.assertEquals(3, messageQueue.getAndResetDroppedMessages());
+        List<ZeroMQMessageData> messages = new ArrayList<>();
+        messageQueue.drainTo(messages);
+        Assert.assertEquals(2, messages.size());
+        Assert.assertEquals("3", messages.get(0).getChannel());
+        Assert.assertEquals("4", messages.get(1).getChannel());
+    }
+
+    @Test
+    public void add_block_waitsForConsumer() throws InterruptedException {
+        ZeroMQSubscriberMessageQueue messageQueue = new ZeroMQSubscriberMessageQueue(1, ZeroMQOverflowPolicy.BLOCK, OFFER_TIMEOUT);
+        messageQueue.add(new ZeroMQMessageData("0", new byte[0]));
+        Thread producer = new Thread(() -> {
+            try {
+                messageQueue.add(new ZeroMQMessageData("1", new byte[0]));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(100);
+        Assert.assertTrue(producer.isAlive());
+
+        Assert.assertEquals("0", messageQueue.take().getChannel());
+        producer.join();
+        Assert.assertEquals("1", messageQueue.take().getChannel());
+        Assert.assertEquals(0, messageQueue.getAndResetDroppedMessages());
+        Assert.assertTrue(messageQueue.getAndResetMaxLag() >= 0);
+    }
+
+    @Test
+    public void add_blockFullQueue_dropsAfterTimeoutUntilHalfFreed() throws InterruptedException {
+        ZeroMQSubscriberMessageQueue messageQueue = new ZeroMQSubscriberMessageQueue(2, ZeroMQOverflowPolicy.BLOCK, 50);
+        Assert.assertTrue(messageQueue.add(new ZeroMQMessageData("0", new byte[0])));
+        Assert.assertTrue(messageQueue.add(new ZeroMQMessageData("1", new byte[0])));
+
+        long startTime = System.nanoTime();
+        Assert.assertFalse(messageQueue.add(new ZeroMQMessageData("2", new byte[0])));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) >= 50);
+        startTime = System.nanoTime();
+        Assert.assertFalse(messageQueue.add(new ZeroMQMessageData("3", new byte[0])));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 50);
+        Assert.assertEquals(2, messageQueue.getAndResetDroppedMessages());
+
+        Assert.assertEquals("0", messageQueue.take().getChannel());
+        Assert.assertTrue(messageQueue.add(new ZeroMQMessageData("4", new byte[0])));
+        Assert.assertEquals("1", messageQueue.take().getChannel());
+        Assert.assertEquals("4", messageQueue.take().getChannel());
+    }
+
+    @Test
+    public void getDefaultOverflowPolicy_transactionsAndAddresses_block() {
+        Assert.assertEquals(ZeroMQOverflowPolicy.BLOCK, ZeroMQSubscriberQueue.TRANSACTION.getDefaultOverflowPolicy());
+        Assert.assertEquals(ZeroMQOverflowPolicy.BLOCK, ZeroMQSubscriberQueue.ADDRESS.getDefaultOverflowPolicy());
+        Assert.assertEquals(ZeroMQSubscriberQueue.TRANSACTION, ZeroMQSubscriberQueue.getQueueEnum(DspConsensusResult.class));
+    }
+}
@@ -0,0 +1,134 @@
+package io.coti.basenode.communication;
+
+import io.coti.basenode.communication.data.ConnectedNodeData;
+import io.coti.basenode.communication.interfaces.ISerializer;
+import io.coti.basenode.communication.interfaces.ISubscriberHandler;
+import io.coti.basenode.data.NodeType;
+import io.coti.basenode.data.PublisherHeartBeatData;
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.data.interfaces.IPropagatable;
+import io.coti.basenode.utils.TransactionTestUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.zeromq.SocketType;
+import org.zeromq.ZMQ;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.when;
+
+@ContextConfiguration(classes = {ZeroMQSubscriber.class, JacksonSerializer.class})
+@TestPropertySource(properties = {"zeromq.subscriber.transaction.queue.capacity=100", "zeromq.subscriber.offer.timeout=100"})
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@Slf4j
+public class ZeroMQSubscriberTest {
+
+    private static final int BURST_TRANSACTIONS = 20000;
+    private static final int HEARTBEAT_EVERY_TRANSACTIONS = 1000;
+    private static final int HEARTBEAT_INTERVAL = 100;
+    private static final int HEARTBEAT_TIMEOUT_SECONDS = 10;
+    @Autowired
+    private ZeroMQSubscriber zeroMQSubscriber;
+    @Autowired
+    private ISerializer serializer;
+    @MockBean
+    private ISubscriberHandler subscriberHandler;
+    private ZMQ.Context publisherContext;
+    private ZMQ.Socket publisher;
+    private String publisherAddress;
+    private final CountDownLatch transactionHandlerReleased = new CountDownLatch(1);
+
+    @Before
+    public void init() {
+        publisherContext = ZMQ.context(1);
+        publisher = publisherContext.socket(SocketType.PUB);
+        publisher.setSndHWM(0);
+        publisherAddress = "tcp://127.0.0.1:" + publisher.bindToRandomPort("tcp://127.0.0.1");
+
+        when(subscriberHandler.get(TransactionData.class.getSimpleName())).thenReturn(publisherNodeType -> this::stallTransactionHandler);
+        EnumMap<NodeType, List<Class<? extends IPropagatable>>> publisherNodeTypeToMessageTypesMap = new EnumMap<>(NodeType.class);
+        publisherNodeTypeToMessageTypesMap.put(NodeType.DspNode, Collections.singletonList(TransactionData.class));
+        zeroMQSubscriber.init();
+        zeroMQSubscriber.setSubscriberNodeType(NodeType.FullNode);
+        zeroMQSubscriber.setPublisherNodeTypeToMessageTypesMap(publisherNodeTypeToMessageTypesMap);
+        zeroMQSubscriber.initPropagationHandler();
+        zeroMQSubscriber.startListening();
+        zeroMQSubscriber.connectAndSubscribeToServer(publisherAddress, NodeType.DspNode);
+    }
+
+    @After
+    public void close() {
+        transactionHandlerReleased.countDown();
+        zeroMQSubscriber.shutdown();
+        publisher.close();
+        publisherContext.term();
+    }
+
+    @Test
+    public void addToMessageQueue_transactionBurst_heartbeatsKeepArriving() throws InterruptedException {
+        Assert.assertTrue(awaitHeartbeat(Instant.now()));
+        ConnectedNodeData connectedNodeData = getConnectedNodes().get(publisherAddress);
+
+        String transactionChannel = Channel.getChannelString(TransactionData.class, publisherAddress, NodeType.DspNode, NodeType.FullNode);
+        byte[] transaction = serializer.serialize(TransactionTestUtils.createRandomTransaction());
+        for (int i = 1; i <= BURST_TRANSACTIONS; i++) {
+            publisher.sendMore(transactionChannel);
+            publisher.send(transaction);
+            if (i % HEARTBEAT_EVERY_TRANSACTIONS == 0) {
+                sendHeartbeat();
+            }
+        }
+
+        Assert.assertTrue(awaitHeartbeat(Instant.now()));
+        Assert.assertTrue(zeroMQSubscriber.getAndResetDroppedMessagesMap().get(ZeroMQSubscriberQueue.TRANSACTION.toString()) > 0);
+        zeroMQSubscriber.reconnectToPublisher();
+        Assert.assertSame(connectedNodeData, getConnectedNodes().get(publisherAddress));
+    }
+
+    private boolean awaitHeartbeat(Instant sentAfter) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(HEARTBEAT_TIMEOUT_SECONDS);
+        while (System.nanoTime() < deadline) {
+            sendHeartbeat();
+            Thread.sleep(HEARTBEAT_INTERVAL);
+            if (getConnectedNodes().get(publisherAddress).getLastConnectionTime().isAfter(sentAfter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sendHeartbeat() {
+        publisher.sendMore(Channel.getChannelString(PublisherHeartBeatData.class, publisherAddress));
+        publisher.send(serializer.serialize(new PublisherHeartBeatData(publisherAddress)));
+    }
+
+    private Map<String, ConnectedNodeData> getConnectedNodes() {
+        return (Map<String, ConnectedNodeData>) ReflectionTestUtils.getField(zeroMQSubscriber, "connectedNodes");
+    }
+
+    private void stallTransactionHandler(IPropagatable transactionData) {
+        try {
+            transactionHandlerReleased.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.coti.basenode.crypto;
+
+import io.coti.basenode.data.BaseTransactionData;
+import io.coti.basenode.data.InputBaseTransactionData;
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.utils.TransactionTestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@TestPropertySource(locations = "classpath:test.properties", properties = {"transaction.verification.threads=2", "transaction.verification.queue.capacity=2"})
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {TransactionCrypto.class})
+public class TransactionCryptoTest {
+
+    private static final int INPUTS = 8;
+    @Autowired
+    private TransactionCrypto transactionCrypto;
+
+    @Test
+    public void isTransactionValid_allBaseTransactionsSigned_valid() {
+        TransactionData transactionData = createSignedTransaction();
+
+        Assert.assertTrue(transactionCrypto.isTransactionValid(transactionData));
+    }
+
+    @Test
+    public void isTransactionValid_oneBaseTransactionSignedByAnotherKey_invalid() {
+        for (int input = 0; input < INPUTS; input++) {
+            TransactionData transactionData = createSignedTransaction();
+            BaseTransactionData baseTransactionData = transactionData.getBaseTransactions().get(input);
+            baseTransactionData.setSignature(CryptoHelper.signBytes(transactionData.getHash().getBytes(), generatePrivateKey()));
+
+            Assert.assertFalse(transactionCrypto.isTransactionValid(transactionData));
+        }
+    }
+
+    @Test
+    public void isTransactionValid_noBaseTransactions_valid() {
+        TransactionData transactionData = new TransactionData(new ArrayList<>());
+        transactionCrypto.setTransactionHash(transactionData);
+
+        Assert.assertTrue(transactionCrypto.isTransactionValid(transactionData));
+    }
+
+    private TransactionData createSignedTransaction() {
+        List<String> privateKeys = new ArrayList<>();
+        List<BaseTransactionData> baseTransactions = new ArrayList<>();
+        for (int input = 0; input < INPUTS; input++) {
+            String privateKey = generatePrivateKey();
+            privateKeys.add(privateKey);
+            InputBaseTransactionData inputBaseTransactionData = new InputBaseTransactionData(CryptoHelper.getAddressFromPrivateKey(privateKey),
+                    TransactionTestUtils.generateRandomHash(), BigDecimal.valueOf(-input - 1), Instant.now());
+            BaseTransactionCrypto.INPUT_BASE_TRANSACTION_DATA.createAndSetBaseTransactionHash(inputBaseTransactionData);
+            baseTransactions.add(inputBaseTransactionData);
+        }
+        TransactionData transactionData = new TransactionData(baseTransactions);
+        transactionCrypto.setTransactionHash(transactionData);
+        for (int input = 0; input < INPUTS; input++) {
+            baseTransactions.get(input).setSignature(CryptoHelper.signBytes(transactionData.getHash().getBytes(), privateKeys.get(input)));
+        }
+        return transactionData;
+    }
+
+    private String generatePrivateKey() {
+        return CryptoHelper.generatePrivateKey(TransactionTestUtils.generateRandomHash().toString(), 0).toString();
+    }
+}
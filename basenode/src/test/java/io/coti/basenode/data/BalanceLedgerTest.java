@@ -0,0 +1,191 @@
+package io.coti.basenode.data;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+public class BalanceLedgerTest {
+
+    private static final long RANDOM_SEED = 20200101L;
+    private static final int RANDOM_OPERATIONS = 200000;
+    private static final int BENCHMARK_ADDRESSES = 100000;
+    private static final int BENCHMARK_RESERVATIONS_PER_THREAD = 100000;
+    private static final Hash NATIVE_CURRENCY_HASH = new Hash(1L);
+
+    @Test
+    public void addAndReserve_randomAmounts_matchBigDecimal() {
+        Random random = new Random(RANDOM_SEED);
+        BalanceLedger balanceLedger = new BalanceLedger();
+        Map<List<Hash>, BigDecimal> expectedBalances = new HashMap<>();
+        Map<List<Hash>, BigDecimal> expectedPreBalances = new HashMap<>();
+        List<Hash> addressHashes = createHashes(100, 1000L);
+        List<Hash> currencyHashes = Arrays.asList(NATIVE_CURRENCY_HASH, new Hash(2L), new Hash(3L));
+
+        for (int i = 0; i < RANDOM_OPERATIONS; i++) {
+            Hash addressHash = addressHashes.get(random.nextInt(addressHashes.size()));
+            Hash currencyHash = currencyHashes.get(random.nextInt(currencyHashes.size()));
+            List<Hash> key = Arrays.asList(addressHash, currencyHash);
+            BigDecimal amount = createRandomAmount(random);
+            switch (random.nextInt(3)) {
+                case 0:
+                    balanceLedger.addToBalance(addressHash, currencyHash, amount);
+                    expectedBalances.merge(key, amount, BigDecimal::add);
+                    break;
+                case 1:
+                    balanceLedger.addToPreBalance(addressHash, currencyHash, amount);
+                    expectedPreBalances.merge(key, amount, BigDecimal::add);
+                    break;
+                default:
+                    BalanceLedger.BalanceChange balanceChange = new BalanceLedger.BalanceChange(addressHash, currencyHash, amount.abs().negate());
+                    boolean expectedReserved = expectedBalances.getOrDefault(key, BigDecimal.ZERO).add(balanceChange.getAmount()).signum() >= 0
+                            && expectedPreBalances.getOrDefault(key, BigDecimal.ZERO).add(balanceChange.getAmount()).signum() >= 0;
+                    Assert.assertEquals(expectedReserved, balanceLedger.checkAndReserve(Collections.singletonList(balanceChange)));
+                    if (expectedReserved) {
+                        expectedPreBalances.merge(key, balanceChange.getAmount(), BigDecimal::add);
+                    }
+            }
+        }
+
+        expectedBalances.forEach((key, expectedBalance) -> Assert.assertEquals(expectedBalance, balanceLedger.getBalance(key.get(0), key.get(1))));
+        expectedPreBalances.forEach((key, expectedPreBalance) -> Assert.assertEquals(expectedPreBalance, balanceLedger.getPreBalance(key.get(0), key.get(1))));
+    }
+
+    @Test
+    public void getBalance_mixedScales_scaleOfBigDecimalSum() {
+        BalanceLedger balanceLedger = new BalanceLedger();
+        Hash addressHash = new Hash(1001L);
+        Hash secondAddressHash = new Hash(1002L);
+
+        balanceLedger.addToBalance(addressHash, NATIVE_CURRENCY_HASH, new BigDecimal("10"));
+        balanceLedger.addToBalance(addressHash, NATIVE_CURRENCY_HASH, new BigDecimal("2.50"));
+        balanceLedger.addToBalance(addressHash, NATIVE_CURRENCY_HASH, new BigDecimal("-2.5"));
+        balanceLedger.addToPreBalance(addressHash, NATIVE_CURRENCY_HASH, new BigDecimal("1.000000000"));
+        balanceLedger.addToBalance(secondAddressHash, NATIVE_CURRENCY_HASH, new BigDecimal("1E+3"));
+        Assert.assertTrue(balanceLedger.checkAndReserve(Collections.singletonList(
+                new BalanceLedger.BalanceChange(addressHash, NATIVE_CURRENCY_HASH, new BigDecimal("-0.1")))));
+
+        Assert.assertEquals(new BigDecimal("10.00"), balanceLedger.getBalance(addressHash, NATIVE_CURRENCY_HASH));
+        Assert.assertEquals(new BigDecimal("0.900000000"), balanceLedger.getPreBalance(addressHash, NATIVE_CURRENCY_HASH));
+        Assert.assertEquals(new BigDecimal("1E+3"), balanceLedger.getBalance(secondAddressHash, NATIVE_CURRENCY_HASH));
+        Assert.assertEquals(BigDecimal.ZERO, balanceLedger.getPreBalance(secondAddressHash, NATIVE_CURRENCY_HASH));
+    }
+
+    @Test
+    public void checkAndReserve_oneChangeFails_nothingReserved() {
+        BalanceLedger balanceLedger = new BalanceLedger();
+        Hash firstAddressHash = new Hash(1001L);
+        Hash secondAddressHash = new Hash(1002L);
+        balanceLedger.addToBalance(firstAddressHash, NATIVE_CURRENCY_HASH, new BigDecimal("10"));
+        balanceLedger.addToPreBalance(firstAddressHash, NATIVE_CURRENCY_HASH, new BigDecimal("10"));
+
+        List<BalanceLedger.BalanceChange> balanceChanges = Arrays.asList(
+                new BalanceLedger.BalanceChange(firstAddressHash, NATIVE_CURRENCY_HASH, new BigDecimal("-6")),
+                new BalanceLedger.BalanceChange(secondAddressHash, NATIVE_CURRENCY_HASH, new BigDecimal("6")),
+                new BalanceLedger.BalanceChange(firstAddressHash, NATIVE_CURRENCY_HASH, new BigDecimal("-6")));
+
+        Assert.assertFalse(balanceLedger.checkAndReserve(balanceChanges));
+        Assert.assertEquals(BigDecimal.TEN, balanceLedger.getPreBalance(firstAddressHash, NATIVE_CURRENCY_HASH));
+        Assert.assertEquals(BigDecimal.ZERO, balanceLedger.getPreBalance(secondAddressHash, NATIVE_CURRENCY_HASH));
+        Assert.assertTrue(balanceLedger.checkAndReserve(balanceChanges.subList(0, 2)));
+        Assert.assertEquals(new BigDecimal("4"), balanceLedger.getPreBalance(firstAddressHash, NATIVE_CURRENCY_HASH));
+        Assert.assertEquals(new BigDecimal("6"), balanceLedger.getPreBalance(secondAddressHash, NATIVE_CURRENCY_HASH));
+    }
+
+    @Test
+    public void addToBalance_beyondScaledLongRange_staysExact() {
+        BalanceLedger balanceLedger = new BalanceLedger();
+        Hash addressHash = new Hash(1001L);
+        BigDecimal largeAmount = new BigDecimal("90000000000.12345678");
+        BigDecimal fineAmount = new BigDecimal("0.000000001");
+
+        for (int i = 0; i < 3; i++) {
+            balanceLedger.addToBalance(addressHash, NATIVE_CURRENCY_HASH, largeAmount);
+        }
+        balanceLedger.addToPreBalance(addressHash, NATIVE_CURRENCY_HASH, fineAmount);
+
+        Assert.assertEquals(0, new BigDecimal("270000000000.37037034").compareTo(balanceLedger.getBalance(addressHash, NATIVE_CURRENCY_HASH)));
+        Assert.assertEquals(0, fineAmount.compareTo(balanceLedger.getPreBalance(addressHash, NATIVE_CURRENCY_HASH)));
+    }
+
+    @Test
+    public void benchmark_checkAndReserve_parallelThreads() throws Exception {
+        Assume.assumeTrue("Run with -Dbalance.benchmark=true", Boolean.getBoolean("balance.benchmark"));
+        List<Hash> addressHashes = createHashes(BENCHMARK_ADDRESSES, 1000000L);
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            BalanceLedger balanceLedger = new BalanceLedger();
+            addressHashes.forEach(addressHash -> {
+                balanceLedger.addToBalance(addressHash, NATIVE_CURRENCY_HASH, new BigDecimal("1000000"));
+                balanceLedger.addToPreBalance(addressHash, NATIVE_CURRENCY_HASH, new BigDecimal("1000000"));
+            });
+            AtomicLong reserved = new AtomicLong();
+            long elapsedNanos = runReservations(threads, () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < BENCHMARK_RESERVATIONS_PER_THREAD; i++) {
+                    Hash senderHash = addressHashes.get(random.nextInt(addressHashes.size()));
+                    Hash receiverHash = addressHashes.get(random.nextInt(addressHashes.size()));
+                    if (balanceLedger.checkAndReserve(Arrays.asList(new BalanceLedger.BalanceChange(senderHash, NATIVE_CURRENCY_HASH, new BigDecimal("-0.00000001")),
+                            new BalanceLedger.BalanceChange(receiverHash, NATIVE_CURRENCY_HASH, new BigDecimal("0.00000001"))))) {
+                        reserved.incrementAndGet();
+                    }
+                }
+            });
+            log.info("Balance ledger reservations with {} threads: {} ops/sec", threads, (long) (threads * (double) BENCHMARK_RESERVATIONS_PER_THREAD * 1e9 / elapsedNanos));
+            Assert.assertEquals((long) threads * BENCHMARK_RESERVATIONS_PER_THREAD, reserved.get());
+            BigDecimal[] totalPreBalance = {BigDecimal.ZERO};
+            balanceLedger.forEach((addressHash, currencyBalance) -> totalPreBalance[0] = totalPreBalance[0].add(currencyBalance.getPreBalance()));
+            Assert.assertEquals(0, new BigDecimal(BENCHMARK_ADDRESSES).multiply(new BigDecimal("1000000")).compareTo(totalPreBalance[0]));
+        }
+    }
+
+    private long runReservations(int threads, Runnable reservations) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    reservations.run();
+                    return null;
+                }));
+            }
+            long startTime = System.nanoTime();
+            startLatch.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - startTime;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private List<Hash> createHashes(int size, long firstHash) {
+        List<Hash> hashes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hashes.add(new Hash(firstHash + i));
+        }
+        return hashes;
+    }
+
+    private BigDecimal createRandomAmount(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return BigDecimal.valueOf(random.nextInt(2000000) - 1000000L, random.nextInt(9));
+            case 1:
+                return BigDecimal.valueOf(random.nextLong() >> 4, 8);
+            case 2:
+                return BigDecimal.valueOf(random.nextInt(1000) - 500L, 9 + random.nextInt(3));
+            default:
+                return BigDecimal.valueOf(random.nextInt(100) + 1L);
+        }
+    }
+}
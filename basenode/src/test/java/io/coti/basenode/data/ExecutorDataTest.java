@@ -0,0 +1,43 @@
+package io.coti.basenode.data;
+
+import io.coti.basenode.utils.TransactionTestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExecutorDataTest {
+
+    private static final int BATCH_SIZE = 10;
+    private static final int FAILING_TRANSACTION = 3;
+
+    @Test
+    public void submit_oneTransactionThrows_restOfBatchHandled() {
+        List<TransactionData> transactionBatch = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            transactionBatch.add(TransactionTestUtils.createRandomTransaction());
+        }
+        TransactionData failingTransaction = transactionBatch.get(FAILING_TRANSACTION);
+        List<TransactionData> handledTransactions = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger completedBatches = new AtomicInteger(0);
+        ExecutorData executorData = new ExecutorData(InitializationTransactionHandlerType.TRANSACTION);
+
+        executorData.submit(transactionBatch, transactionData -> {
+            if (transactionData == failingTransaction) {
+                throw new IllegalStateException("Failing transaction");
+            }
+            handledTransactions.add(transactionData);
+        }, completedBatches::incrementAndGet);
+        executorData.submit(transactionBatch, handledTransactions::add, completedBatches::incrementAndGet);
+        executorData.waitForTermination();
+
+        List<TransactionData> expectedTransactions = new ArrayList<>(transactionBatch);
+        expectedTransactions.remove(FAILING_TRANSACTION);
+        expectedTransactions.addAll(transactionBatch);
+        Assert.assertEquals(expectedTransactions, handledTransactions);
+        Assert.assertEquals(2, completedBatches.get());
+    }
+}
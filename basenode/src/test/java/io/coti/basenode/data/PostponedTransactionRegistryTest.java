@@ -0,0 +1,97 @@
+package io.coti.basenode.data;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+@Slf4j
+public class PostponedTransactionRegistryTest {
+
+    private static final int DAG_SIZE = 100000;
+    private static final int GENESIS_SIZE = 10;
+    private static final long RANDOM_SEED = 1234567L;
+
+    @Test
+    public void postpone_parentsAvailable_notPostponed() {
+        PostponedTransactionRegistry postponedTransactionRegistry = new PostponedTransactionRegistry();
+        TransactionData transactionData = createTransaction(3, 1L, 2L);
+
+        Assert.assertFalse(postponedTransactionRegistry.postpone(transactionData, false, parentHash -> false));
+        Assert.assertEquals(0, postponedTransactionRegistry.size());
+    }
+
+    @Test
+    public void release_sameParentOnBothSides_releasedOnce() {
+        PostponedTransactionRegistry postponedTransactionRegistry = new PostponedTransactionRegistry();
+        TransactionData transactionData = createTransaction(2, 1L, 1L);
+
+        Assert.assertTrue(postponedTransactionRegistry.postpone(transactionData, true, parentHash -> true));
+        Assert.assertTrue(postponedTransactionRegistry.postpone(transactionData, true, parentHash -> true));
+        List<PostponedTransactionRegistry.PostponedTransactionData> releasedTransactions = postponedTransactionRegistry.release(new Hash(1L));
+
+        Assert.assertEquals(1, releasedTransactions.size());
+        Assert.assertTrue(releasedTransactions.get(0).isTransactionFromFullNode());
+        Assert.assertEquals(0, postponedTransactionRegistry.size());
+        Assert.assertEquals(1, postponedTransactionRegistry.getReleasedTransactions());
+    }
+
+    @Test
+    public void release_shuffledDag_attachesAllInTopologicalOrder() {
+        Random random = new Random(RANDOM_SEED);
+        List<TransactionData> dag = new ArrayList<>(DAG_SIZE);
+        for (int i = 0; i < DAG_SIZE; i++) {
+            if (i < GENESIS_SIZE) {
+                dag.add(createTransaction(i + 1L, null, null));
+            } else {
+                dag.add(createTransaction(i + 1L, random.nextInt(i) + 1L, random.nextInt(i) + 1L));
+            }
+        }
+        List<TransactionData> shuffledDag = new ArrayList<>(dag);
+        Collections.shuffle(shuffledDag, random);
+
+        PostponedTransactionRegistry postponedTransactionRegistry = new PostponedTransactionRegistry();
+        Set<Hash> attachedTransactionHashes = new HashSet<>(DAG_SIZE);
+        long startTime = System.nanoTime();
+        int maxPostponed = 0;
+        for (TransactionData transactionData : shuffledDag) {
+            if (!postponedTransactionRegistry.postpone(transactionData, false, parentHash -> !attachedTransactionHashes.contains(parentHash))) {
+                attach(transactionData, postponedTransactionRegistry, attachedTransactionHashes);
+            }
+            maxPostponed = Math.max(maxPostponed, postponedTransactionRegistry.size());
+        }
+        long elapsedMillis = (System.nanoTime() - startTime) / 1000000;
+        log.info("Replayed shuffled DAG of {} transactions in {} ms, max postponed {}, released {}", DAG_SIZE, elapsedMillis, maxPostponed, postponedTransactionRegistry.getReleasedTransactions());
+
+        Assert.assertEquals(DAG_SIZE, attachedTransactionHashes.size());
+        Assert.assertEquals(0, postponedTransactionRegistry.size());
+        Assert.assertEquals(0, postponedTransactionRegistry.getOldestAgeInMillis());
+    }
+
+    private void attach(TransactionData transactionData, PostponedTransactionRegistry postponedTransactionRegistry, Set<Hash> attachedTransactionHashes) {
+        Deque<TransactionData> attachQueue = new ArrayDeque<>();
+        attachQueue.add(transactionData);
+        while (!attachQueue.isEmpty()) {
+            TransactionData attachedTransaction = attachQueue.poll();
+            assertParentAttached(attachedTransaction.getLeftParentHash(), attachedTransactionHashes);
+            assertParentAttached(attachedTransaction.getRightParentHash(), attachedTransactionHashes);
+            Assert.assertTrue(attachedTransactionHashes.add(attachedTransaction.getHash()));
+            postponedTransactionRegistry.release(attachedTransaction.getHash()).forEach(postponedTransactionData -> attachQueue.add(postponedTransactionData.getTransactionData()));
+        }
+    }
+
+    private void assertParentAttached(Hash parentHash, Set<Hash> attachedTransactionHashes) {
+        if (parentHash != null) {
+            Assert.assertTrue(attachedTransactionHashes.contains(parentHash));
+        }
+    }
+
+    private TransactionData createTransaction(long hash, Long leftParent, Long rightParent) {
+        TransactionData transactionData = new TransactionData(new ArrayList<>());
+        transactionData.setHash(new Hash(hash));
+        transactionData.setLeftParentHash(leftParent != null ? new Hash(leftParent) : null);
+        transactionData.setRightParentHash(rightParent != null ? new Hash(rightParent) : null);
+        return transactionData;
+    }
+}
@@ -0,0 +1,54 @@
+package io.coti.basenode.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+
+public class SourcePoolTest {
+
+    @Test
+    public void add_remove_previousSnapshotUnchanged() {
+        SourcePool sourcePool = new SourcePool();
+        TransactionData firstSource = createSource(1L, 50, 3000);
+        TransactionData secondSource = createSource(2L, 50, 1000);
+
+        Assert.assertTrue(sourcePool.add(firstSource));
+        Assert.assertFalse(sourcePool.add(firstSource));
+        SourcePool.Snapshot snapshot = sourcePool.getSnapshot();
+        Assert.assertTrue(sourcePool.add(secondSource));
+        Assert.assertNotNull(sourcePool.remove(firstSource.getHash()));
+        Assert.assertNull(sourcePool.remove(firstSource.getHash()));
+
+        Assert.assertEquals(1, snapshot.size());
+        Assert.assertEquals(firstSource.getHash(), snapshot.getBucket(50).get(0).getHash());
+        Assert.assertEquals(1, sourcePool.size());
+        Assert.assertEquals(secondSource.getHash(), sourcePool.getSnapshot().getBucket(50).get(0).getHash());
+    }
+
+    @Test
+    public void findByTotalAge_orderedByAttachmentTime() {
+        SourcePool sourcePool = new SourcePool();
+        sourcePool.add(createSource(1L, 70, 1000));
+        sourcePool.add(createSource(2L, 70, 4000));
+        sourcePool.add(createSource(3L, 70, 2000));
+        sourcePool.add(createSource(4L, 70, 6000));
+        long nowMillis = 5000;
+
+        SourcePool.SourceBucket sourceBucket = sourcePool.getSnapshot().getBucket(70);
+        int olderSources = sourceBucket.countAttachedUntil(nowMillis);
+
+        Assert.assertEquals(3, olderSources);
+        Assert.assertEquals(4000 + 3000 + 1000, sourceBucket.getTotalAge(olderSources, nowMillis));
+        Assert.assertEquals(new Hash(1L), sourceBucket.get(sourceBucket.findByTotalAge(3999, olderSources, nowMillis)).getHash());
+        Assert.assertEquals(new Hash(3L), sourceBucket.get(sourceBucket.findByTotalAge(4000, olderSources, nowMillis)).getHash());
+        Assert.assertEquals(new Hash(2L), sourceBucket.get(sourceBucket.findByTotalAge(7999, olderSources, nowMillis)).getHash());
+    }
+
+    private TransactionData createSource(long hash, double senderTrustScore, long attachmentMillis) {
+        TransactionData transactionData = new TransactionData(new ArrayList<>(), new Hash(hash), "source", senderTrustScore, Instant.now(), TransactionType.Transfer);
+        transactionData.setAttachmentTime(Instant.ofEpochMilli(attachmentMillis));
+        return transactionData;
+    }
+}
@@ -0,0 +1,83 @@
+package io.coti.basenode.database;
+
+import io.coti.basenode.database.interfaces.IDatabaseConnector;
+import io.coti.basenode.model.*;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.rocksdb.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@ContextConfiguration(classes = {BaseNodeRocksDBConnector.class,
+        Transactions.class, Addresses.class, AddressTransactionsHistories.class, AddressTransactionsIndexes.class,
+        TransactionIndexes.class, TransactionVotes.class, NodeRegistrations.class, Currencies.class,
+        CurrencyNameIndexes.class, UserCurrencyIndexes.class, NodeFees.class
+})
+@TestPropertySource(locations = "classpath:test.properties", properties = {"data.path=target/", "application.name=CompactionStyle",
+        "database.folder.name=RocksDB", "db.drop.column.families=false", "reset.transactions=false"})
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class BaseNodeRocksDBConnectorTest {
+
+    private static final String DB_PATH = "target/CompactionStyleRocksDB";
+    @Autowired
+    private IDatabaseConnector databaseConnector;
+
+    @Before
+    public void init() throws RocksDBException {
+        RocksDB.loadLibrary();
+        try (ColumnFamilyOptions universalColumnFamilyOptions = new ColumnFamilyOptions().optimizeUniversalStyleCompaction();
+             DBOptions dbOptions = new DBOptions().setCreateIfMissing(true).setCreateMissingColumnFamilies(true)) {
+            List<ColumnFamilyDescriptor> columnFamilyDescriptors = Arrays.asList(
+                    new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, universalColumnFamilyOptions),
+                    new ColumnFamilyDescriptor(Transactions.class.getName().getBytes(StandardCharsets.UTF_8), universalColumnFamilyOptions));
+            List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>();
+            try (RocksDB db = RocksDB.open(dbOptions, DB_PATH, columnFamilyDescriptors, columnFamilyHandles)) {
+                columnFamilyHandles.forEach(ColumnFamilyHandle::close);
+            }
+        }
+    }
+
+    @After
+    public void close() throws IOException {
+        FileUtils.deleteDirectory(new File(DB_PATH));
+    }
+
+    @Test
+    public void init_existingUniversalColumnFamily_keepsCompactionStyle() throws RocksDBException {
+        databaseConnector.init();
+        databaseConnector.shutdown();
+        databaseConnector.init();
+        databaseConnector.shutdown();
+
+        Map<String, CompactionStyle> columnFamilyNameToCompactionStyle = getColumnFamilyCompactionStyles();
+        Assert.assertEquals(CompactionStyle.UNIVERSAL, columnFamilyNameToCompactionStyle.get(Transactions.class.getName()));
+        Assert.assertEquals(ColumnFamilyProfile.INDEX.getCompactionStyle(), columnFamilyNameToCompactionStyle.get(Addresses.class.getName()));
+        Assert.assertEquals(ColumnFamilyProfile.WRITE_HEAVY.getCompactionStyle(), columnFamilyNameToCompactionStyle.get(AddressTransactionsHistories.class.getName()));
+    }
+
+    private Map<String, CompactionStyle> getColumnFamilyCompactionStyles() throws RocksDBException {
+        Map<String, CompactionStyle> columnFamilyNameToCompactionStyle = new HashMap<>();
+        List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>();
+        try (DBOptions dbOptions = new DBOptions()) {
+            OptionsUtil.loadLatestOptions(DB_PATH, Env.getDefault(), dbOptions, columnFamilyDescriptors, true);
+            columnFamilyDescriptors.forEach(columnFamilyDescriptor -> columnFamilyNameToCompactionStyle.put(
+                    new String(columnFamilyDescriptor.getName(), StandardCharsets.UTF_8), columnFamilyDescriptor.getOptions().compactionStyle()));
+        } finally {
+            columnFamilyDescriptors.forEach(columnFamilyDescriptor -> columnFamilyDescriptor.getOptions().close());
+        }
+        return columnFamilyNameToCompactionStyle;
+    }
+}
@@ -0,0 +1,133 @@
+package io.coti.basenode.database.backup;
+
+import io.coti.basenode.data.BackupCatalogEntryData;
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.database.BaseNodeRocksDBConnector;
+import io.coti.basenode.database.interfaces.IDatabaseConnector;
+import io.coti.basenode.exceptions.DataBaseRestoreException;
+import io.coti.basenode.model.*;
+import io.coti.basenode.utils.TransactionTestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@ContextConfiguration(classes = {BaseNodeRocksDBConnector.class,
+        Transactions.class, Addresses.class, AddressTransactionsHistories.class, AddressTransactionsIndexes.class,
+        TransactionIndexes.class, TransactionVotes.class, NodeRegistrations.class, Currencies.class,
+        CurrencyNameIndexes.class, UserCurrencyIndexes.class, NodeFees.class
+})
+@TestPropertySource(locations = "classpath:test.properties", properties = {"data.path=target/", "application.name=IncrementalBackup",
+        "database.folder.name=RocksDB", "db.drop.column.families=false", "reset.transactions=true"})
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class IncrementalBackupEngineTest {
+
+    private static final int GENERATED_TRANSACTIONS = 1000;
+    private static final String BUCKET_NAME = "bucket";
+    private static final String BACKUP_PATH = "network/IncrementalBackup/node";
+    @Autowired
+    private IDatabaseConnector databaseConnector;
+    @Autowired
+    private Transactions transactions;
+    private Path backupsPath;
+    private Path storagePath;
+    private IncrementalBackupEngine incrementalBackupEngine;
+
+    @Before
+    public void init() throws IOException {
+        databaseConnector.init();
+        backupsPath = Files.createDirectories(Paths.get(databaseConnector.getDBPath(), "backups"));
+        storagePath = Files.createTempDirectory("backup-storage");
+        incrementalBackupEngine = new IncrementalBackupEngine(new LocalBackupStorage(storagePath), new BackupCatalog(backupsPath.resolve("backup-catalog.json")), 4, 0);
+    }
+
+    @After
+    public void close() throws IOException {
+        String dbPath = databaseConnector.getDBPath();
+        databaseConnector.shutdown();
+        FileUtils.deleteDirectory(new File(dbPath));
+        FileUtils.deleteDirectory(storagePath.toFile());
+    }
+
+    @Test
+    public void backup_secondCheckpoint_onlyNewSstFilesUploaded() throws IOException {
+        putTransactions();
+        BackupCatalogEntryData firstBackup = backup();
+        putTransactions();
+        BackupCatalogEntryData secondBackup = backup();
+
+        Assert.assertEquals(firstBackup.getNumberOfFiles(), firstBackup.getUploadedFiles());
+        Assert.assertTrue(secondBackup.getUploadedFiles() < secondBackup.getNumberOfFiles());
+        Assert.assertTrue(secondBackup.getUploadedSize() < secondBackup.getSize());
+    }
+
+    @Test
+    public void restoreLatestBackup_olderBackupsRemoved_sameTransactions() throws IOException {
+        List<TransactionData> backedUpTransactions = putTransactions();
+        backup();
+        backedUpTransactions.addAll(putTransactions());
+        backup();
+        incrementalBackupEngine.removeOlderBackups(BUCKET_NAME, BACKUP_PATH, 1);
+        TransactionData transactionAfterBackup = putTransactions().get(0);
+
+        File restoreFolder = Files.createDirectories(backupsPath.resolve("restore")).toFile();
+        Assert.assertTrue(incrementalBackupEngine.restoreLatestBackup(BUCKET_NAME, BACKUP_PATH, restoreFolder));
+        databaseConnector.restoreDataBaseFromCheckpoint(restoreFolder.getPath());
+
+        backedUpTransactions.forEach(transactionData -> Assert.assertNotNull(transactions.getByHash(transactionData.getHash())));
+        Assert.assertNull(transactions.getByHash(transactionAfterBackup.getHash()));
+        Assert.assertEquals(1, new BackupCatalog(backupsPath.resolve("backup-catalog.json")).getBackups().size());
+    }
+
+    @Test(expected = DataBaseRestoreException.class)
+    public void restoreLatestBackup_corruptedSstFile_restoreException() throws IOException {
+        putTransactions();
+        backup();
+        Path storedSstFile;
+        try (Stream<Path> storedFiles = Files.walk(storagePath)) {
+            storedSstFile = storedFiles.filter(path -> path.toString().endsWith(".sst")).findFirst().orElseThrow(IllegalStateException::new);
+        }
+        byte[] content = Files.readAllBytes(storedSstFile);
+        content[content.length / 2] ^= 1;
+        Files.write(storedSstFile, content);
+
+        incrementalBackupEngine.restoreLatestBackup(BUCKET_NAME, BACKUP_PATH, Files.createDirectories(backupsPath.resolve("restore")).toFile());
+    }
+
+    private List<TransactionData> putTransactions() {
+        Map<Hash, TransactionData> transactionBatch = new HashMap<>();
+        for (int i = 0; i < GENERATED_TRANSACTIONS; i++) {
+            TransactionData transactionData = TransactionTestUtils.createRandomTransactionWithSenderAddress();
+            transactionBatch.put(transactionData.getHash(), transactionData);
+        }
+        transactions.putBatch(transactionBatch);
+        return new ArrayList<>(transactionBatch.values());
+    }
+
+    private BackupCatalogEntryData backup() throws IOException {
+        File checkpointFolder = backupsPath.resolve("checkpoint").toFile();
+        FileUtils.deleteDirectory(checkpointFolder);
+        databaseConnector.createCheckpoint(checkpointFolder.getPath());
+        return incrementalBackupEngine.backup(checkpointFolder, BUCKET_NAME, BACKUP_PATH);
+    }
+}
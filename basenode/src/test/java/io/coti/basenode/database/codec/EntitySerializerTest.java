@@ -0,0 +1,190 @@
+package io.coti.basenode.database.codec;
+
+import io.coti.basenode.data.*;
+import io.coti.basenode.exceptions.EntityCodecException;
+import io.coti.basenode.utils.TransactionTestUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.util.SerializationUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.coti.basenode.utils.TestConstants.SIZE_OF_HASH;
+
+@Slf4j
+public class EntitySerializerTest {
+
+    private static final int BENCHMARK_WARM_UP_ITERATIONS = 20000;
+    private static final int BENCHMARK_ITERATIONS = 100000;
+    private final TransactionDataCodec transactionDataCodec = new TransactionDataCodec();
+    private final TransactionIndexDataCodec transactionIndexDataCodec = new TransactionIndexDataCodec();
+    private final AddressTransactionsHistoryCodec addressTransactionsHistoryCodec = new AddressTransactionsHistoryCodec();
+    private final AddressTransactionIndexDataCodec addressTransactionIndexDataCodec = new AddressTransactionIndexDataCodec();
+
+    @Test
+    public void serialize_transactionData_roundTrip() {
+        TransactionData transactionData = createFullTransaction();
+
+        byte[] encoded = EntitySerializer.serialize(transactionData, transactionDataCodec);
+        TransactionData decoded = EntitySerializer.deserialize(encoded, transactionDataCodec);
+
+        Assert.assertTrue(EntitySerializer.isBinaryFormat(encoded));
+        Assert.assertEquals(transactionData.getHash(), decoded.getHash());
+        Assert.assertEquals(transactionData.getBaseTransactions().size(), decoded.getBaseTransactions().size());
+        Assert.assertEquals(transactionData.getBaseTransactions().get(1).getClass(), decoded.getBaseTransactions().get(1).getClass());
+        Assert.assertEquals(transactionData.getBaseTransactions().get(1).getAmount(), decoded.getBaseTransactions().get(1).getAmount());
+        Assert.assertEquals(transactionData.getAttachmentTime(), decoded.getAttachmentTime());
+        Assert.assertEquals(transactionData.getChildrenTransactionHashes(), decoded.getChildrenTransactionHashes());
+        Assert.assertEquals(transactionData.getDspConsensusResult().getIndex(), decoded.getDspConsensusResult().getIndex());
+        Assert.assertArrayEquals(transactionData.getNonces(), decoded.getNonces());
+        Assert.assertArrayEquals(encoded, EntitySerializer.serialize(decoded, transactionDataCodec));
+    }
+
+    @Test
+    public void deserialize_legacyTransactionData_readsJavaSerialization() {
+        TransactionData transactionData = createFullTransaction();
+
+        byte[] legacy = SerializationUtils.serialize(transactionData);
+        TransactionData decoded = EntitySerializer.deserialize(legacy, transactionDataCodec);
+
+        Assert.assertTrue(EntitySerializer.isLegacyFormat(legacy));
+        Assert.assertEquals(transactionData.getHash(), decoded.getHash());
+        Assert.assertArrayEquals(EntitySerializer.serialize(transactionData, transactionDataCodec), EntitySerializer.serialize(decoded, transactionDataCodec));
+    }
+
+    @Test
+    public void serialize_transactionIndexAndAddressHistory_roundTrip() {
+        TransactionIndexData transactionIndexData = new TransactionIndexData(TransactionTestUtils.generateRandomHash(), 12345L, TransactionTestUtils.generateRandomHash().getBytes());
+        TransactionIndexData decodedIndex = EntitySerializer.deserialize(EntitySerializer.serialize(transactionIndexData, transactionIndexDataCodec), transactionIndexDataCodec);
+        Assert.assertEquals(transactionIndexData, decodedIndex);
+
+        AddressTransactionsHistory addressTransactionsHistory = new AddressTransactionsHistory(TransactionTestUtils.generateRandomAddressHash());
+        for (int i = 0; i < 100; i++) {
+            addressTransactionsHistory.addTransactionHashToHistory(TransactionTestUtils.generateRandomHash());
+        }
+        AddressTransactionsHistory decodedHistory = EntitySerializer.deserialize(EntitySerializer.serialize(addressTransactionsHistory, addressTransactionsHistoryCodec), addressTransactionsHistoryCodec);
+        Assert.assertEquals(addressTransactionsHistory.getCreationTime(), decodedHistory.getCreationTime());
+        Assert.assertEquals(addressTransactionsHistory.getTransactionsHistory(), decodedHistory.getTransactionsHistory());
+    }
+
+    @Test
+    public void serialize_addressTransactionIndex_keyOrderedByAttachmentTime() {
+        Hash addressHash = TransactionTestUtils.generateRandomAddressHash();
+        Instant attachmentTime = Instant.ofEpochSecond(1577836800L, 500);
+        AddressTransactionIndexData earlierIndexData = new AddressTransactionIndexData(addressHash, attachmentTime, TransactionTestUtils.generateRandomHash());
+        AddressTransactionIndexData laterIndexData = new AddressTransactionIndexData(addressHash, attachmentTime.plusNanos(1), TransactionTestUtils.generateRandomHash());
+
+        AddressTransactionIndexData decodedIndexData = EntitySerializer.deserialize(EntitySerializer.serialize(earlierIndexData, addressTransactionIndexDataCodec), addressTransactionIndexDataCodec);
+
+        Assert.assertEquals(earlierIndexData, decodedIndexData);
+        Assert.assertEquals(earlierIndexData.getTransactionHash(), AddressTransactionIndexData.getTransactionHash(earlierIndexData.getHash().getBytes()));
+        Assert.assertTrue(compareUnsigned(earlierIndexData.getHash().getBytes(), laterIndexData.getHash().getBytes()) < 0);
+        Assert.assertTrue(compareUnsigned(AddressTransactionIndexData.getAddressPrefix(addressHash, attachmentTime), earlierIndexData.getHash().getBytes()) < 0);
+    }
+
+    @Test
+    public void readEnum_writtenByName_roundTripAndNull() {
+        BinaryEntityWriter writer = new BinaryEntityWriter();
+        writer.writeEnum(TransactionType.Transfer);
+        writer.writeEnum(null);
+        writer.writeEnum(Event.TRUST_SCORE_CONSENSUS);
+
+        BinaryEntityReader reader = new BinaryEntityReader(writer.toByteArray(), 0);
+        Assert.assertEquals(TransactionType.Transfer, reader.readEnum(TransactionType.class));
+        Assert.assertNull(reader.readEnum(TransactionType.class));
+        Assert.assertEquals(Event.TRUST_SCORE_CONSENSUS, reader.readEnum(Event.class));
+        Assert.assertFalse(reader.hasRemaining());
+    }
+
+    @Test(expected = EntityCodecException.class)
+    public void readEnum_unknownName_entityCodecException() {
+        BinaryEntityWriter writer = new BinaryEntityWriter();
+        writer.writeString("UnknownTransactionType");
+
+        new BinaryEntityReader(writer.toByteArray(), 0).readEnum(TransactionType.class);
+    }
+
+    private int compareUnsigned(byte[] first, byte[] second) {
+        for (int i = 0; i < Math.min(first.length, second.length); i++) {
+            int result = Integer.compare(first[i] & 0xFF, second[i] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(first.length, second.length);
+    }
+
+    @Test
+    public void benchmark_binaryCodec_againstJavaSerialization() {
+        Assume.assumeTrue("Run with -Dcodec.benchmark=true", Boolean.getBoolean("codec.benchmark"));
+        TransactionData transactionData = createFullTransaction();
+        byte[] legacy = SerializationUtils.serialize(transactionData);
+        byte[] binary = EntitySerializer.serialize(transactionData, transactionDataCodec);
+
+        double legacyEncodeRate = measure(() -> SerializationUtils.serialize(transactionData));
+        double binaryEncodeRate = measure(() -> EntitySerializer.serialize(transactionData, transactionDataCodec));
+        double legacyDecodeRate = measure(() -> SerializationUtils.deserialize(legacy));
+        double binaryDecodeRate = measure(() -> EntitySerializer.deserialize(binary, transactionDataCodec));
+
+        log.info("TransactionData bytes per entity: java={}, binary={}", legacy.length, binary.length);
+        log.info("TransactionData encode ops/sec: java={}, binary={}", (long) legacyEncodeRate, (long) binaryEncodeRate);
+        log.info("TransactionData decode ops/sec: java={}, binary={}", (long) legacyDecodeRate, (long) binaryDecodeRate);
+        Assert.assertTrue(binary.length < legacy.length);
+    }
+
+    private double measure(Runnable runnable) {
+        for (int i = 0; i < BENCHMARK_WARM_UP_ITERATIONS; i++) {
+            runnable.run();
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            runnable.run();
+        }
+        return BENCHMARK_ITERATIONS * 1e9 / (System.nanoTime() - startTime);
+    }
+
+    private TransactionData createFullTransaction() {
+        TransactionData transactionData = TransactionTestUtils.createRandomTransactionWithSenderAddress();
+        Instant now = Instant.now();
+        List<BaseTransactionData> baseTransactions = new ArrayList<>(transactionData.getBaseTransactions());
+        FullNodeFeeData fullNodeFeeData = new FullNodeFeeData(TransactionTestUtils.generateRandomAddressHash(), TransactionTestUtils.generateRandomHash(SIZE_OF_HASH),
+                new BigDecimal("0.01"), TransactionTestUtils.generateRandomHash(SIZE_OF_HASH), new BigDecimal("0.01"), now);
+        fullNodeFeeData.setHash(TransactionTestUtils.generateRandomHash());
+        fullNodeFeeData.setSignature(new SignatureData("0af936b4ddb6e33269f63d52586ffa3ce7d9358a2fed7fde9536e19a70723860", "c3a122626df0b7c9d731a8eb9cd42abce7fdd477c591d9f6569be8561ad27639"));
+        baseTransactions.add(fullNodeFeeData);
+        NetworkFeeData networkFeeData = new NetworkFeeData(TransactionTestUtils.generateRandomAddressHash(), TransactionTestUtils.generateRandomHash(SIZE_OF_HASH),
+                new BigDecimal("0.02"), TransactionTestUtils.generateRandomHash(SIZE_OF_HASH), new BigDecimal("0.02"), new BigDecimal("0.02"), now);
+        networkFeeData.setHash(TransactionTestUtils.generateRandomHash());
+        networkFeeData.setNetworkFeeTrustScoreNodeResult(Collections.singletonList(new TrustScoreNodeResultData(TransactionTestUtils.generateRandomHash(), true)));
+        baseTransactions.add(networkFeeData);
+        ReceiverBaseTransactionData receiverBaseTransactionData = new ReceiverBaseTransactionData(TransactionTestUtils.generateRandomAddressHash(), TransactionTestUtils.generateRandomHash(SIZE_OF_HASH),
+                new BigDecimal("100.5"), TransactionTestUtils.generateRandomHash(SIZE_OF_HASH), new BigDecimal("100.5"), now);
+        receiverBaseTransactionData.setHash(TransactionTestUtils.generateRandomHash());
+        baseTransactions.add(receiverBaseTransactionData);
+        transactionData.setBaseTransactions(baseTransactions);
+        transactionData.setAmount(new BigDecimal("100.53"));
+        transactionData.setLeftParentHash(TransactionTestUtils.generateRandomHash());
+        transactionData.setRightParentHash(TransactionTestUtils.generateRandomHash());
+        transactionData.setAttachmentTime(now);
+        transactionData.setTrustChainConsensus(true);
+        transactionData.setTrustChainTrustScore(125.5);
+        transactionData.setChildrenTransactionHashes(new ArrayList<>(Arrays.asList(TransactionTestUtils.generateRandomHash(), TransactionTestUtils.generateRandomHash())));
+        transactionData.setNonces(new int[]{1, 2, 3, 4, 5, 6, 7, 8});
+        transactionData.setTrustScoreResults(Collections.singletonList(new TransactionTrustScoreData(75.5)));
+        DspConsensusResult dspConsensusResult = new DspConsensusResult(transactionData.getHash());
+        dspConsensusResult.setIndex(42);
+        dspConsensusResult.setIndexingTime(now);
+        dspConsensusResult.setDspConsensus(true);
+        dspConsensusResult.setDspVotes(new ArrayList<>());
+        transactionData.setDspConsensusResult(dspConsensusResult);
+        transactionData.setValid(true);
+        return transactionData;
+    }
+}
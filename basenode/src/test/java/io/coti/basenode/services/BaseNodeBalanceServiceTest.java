@@ -23,7 +23,6 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 
 import static io.coti.basenode.utils.HashTestUtils.generateRandomAddressHash;
@@ -64,16 +63,12 @@ public class BaseNodeBalanceServiceTest {
         List<Hash> addresses = Arrays.asList(addressHash1, addressHash2);
         getCurrencyBalanceRequest.setAddresses(addresses);
 
-        HashMap<Hash, BigDecimal> currencyHashToAmountMap1 = new HashMap<>();
-        currencyHashToAmountMap1.put(tokenHash1, BigDecimal.TEN);
-        currencyHashToAmountMap1.put(tokenHash2, BigDecimal.ONE);
-        balanceService.balanceMap.put(addressHash1, currencyHashToAmountMap1);
-        balanceService.balanceMap.put(addressHash2, currencyHashToAmountMap1);
-        HashMap<Hash, BigDecimal> currencyHashToAmountMap2 = new HashMap<>();
-        currencyHashToAmountMap2.put(tokenHash1, BigDecimal.ZERO);
-        currencyHashToAmountMap2.put(tokenHash2, BigDecimal.ONE);
-        balanceService.preBalanceMap.put(addressHash1, currencyHashToAmountMap2);
-        balanceService.preBalanceMap.put(addressHash2, currencyHashToAmountMap2);
+        for (Hash addressHash : addresses) {
+            balanceService.updateBalance(addressHash, tokenHash1, BigDecimal.TEN);
+            balanceService.updateBalance(addressHash, tokenHash2, BigDecimal.ONE);
+            balanceService.updatePreBalance(addressHash, tokenHash1, BigDecimal.ZERO);
+            balanceService.updatePreBalance(addressHash, tokenHash2, BigDecimal.ONE);
+        }
         ResponseEntity<IResponse> currencyBalances = balanceService.getTokenBalances(getCurrencyBalanceRequest);
 
         Assert.assertEquals(HttpStatus.OK, currencyBalances.getStatusCode());
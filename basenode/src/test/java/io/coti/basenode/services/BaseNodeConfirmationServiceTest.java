@@ -5,7 +5,7 @@ import io.coti.basenode.crypto.TransactionCrypto;
 import io.coti.basenode.data.*;
 import io.coti.basenode.http.GetTransactionResponse;
 import io.coti.basenode.http.interfaces.IResponse;
-import io.coti.basenode.model.AddressTransactionsHistories;
+import io.coti.basenode.model.AddressTransactionsIndexes;
 import io.coti.basenode.model.TransactionIndexes;
 import io.coti.basenode.model.Transactions;
 import io.coti.basenode.services.interfaces.*;
@@ -57,7 +57,7 @@ public class BaseNodeConfirmationServiceTest {
     BaseNodeEventService baseNodeEventService;
 
     @MockBean
-    private AddressTransactionsHistories addressTransactionsHistories;
+    private AddressTransactionsIndexes addressTransactionsIndexes;
     @MockBean
     private TransactionCrypto transactionCrypto;
     @MockBean
@@ -6,7 +6,7 @@ import io.coti.basenode.data.*;
 import io.coti.basenode.http.GetTransactionResponse;
 import io.coti.basenode.http.Response;
 import io.coti.basenode.http.interfaces.IResponse;
-import io.coti.basenode.model.AddressTransactionsHistories;
+import io.coti.basenode.model.AddressTransactionsIndexes;
 import io.coti.basenode.model.TransactionIndexes;
 import io.coti.basenode.model.Transactions;
 import io.coti.basenode.services.interfaces.*;
@@ -48,7 +48,7 @@ public class BaseNodeEventServiceTest {
     private Transactions transactions;
 
     @MockBean
-    private AddressTransactionsHistories addressTransactionsHistories;
+    private AddressTransactionsIndexes addressTransactionsIndexes;
     @MockBean
     private TransactionCrypto transactionCrypto;
     @MockBean
@@ -33,7 +33,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 
-@ContextConfiguration(classes = {BaseNodeTransactionHelper.class, BaseNodeTransactionService.class, AddressTransactionsHistories.class,
+@ContextConfiguration(classes = {BaseNodeTransactionHelper.class, BaseNodeTransactionService.class, AddressTransactionsIndexes.class,
         TransactionCrypto.class, BaseNodeBalanceService.class, BaseNodeConfirmationService.class, ClusterService.class, Transactions.class,
         TransactionIndexes.class, ExpandedTransactionTrustScoreCrypto.class, BaseNodeCurrencyService.class, BaseNodeMintingService.class,
         BaseNodeEventService.class, INetworkService.class, CurrencyNameIndexes.class, TransactionIndexService.class,
@@ -54,7 +54,7 @@ public class BaseNodeTransactionHelperTest {
     @Autowired
     private ITransactionHelper transactionHelper;
     @Autowired
-    private AddressTransactionsHistories addressTransactionsHistories;
+    private AddressTransactionsIndexes addressTransactionsIndexes;
     @Autowired
     private TransactionCrypto transactionCrypto;
     @MockBean
@@ -0,0 +1,198 @@
+package io.coti.basenode.services;
+
+import io.coti.basenode.crypto.CryptoHelper;
+import io.coti.basenode.data.ClusterStampBalancesData;
+import io.coti.basenode.data.ClusterStampData;
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.SignatureData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+public class ClusterStampLoaderTest {
+
+    private static final String[] BALANCE_LINES = {"aabbccdd,5.10", "AABBCCDE,-0.00,0011", "aabbccdf,+7", "  aabbcce0,007.500  ", "aabbcce1,.5",
+            "aabbcce2,5.", "aabbcce3,1E3", "aabbcce4,123456789012345678901234.5", "aabbcce5,0", "abc,1", "aabbcce6,3,ffee,", "aabbcce7,4,,",
+            "aabbcce8,999999999999999999", "aabbcce9,1000000000000000000", "aabbccea,0.000000000000000000001", "aabbcceb,-12345.6789", "aabbccec,100.00"};
+    private static final String[] LINE_SEPARATORS = {"\r\n", "\n", "\r"};
+    private static final int BENCHMARK_ADDRESSES = 5000000;
+    private static final int ADDRESS_HASH_LENGTH = 68;
+    private static final String CURRENCY_HASH = "00aa00aa00aa00aa00aa00aa00aa00aa00aa00aa00aa00aa00aa00aa00aa00aa";
+    private final ClusterStampLoader clusterStampLoader = new ClusterStampLoader();
+
+    @Before
+    public void init() {
+        ReflectionTestUtils.setField(clusterStampLoader, "loadThreads", 4);
+        ReflectionTestUtils.setField(clusterStampLoader, "loadChunkSize", 16);
+    }
+
+    @Test
+    public void loadCsvBalances_smallChunks_sameBalancesAndMessageAsSequentialRead() throws IOException {
+        File clusterStampFile = createClusterStampFile();
+        List<String> sequentialBalances = new ArrayList<>();
+        Hash sequentialMessageHash = readSequentially(clusterStampFile, sequentialBalances);
+
+        List<String> balances = Collections.synchronizedList(new ArrayList<>());
+        ClusterStampData clusterStampData = new ClusterStampData();
+        ClusterStampBalancesData clusterStampBalancesData = clusterStampLoader.loadCsvBalances(clusterStampFile, clusterStampData,
+                (addressHash, currencyHash, amount) -> balances.add(toBalance(addressHash, currencyHash, amount)));
+
+        Assert.assertEquals(sorted(sequentialBalances), sorted(balances));
+        Assert.assertEquals(sequentialMessageHash, clusterStampData.getSignatureMessageHash());
+        Assert.assertEquals(BALANCE_LINES.length, clusterStampBalancesData.getBalanceLines());
+        Assert.assertTrue(clusterStampBalancesData.getTrailingSection().trim().startsWith("# Signature"));
+    }
+
+    @Test
+    public void convertToBinaryClusterStamp_loadBinary_sameBalancesMessageAndSignature() throws IOException {
+        File clusterStampFile = createClusterStampFile();
+        File binaryClusterStampFile = new File(clusterStampFile.getPath() + ".bin");
+        binaryClusterStampFile.deleteOnExit();
+        List<String> sequentialBalances = new ArrayList<>();
+        Hash sequentialMessageHash = readSequentially(clusterStampFile, sequentialBalances);
+
+        clusterStampLoader.convertToBinaryClusterStamp(clusterStampFile, binaryClusterStampFile, new SignatureData("ab12", "cd34"));
+        List<String> balances = Collections.synchronizedList(new ArrayList<>());
+        ClusterStampData clusterStampData = clusterStampLoader.loadBinaryClusterStamp(binaryClusterStampFile,
+                (addressHash, currencyHash, amount) -> balances.add(toBalance(addressHash, currencyHash, amount)));
+
+        Assert.assertEquals(sorted(sequentialBalances), sorted(balances));
+        Assert.assertEquals(sequentialMessageHash, clusterStampData.getSignatureMessageHash());
+        Assert.assertEquals("ab12", clusterStampData.getSignature().getR());
+        Assert.assertEquals("cd34", clusterStampData.getSignature().getS());
+    }
+
+    @Test
+    public void isBinaryClusterStampCurrent_csvReplacedAfterConversion_notCurrent() throws IOException {
+        File clusterStampFile = createClusterStampFile();
+        File binaryClusterStampFile = new File(clusterStampFile.getPath() + ".bin");
+        binaryClusterStampFile.deleteOnExit();
+
+        clusterStampLoader.convertToBinaryClusterStamp(clusterStampFile, binaryClusterStampFile, new SignatureData("ab12", "cd34"));
+        Assert.assertTrue(clusterStampLoader.isBinaryClusterStampCurrent(clusterStampFile, binaryClusterStampFile));
+
+        long lastModified = clusterStampFile.lastModified();
+        Assert.assertTrue(clusterStampFile.setLastModified(lastModified + 2000));
+        Assert.assertFalse(clusterStampLoader.isBinaryClusterStampCurrent(clusterStampFile, binaryClusterStampFile));
+
+        try (Writer writer = new FileWriter(clusterStampFile, true)) {
+            writer.write("\n");
+        }
+        Assert.assertTrue(clusterStampFile.setLastModified(lastModified));
+        Assert.assertFalse(clusterStampLoader.isBinaryClusterStampCurrent(clusterStampFile, binaryClusterStampFile));
+        Assert.assertFalse(clusterStampLoader.isBinaryClusterStampCurrent(new File(clusterStampFile.getPath() + ".missing"), binaryClusterStampFile));
+    }
+
+    @Test
+    public void loadCsvBalances_syntheticFiveMillionAddressStamp_benchmark() throws IOException {
+        Assume.assumeTrue("Run with -Dclusterstamp.benchmark=true", Boolean.getBoolean("clusterstamp.benchmark"));
+        ReflectionTestUtils.setField(clusterStampLoader, "loadThreads", 0);
+        ReflectionTestUtils.setField(clusterStampLoader, "loadChunkSize", 8 << 20);
+        File clusterStampFile = createSyntheticClusterStampFile(BENCHMARK_ADDRESSES);
+        File binaryClusterStampFile = new File(clusterStampFile.getPath() + ".bin");
+        binaryClusterStampFile.deleteOnExit();
+
+        long startTime = System.nanoTime();
+        Hash sequentialMessageHash = readSequentially(clusterStampFile, null);
+        long sequentialMillis = (System.nanoTime() - startTime) / 1000000;
+
+        AtomicLong loadedBalances = new AtomicLong(0);
+        ClusterStampData clusterStampData = new ClusterStampData();
+        startTime = System.nanoTime();
+        clusterStampLoader.loadCsvBalances(clusterStampFile, clusterStampData, (addressHash, currencyHash, amount) -> loadedBalances.incrementAndGet());
+        long csvMillis = (System.nanoTime() - startTime) / 1000000;
+
+        clusterStampLoader.convertToBinaryClusterStamp(clusterStampFile, binaryClusterStampFile, new SignatureData("ab12", "cd34"));
+        startTime = System.nanoTime();
+        ClusterStampData binaryClusterStampData = clusterStampLoader.loadBinaryClusterStamp(binaryClusterStampFile, (addressHash, currencyHash, amount) -> {
+        });
+        long binaryMillis = (System.nanoTime() - startTime) / 1000000;
+
+        Assert.assertEquals(BENCHMARK_ADDRESSES, loadedBalances.get());
+        Assert.assertEquals(sequentialMessageHash, clusterStampData.getSignatureMessageHash());
+        Assert.assertEquals(sequentialMessageHash, binaryClusterStampData.getSignatureMessageHash());
+        log.info("Loading {} clusterstamp addresses: sequential read {} ms, csv loader {} ms ({} MB), binary loader {} ms ({} MB)", BENCHMARK_ADDRESSES,
+                sequentialMillis, csvMillis, clusterStampFile.length() >> 20, binaryMillis, binaryClusterStampFile.length() >> 20);
+    }
+
+    private File createClusterStampFile() throws IOException {
+        File clusterStampFile = File.createTempFile("clusterstamp", ".csv");
+        clusterStampFile.deleteOnExit();
+        try (Writer writer = new BufferedWriter(new FileWriter(clusterStampFile))) {
+            for (int i = 0; i < BALANCE_LINES.length; i++) {
+                writer.write(BALANCE_LINES[i]);
+                writer.write(LINE_SEPARATORS[i % LINE_SEPARATORS.length]);
+            }
+            writer.write("\n\n# Signature\nr,ab12\ns,cd34\n");
+        }
+        return clusterStampFile;
+    }
+
+    private File createSyntheticClusterStampFile(int addresses) throws IOException {
+        File clusterStampFile = File.createTempFile("clusterstamp", ".csv");
+        clusterStampFile.deleteOnExit();
+        Random random = new Random(addresses);
+        byte[] addressHash = new byte[ADDRESS_HASH_LENGTH];
+        try (Writer writer = new BufferedWriter(new FileWriter(clusterStampFile), 1 << 20)) {
+            for (int i = 0; i < addresses; i++) {
+                random.nextBytes(addressHash);
+                writer.write(new Hash(addressHash).toHexString());
+                writer.write(',');
+                writer.write(BigDecimal.valueOf(random.nextInt(1000000000), random.nextInt(9)).toPlainString());
+                if (i % 10 == 0) {
+                    writer.write(',');
+                    writer.write(CURRENCY_HASH);
+                }
+                writer.write('\n');
+            }
+            writer.write("\n# Signature\nr,ab12\ns,cd34\n");
+        }
+        return clusterStampFile;
+    }
+
+    private Hash readSequentially(File clusterStampFile, List<String> balances) throws IOException {
+        List<byte[]> signatureMessage = new ArrayList<>();
+        int messageByteSize = 0;
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(clusterStampFile))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null && !(line = line.trim()).isEmpty()) {
+                String[] lineDetails = line.split(",");
+                Hash addressHash = new Hash(lineDetails[0]);
+                BigDecimal amount = new BigDecimal(lineDetails[1]);
+                Hash currencyHash = lineDetails.length == 3 ? new Hash(lineDetails[2]) : null;
+                if (balances != null) {
+                    balances.add(toBalance(addressHash, currencyHash, amount));
+                }
+                byte[] amountInBytes = amount.stripTrailingZeros().toPlainString().getBytes();
+                byte[] currencyHashInBytes = currencyHash != null ? currencyHash.getBytes() : new byte[0];
+                byte[] balanceInBytes = ByteBuffer.allocate(addressHash.getBytes().length + amountInBytes.length + currencyHashInBytes.length)
+                        .put(addressHash.getBytes()).put(amountInBytes).put(currencyHashInBytes).array();
+                signatureMessage.add(balanceInBytes);
+                messageByteSize += balanceInBytes.length;
+            }
+        }
+        ByteBuffer signatureMessageBuffer = ByteBuffer.allocate(messageByteSize);
+        signatureMessage.forEach(signatureMessageBuffer::put);
+        return CryptoHelper.cryptoHash(signatureMessageBuffer.array());
+    }
+
+    private String toBalance(Hash addressHash, Hash currencyHash, BigDecimal amount) {
+        return addressHash + "/" + currencyHash + "/" + amount + "/" + amount.scale();
+    }
+
+    private List<String> sorted(List<String> balances) {
+        List<String> sortedBalances = new ArrayList<>(balances);
+        Collections.sort(sortedBalances);
+        return sortedBalances;
+    }
+}
@@ -0,0 +1,16 @@
+package io.coti.basenode.services;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelReplayServiceRangeBoundTest {
+
+    @Test
+    public void getRangeBound_ranges_coverKeyspaceInOrder() {
+        Assert.assertNull(ParallelReplayService.getRangeBound(0, 3));
+        Assert.assertArrayEquals(new byte[]{(byte) 0x55, (byte) 0x55}, ParallelReplayService.getRangeBound(1, 3));
+        Assert.assertArrayEquals(new byte[]{(byte) 0xAA, (byte) 0xAA}, ParallelReplayService.getRangeBound(2, 3));
+        Assert.assertNull(ParallelReplayService.getRangeBound(3, 3));
+        Assert.assertNull(ParallelReplayService.getRangeBound(1, 1));
+    }
+}
@@ -0,0 +1,102 @@
+package io.coti.basenode.services;
+
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.database.BaseNodeRocksDBConnector;
+import io.coti.basenode.database.interfaces.IDatabaseConnector;
+import io.coti.basenode.model.*;
+import io.coti.basenode.utils.TransactionTestUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ContextConfiguration(classes = {ParallelReplayService.class, BaseNodeRocksDBConnector.class,
+        Transactions.class, Addresses.class, AddressTransactionsHistories.class, AddressTransactionsIndexes.class,
+        TransactionIndexes.class, TransactionVotes.class, NodeRegistrations.class, Currencies.class,
+        CurrencyNameIndexes.class, UserCurrencyIndexes.class, NodeFees.class
+})
+@TestPropertySource(locations = "classpath:test.properties", properties = {"data.path=target/", "application.name=ReplayBenchmark",
+        "database.folder.name=RocksDB", "db.drop.column.families=false", "reset.transactions=true", "db.replay.ranges=8"})
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@Slf4j
+public class ParallelReplayServiceTest {
+
+    private static final int GENERATED_TRANSACTIONS = 200000;
+    private static final int GENERATION_BATCH_SIZE = 10000;
+    @Autowired
+    private ParallelReplayService parallelReplayService;
+    @Autowired
+    private IDatabaseConnector databaseConnector;
+    @Autowired
+    private Transactions transactions;
+
+    @BeforeClass
+    public static void checkBenchmarkEnabled() {
+        Assume.assumeTrue("Run with -Dreplay.benchmark=true", Boolean.getBoolean("replay.benchmark"));
+    }
+
+    @Before
+    public void init() {
+        databaseConnector.init();
+        Map<Hash, TransactionData> transactionBatch = new HashMap<>();
+        for (int i = 0; i < GENERATED_TRANSACTIONS; i++) {
+            TransactionData transactionData = TransactionTestUtils.createRandomTransactionWithSenderAddress();
+            transactionBatch.put(transactionData.getHash(), transactionData);
+            if (transactionBatch.size() == GENERATION_BATCH_SIZE) {
+                transactions.putBatch(transactionBatch);
+                transactionBatch.clear();
+            }
+        }
+        transactions.putBatch(transactionBatch);
+    }
+
+    @After
+    public void close() throws IOException {
+        String dbPath = databaseConnector.getDBPath();
+        databaseConnector.shutdown();
+        FileUtils.deleteDirectory(new File(dbPath));
+    }
+
+    @Test
+    public void replay_generatedDatabase_everyTransactionOnce() {
+        long startTime = System.nanoTime();
+        AtomicLong iteratedTransactions = new AtomicLong(0);
+        transactions.forEach(transactionData -> iteratedTransactions.incrementAndGet());
+        long singleIteratorMillis = (System.nanoTime() - startTime) / 1000000;
+
+        startTime = System.nanoTime();
+        Set<Hash> replayedTransactionHashes = ConcurrentHashMap.newKeySet();
+        AtomicLong replayedTransactions = new AtomicLong(0);
+        long replayed = parallelReplayService.replay(transactions, "transactions", transactionBatch -> {
+            transactionBatch.forEach(transactionData -> replayedTransactionHashes.add(transactionData.getHash()));
+            replayedTransactions.addAndGet(transactionBatch.size());
+        });
+        long parallelReplayMillis = (System.nanoTime() - startTime) / 1000000;
+
+        Assert.assertEquals(GENERATED_TRANSACTIONS, iteratedTransactions.get());
+        Assert.assertEquals(GENERATED_TRANSACTIONS, replayed);
+        Assert.assertEquals(GENERATED_TRANSACTIONS, replayedTransactions.get());
+        Assert.assertEquals(GENERATED_TRANSACTIONS, replayedTransactionHashes.size());
+        log.info("Reading {} transactions: single iterator {} ms, parallel replay {} ms", GENERATED_TRANSACTIONS, singleIteratorMillis, parallelReplayMillis);
+    }
+}
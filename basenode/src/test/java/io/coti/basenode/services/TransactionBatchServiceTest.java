@@ -0,0 +1,318 @@
+package io.coti.basenode.services;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import io.coti.basenode.communication.JacksonSerializer;
+import io.coti.basenode.communication.TransactionFrameReader;
+import io.coti.basenode.communication.TransactionFrameType;
+import io.coti.basenode.data.*;
+import io.coti.basenode.data.interfaces.IPropagatable;
+import io.coti.basenode.database.BaseNodeRocksDBConnector;
+import io.coti.basenode.database.interfaces.IDatabaseConnector;
+import io.coti.basenode.exceptions.TransactionException;
+import io.coti.basenode.model.*;
+import io.coti.basenode.services.interfaces.*;
+import io.coti.basenode.utils.TransactionTestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ContextConfiguration(classes = {TransactionBatchService.class, BaseNodeTransactionService.class, JacksonSerializer.class, BaseNodeRocksDBConnector.class,
+        Transactions.class, Addresses.class, AddressTransactionsHistories.class, AddressTransactionsIndexes.class,
+        TransactionIndexes.class, TransactionVotes.class, NodeRegistrations.class, Currencies.class,
+        CurrencyNameIndexes.class, UserCurrencyIndexes.class, NodeFees.class
+})
+@TestPropertySource(locations = "classpath:test.properties", properties = {"data.path=target/", "application.name=TransactionBatchTest",
+        "database.folder.name=RocksDB", "db.drop.column.families=false", "reset.transactions=true", "transaction.batch.chunk.size=10",
+        "transaction.batch.max.concurrent.requests=1", "transaction.batch.request.wait.seconds=1"})
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class TransactionBatchServiceTest {
+
+    private static final int INDEXED_TRANSACTIONS = 25;
+    private static final int NONE_INDEXED_TRANSACTIONS = 3;
+    private static final int MAXIMUM_FRAME_SIZE = 1 << 20;
+    @Autowired
+    private TransactionBatchService transactionBatchService;
+    @Autowired
+    private BaseNodeTransactionService transactionService;
+    @Autowired
+    private JacksonSerializer jacksonSerializer;
+    @Autowired
+    private IDatabaseConnector databaseConnector;
+    @Autowired
+    private Transactions transactions;
+    @Autowired
+    private TransactionIndexes transactionIndexes;
+    @MockBean
+    private TransactionIndexService transactionIndexService;
+    @MockBean
+    private ITransactionHelper transactionHelper;
+    @MockBean
+    private IValidationService validationService;
+    @MockBean
+    private IDspVoteService dspVoteService;
+    @MockBean
+    private IConfirmationService confirmationService;
+    @MockBean
+    private IClusterService clusterService;
+    @MockBean
+    private IClusterHelper clusterHelper;
+    @MockBean
+    private ICurrencyService currencyService;
+    @MockBean
+    private IMintingService mintingService;
+    @MockBean
+    private IChunkService chunkService;
+    @MockBean
+    private IEventService eventService;
+    private final List<Hash> indexedTransactionHashes = new ArrayList<>();
+    private final List<Hash> noneIndexedTransactionHashes = new ArrayList<>();
+
+    @Before
+    public void init() {
+        databaseConnector.init();
+        for (int index = 0; index < INDEXED_TRANSACTIONS; index++) {
+            TransactionData transactionData = TransactionTestUtils.createRandomTransaction();
+            DspConsensusResult dspConsensusResult = new DspConsensusResult(transactionData.getHash());
+            dspConsensusResult.setIndex(index);
+            dspConsensusResult.setIndexingTime(Instant.now());
+            dspConsensusResult.setDspConsensus(true);
+            dspConsensusResult.setDspVotes(new ArrayList<>());
+            transactionData.setDspConsensusResult(dspConsensusResult);
+            transactions.put(transactionData);
+            transactionIndexes.put(new TransactionIndexData(transactionData.getHash(), index, transactionData.getHash().getBytes()));
+            indexedTransactionHashes.add(transactionData.getHash());
+        }
+        for (int i = 0; i < NONE_INDEXED_TRANSACTIONS; i++) {
+            TransactionData transactionData = TransactionTestUtils.createRandomTransaction();
+            transactions.put(transactionData);
+            noneIndexedTransactionHashes.add(transactionData.getHash());
+        }
+        Set<Hash> noneIndexedHashes = new LinkedHashSet<>(noneIndexedTransactionHashes);
+        noneIndexedHashes.add(TransactionTestUtils.generateRandomHash());
+        when(transactionHelper.getNoneIndexedTransactionHashes()).thenReturn(noneIndexedHashes);
+        when(transactionIndexService.getLastTransactionIndexData()).thenReturn(getTransactionIndexData(INDEXED_TRANSACTIONS - 1));
+    }
+
+    @After
+    public void close() throws IOException {
+        String dbPath = databaseConnector.getDBPath();
+        databaseConnector.shutdown();
+        FileUtils.deleteDirectory(new File(dbPath));
+    }
+
+    @Test
+    public void sendTransactions_rangeOverSeveralChunks_chunkedInIndexOrder() throws IOException {
+        RecordingTransactionBatchWriter transactionBatchWriter = new RecordingTransactionBatchWriter();
+
+        Assert.assertEquals(22, transactionBatchService.sendTransactions(3, 24, false, transactionBatchWriter));
+        Assert.assertEquals(indexedTransactionHashes.subList(3, 25), transactionBatchWriter.transactionHashes);
+        Assert.assertEquals(Arrays.asList(10, 10, 2), transactionBatchWriter.chunkSizes);
+        Assert.assertEquals(-1, transactionBatchWriter.noneIndexedStart);
+    }
+
+    @Test
+    public void sendTransactions_lastIndexGrowsDuringRequest_lastIndexReadAgain() throws IOException {
+        when(transactionIndexService.getLastTransactionIndexData()).thenReturn(getTransactionIndexData(14), getTransactionIndexData(INDEXED_TRANSACTIONS - 1));
+        RecordingTransactionBatchWriter transactionBatchWriter = new RecordingTransactionBatchWriter();
+
+        Assert.assertEquals(INDEXED_TRANSACTIONS, transactionBatchService.sendTransactions(0, TransactionBatchService.LAST_INDEX, false, transactionBatchWriter));
+        Assert.assertEquals(indexedTransactionHashes, transactionBatchWriter.transactionHashes);
+        Assert.assertEquals(Arrays.asList(10, 5, 10), transactionBatchWriter.chunkSizes);
+    }
+
+    @Test
+    public void sendTransactions_missingIndex_transactionException() {
+        transactionIndexes.deleteByHash(new Hash(12L));
+        RecordingTransactionBatchWriter transactionBatchWriter = new RecordingTransactionBatchWriter();
+
+        assertTransactionException("Transaction index 12 is missing", () -> transactionBatchService.sendTransactions(0, 24, false, transactionBatchWriter));
+        Assert.assertEquals(indexedTransactionHashes.subList(0, 10), transactionBatchWriter.transactionHashes);
+    }
+
+    @Test
+    public void sendTransactions_endingIndexAfterLastIndex_transactionException() {
+        RecordingTransactionBatchWriter transactionBatchWriter = new RecordingTransactionBatchWriter();
+
+        assertTransactionException("Transaction index 25 is missing", () -> transactionBatchService.sendTransactions(20, 30, false, transactionBatchWriter));
+        Assert.assertEquals(indexedTransactionHashes.subList(20, 25), transactionBatchWriter.transactionHashes);
+    }
+
+    @Test
+    public void sendTransactions_missingIndexedTransaction_transactionException() {
+        Hash missingTransactionHash = indexedTransactionHashes.get(15);
+        transactions.deleteByHash(missingTransactionHash);
+        RecordingTransactionBatchWriter transactionBatchWriter = new RecordingTransactionBatchWriter();
+
+        assertTransactionException(String.format("Indexed transaction %s is missing", missingTransactionHash),
+                () -> transactionBatchService.sendTransactions(0, 24, false, transactionBatchWriter));
+        Assert.assertEquals(indexedTransactionHashes.subList(0, 15), transactionBatchWriter.transactionHashes);
+    }
+
+    @Test
+    public void sendTransactions_includeNoneIndexed_noneIndexedTailAfterMarker() throws IOException {
+        RecordingTransactionBatchWriter transactionBatchWriter = new RecordingTransactionBatchWriter();
+
+        Assert.assertEquals(5 + NONE_INDEXED_TRANSACTIONS, transactionBatchService.sendTransactions(20, TransactionBatchService.LAST_INDEX, true, transactionBatchWriter));
+        List<Hash> expectedTransactionHashes = new ArrayList<>(indexedTransactionHashes.subList(20, 25));
+        expectedTransactionHashes.addAll(noneIndexedTransactionHashes);
+        Assert.assertEquals(expectedTransactionHashes, transactionBatchWriter.transactionHashes);
+        Assert.assertEquals(5, transactionBatchWriter.noneIndexedStart);
+        Assert.assertEquals(Arrays.asList(5, NONE_INDEXED_TRANSACTIONS), transactionBatchWriter.chunkSizes);
+    }
+
+    @Test
+    public void sendTransactions_allPermitsTaken_transactionExceptionAfterWait() throws InterruptedException, IOException {
+        CountDownLatch firstRequestStarted = new CountDownLatch(1);
+        CountDownLatch firstRequestReleased = new CountDownLatch(1);
+        AtomicReference<Exception> firstRequestException = new AtomicReference<>();
+        Thread firstRequestThread = new Thread(() -> {
+            try {
+                transactionBatchService.sendTransactions(0, 24, false, new RecordingTransactionBatchWriter() {
+                    @Override
+                    public void writeTransaction(Hash transactionHash, byte[] serializedTransaction) {
+                        firstRequestStarted.countDown();
+                        try {
+                            firstRequestReleased.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            } catch (Exception e) {
+                firstRequestException.set(e);
+            }
+        });
+        firstRequestThread.start();
+        Assert.assertTrue(firstRequestStarted.await(10, TimeUnit.SECONDS));
+
+        long startTime = System.nanoTime();
+        assertTransactionException("Too many concurrent transaction batch requests: 1", () -> transactionBatchService.sendTransactions(0, 24, false, new RecordingTransactionBatchWriter()));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) >= 1000);
+
+        firstRequestReleased.countDown();
+        firstRequestThread.join();
+        Assert.assertNull(firstRequestException.get());
+        Assert.assertEquals(INDEXED_TRANSACTIONS, transactionBatchService.sendTransactions(0, 24, false, new RecordingTransactionBatchWriter()));
+    }
+
+    @Test
+    public void getFramedTransactionBatch_sameTransactionsAsLegacyBatch() throws IOException {
+        ByteArrayOutputStream legacyOutputStream = new ByteArrayOutputStream();
+        transactionService.getTransactionBatch(0, mockResponse(legacyOutputStream));
+        ByteArrayOutputStream framedOutputStream = new ByteArrayOutputStream();
+        transactionService.getFramedTransactionBatch(0, mockResponse(framedOutputStream));
+
+        List<String> legacyTransactions = new ArrayList<>();
+        try (MappingIterator<IPropagatable> transactionIterator = jacksonSerializer.deserialize(new ByteArrayInputStream(legacyOutputStream.toByteArray()))) {
+            while (transactionIterator.hasNextValue()) {
+                legacyTransactions.add(jacksonSerializer.serializeAsString(transactionIterator.nextValue()));
+            }
+        }
+        List<String> framedTransactions = new ArrayList<>();
+        int noneIndexedStart = -1;
+        TransactionFrameReader transactionFrameReader = new TransactionFrameReader(new ByteArrayInputStream(framedOutputStream.toByteArray()), jacksonSerializer, MAXIMUM_FRAME_SIZE);
+        TransactionFrameType frameType;
+        while ((frameType = transactionFrameReader.readFrame()) != TransactionFrameType.END_OF_STREAM) {
+            if (frameType == TransactionFrameType.NONE_INDEXED_TRANSACTIONS) {
+                noneIndexedStart = framedTransactions.size();
+            } else {
+                framedTransactions.add(jacksonSerializer.serializeAsString(transactionFrameReader.getTransactionData()));
+            }
+        }
+
+        Assert.assertEquals(INDEXED_TRANSACTIONS + NONE_INDEXED_TRANSACTIONS, legacyTransactions.size());
+        Assert.assertEquals(legacyTransactions, framedTransactions);
+        Assert.assertEquals(INDEXED_TRANSACTIONS, noneIndexedStart);
+    }
+
+    private TransactionIndexData getTransactionIndexData(long index) {
+        return new TransactionIndexData(indexedTransactionHashes.get((int) index), index, indexedTransactionHashes.get((int) index).getBytes());
+    }
+
+    private void assertTransactionException(String expectedMessage, TransactionBatchRequest transactionBatchRequest) {
+        try {
+            transactionBatchRequest.send();
+            Assert.fail("Expected a TransactionException");
+        } catch (TransactionException e) {
+            Assert.assertEquals(expectedMessage, e.getMessage());
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private HttpServletResponse mockResponse(ByteArrayOutputStream outputStream) throws IOException {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                // not used by the blocking writers
+            }
+
+            @Override
+            public void write(int b) {
+                outputStream.write(b);
+            }
+        });
+        return response;
+    }
+
+    private interface TransactionBatchRequest {
+
+        long send() throws IOException;
+    }
+
+    private static class RecordingTransactionBatchWriter implements ITransactionBatchWriter {
+
+        private final List<Hash> transactionHashes = new ArrayList<>();
+        private final List<Integer> chunkSizes = new ArrayList<>();
+        private int chunkStart;
+        private int noneIndexedStart = -1;
+
+        @Override
+        public void writeTransaction(Hash transactionHash, byte[] serializedTransaction) {
+            transactionHashes.add(transactionHash);
+        }
+
+        @Override
+        public void endOfChunk() {
+            chunkSizes.add(transactionHashes.size() - chunkStart);
+            chunkStart = transactionHashes.size();
+        }
+
+        @Override
+        public void startOfNoneIndexedTransactions() {
+            noneIndexedStart = transactionHashes.size();
+        }
+    }
+}
@@ -3,13 +3,14 @@ package io.coti.basenode.services;
 import io.coti.basenode.crypto.ExpandedTransactionTrustScoreCrypto;
 import io.coti.basenode.crypto.TransactionCrypto;
 import io.coti.basenode.data.*;
-import io.coti.basenode.model.AddressTransactionsHistories;
+import io.coti.basenode.model.AddressTransactionsIndexes;
 import io.coti.basenode.model.TransactionIndexes;
 import io.coti.basenode.model.Transactions;
 import io.coti.basenode.services.interfaces.*;
 import io.coti.basenode.utils.TransactionTestUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,10 +22,10 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
 
 import static io.coti.basenode.utils.TestConstants.MAX_TRUST_SCORE;
 import static org.mockito.ArgumentMatchers.any;
@@ -41,6 +42,12 @@ import static org.mockito.Mockito.when;
 
 public class TrustChainConfirmationServiceTest {
 
+    private static final int RANDOM_DAG_COUNT = 10;
+    private static final int RANDOM_DAG_SIZE = 2000;
+    private static final int RANDOM_DAG_PARENT_WINDOW = 30;
+    private static final int BATCH_CONFIRMATION_INTERVAL = 50;
+    private static final long RANDOM_SEED = 7654321L;
+
     @Autowired
     private TrustChainConfirmationService trustChainConfirmationService;
     @Autowired
@@ -53,7 +60,7 @@ public class TrustChainConfirmationServiceTest {
     private Transactions transactions;
 
     @MockBean
-    private AddressTransactionsHistories addressTransactionsHistories;
+    private AddressTransactionsIndexes addressTransactionsIndexes;
     @MockBean
     private TransactionCrypto transactionCrypto;
     @MockBean
@@ -72,6 +79,19 @@ public class TrustChainConfirmationServiceTest {
     private IMintingService mintingService;
     @MockBean
     private INetworkService networkService;
+    private final Map<Hash, TransactionData> storedTransactions = new HashMap<>();
+
+    @Before
+    public void init() {
+        storedTransactions.clear();
+        when(transactions.multiGetByHashes(any())).thenAnswer(invocation ->
+                ((Collection<Hash>) invocation.getArgument(0)).stream().map(storedTransactions::get).collect(Collectors.toList()));
+    }
+
+    private void mockStoredTransaction(TransactionData transactionData) {
+        storedTransactions.put(transactionData.getHash(), transactionData);
+        when(transactions.getByHash(transactionData.getHash())).thenReturn(transactionData);
+    }
 
 
     @Test
@@ -180,7 +200,7 @@ public class TrustChainConfirmationServiceTest {
         Assert.assertEquals(transactionData.getRoundedSenderTrustScore(), (int) trustChainConfirmationCluster.get(transactionData.getHash()).getTrustChainTrustScore());
         Assert.assertTrue(trustChainConfirmedTransactions.isEmpty());
 
-        when(transactions.getByHash(childTransactionData.getHash())).thenReturn(childTransactionData);
+        mockStoredTransaction(childTransactionData);
 
         trustChainConfirmationService.init(trustChainConfirmationCluster);
         trustChainConfirmedTransactions = trustChainConfirmationService.getTrustChainConfirmedTransactions();
@@ -231,8 +251,8 @@ public class TrustChainConfirmationServiceTest {
         Assert.assertEquals(0, (int) trustChainConfirmationCluster.get(transactionData.getHash()).getTrustChainTrustScore());
         Assert.assertTrue(trustChainConfirmedTransactions.isEmpty());
 
-        when(transactions.getByHash(childTransactionData.getHash())).thenReturn(childTransactionData);
-        when(transactions.getByHash(grandChildTransactionData.getHash())).thenReturn(grandChildTransactionData);
+        mockStoredTransaction(childTransactionData);
+        mockStoredTransaction(grandChildTransactionData);
 
         trustChainConfirmationService.init(trustChainConfirmationCluster);
         trustChainConfirmedTransactions = trustChainConfirmationService.getTrustChainConfirmedTransactions();
@@ -284,7 +304,7 @@ public class TrustChainConfirmationServiceTest {
         childrenHashes.add(childTransactionData.getHash());
         transactionData.setChildrenTransactionHashes(childrenHashes);
 
-        when(transactions.getByHash(childTransactionData.getHash())).thenReturn(childTransactionData);
+        mockStoredTransaction(childTransactionData);
         TransactionIndexData childTransactionIndexData = new TransactionIndexData(new Hash("8"), index, "8".getBytes(StandardCharsets.UTF_8));
         when(transactionIndexes.getByHash(childTransactionData.getHash())).thenReturn(childTransactionIndexData);
 
@@ -384,4 +404,103 @@ public class TrustChainConfirmationServiceTest {
         Assert.assertTrue(trustChainConfirmedTransactions.isEmpty());
     }
 
+    @Test
+    public void attachTransaction_randomDags_matchesBatchConfirmation() {
+        TransactionIndexData transactionIndexData = new TransactionIndexData(new Hash("7"), 7, "7".getBytes(StandardCharsets.UTF_8));
+        when(transactionIndexes.getByHash(any(Hash.class))).thenReturn(transactionIndexData);
+        Random random = new Random(RANDOM_SEED);
+        for (int i = 0; i < RANDOM_DAG_COUNT; i++) {
+            boolean trustScoreConsensus = i % 2 == 1;
+            when(baseNodeEventService.eventHappened(Event.TRUST_SCORE_CONSENSUS)).thenReturn(trustScoreConsensus);
+            assertIncrementalMatchesBatch(random, trustScoreConsensus);
+        }
+    }
+
+    private void assertIncrementalMatchesBatch(Random random, boolean trustScoreConsensus) {
+        storedTransactions.clear();
+        Assert.assertTrue(trustChainConfirmationService.startIncrementalConfirmation(new ConcurrentHashMap<>()).isEmpty());
+        Map<Hash, TransactionData> incrementalTransactions = new HashMap<>();
+        ConcurrentMap<Hash, TransactionData> batchCluster = new ConcurrentHashMap<>();
+        List<Hash> transactionHashes = new ArrayList<>();
+        List<Hash> notDspConfirmedHashes = new ArrayList<>();
+        List<Hash> incrementalConfirmations = new ArrayList<>();
+        Set<Hash> batchConfirmations = new HashSet<>();
+
+        for (int i = 0; i < RANDOM_DAG_SIZE; i++) {
+            Hash transactionHash = new Hash(i + 1L);
+            double senderTrustScore = 1 + random.nextInt(MAX_TRUST_SCORE);
+            Hash leftParentHash = i > 0 ? transactionHashes.get(i - 1 - random.nextInt(Math.min(i, RANDOM_DAG_PARENT_WINDOW))) : null;
+            Hash rightParentHash = i > 0 ? transactionHashes.get(i - 1 - random.nextInt(Math.min(i, RANDOM_DAG_PARENT_WINDOW))) : null;
+            boolean dspConfirmed = !trustScoreConsensus || random.nextInt(4) != 0;
+            TransactionData incrementalTransaction = createDagTransaction(transactionHash, senderTrustScore, leftParentHash, rightParentHash, dspConfirmed);
+            TransactionData batchTransaction = createDagTransaction(transactionHash, senderTrustScore, leftParentHash, rightParentHash, dspConfirmed);
+            transactionHashes.add(transactionHash);
+            if (!dspConfirmed) {
+                notDspConfirmedHashes.add(transactionHash);
+            }
+
+            incrementalTransactions.put(transactionHash, incrementalTransaction);
+            addToParents(incrementalTransaction, incrementalTransactions);
+            trustChainConfirmationService.attachTransaction(incrementalTransaction).forEach(tccInfo -> incrementalConfirmations.add(tccInfo.getHash()));
+
+            storedTransactions.put(transactionHash, batchTransaction);
+            addToParents(batchTransaction, storedTransactions);
+            if (dspConfirmed) {
+                batchCluster.put(transactionHash, batchTransaction);
+            }
+
+            if (!notDspConfirmedHashes.isEmpty() && random.nextInt(5) == 0) {
+                Hash dspConfirmedHash = notDspConfirmedHashes.remove(random.nextInt(notDspConfirmedHashes.size()));
+                setDspConsensusResult(incrementalTransactions.get(dspConfirmedHash));
+                trustChainConfirmationService.updateTransaction(incrementalTransactions.get(dspConfirmedHash)).forEach(tccInfo -> incrementalConfirmations.add(tccInfo.getHash()));
+                setDspConsensusResult(storedTransactions.get(dspConfirmedHash));
+                batchCluster.put(dspConfirmedHash, storedTransactions.get(dspConfirmedHash));
+            }
+            if (i % BATCH_CONFIRMATION_INTERVAL == 0) {
+                runBatchConfirmation(batchCluster, batchConfirmations);
+            }
+        }
+        runBatchConfirmation(batchCluster, batchConfirmations);
+
+        Assert.assertEquals(incrementalConfirmations.size(), new HashSet<>(incrementalConfirmations).size());
+        Assert.assertEquals(batchConfirmations, new HashSet<>(incrementalConfirmations));
+        batchCluster.forEach((transactionHash, batchTransaction) ->
+                Assert.assertEquals(batchTransaction.getTrustChainTrustScore(), trustChainConfirmationService.getTrustChainTrustScore(transactionHash), 0));
+    }
+
+    private void runBatchConfirmation(ConcurrentMap<Hash, TransactionData> batchCluster, Set<Hash> batchConfirmations) {
+        trustChainConfirmationService.init(batchCluster);
+        trustChainConfirmationService.getTrustChainConfirmedTransactions().forEach(tccInfo -> {
+            batchCluster.remove(tccInfo.getHash());
+            storedTransactions.get(tccInfo.getHash()).setTrustChainConsensus(true);
+            Assert.assertTrue(batchConfirmations.add(tccInfo.getHash()));
+        });
+    }
+
+    private void addToParents(TransactionData transactionData, Map<Hash, TransactionData> transactionsByHash) {
+        Arrays.asList(transactionData.getLeftParentHash(), transactionData.getRightParentHash()).forEach(parentHash -> {
+            if (parentHash != null && !transactionsByHash.get(parentHash).getChildrenTransactionHashes().contains(transactionData.getHash())) {
+                transactionsByHash.get(parentHash).addToChildrenTransactions(transactionData.getHash());
+            }
+        });
+    }
+
+    private TransactionData createDagTransaction(Hash transactionHash, double senderTrustScore, Hash leftParentHash, Hash rightParentHash, boolean dspConfirmed) {
+        TransactionData transactionData = new TransactionData(new ArrayList<>(), transactionHash, "dag", senderTrustScore, Instant.now(), TransactionType.Transfer);
+        transactionData.setAttachmentTime(Instant.now());
+        transactionData.setLeftParentHash(leftParentHash);
+        transactionData.setRightParentHash(rightParentHash);
+        if (dspConfirmed) {
+            setDspConsensusResult(transactionData);
+        }
+        return transactionData;
+    }
+
+    private void setDspConsensusResult(TransactionData transactionData) {
+        DspConsensusResult dspConsensusResult = new DspConsensusResult(transactionData.getHash());
+        dspConsensusResult.setIndexingTime(Instant.now());
+        dspConsensusResult.setDspConsensus(true);
+        transactionData.setDspConsensusResult(dspConsensusResult);
+    }
+
 }
@@ -0,0 +1,40 @@
+package io.coti.basenode.utilities;
+
+import io.coti.basenode.data.LatencyHistogramData;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void getAndReset_percentilesWithinBucket() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (int value = 1; value <= 1000; value++) {
+            latencyHistogram.record(value);
+        }
+
+        LatencyHistogramData latencyHistogramData = latencyHistogram.getAndReset();
+        Assert.assertEquals(1000, latencyHistogramData.getCount());
+        Assert.assertEquals(1000, latencyHistogramData.getMax());
+        Assert.assertTrue(latencyHistogramData.getMedian() >= 500 && latencyHistogramData.getMedian() < 1000);
+        Assert.assertTrue(latencyHistogramData.getPercentile99() >= 990 && latencyHistogramData.getPercentile99() <= 1000);
+
+        LatencyHistogramData emptyHistogramData = latencyHistogram.getAndReset();
+        Assert.assertEquals(0, emptyHistogramData.getCount());
+        Assert.assertEquals(0, emptyHistogramData.getMedian());
+        Assert.assertEquals(0, emptyHistogramData.getMax());
+    }
+
+    @Test
+    public void record_extremeValues() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        latencyHistogram.record(-5);
+        latencyHistogram.record(0);
+        latencyHistogram.record(Long.MAX_VALUE);
+
+        LatencyHistogramData latencyHistogramData = latencyHistogram.getAndReset();
+        Assert.assertEquals(3, latencyHistogramData.getCount());
+        Assert.assertEquals(0, latencyHistogramData.getMedian());
+        Assert.assertEquals(Long.MAX_VALUE, latencyHistogramData.getPercentile99());
+    }
+}
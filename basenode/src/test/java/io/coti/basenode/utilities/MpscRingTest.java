@@ -0,0 +1,60 @@
+package io.coti.basenode.utilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MpscRingTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int MESSAGES_PER_PRODUCER = 100000;
+
+    @Test
+    public void offer_fullRing_rejected() {
+        MpscRing<Integer> ring = new MpscRing<>(4);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(ring.offer(i));
+        }
+        Assert.assertFalse(ring.offer(4));
+        Assert.assertEquals(4, ring.size());
+        Assert.assertEquals(Integer.valueOf(0), ring.poll());
+        Assert.assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            Assert.assertEquals(Integer.valueOf(i), ring.poll());
+        }
+        Assert.assertNull(ring.poll());
+        Assert.assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void take_concurrentProducers_receivesAllInProducerOrder() throws InterruptedException {
+        MpscRing<long[]> ring = new MpscRing<>(1024);
+        List<Thread> producers = new ArrayList<>();
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            long producerId = producer;
+            Thread producerThread = new Thread(() -> {
+                try {
+                    for (long i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                        ring.put(new long[]{producerId, i});
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producers.add(producerThread);
+            producerThread.start();
+        }
+
+        long[] nextMessages = new long[PRODUCERS];
+        for (int i = 0; i < PRODUCERS * MESSAGES_PER_PRODUCER; i++) {
+            long[] message = ring.take();
+            Assert.assertEquals(nextMessages[(int) message[0]]++, message[1]);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        Assert.assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,21 @@
+package io.coti.dspnode.data;
+
+import io.coti.basenode.data.TransactionData;
+import lombok.Data;
+
+@Data
+public class TransactionValidationTaskData implements Comparable<TransactionValidationTaskData> {
+
+    private TransactionData transactionData;
+    private long creationNanoTime;
+
+    public TransactionValidationTaskData(TransactionData transactionData) {
+        this.transactionData = transactionData;
+        this.creationNanoTime = System.nanoTime();
+    }
+
+    @Override
+    public int compareTo(TransactionValidationTaskData other) {
+        return transactionData.compareTo(other.transactionData);
+    }
+}
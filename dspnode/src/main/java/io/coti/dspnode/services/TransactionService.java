@@ -8,19 +8,26 @@ import io.coti.basenode.services.BaseNodeTransactionService;
 import io.coti.basenode.services.interfaces.INetworkService;
 import io.coti.basenode.services.interfaces.ITransactionHelper;
 import io.coti.basenode.services.interfaces.IValidationService;
+import io.coti.basenode.utilities.LatencyHistogram;
+import io.coti.dspnode.data.TransactionValidationTaskData;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Service
 public class TransactionService extends BaseNodeTransactionService {
 
+    private static final int DSP_VOTE_BATCH_SIZE = 100;
+
     @Autowired
     private ITransactionHelper transactionHelper;
     @Autowired
@@ -35,14 +42,31 @@ public class TransactionService extends BaseNodeTransactionService {
     private INetworkService networkService;
     @Autowired
     private TransactionPropagationCheckService transactionPropagationCheckService;
-    private BlockingQueue<TransactionData> transactionsToValidate;
-    private Thread transactionValidationThread;
+    @Value("${dsp.validation.workers:1}")
+    private int dspValidationWorkers;
+    private BlockingQueue<TransactionValidationTaskData> transactionsToValidate;
+    private BlockingQueue<TransactionDspVote> dspVotesToSend;
+    private final List<Thread> transactionValidationThreads = new ArrayList<>();
+    private Thread dspVoteSenderThread;
+    private final LatencyHistogram validationQueueTimeHistogram = new LatencyHistogram();
+    private final LatencyHistogram validationTimeHistogram = new LatencyHistogram();
 
+    /**
+     * Attaching a transaction already runs the data integrity, signature, pot and balance checks, and reserves the
+     * pre balances atomically per address. The validation workers run the full validation and sign the votes in
+     * parallel, and a single sender thread sends the signed votes in batches.
+     */
     @Override
     public void init() {
         transactionsToValidate = new PriorityBlockingQueue<>();
-        transactionValidationThread = new Thread(this::checkAttachedTransactions, "DSP Validation");
-        transactionValidationThread.start();
+        dspVotesToSend = new LinkedBlockingQueue<>();
+        for (int worker = 0; worker < dspValidationWorkers; worker++) {
+            Thread transactionValidationThread = new Thread(this::checkAttachedTransactions, "DSP Validation-" + worker);
+            transactionValidationThreads.add(transactionValidationThread);
+            transactionValidationThread.start();
+        }
+        dspVoteSenderThread = new Thread(this::sendDspVotes, "DSP Vote Sender");
+        dspVoteSenderThread.start();
         super.init();
     }
 
@@ -60,8 +84,7 @@ public class TransactionService extends BaseNodeTransactionService {
                 log.error("Data Integrity validation failed: {}", transactionData.getHash());
                 return;
             }
-            if (hasOneOfParentsMissing(transactionData)) {
-                postponedTransactionMap.putIfAbsent(transactionData, true);
+            if (hasOneOfParentsMissing(transactionData) && postponeTransaction(transactionData, true)) {
                 return;
             }
             if (!validateAndAttachTransaction(transactionData)) {
@@ -76,7 +99,7 @@ public class TransactionService extends BaseNodeTransactionService {
                     NodeType.HistoryNode));
             transactionPropagationCheckService.addNewUnconfirmedTransaction(transactionData.getHash());
             transactionHelper.setTransactionStateToFinished(transactionData);
-            transactionsToValidate.add(transactionData);
+            transactionsToValidate.add(new TransactionValidationTaskData(transactionData));
         } catch (Exception ex) {
             log.error("Exception while handling transaction {}", transactionData, ex);
         } finally {
@@ -102,9 +125,9 @@ public class TransactionService extends BaseNodeTransactionService {
     private void checkAttachedTransactions() {
         while (!Thread.currentThread().isInterrupted()) {
             try {
-                TransactionData transactionData = transactionsToValidate.take();
-                log.debug("DSP Fully Checking transaction: {}", transactionData.getHash());
-                dspValidation(transactionData);
+                TransactionValidationTaskData transactionValidationTaskData = transactionsToValidate.take();
+                log.debug("DSP Fully Checking transaction: {}", transactionValidationTaskData.getTransactionData().getHash());
+                dspValidation(transactionValidationTaskData);
             } catch (InterruptedException e) {
                 log.info("Dsp validation interrupted");
                 Thread.currentThread().interrupt();
@@ -112,41 +135,81 @@ public class TransactionService extends BaseNodeTransactionService {
                 log.error("Dsp validation error", e);
             }
         }
-        List<TransactionData> remainingValidations = new LinkedList<>();
-        transactionsToValidate.drainTo(remainingValidations);
-        if (!remainingValidations.isEmpty()) {
-            log.info("Please wait for dsp validation of {} remaining transactions", remainingValidations.size());
-            remainingValidations.forEach(transactionData -> {
+        if (!transactionsToValidate.isEmpty()) {
+            log.info("Please wait for dsp validation of {} remaining transactions", transactionsToValidate.size());
+            TransactionValidationTaskData transactionValidationTaskData;
+            while ((transactionValidationTaskData = transactionsToValidate.poll()) != null) {
                 try {
-                    dspValidation(transactionData);
+                    dspValidation(transactionValidationTaskData);
                 } catch (Exception e) {
                     log.error("Dsp validation error", e);
                 }
-            });
+            }
         }
     }
 
-    private void dspValidation(TransactionData transactionData) {
+    private void dspValidation(TransactionValidationTaskData transactionValidationTaskData) {
+        long validationStartTime = System.nanoTime();
+        validationQueueTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(validationStartTime - transactionValidationTaskData.getCreationNanoTime()));
+        TransactionData transactionData = transactionValidationTaskData.getTransactionData();
         TransactionDspVote transactionDspVote = new TransactionDspVote(
                 transactionData.getHash(),
                 validationService.fullValidation(transactionData));
         transactionDspVoteCrypto.signMessage(transactionDspVote);
-        NetworkNodeData zeroSpendServer = networkService.getSingleNodeData(NodeType.ZeroSpendServer);
-        if (zeroSpendServer != null) {
-            String zeroSpendReceivingAddress = zeroSpendServer.getReceivingFullAddress();
-            log.debug("Sending DSP vote to {} for transaction {}", zeroSpendReceivingAddress, transactionData.getHash());
-            sender.send(transactionDspVote, zeroSpendReceivingAddress);
-        } else {
-            log.error("ZeroSpendServer is not in the network. Failed to send dsp vote for transaction {}", transactionData.getHash());
+        dspVotesToSend.add(transactionDspVote);
+        validationTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - validationStartTime));
+    }
+
+    private void sendDspVotes() {
+        List<TransactionDspVote> dspVoteBatch = new ArrayList<>(DSP_VOTE_BATCH_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                dspVoteBatch.add(dspVotesToSend.take());
+                dspVotesToSend.drainTo(dspVoteBatch, DSP_VOTE_BATCH_SIZE - 1);
+                sendDspVoteBatch(dspVoteBatch);
+            } catch (InterruptedException e) {
+                log.info("Dsp vote sender interrupted");
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Dsp vote sender error", e);
+            } finally {
+                dspVoteBatch.clear();
+            }
+        }
+        dspVotesToSend.drainTo(dspVoteBatch);
+        if (!dspVoteBatch.isEmpty()) {
+            log.info("Please wait for sending {} remaining dsp votes", dspVoteBatch.size());
+            sendDspVoteBatch(dspVoteBatch);
         }
-        transactionPropagationCheckService.addUnconfirmedTransactionDSPVote(transactionDspVote);
+    }
+
+    private void sendDspVoteBatch(List<TransactionDspVote> dspVoteBatch) {
+        NetworkNodeData zeroSpendServer = networkService.getSingleNodeData(NodeType.ZeroSpendServer);
+        String zeroSpendReceivingAddress = zeroSpendServer != null ? zeroSpendServer.getReceivingFullAddress() : null;
+        dspVoteBatch.forEach(transactionDspVote -> {
+            if (zeroSpendReceivingAddress != null) {
+                log.debug("Sending DSP vote to {} for transaction {}", zeroSpendReceivingAddress, transactionDspVote.getTransactionHash());
+                sender.send(transactionDspVote, zeroSpendReceivingAddress);
+            } else {
+                log.error("ZeroSpendServer is not in the network. Failed to send dsp vote for transaction {}", transactionDspVote.getTransactionHash());
+            }
+            transactionPropagationCheckService.addUnconfirmedTransactionDSPVote(transactionDspVote);
+        });
+    }
+
+    @Override
+    public Map<String, LatencyHistogramData> getAndResetLatencyHistograms() {
+        Map<String, LatencyHistogramData> latencyHistograms = new HashMap<>();
+        latencyHistograms.put("DspValidationQueueMicros", validationQueueTimeHistogram.getAndReset());
+        latencyHistograms.put("DspValidationMicros", validationTimeHistogram.getAndReset());
+        return latencyHistograms;
     }
 
     @Override
     protected void continueHandlePropagatedTransaction(TransactionData transactionData) {
         propagationPublisher.propagate(transactionData, Collections.singletonList(NodeType.FullNode));
         if (!EnumSet.of(TransactionType.ZeroSpend, TransactionType.Initial, TransactionType.EventHardFork).contains(transactionData.getType())) {
-            transactionsToValidate.add(transactionData);
+            transactionsToValidate.add(new TransactionValidationTaskData(transactionData));
             transactionPropagationCheckService.addPropagatedUnconfirmedTransaction(transactionData.getHash());
         }
 
@@ -160,9 +223,13 @@ public class TransactionService extends BaseNodeTransactionService {
 
     public void shutdown() {
         log.info("Shutting down {}", this.getClass().getSimpleName());
-        transactionValidationThread.interrupt();
         try {
-            transactionValidationThread.join();
+            for (Thread transactionValidationThread : transactionValidationThreads) {
+                transactionValidationThread.interrupt();
+                transactionValidationThread.join();
+            }
+            dspVoteSenderThread.interrupt();
+            dspVoteSenderThread.join();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("Interrupted shutdown {}", this.getClass().getSimpleName());
@@ -48,7 +48,7 @@ public class PotService extends BaseNodePotService {
                     throw new IllegalArgumentException("Illegal trust score");
                 }
                 ((PriorityExecutor) queuesPot.get(bucketChoice)).changeCorePoolSize();
-                queuesPot.get(bucketChoice).submit(new ComparableFutureTask(new PotRunnableTask(transactionData, targetDifficulty, lock)));
+                queuesPot.get(bucketChoice).submit(new ComparableFutureTask(new PotRunnableTask(transactionData, targetDifficulty, lock, nonceSearchWorkers)));
                 Instant starts = Instant.now();
 
                 while (transactionData.getNonces() == null) {
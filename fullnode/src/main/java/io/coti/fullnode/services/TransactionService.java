@@ -2,7 +2,6 @@ package io.coti.fullnode.services;
 
 import com.dictiography.collections.IndexedNavigableSet;
 import com.dictiography.collections.IndexedTreeSet;
-import com.google.common.collect.Sets;
 import io.coti.basenode.crypto.TransactionCrypto;
 import io.coti.basenode.data.*;
 import io.coti.basenode.exceptions.PotException;
@@ -15,7 +14,7 @@ import io.coti.basenode.http.data.ExtendedTransactionResponseData;
 import io.coti.basenode.http.data.TransactionResponseData;
 import io.coti.basenode.http.data.TransactionStatus;
 import io.coti.basenode.http.interfaces.IResponse;
-import io.coti.basenode.model.AddressTransactionsHistories;
+import io.coti.basenode.model.AddressTransactionsIndexes;
 import io.coti.basenode.model.Transactions;
 import io.coti.basenode.services.BaseNodeTransactionService;
 import io.coti.basenode.services.interfaces.*;
@@ -61,7 +60,7 @@ public class TransactionService extends BaseNodeTransactionService {
     @Autowired
     private IClusterService clusterService;
     @Autowired
-    private AddressTransactionsHistories addressTransactionHistories;
+    private AddressTransactionsIndexes addressTransactionsIndexes;
     @Autowired
     private Transactions transactions;
     @Autowired
@@ -76,8 +75,6 @@ public class TransactionService extends BaseNodeTransactionService {
     protected ITransactionPropagationCheckService transactionPropagationCheckService;
     private BlockingQueue<ExplorerTransactionData> explorerIndexQueue;
     private IndexedNavigableSet<ExplorerTransactionData> explorerIndexedTransactionSet;
-    private BlockingQueue<TransactionData> addressTransactionsByAttachmentQueue;
-    private Map<Hash, NavigableMap<Instant, Set<Hash>>> addressToTransactionsByAttachmentMap;
     @Autowired
     private ResendTransactionRequestCrypto resendTransactionRequestCrypto;
     private static final AtomicInteger currentlyAddTransaction = new AtomicInteger(0);
@@ -88,7 +85,6 @@ public class TransactionService extends BaseNodeTransactionService {
     @Override
     public void init() {
         startExplorerIndexThread();
-        startAddressTransactionsByAttachmentThread();
         super.init();
     }
 
@@ -99,13 +95,6 @@ public class TransactionService extends BaseNodeTransactionService {
         explorerIndexThread.start();
     }
 
-    private void startAddressTransactionsByAttachmentThread() {
-        addressToTransactionsByAttachmentMap = new ConcurrentHashMap<>();
-        addressTransactionsByAttachmentQueue = new LinkedBlockingQueue<>();
-        Thread addressTransactionsByAttachmentThread = new Thread(this::updateAddressTransactionsByAttachment);
-        addressTransactionsByAttachmentThread.start();
-    }
-
     public ResponseEntity<Response> addNewTransaction(AddTransactionRequest request) {
         TransactionData transactionData = transactionHelper.createNewTransaction(
                 request.getBaseTransactions(),
@@ -372,14 +361,14 @@ public class TransactionService extends BaseNodeTransactionService {
 
     public ResponseEntity<IResponse> getAddressTransactions(Hash addressHash) {
         List<TransactionResponseData> transactionsDataList = new ArrayList<>();
-        AddressTransactionsHistory addressTransactionsHistory = addressTransactionHistories.getByHash(addressHash);
 
         try {
-            if (addressTransactionsHistory == null) {
+            List<Hash> transactionsHash = new ArrayList<>();
+            addressTransactionsIndexes.forEachByAddressHash(addressHash, addressTransactionIndexData -> transactionsHash.add(addressTransactionIndexData.getTransactionHash()));
+            if (transactionsHash.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.OK).body(new GetAddressTransactionHistoryResponse(transactionsDataList, 0));
             }
 
-            Set<Hash> transactionsHash = addressTransactionsHistory.getTransactionsHistory();
             for (Hash transactionHash : transactionsHash) {
                 if (MemoryUtils.getPercentageUsed() >= javaProcessMemoryLimit) {
                     log.warn("Not all transactions for {} in response of getAddressTransactions, used memory {} , limit {}%, total txs {}, sent txs {}",
@@ -410,14 +399,11 @@ public class TransactionService extends BaseNodeTransactionService {
             chunkService.startOfChunk(output);
 
             AtomicBoolean firstTransactionSent = new AtomicBoolean(false);
-            addressHashList.forEach(addressHash -> {
-                AddressTransactionsHistory addressTransactionsHistory = addressTransactionHistories.getByHash(addressHash);
-                if (addressTransactionsHistory != null) {
-                    addressTransactionsHistory.getTransactionsHistory().forEach(transactionHash ->
-                            sendTransactionResponse(transactionHash, firstTransactionSent, output, addressHash, reduced, extended, isIncludeRuntimeTrustScore)
-                    );
-                }
-            });
+            addressHashList.forEach(addressHash ->
+                    addressTransactionsIndexes.forEachByAddressHash(addressHash, addressTransactionIndexData ->
+                            sendTransactionResponse(addressTransactionIndexData.getTransactionHash(), firstTransactionSent, output, addressHash, reduced, extended, isIncludeRuntimeTrustScore)
+                    )
+            );
             chunkService.endOfChunk(output);
         } catch (Exception e) {
             log.error("Error sending address transaction batch");
@@ -452,50 +438,19 @@ public class TransactionService extends BaseNodeTransactionService {
         TimeOrder order = getAddressTransactionBatchByTimestampRequest.getOrder();
         boolean isIncludeRuntimeTrustScore = getAddressTransactionBatchByTimestampRequest.isIncludeRuntimeTrustScore();
 
-        AtomicBoolean firstTransactionSent = new AtomicBoolean(false);
-        addressHashSet.forEach(addressHash -> {
-            NavigableMap<Instant, Set<Hash>> transactionsHistoryByAttachment = addressToTransactionsByAttachmentMap.get(addressHash);
-            if (transactionsHistoryByAttachment != null) {
-                Instant from = startTime;
-                Instant to = endTime;
-                if (from == null) {
-                    from = transactionsHistoryByAttachment.firstKey();
-                }
-                if (to == null) {
-                    to = transactionsHistoryByAttachment.lastKey();
-                }
-                if (!from.isAfter(to)) {
-                    NavigableMap<Instant, Set<Hash>> transactionsHistoryByAttachmentSubMap = getTransactionHistoryByAttachmentSubMap(transactionsHistoryByAttachment, from, to, order);
-                    sendAddressTransactionsByAttachmentResponse(addressHash, transactionsHistoryByAttachmentSubMap, limit, reduced, firstTransactionSent, output, isIncludeRuntimeTrustScore);
-                }
-            }
-        });
-    }
+        boolean descending = order != null && order.equals(TimeOrder.DESC);
 
-    private NavigableMap<Instant, Set<Hash>> getTransactionHistoryByAttachmentSubMap(NavigableMap<Instant, Set<Hash>> transactionsHistoryByAttachment, Instant from, Instant to, TimeOrder order) {
-        NavigableMap<Instant, Set<Hash>> transactionsHistoryByAttachmentSubMap = transactionsHistoryByAttachment.subMap(from, true, to, true);
-        if (order != null && order.equals(TimeOrder.DESC)) {
-            transactionsHistoryByAttachmentSubMap = transactionsHistoryByAttachmentSubMap.descendingMap();
-        }
-        return transactionsHistoryByAttachmentSubMap;
-    }
-
-    private void sendAddressTransactionsByAttachmentResponse(Hash addressHash, NavigableMap<Instant, Set<Hash>> transactionsHistoryByAttachmentSubMap, Integer limit, boolean reduced, AtomicBoolean firstTransactionSent, PrintWriter output, boolean includeRuntimeTrustScore) {
-        int sentTxNumber = 0;
-        for (Set<Hash> transactionHashSet : transactionsHistoryByAttachmentSubMap.values()) {
-            boolean maxLimitReached = false;
-            for (Hash transactionHash : transactionHashSet) {
-                sendTransactionResponse(transactionHash, firstTransactionSent, output, addressHash, reduced, false, includeRuntimeTrustScore);
-                sentTxNumber++;
-                if (limit != null && sentTxNumber == limit) {
-                    maxLimitReached = true;
-                    break;
-                }
-            }
-            if (maxLimitReached) {
-                break;
-            }
-        }
+        AtomicBoolean firstTransactionSent = new AtomicBoolean(false);
+        addressHashSet.forEach(addressHash ->
+                addressTransactionsIndexes.forEachByAddressHash(addressHash, startTime, endTime, descending, limit, addressTransactionIndexData -> {
+                    TransactionData transactionData = transactions.getByHash(addressTransactionIndexData.getTransactionHash());
+                    if (transactionData == null || transactionData.getType().equals(TransactionType.ZeroSpend)) {
+                        return false;
+                    }
+                    sendTransactionResponse(transactionData, firstTransactionSent, output, addressHash, reduced, false, isIncludeRuntimeTrustScore);
+                    return true;
+                })
+        );
     }
 
     public void getAddressTransactionBatchByDate(GetAddressTransactionBatchByDateRequest getAddressTransactionBatchByDateRequest, HttpServletResponse response, boolean reduced) {
@@ -587,9 +542,6 @@ public class TransactionService extends BaseNodeTransactionService {
     public void addDataToMemory(TransactionData transactionData) {
         try {
             explorerIndexQueue.put(new ExplorerTransactionData(transactionData));
-            if (!transactionData.getType().equals(TransactionType.ZeroSpend)) {
-                addressTransactionsByAttachmentQueue.put(transactionData);
-            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -614,23 +566,6 @@ public class TransactionService extends BaseNodeTransactionService {
         }
     }
 
-    private void updateAddressTransactionsByAttachment() {
-        while (!Thread.currentThread().isInterrupted()) {
-            try {
-                TransactionData transactionData = addressTransactionsByAttachmentQueue.take();
-                transactionData.getBaseTransactions().forEach(baseTransactionData -> {
-                    NavigableMap<Instant, Set<Hash>> transactionHashesByAttachmentMap = addressToTransactionsByAttachmentMap.getOrDefault(baseTransactionData.getAddressHash(), new ConcurrentSkipListMap<>());
-                    Set<Hash> transactionHashSet = transactionHashesByAttachmentMap.getOrDefault(transactionData.getAttachmentTime(), Sets.newConcurrentHashSet());
-                    transactionHashSet.add(transactionData.getHash());
-                    transactionHashesByAttachmentMap.put(transactionData.getAttachmentTime(), transactionHashSet);
-                    addressToTransactionsByAttachmentMap.put(baseTransactionData.getAddressHash(), transactionHashesByAttachmentMap);
-                });
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-    }
-
     @Override
     public void removeTransactionHashFromUnconfirmed(TransactionData transactionData) {
         transactionPropagationCheckService.removeTransactionHashFromUnconfirmed(transactionData.getHash());
@@ -8,178 +8,266 @@ import io.coti.nodemanager.data.NetworkNodeStatus;
 import io.coti.nodemanager.model.ActiveNodes;
 import io.coti.nodemanager.services.interfaces.IHealthCheckService;
 import io.coti.nodemanager.services.interfaces.INodeManagementService;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
+import java.util.Queue;
+import java.util.concurrent.*;
 
-@Service
+/**
+ * Monitors the registered nodes without a thread per node. The checks of all the nodes are scheduled on one timer wheel
+ * and sent by the non-blocking web client, with a limit on the checks in flight. Every node has its own state machine:
+ * a healthy node is checked every interval, a node that failed a check is retried after the retry interval, and a node
+ * that failed all its tries is removed from the network. The intervals are jittered, so that the checks of nodes which
+ * registered together are spread over time.
+ */
 @Slf4j
+@Service
 public class HealthCheckService implements IHealthCheckService {
 
     private static final String NODE_HASH_END_POINT = "/nodeHash";
-    private static final int RETRY_INTERVAL_IN_SECONDS = 20;
-    private static final int MAX_NUM_OF_TRIES = 3;
-    private static final int CONNECT_TIMEOUT = 5000;
-    private static final int READ_TIMEOUT = 5000;
+    @Value("${health.check.interval:5000}")
+    private long healthCheckInterval;
+    @Value("${health.check.retry.interval:20000}")
+    private long retryInterval;
+    @Value("${health.check.max.tries:3}")
+    private int maxNumOfTries;
+    @Value("${health.check.timeout:5000}")
+    private long healthCheckTimeout;
+    @Value("${health.check.max.concurrent.checks:256}")
+    private int maxConcurrentChecks;
+    @Value("${health.check.jitter.ratio:0.2}")
+    private double jitterRatio;
+    @Value("${health.check.timer.tick:100}")
+    private long timerTick;
     @Autowired
     private INodeManagementService nodeManagementService;
     @Autowired
     private ActiveNodes activeNodes;
-    private RestTemplate restTemplate;
     @Autowired
     private INetworkService networkService;
-    private final Map<Hash, Thread> hashToThreadMap = new ConcurrentHashMap<>();
+    @Autowired
+    private WebClient webClient;
+    private HashedWheelTimer healthCheckTimer;
+    private ExecutorService nodeRemovalExecutor;
+    private Semaphore checkPermits;
+    private final Queue<NodeMonitor> waitingNodeMonitors = new ConcurrentLinkedQueue<>();
+    private final Map<Hash, NodeMonitor> nodeHashToNodeMonitorMap = new ConcurrentHashMap<>();
     private final LockData nodeHashLockData = new LockData();
+    private volatile boolean shuttingDown;
 
     @Override
     public void init() {
-        nodesHealthCheck();
-        initRestTemplate();
-    }
-
-    private void initRestTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(CONNECT_TIMEOUT);
-        factory.setReadTimeout(READ_TIMEOUT);
-        restTemplate = new RestTemplate(factory);
-    }
-
-    private void nodesHealthCheck() {
+        healthCheckTimer = new HashedWheelTimer(runnable -> new Thread(runnable, "HealthCheckTimer"), timerTick, TimeUnit.MILLISECONDS);
+        nodeRemovalExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "HealthCheckNodeRemoval"));
+        checkPermits = new Semaphore(maxConcurrentChecks);
         try {
-            checkNodesList(networkService.getNetworkNodeDataList());
+            networkService.getNetworkNodeDataList().forEach(this::startNodeMonitor);
         } catch (Exception e) {
-            log.error("Exception in health check: ", e);
+            log.error("Error while checking nodeList", e);
         }
     }
 
-    private boolean isNodeConnected(NetworkNodeData networkNodeDataToCheck) {
-        if (networkNodeDataToCheck == null) {
-            return true;
-        }
-        int tries = 0;
-        while (tries < MAX_NUM_OF_TRIES) {
-            if (Thread.currentThread().isInterrupted()) {
-                return true;
-            }
-            try {
-                if (tries != 0) {
-                    log.info("Waiting {} seconds for #{} retry to {} of address {} healthcheck",
-                            RETRY_INTERVAL_IN_SECONDS, tries, networkNodeDataToCheck.getNodeType(),
-                            networkNodeDataToCheck.getHttpFullAddress());
-                    TimeUnit.SECONDS.sleep(RETRY_INTERVAL_IN_SECONDS);
-                }
-                Hash nodeHash = restTemplate.getForObject(networkNodeDataToCheck.getHttpFullAddress() + NODE_HASH_END_POINT, Hash.class);
-                if (nodeHash != null) {
-                    log.debug("{} of address {} and port {} is responding to healthcheck.",
-                            networkNodeDataToCheck.getNodeType(), networkNodeDataToCheck.getAddress(), networkNodeDataToCheck.getHttpPort());
-                    return true;
+    @Override
+    public void startNodeMonitor(NetworkNodeData networkNodeData) {
+        Hash nodeHash = networkNodeData.getNodeHash();
+        try {
+            synchronized (nodeHashLockData.addLockToLockMap(nodeHash)) {
+                NodeMonitor nodeMonitor = new NodeMonitor(networkNodeData);
+                NodeMonitor previousNodeMonitor = nodeHashToNodeMonitorMap.put(nodeHash, nodeMonitor);
+                if (previousNodeMonitor != null) {
+                    previousNodeMonitor.stop();
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return true;
-            } catch (Exception ex) {
-                log.error("Exception in health check to {} . this was the #{} attempt out of {}. Err: {}",
-                        networkNodeDataToCheck.getHttpFullAddress(), tries + 1, MAX_NUM_OF_TRIES, ex.getMessage());
-            } finally {
-                tries++;
+                nodeMonitor.schedule((long) (ThreadLocalRandom.current().nextDouble() * healthCheckInterval));
             }
+        } finally {
+            nodeHashLockData.removeLockFromLocksMap(nodeHash);
         }
-        return false;
     }
 
-    private NetworkNodeData checkAndDeleteNodeIfNeeded(NetworkNodeData networkNodeData) {
-        NetworkNodeData nodeToRemove = null;
-        if (!isNodeConnected(networkNodeData)) {
-            deleteNodeRecord(networkNodeData);
-            nodeToRemove = networkNodeData;
-        }
-        return nodeToRemove;
+    int getNumberOfMonitoredNodes() {
+        return nodeHashToNodeMonitorMap.size();
     }
 
-    private void checkNodesList(List<NetworkNodeData> nodesList) {
-        ThreadFactory threadFactory = Executors.defaultThreadFactory();
-        try {
-            nodesList.forEach(networkNodeData -> initNodeMonitorThreadIfAbsent(threadFactory, networkNodeData));
-        } catch (Exception e) {
-            log.error("Error while checking nodeList", e);
+    String getNodeHashUrl(NetworkNodeData networkNodeData) {
+        return networkNodeData.getHttpFullAddress() + NODE_HASH_END_POINT;
+    }
+
+    private long jitter(long delay) {
+        return (long) (delay * (1 + jitterRatio * (2 * ThreadLocalRandom.current().nextDouble() - 1)));
+    }
+
+    private void dispatchWaitingChecks() {
+        while (!waitingNodeMonitors.isEmpty() && checkPermits.tryAcquire()) {
+            NodeMonitor nodeMonitor = waitingNodeMonitors.poll();
+            if (nodeMonitor == null) {
+                checkPermits.release();
+            } else {
+                nodeMonitor.sendCheck();
+            }
         }
     }
 
-    public void initNodeMonitorThreadIfAbsent(ThreadFactory threadFactory, NetworkNodeData networkNodeData) {
+    private void releaseCheckPermit() {
+        checkPermits.release();
+        dispatchWaitingChecks();
+    }
+
+    private void removeNode(NodeMonitor nodeMonitor) {
+        NetworkNodeData networkNodeData = nodeMonitor.networkNodeData;
         Hash nodeHash = networkNodeData.getNodeHash();
         try {
             synchronized (nodeHashLockData.addLockToLockMap(nodeHash)) {
-                Runnable nodeMonitorTask = () -> monitorNode(networkNodeData);
-                Thread thread = hashToThreadMap.get(nodeHash);
-                if (thread != null) {
-                    thread.interrupt();
-                    try {
-                        thread.join();
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
+                if (!nodeHashToNodeMonitorMap.remove(nodeHash, nodeMonitor)) {
+                    return;
                 }
-                thread = threadFactory.newThread(nodeMonitorTask);
-                thread.setName(nodeHash.toString());
-                hashToThreadMap.put(nodeHash, thread);
-                thread.start();
+                deleteNodeRecord(networkNodeData);
+                networkService.removeNode(networkNodeData);
             }
-
+            nodeManagementService.propagateNetworkChanges();
+        } catch (Exception e) {
+            log.error("Exception in removing node {}: ", nodeHash, e);
         } finally {
             nodeHashLockData.removeLockFromLocksMap(nodeHash);
         }
     }
 
-    private void monitorNode(NetworkNodeData networkNodeData) {
-        Hash nodeHash = networkNodeData.getNodeHash();
-        boolean terminateThread = false;
-        while (!Thread.currentThread().isInterrupted() && !terminateThread) {
+    private void deleteNodeRecord(NetworkNodeData networkNodeData) {
+        log.info("Deleting {} of address {} and port {}", networkNodeData.getNodeType(), networkNodeData.getAddress(), networkNodeData.getHttpPort());
+        nodeManagementService.addNodeHistory(networkNodeData, NetworkNodeStatus.INACTIVE, Instant.now());
+        activeNodes.delete(networkNodeData);
+    }
+
+    @Override
+    public void shutdown() {
+        log.info("Shutting down {}", this.getClass().getSimpleName());
+        shuttingDown = true;
+        nodeHashToNodeMonitorMap.values().forEach(NodeMonitor::stop);
+        waitingNodeMonitors.clear();
+        if (healthCheckTimer != null) {
+            healthCheckTimer.stop();
+        }
+        if (nodeRemovalExecutor != null) {
+            nodeRemovalExecutor.shutdown();
             try {
-                Thread.sleep(5000);
-                NetworkNodeData networkNodeDataToRemove = checkAndDeleteNodeIfNeeded(networkNodeData);
-                if (networkNodeDataToRemove != null) {
-                    networkService.removeNode(networkNodeDataToRemove);
-                    nodeManagementService.propagateNetworkChanges();
-                    hashToThreadMap.remove(nodeHash);
-                    terminateThread = true;
+                if (!nodeRemovalExecutor.awaitTermination(healthCheckTimeout, TimeUnit.MILLISECONDS)) {
+                    nodeRemovalExecutor.shutdownNow();
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-            } catch (Exception e) {
-                log.error("Exception in monitorNode: ", e);
             }
         }
     }
 
-    private void deleteNodeRecord(NetworkNodeData networkNodeData) {
-        log.info("Deleting {} of address {} and port {}", networkNodeData.getNodeType(), networkNodeData.getAddress(), networkNodeData.getHttpPort());
-        nodeManagementService.addNodeHistory(networkNodeData, NetworkNodeStatus.INACTIVE, Instant.now());
-        activeNodes.delete(networkNodeData);
+    private enum NodeHealthState {
+        HEALTHY,
+        SUSPECTED,
+        STOPPED
     }
 
-    public void shutdown() {
-        log.info("Shutting down {}", this.getClass().getSimpleName());
-        try {
-            hashToThreadMap.forEach((nodeHash, thread) -> {
-                thread.interrupt();
-                try {
-                    thread.join();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+    private class NodeMonitor {
+
+        private final NetworkNodeData networkNodeData;
+        private final String nodeHashUrl;
+        private volatile NodeHealthState nodeHealthState = NodeHealthState.HEALTHY;
+        private int failedTries;
+        private volatile Timeout timeout;
+        private volatile Disposable check;
+
+        private NodeMonitor(NetworkNodeData networkNodeData) {
+            this.networkNodeData = networkNodeData;
+            this.nodeHashUrl = getNodeHashUrl(networkNodeData);
+        }
+
+        private void schedule(long delay) {
+            if (nodeHealthState != NodeHealthState.STOPPED && !shuttingDown) {
+                timeout = healthCheckTimer.newTimeout(expiredTimeout -> requestCheck(), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void requestCheck() {
+            if (nodeHealthState != NodeHealthState.STOPPED) {
+                waitingNodeMonitors.add(this);
+                dispatchWaitingChecks();
+            }
+        }
+
+        private void sendCheck() {
+            if (nodeHealthState == NodeHealthState.STOPPED) {
+                releaseCheckPermit();
+                return;
+            }
+            try {
+                check = webClient.get().uri(nodeHashUrl).retrieve().bodyToMono(String.class)
+                        .hasElement()
+                        .timeout(Duration.ofMillis(healthCheckTimeout))
+                        .doFinally(signalType -> releaseCheckPermit())
+                        .subscribe(responding -> {
+                            if (responding) {
+                                onResponse();
+                            } else {
+                                onFailure("Empty response");
+                            }
+                        }, throwable -> onFailure(throwable.toString()));
+            } catch (Exception e) {
+                releaseCheckPermit();
+                onFailure(e.toString());
+            }
+        }
+
+        private void onResponse() {
+            if (nodeHealthState == NodeHealthState.STOPPED) {
+                return;
+            }
+            if (nodeHealthState == NodeHealthState.SUSPECTED) {
+                log.info("{} of address {} is responding again to healthcheck", networkNodeData.getNodeType(), networkNodeData.getHttpFullAddress());
+            }
+            log.debug("{} of address {} and port {} is responding to healthcheck.",
+                    networkNodeData.getNodeType(), networkNodeData.getAddress(), networkNodeData.getHttpPort());
+            nodeHealthState = NodeHealthState.HEALTHY;
+            failedTries = 0;
+            schedule(jitter(healthCheckInterval));
+        }
+
+        private void onFailure(String error) {
+            if (nodeHealthState == NodeHealthState.STOPPED) {
+                return;
+            }
+            failedTries++;
+            log.error("Exception in health check to {} . this was the #{} attempt out of {}. Err: {}",
+                    networkNodeData.getHttpFullAddress(), failedTries, maxNumOfTries, error);
+            if (failedTries >= maxNumOfTries) {
+                nodeHealthState = NodeHealthState.STOPPED;
+                if (!shuttingDown) {
+                    nodeRemovalExecutor.execute(() -> removeNode(this));
                 }
-            });
-        } catch (Exception e) {
-            log.error("Interrupted shutdown health check service");
+                return;
+            }
+            nodeHealthState = NodeHealthState.SUSPECTED;
+            log.info("Waiting {} milliseconds for #{} retry to {} of address {} healthcheck",
+                    retryInterval, failedTries, networkNodeData.getNodeType(), networkNodeData.getHttpFullAddress());
+            schedule(jitter(retryInterval));
+        }
+
+        private void stop() {
+            nodeHealthState = NodeHealthState.STOPPED;
+            Timeout scheduledTimeout = timeout;
+            if (scheduledTimeout != null) {
+                scheduledTimeout.cancel();
+            }
+            Disposable sentCheck = check;
+            if (sentCheck != null) {
+                sentCheck.dispose();
+            }
         }
     }
 }
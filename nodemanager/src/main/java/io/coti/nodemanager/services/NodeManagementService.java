@@ -38,7 +38,6 @@ import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static io.coti.basenode.http.BaseNodeHttpStringConstants.INVALID_NODE_SERVER_URL_HOST_RESERVED;
@@ -102,7 +101,7 @@ public class NodeManagementService implements INodeManagementService {
             ActiveNodeData activeNodeData = new ActiveNodeData(networkNodeData.getHash(), networkNodeData);
             activeNodes.put(activeNodeData);
             addNodeHistory(networkNodeData, NetworkNodeStatus.ACTIVE, Instant.now());
-            healthCheckService.initNodeMonitorThreadIfAbsent(Executors.defaultThreadFactory(), networkNodeData);
+            healthCheckService.startNodeMonitor(networkNodeData);
             propagateNetworkChanges();
             Thread.sleep(3000); // a delay for other nodes to make changes with the newly added node
             return ResponseEntity.status(HttpStatus.OK).body(String.format(NODE_ADDED_TO_NETWORK, networkNodeData.getNodeHash()));
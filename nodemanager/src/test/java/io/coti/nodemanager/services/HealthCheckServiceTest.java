@@ -0,0 +1,162 @@
+package io.coti.nodemanager.services;
+
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.NetworkNodeData;
+import io.coti.basenode.data.NetworkType;
+import io.coti.basenode.data.NodeType;
+import io.coti.basenode.services.interfaces.INetworkService;
+import io.coti.nodemanager.data.NetworkNodeStatus;
+import io.coti.nodemanager.model.ActiveNodes;
+import io.coti.nodemanager.services.interfaces.INodeManagementService;
+import io.coti.nodemanager.testutils.NodeStubServer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@Slf4j
+public class HealthCheckServiceTest {
+
+    private static final int NUMBER_OF_NODES = 2000;
+    private static final int NUMBER_OF_DOWN_NODES = 100;
+    private static final long HEALTH_CHECK_INTERVAL = 5000;
+    private static final long RETRY_INTERVAL = 1000;
+    private static final int MAX_NUM_OF_TRIES = 3;
+    private static final long HEALTH_CHECK_TIMEOUT = 2000;
+    private static final double JITTER_RATIO = 0.2;
+    private static final long DETECTION_BOUND = (long) ((HEALTH_CHECK_INTERVAL + (MAX_NUM_OF_TRIES - 1) * RETRY_INTERVAL) * (1 + JITTER_RATIO))
+            + MAX_NUM_OF_TRIES * HEALTH_CHECK_TIMEOUT;
+    private static final long DETECTION_SLACK = 3000;
+    private NodeStubServer nodeStubServer;
+    private HealthCheckService healthCheckService;
+    private INodeManagementService nodeManagementService;
+    private INetworkService networkService;
+    private ActiveNodes activeNodes;
+
+    @Before
+    public void setUp() throws IOException {
+        nodeStubServer = new NodeStubServer(NUMBER_OF_NODES, 16);
+        healthCheckService = new HealthCheckService() {
+            @Override
+            String getNodeHashUrl(NetworkNodeData networkNodeData) {
+                return nodeStubServer.getNodeHashUrl(Integer.parseInt(networkNodeData.getHttpPort()));
+            }
+        };
+        nodeManagementService = Mockito.mock(INodeManagementService.class);
+        networkService = Mockito.mock(INetworkService.class);
+        activeNodes = Mockito.mock(ActiveNodes.class);
+        when(networkService.getNetworkNodeDataList()).thenReturn(Collections.emptyList());
+        ReflectionTestUtils.setField(healthCheckService, "nodeManagementService", nodeManagementService);
+        ReflectionTestUtils.setField(healthCheckService, "networkService", networkService);
+        ReflectionTestUtils.setField(healthCheckService, "activeNodes", activeNodes);
+        ReflectionTestUtils.setField(healthCheckService, "webClient", WebClient.create());
+        ReflectionTestUtils.setField(healthCheckService, "healthCheckInterval", HEALTH_CHECK_INTERVAL);
+        ReflectionTestUtils.setField(healthCheckService, "retryInterval", RETRY_INTERVAL);
+        ReflectionTestUtils.setField(healthCheckService, "maxNumOfTries", MAX_NUM_OF_TRIES);
+        ReflectionTestUtils.setField(healthCheckService, "healthCheckTimeout", HEALTH_CHECK_TIMEOUT);
+        ReflectionTestUtils.setField(healthCheckService, "maxConcurrentChecks", 128);
+        ReflectionTestUtils.setField(healthCheckService, "jitterRatio", JITTER_RATIO);
+        ReflectionTestUtils.setField(healthCheckService, "timerTick", 10L);
+        healthCheckService.init();
+    }
+
+    @After
+    public void tearDown() {
+        healthCheckService.shutdown();
+        nodeStubServer.close();
+    }
+
+    @Test
+    public void startNodeMonitor_thousandsOfHealthyNodes_checkedWithoutThreadPerNode() throws InterruptedException {
+        int threadsBeforeMonitoring = Thread.activeCount();
+
+        createNodes(NUMBER_OF_NODES).forEach(healthCheckService::startNodeMonitor);
+        Thread.sleep(5 * HEALTH_CHECK_INTERVAL / 2);
+
+        int addedThreads = Thread.activeCount() - threadsBeforeMonitoring;
+        log.info("Monitoring {} nodes added {} threads", NUMBER_OF_NODES, addedThreads);
+        Assert.assertTrue(addedThreads < 2 * Runtime.getRuntime().availableProcessors() + 16);
+        for (int node = 0; node < NUMBER_OF_NODES; node++) {
+            Assert.assertTrue("Node " + node, nodeStubServer.getNodeChecks(node) >= 2);
+        }
+        Assert.assertEquals(NUMBER_OF_NODES, healthCheckService.getNumberOfMonitoredNodes());
+        verify(networkService, never()).removeNode(any());
+    }
+
+    @Test
+    public void startNodeMonitor_downNodes_removedWithinDetectionBound() throws InterruptedException {
+        List<NetworkNodeData> networkNodeDataList = createNodes(NUMBER_OF_NODES);
+        networkNodeDataList.forEach(healthCheckService::startNodeMonitor);
+        Thread.sleep(HEALTH_CHECK_INTERVAL);
+
+        long downTime = System.currentTimeMillis();
+        for (int node = 0; node < NUMBER_OF_NODES; node += NUMBER_OF_NODES / NUMBER_OF_DOWN_NODES) {
+            nodeStubServer.setNodeDown(node);
+        }
+        verify(networkService, timeout(DETECTION_BOUND + DETECTION_SLACK).times(NUMBER_OF_DOWN_NODES)).removeNode(any());
+        long detectionTime = System.currentTimeMillis() - downTime;
+
+        log.info("Detected {} down nodes out of {} in {} ms, bound {} ms", NUMBER_OF_DOWN_NODES, NUMBER_OF_NODES, detectionTime, DETECTION_BOUND);
+        verify(nodeManagementService, timeout(DETECTION_SLACK).times(NUMBER_OF_DOWN_NODES)).propagateNetworkChanges();
+        verify(nodeManagementService, times(NUMBER_OF_DOWN_NODES)).addNodeHistory(any(), eq(NetworkNodeStatus.INACTIVE), any());
+        verify(activeNodes, times(NUMBER_OF_DOWN_NODES)).delete(any());
+        verify(networkService).removeNode(networkNodeDataList.get(0));
+        verify(networkService, never()).removeNode(networkNodeDataList.get(1));
+        Assert.assertEquals(NUMBER_OF_NODES - NUMBER_OF_DOWN_NODES, healthCheckService.getNumberOfMonitoredNodes());
+    }
+
+    @Test
+    public void startNodeMonitor_nodeRecoveringBeforeLastTry_notRemoved() throws InterruptedException {
+        NetworkNodeData networkNodeData = createNodes(1).get(0);
+        healthCheckService.startNodeMonitor(networkNodeData);
+        waitForNextCheck(0);
+
+        nodeStubServer.setNodeDown(0);
+        waitForNextCheck(0);
+        nodeStubServer.setNodeUp(0);
+        Thread.sleep((long) ((MAX_NUM_OF_TRIES - 1) * RETRY_INTERVAL * (1 + JITTER_RATIO)) + HEALTH_CHECK_TIMEOUT);
+
+        verify(networkService, never()).removeNode(any());
+        Assert.assertEquals(1, healthCheckService.getNumberOfMonitoredNodes());
+    }
+
+    @Test
+    public void startNodeMonitor_sameNodeTwice_monitoredOnce() throws InterruptedException {
+        NetworkNodeData networkNodeData = createNodes(1).get(0);
+
+        healthCheckService.startNodeMonitor(networkNodeData);
+        healthCheckService.startNodeMonitor(networkNodeData);
+        Thread.sleep(2 * HEALTH_CHECK_INTERVAL);
+
+        Assert.assertEquals(1, healthCheckService.getNumberOfMonitoredNodes());
+        Assert.assertTrue(nodeStubServer.getNodeChecks(0) <= 2 / (1 - JITTER_RATIO) + 1);
+    }
+
+    private void waitForNextCheck(int node) throws InterruptedException {
+        long checks = nodeStubServer.getNodeChecks(node);
+        while (nodeStubServer.getNodeChecks(node) == checks) {
+            Thread.sleep(1);
+        }
+    }
+
+    private List<NetworkNodeData> createNodes(int numberOfNodes) {
+        List<NetworkNodeData> networkNodeDataList = new ArrayList<>();
+        for (int node = 0; node < numberOfNodes; node++) {
+            networkNodeDataList.add(new NetworkNodeData(NodeType.FullNode, "1.0", "localhost", String.valueOf(node), new Hash(node), NetworkType.TestNet));
+        }
+        return networkNodeDataList;
+    }
+}
@@ -0,0 +1,81 @@
+package io.coti.nodemanager.testutils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A local http server answering the node hash end point of many simulated nodes. The node number is the first element
+ * of the request path, so that one server on one port stands for the whole network. A node set down answers with an
+ * error until it is set up again.
+ */
+public class NodeStubServer implements AutoCloseable {
+
+    private final HttpServer httpServer;
+    private final ThreadPoolExecutor executorService;
+    private final AtomicLongArray nodeChecks;
+    private final Set<Integer> downNodes = ConcurrentHashMap.newKeySet();
+
+    public NodeStubServer(int numberOfNodes, int numberOfThreads) throws IOException {
+        nodeChecks = new AtomicLongArray(numberOfNodes);
+        executorService = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        executorService.prestartAllCoreThreads();
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        httpServer.createContext("/", this::handle);
+        httpServer.setExecutor(executorService);
+        httpServer.start();
+    }
+
+    public String getNodeHashUrl(int node) {
+        return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + httpServer.getAddress().getPort() + "/" + node + "/nodeHash";
+    }
+
+    public void setNodeDown(int node) {
+        downNodes.add(node);
+    }
+
+    public void setNodeUp(int node) {
+        downNodes.remove(node);
+    }
+
+    public long getNodeChecks(int node) {
+        return nodeChecks.get(node);
+    }
+
+    private void handle(HttpExchange httpExchange) throws IOException {
+        try {
+            String path = httpExchange.getRequestURI().getPath();
+            int node = Integer.parseInt(path.substring(1, path.indexOf('/', 1)));
+            nodeChecks.incrementAndGet(node);
+            if (downNodes.contains(node)) {
+                httpExchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            byte[] response = ("\"" + Integer.toHexString(node) + "\"").getBytes(StandardCharsets.UTF_8);
+            httpExchange.getResponseHeaders().add("Content-Type", "application/json");
+            httpExchange.sendResponseHeaders(200, response.length);
+            try (OutputStream responseBody = httpExchange.getResponseBody()) {
+                responseBody.write(response);
+            }
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executorService.shutdownNow();
+    }
+}
@@ -7,24 +7,27 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import sun.security.provider.Sun;
 
 import java.lang.reflect.InvocationTargetException;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import java.security.Security;
-import java.util.Arrays;
-import java.util.List;
+import java.util.EnumSet;
+import java.util.Set;
 
 @Slf4j
 public class Algorithm implements IAlgorithm {
 
+    private static final Provider bouncyCastleProvider = new BouncyCastleProvider();
+    private static final Set<AlgorithmType> bouncyCastleAlgorithms;
     private final AlgorithmType hashingAlgorithm;
+    private final boolean bouncyCastleAlgorithm;
     private Digest cryptoHashAlgorithm;
     private MessageDigest messageDigestAlgorithm;
-    private static List<AlgorithmType> bouncyCastleAlgorithms;
 
     static {
 
-        Security.addProvider(new BouncyCastleProvider());
+        Security.addProvider(bouncyCastleProvider);
         Security.addProvider(new Sun());
 
         Provider[] providers = Security.getProviders();
@@ -32,14 +35,15 @@ public class Algorithm implements IAlgorithm {
             Security.addProvider(provider);
         }
 
-        Algorithm.bouncyCastleAlgorithms = Arrays.asList(AlgorithmType.SHA_512,
+        bouncyCastleAlgorithms = EnumSet.of(AlgorithmType.SHA_512,
                 AlgorithmType.BLAKE2B_512, AlgorithmType.KECCAK_512, AlgorithmType.SKEIN_512_512, AlgorithmType.WHIRLPOOL);
     }
 
     public Algorithm(AlgorithmType hashingAlgorithm) {
         this.hashingAlgorithm = hashingAlgorithm;
+        this.bouncyCastleAlgorithm = bouncyCastleAlgorithms.contains(hashingAlgorithm);
         try {
-            if (bouncyCastleAlgorithms.contains(hashingAlgorithm)) {
+            if (bouncyCastleAlgorithm) {
                 this.messageDigestAlgorithm = this.getBouncyCastle(hashingAlgorithm);
             } else {
                 this.cryptoHashAlgorithm = this.getCryptoHash(hashingAlgorithm);
@@ -51,14 +55,41 @@ public class Algorithm implements IAlgorithm {
 
     @Override
     public byte[] hash(byte[] input) {
-        if (bouncyCastleAlgorithms.contains(hashingAlgorithm)) {
+        if (bouncyCastleAlgorithm) {
             return messageDigestAlgorithm.digest(input);
         }
         return cryptoHashAlgorithm.digest(input);
     }
 
+    /**
+     * Hashes the first {@code inputLength} bytes of the input into the output buffer, which must hold at least
+     * {@link #getDigestLength()} bytes. No arrays are allocated, so this can be called once per nonce.
+     */
+    @Override
+    public void hash(byte[] input, int inputLength, byte[] output) {
+        if (bouncyCastleAlgorithm) {
+            messageDigestAlgorithm.update(input, 0, inputLength);
+            try {
+                messageDigestAlgorithm.digest(output, 0, output.length);
+            } catch (DigestException e) {
+                throw new IllegalArgumentException(String.format("Output buffer is too short for %s", hashingAlgorithm), e);
+            }
+        } else {
+            cryptoHashAlgorithm.update(input, 0, inputLength);
+            cryptoHashAlgorithm.digest(output, 0, output.length);
+        }
+    }
+
+    @Override
+    public int getDigestLength() {
+        if (bouncyCastleAlgorithm) {
+            return messageDigestAlgorithm.getDigestLength();
+        }
+        return cryptoHashAlgorithm.getDigestLength();
+    }
+
     private MessageDigest getBouncyCastle(AlgorithmType hashingAlgorithm) throws NoSuchAlgorithmException {
-        return MessageDigest.getInstance(hashingAlgorithm.toString(), new BouncyCastleProvider());
+        return MessageDigest.getInstance(hashingAlgorithm.toString(), bouncyCastleProvider);
     }
 
     private Digest getCryptoHash(AlgorithmType hashingAlgorithm) throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
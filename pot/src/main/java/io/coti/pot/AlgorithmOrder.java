@@ -4,31 +4,35 @@ import io.coti.pot.interfaces.IAlgorithm;
 import io.coti.pot.interfaces.IAlgorithmOrder;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
 class AlgorithmOrder implements IAlgorithmOrder {
 
+    // Digests keep internal state, so every thread hashes with its own instances, created once and reused by all orders
+    private static final ThreadLocal<Map<IAlgorithm.AlgorithmType, IAlgorithm>> threadAlgorithmMap =
+            ThreadLocal.withInitial(() -> new EnumMap<>(IAlgorithm.AlgorithmType.class));
     private final List<IAlgorithm.AlgorithmType> hashingAlgorithms;
-    private final Map<IAlgorithm.AlgorithmType, IAlgorithm> algorithmMap = new EnumMap<>(IAlgorithm.AlgorithmType.class);
 
     AlgorithmOrder(int trustScore, int maxTrustScore) {
         IAlgorithm.AlgorithmType[] allAlgos = IAlgorithm.AlgorithmType.values();
         List<IAlgorithm.AlgorithmType> allAlgosList = Arrays.asList(allAlgos);
 
         int count = getAlgorithmCount(trustScore, maxTrustScore, allAlgosList.size());
-        hashingAlgorithms = allAlgosList.subList(0, count);
-
-        hashingAlgorithms.forEach(algorithm -> algorithmMap.putIfAbsent(algorithm, new Algorithm(algorithm)));
+        hashingAlgorithms = Collections.unmodifiableList(allAlgosList.subList(0, count));
     }
 
     public List<IAlgorithm.AlgorithmType> getHashingAlgorithms() {
         return this.hashingAlgorithms;
     }
 
+    /**
+     * Returns the instance of the algorithm owned by the calling thread.
+     */
     public IAlgorithm getHashingAlgorithm(IAlgorithm.AlgorithmType algorithm) {
-        return this.algorithmMap.get(algorithm);
+        return threadAlgorithmMap.get().computeIfAbsent(algorithm, Algorithm::new);
     }
 
     private int getAlgorithmCount(int trustScore, int maxTrustScore, int maxLength) {
@@ -3,28 +3,48 @@ package io.coti.pot;
 import io.coti.pot.interfaces.IAlgorithm;
 import io.coti.pot.interfaces.IAlgorithmOrder;
 import io.coti.pot.interfaces.IAlgorithmWorker;
-import org.apache.commons.lang3.ArrayUtils;
 
-import java.math.BigInteger;
-import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class AlgorithmWorker implements IAlgorithmWorker {
 
+    private static final int NO_NONCE = Integer.MAX_VALUE;
+    private static final int CANCELLED_NONCE = Integer.MIN_VALUE;
+    private static final ExecutorService nonceSearchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "PotNonceSearch");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final IAlgorithmOrder ordering;
+    private final int nonceSearchWorkers;
 
     public AlgorithmWorker(IAlgorithmOrder ordering) {
+        this(ordering, 1);
+    }
+
+    public AlgorithmWorker(IAlgorithmOrder ordering, int nonceSearchWorkers) {
+        if (nonceSearchWorkers < 1) {
+            throw new IllegalArgumentException("nonceSearchWorkers must be positive");
+        }
         this.ordering = ordering;
+        this.nonceSearchWorkers = nonceSearchWorkers;
     }
 
     @Override
     public int[] hash(byte[] data, byte[] target) {
-        BigInteger targetOutput = new BigInteger(1, target);
         int[] nonces = new int[ordering.getHashingAlgorithms().size()];
         byte[] lastCorrectHash = data;
 
         for (int i = 0; i < nonces.length; i++) {
             IAlgorithm.AlgorithmType hashingAlgorithm = ordering.getHashingAlgorithms().get(i);
-            int nonce = findNonce(hashingAlgorithm, lastCorrectHash, targetOutput);
+            int nonce = findNonce(hashingAlgorithm, lastCorrectHash, target);
             lastCorrectHash = concatAndHash(hashingAlgorithm, lastCorrectHash, nonce);
             nonces[i] = nonce;
         }
@@ -37,14 +57,12 @@ class AlgorithmWorker implements IAlgorithmWorker {
             return false;
         }
 
-        BigInteger targetOutput = new BigInteger(1, target);
         byte[] lastCorrectHash = data;
 
         for (int i = 0; i < nonce.length; i++) {
             IAlgorithm.AlgorithmType hashingAlgorithm = ordering.getHashingAlgorithms().get(i);
             byte[] hashedData = concatAndHash(hashingAlgorithm, lastCorrectHash, nonce[i]);
-            BigInteger currentOutput = new BigInteger(1, hashedData);
-            if (currentOutput.compareTo(targetOutput) > -1) {
+            if (!isBelowTarget(hashedData, target)) {
                 return false;
             }
             lastCorrectHash = hashedData;
@@ -52,24 +70,90 @@ class AlgorithmWorker implements IAlgorithmWorker {
         return true;
     }
 
-    private int findNonce(IAlgorithm.AlgorithmType hashingAlgorithm, byte[] lastCorrectHash, BigInteger targetOutput) {
-        byte[] hashedData;
-        boolean validHash;
-        int nonce = 0;
-
-        do {
-            hashedData = concatAndHash(hashingAlgorithm, lastCorrectHash, nonce);
-            BigInteger currentOutput = new BigInteger(1, hashedData);
-            validHash = (currentOutput.compareTo(targetOutput) < 0);
-            nonce = nonce + 1;
-        } while (!validHash);
-        return nonce - 1;
+    /**
+     * Finds the lowest nonce whose hash is below the target. With several workers, worker {@code k} tries the nonces
+     * {@code k, k + workers, k + 2 * workers, ...} and stops once it passes the lowest nonce found so far, so the result
+     * is the same as the one of a sequential search.
+     */
+    private int findNonce(IAlgorithm.AlgorithmType hashingAlgorithm, byte[] lastCorrectHash, byte[] target) {
+        AtomicInteger foundNonce = new AtomicInteger(NO_NONCE);
+        if (nonceSearchWorkers == 1) {
+            searchNonces(hashingAlgorithm, lastCorrectHash, target, 0, 1, foundNonce);
+        } else {
+            List<Future<?>> searchFutures = new ArrayList<>(nonceSearchWorkers - 1);
+            for (int worker = 1; worker < nonceSearchWorkers; worker++) {
+                int firstNonce = worker;
+                searchFutures.add(nonceSearchExecutor.submit(() -> searchNonces(hashingAlgorithm, lastCorrectHash, target, firstNonce, nonceSearchWorkers, foundNonce)));
+            }
+            searchNonces(hashingAlgorithm, lastCorrectHash, target, 0, nonceSearchWorkers, foundNonce);
+            waitForSearch(searchFutures, foundNonce);
+        }
+        if (foundNonce.get() == NO_NONCE) {
+            throw new IllegalStateException(String.format("No nonce found for algorithm %s", hashingAlgorithm));
+        }
+        return foundNonce.get();
+    }
+
+    private void searchNonces(IAlgorithm.AlgorithmType hashingAlgorithm, byte[] data, byte[] target, int firstNonce, int nonceStep, AtomicInteger foundNonce) {
+        IAlgorithm algorithm = ordering.getHashingAlgorithm(hashingAlgorithm);
+        byte[] input = Arrays.copyOf(data, data.length + Integer.BYTES);
+        byte[] output = new byte[algorithm.getDigestLength()];
+
+        for (int nonce = firstNonce; nonce >= 0 && nonce < foundNonce.get(); nonce += nonceStep) {
+            putNonce(input, data.length, nonce);
+            algorithm.hash(input, input.length, output);
+            if (isBelowTarget(output, target)) {
+                foundNonce.accumulateAndGet(nonce, Math::min);
+                return;
+            }
+        }
+    }
+
+    private void waitForSearch(List<Future<?>> searchFutures, AtomicInteger foundNonce) {
+        try {
+            for (Future<?> searchFuture : searchFutures) {
+                searchFuture.get();
+            }
+        } catch (InterruptedException e) {
+            foundNonce.set(CANCELLED_NONCE);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Nonce search was interrupted", e);
+        } catch (ExecutionException e) {
+            foundNonce.set(CANCELLED_NONCE);
+            throw new IllegalStateException("Nonce search failed", e.getCause());
+        }
     }
 
     private byte[] concatAndHash(IAlgorithm.AlgorithmType hashingAlgorithm, byte[] data, int nonce) {
-        byte[] nonceByte = ByteBuffer.allocate(4).putInt(nonce).array();
-        data = ArrayUtils.addAll(data, nonceByte);
-        data = ordering.getHashingAlgorithm(hashingAlgorithm).hash(data);
-        return data;
+        IAlgorithm algorithm = ordering.getHashingAlgorithm(hashingAlgorithm);
+        byte[] input = Arrays.copyOf(data, data.length + Integer.BYTES);
+        putNonce(input, data.length, nonce);
+        byte[] output = new byte[algorithm.getDigestLength()];
+        algorithm.hash(input, input.length, output);
+        return output;
+    }
+
+    private static void putNonce(byte[] input, int offset, int nonce) {
+        input[offset] = (byte) (nonce >>> 24);
+        input[offset + 1] = (byte) (nonce >>> 16);
+        input[offset + 2] = (byte) (nonce >>> 8);
+        input[offset + 3] = (byte) nonce;
+    }
+
+    /**
+     * Compares both arrays as unsigned big-endian numbers, the shorter one padded with leading zeros.
+     */
+    static boolean isBelowTarget(byte[] hash, byte[] target) {
+        int length = Math.max(hash.length, target.length);
+        int hashPadding = length - hash.length;
+        int targetPadding = length - target.length;
+        for (int i = 0; i < length; i++) {
+            int hashByte = i < hashPadding ? 0 : hash[i - hashPadding] & 0xFF;
+            int targetByte = i < targetPadding ? 0 : target[i - targetPadding] & 0xFF;
+            if (hashByte != targetByte) {
+                return hashByte < targetByte;
+            }
+        }
+        return false;
     }
 }
@@ -10,16 +10,29 @@ import java.util.List;
 public class ProofOfTrust implements IProofOfTrust {
 
     private static final int MAX_TRUST_SCORE = 100;
+    private static final IAlgorithmOrder[] hashOrders = new IAlgorithmOrder[MAX_TRUST_SCORE + 1];
+    private static final IAlgorithmWorker[] hashWorkers = new IAlgorithmWorker[MAX_TRUST_SCORE + 1];
     private final IAlgorithmOrder hashOrder;
     private final IAlgorithmWorker hashWorker;
 
+    static {
+        for (int trustScore = 0; trustScore <= MAX_TRUST_SCORE; trustScore++) {
+            hashOrders[trustScore] = new AlgorithmOrder(trustScore, MAX_TRUST_SCORE);
+            hashWorkers[trustScore] = new AlgorithmWorker(hashOrders[trustScore]);
+        }
+    }
+
     public ProofOfTrust(int trustScore) {
+        this(trustScore, 1);
+    }
+
+    public ProofOfTrust(int trustScore, int nonceSearchWorkers) {
 
         if (trustScore < 0 || trustScore > MAX_TRUST_SCORE) {
             throw new IllegalArgumentException("trustScore must be between 0 and 100 inclusive");
         }
-        hashOrder = new AlgorithmOrder(trustScore, MAX_TRUST_SCORE);
-        hashWorker = new AlgorithmWorker(hashOrder);
+        hashOrder = hashOrders[trustScore];
+        hashWorker = nonceSearchWorkers == 1 ? hashWorkers[trustScore] : new AlgorithmWorker(hashOrder, nonceSearchWorkers);
     }
 
     public List<IAlgorithm.AlgorithmType> getHashingAlgorithms() {
@@ -4,9 +4,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.context.TestPropertySource;
 
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.util.Random;
 
 import static javax.xml.bind.DatatypeConverter.parseHexBinary;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -44,4 +48,30 @@ class ProofOfTransactionTest {
         boolean valid = pow.verify(transactionData, nonces, targetDifficulty);
         assertFalse(valid);
     }
+
+    @Test
+    void parallelSearchFindsSequentialNonces() {
+        ProofOfTrust parallelPow = new ProofOfTrust(0, 4);
+        int[] nonces = pow.hash(transactionData, targetDifficulty);
+        int[] parallelNonces = parallelPow.hash(transactionData, targetDifficulty);
+        assertArrayEquals(nonces, parallelNonces);
+        assertTrue(pow.verify(transactionData, parallelNonces, targetDifficulty));
+    }
+
+    @Test
+    void targetComparisonMatchesBigInteger() {
+        Random random = new Random(1234);
+        for (int i = 0; i < 10000; i++) {
+            byte[] hash = new byte[1 + random.nextInt(66)];
+            byte[] target = new byte[1 + random.nextInt(66)];
+            random.nextBytes(hash);
+            random.nextBytes(target);
+            if (random.nextBoolean()) {
+                hash[0] = 0;
+                target[0] = 0;
+            }
+            boolean expected = new BigInteger(1, hash).compareTo(new BigInteger(1, target)) < 0;
+            assertEquals(expected, AlgorithmWorker.isBelowTarget(hash, target));
+        }
+    }
 }
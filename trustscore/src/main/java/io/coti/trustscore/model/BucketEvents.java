@@ -1,10 +1,31 @@
 package io.coti.trustscore.model;
 
+import io.coti.basenode.data.Hash;
 import io.coti.basenode.model.Collection;
 import io.coti.trustscore.data.Buckets.BucketEventData;
+import org.rocksdb.WriteBatch;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+
 @Service
 public class BucketEvents<T extends BucketEventData> extends Collection<T> {
 
+    public byte[] serializeBucket(T bucketEventData) {
+        return serialize(bucketEventData);
+    }
+
+    /**
+     * Returns false, without writing any bucket, if a bucket can not be added to the batch or the batch is not written.
+     */
+    public boolean putSerializedBatch(Map<Hash, byte[]> bucketHashToSerializedBucketMap) {
+        try (WriteBatch writeBatch = new WriteBatch()) {
+            for (Map.Entry<Hash, byte[]> serializedBucketEntry : bucketHashToSerializedBucketMap.entrySet()) {
+                if (!databaseConnector.put(columnFamilyName, writeBatch, serializedBucketEntry.getKey().getBytes(), serializedBucketEntry.getValue())) {
+                    return false;
+                }
+            }
+            return databaseConnector.putBatch(writeBatch);
+        }
+    }
 }
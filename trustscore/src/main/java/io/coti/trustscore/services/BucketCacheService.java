@@ -0,0 +1,257 @@
+package io.coti.trustscore.services;
+
+import com.google.common.util.concurrent.Striped;
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.exceptions.DataBaseWriteException;
+import io.coti.trustscore.data.Buckets.BucketEventData;
+import io.coti.trustscore.model.BucketEvents;
+import io.coti.trustscore.utils.DatesCalculation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Keeps the buckets of the users in memory and writes the changed buckets to the database in batches. The buckets of a
+ * user are read and changed only while holding the lock of the user. Changes acknowledged to an api caller are written
+ * at once instead. A batch is written while holding the locks of its users, so a bucket written at once is never
+ * overwritten by an older copy from a batch. The trust score of a user is kept until one of the user buckets changes
+ * or the day changes, as the bucket decays are daily.
+ */
+@Slf4j
+@Service
+public class BucketCacheService {
+
+    @Autowired
+    private BucketEvents bucketEvents;
+    @Value("${trustscore.bucket.cache.lock.stripes:256}")
+    private int lockStripes;
+    @Value("${trustscore.bucket.cache.flush.batch.size:10000}")
+    private int flushBatchSize;
+    @Value("${trustscore.bucket.cache.idle.seconds:3600}")
+    private long idleSeconds;
+    private Striped<Lock> userLocks;
+    private final Map<Hash, CachedBucket> bucketHashToCachedBucketMap = new ConcurrentHashMap<>();
+    private final Set<Hash> dirtyBucketHashes = ConcurrentHashMap.newKeySet();
+    private final Map<Hash, TrustScoreSnapshot> userHashToTrustScoreSnapshotMap = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+
+    @PostConstruct
+    private void init() {
+        userLocks = Striped.lock(lockStripes);
+    }
+
+    public <T> T executeWithUserLock(Hash userHash, Supplier<T> action) {
+        Lock userLock = userLocks.get(userHash);
+        userLock.lock();
+        try {
+            return action.get();
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    public void executeWithUserLock(Hash userHash, Runnable action) {
+        executeWithUserLock(userHash, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the cached bucket, to be read and changed only under the lock of the user.
+     */
+    public <T extends BucketEventData> T getBucket(Hash userHash, Hash bucketHash) {
+        CachedBucket cachedBucket = bucketHashToCachedBucketMap.get(bucketHash);
+        if (cachedBucket == null) {
+            BucketEventData bucketEventData = (BucketEventData) bucketEvents.getByHash(bucketHash);
+            if (bucketEventData == null) {
+                return null;
+            }
+            cachedBucket = new CachedBucket(userHash, bucketEventData);
+            bucketHashToCachedBucketMap.put(bucketHash, cachedBucket);
+        }
+        cachedBucket.lastAccessTime = System.currentTimeMillis();
+        return (T) cachedBucket.bucketEventData;
+    }
+
+    /**
+     * Returns a copy of the bucket, which can be changed or sent without holding the lock of the user.
+     */
+    public <T extends BucketEventData> T getBucketCopy(Hash userHash, Hash bucketHash) {
+        return executeWithUserLock(userHash, () -> {
+            BucketEventData bucketEventData = getBucket(userHash, bucketHash);
+            return bucketEventData != null ? (T) bucketEvents.getDeserializedValue(bucketHash, bucketEvents.serializeBucket(bucketEventData)) : null;
+        });
+    }
+
+    /**
+     * Puts a changed copy of a bucket in the cache under the lock of the user, to be written by the next flush.
+     */
+    public void putBucket(Hash userHash, BucketEventData bucketEventData) {
+        cacheBucket(userHash, bucketEventData);
+        dirtyBucketHashes.add(bucketEventData.getHash());
+    }
+
+    /**
+     * Writes a changed copy of a bucket at once and then puts it in the cache, for the changes acknowledged to an api
+     * caller. The copy must be taken and changed under the same hold of the user lock. When the write fails, the cached
+     * bucket is kept as it was.
+     */
+    public void writeBucket(Hash userHash, BucketEventData bucketEventData) {
+        executeWithUserLock(userHash, () -> {
+            Hash bucketHash = bucketEventData.getHash();
+            if (!bucketEvents.putSerializedBatch(Collections.singletonMap(bucketHash, bucketEvents.serializeBucket(bucketEventData)))) {
+                throw new DataBaseWriteException(String.format("Error at writing bucket %s", bucketHash));
+            }
+            cacheBucket(userHash, bucketEventData);
+            dirtyBucketHashes.remove(bucketHash);
+        });
+    }
+
+    /**
+     * Writes a new bucket at once, as the trust score data of the user refers to it.
+     */
+    public void createBucket(Hash userHash, BucketEventData bucketEventData) {
+        executeWithUserLock(userHash, () -> {
+            bucketEvents.put(bucketEventData);
+            cacheBucket(userHash, bucketEventData);
+        });
+    }
+
+    private void cacheBucket(Hash userHash, BucketEventData bucketEventData) {
+        CachedBucket cachedBucket = new CachedBucket(userHash, bucketEventData);
+        cachedBucket.lastAccessTime = System.currentTimeMillis();
+        bucketHashToCachedBucketMap.put(bucketEventData.getHash(), cachedBucket);
+        userHashToTrustScoreSnapshotMap.remove(userHash);
+    }
+
+    /**
+     * Returns the trust score of the user calculated today since the last change of the user buckets, or calculates it
+     * from copies of the buckets, so that the decays done by the calculation are not kept.
+     */
+    public double getUserTrustScore(Hash userHash, ToDoubleFunction<Function<Hash, BucketEventData>> trustScoreCalculator) {
+        TrustScoreSnapshot trustScoreSnapshot = userHashToTrustScoreSnapshotMap.get(userHash);
+        Date beginningOfToday = DatesCalculation.setDateOnBeginningOfDay(new Date());
+        if (trustScoreSnapshot != null && trustScoreSnapshot.day.equals(beginningOfToday)) {
+            return trustScoreSnapshot.trustScore;
+        }
+        return executeWithUserLock(userHash, () -> {
+            TrustScoreSnapshot lockedTrustScoreSnapshot = userHashToTrustScoreSnapshotMap.get(userHash);
+            if (lockedTrustScoreSnapshot != null && lockedTrustScoreSnapshot.day.equals(beginningOfToday)) {
+                return lockedTrustScoreSnapshot.trustScore;
+            }
+            double trustScore = trustScoreCalculator.applyAsDouble(bucketHash -> getBucketCopy(userHash, bucketHash));
+            userHashToTrustScoreSnapshotMap.put(userHash, new TrustScoreSnapshot(beginningOfToday, trustScore));
+            return trustScore;
+        });
+    }
+
+    @Scheduled(initialDelayString = "${trustscore.bucket.cache.flush.delay:1000}", fixedDelayString = "${trustscore.bucket.cache.flush.delay:1000}")
+    public void flushBuckets() {
+        synchronized (flushLock) {
+            List<Hash> bucketHashes = new ArrayList<>(dirtyBucketHashes);
+            for (int i = 0; i < bucketHashes.size(); i += flushBatchSize) {
+                flushBucketBatch(bucketHashes.subList(i, Math.min(i + flushBatchSize, bucketHashes.size())));
+            }
+            evictIdleBuckets();
+        }
+    }
+
+    private void flushBucketBatch(List<Hash> bucketHashes) {
+        Set<Hash> userHashes = new HashSet<>();
+        bucketHashes.forEach(bucketHash -> {
+            CachedBucket cachedBucket = bucketHashToCachedBucketMap.get(bucketHash);
+            if (cachedBucket != null) {
+                userHashes.add(cachedBucket.userHash);
+            }
+        });
+        List<Lock> batchUserLocks = new ArrayList<>();
+        userLocks.bulkGet(userHashes).forEach(batchUserLocks::add);
+        batchUserLocks.forEach(Lock::lock);
+        try {
+            Map<Hash, byte[]> bucketHashToSerializedBucketMap = new HashMap<>();
+            bucketHashes.forEach(bucketHash -> {
+                CachedBucket cachedBucket = bucketHashToCachedBucketMap.get(bucketHash);
+                if (cachedBucket != null && dirtyBucketHashes.contains(bucketHash)) {
+                    try {
+                        bucketHashToSerializedBucketMap.put(bucketHash, bucketEvents.serializeBucket(cachedBucket.bucketEventData));
+                    } catch (Exception e) {
+                        log.error("Error at serializing bucket {}, retrying at the next flush", bucketHash, e);
+                    }
+                }
+            });
+            writeBuckets(bucketHashToSerializedBucketMap);
+        } finally {
+            for (int i = batchUserLocks.size() - 1; i >= 0; i--) {
+                batchUserLocks.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Clears the dirty marks of the buckets only once their batch is written, under the locks of their users.
+     */
+    private void writeBuckets(Map<Hash, byte[]> bucketHashToSerializedBucketMap) {
+        if (bucketHashToSerializedBucketMap.isEmpty()) {
+            return;
+        }
+        if (bucketEvents.putSerializedBatch(bucketHashToSerializedBucketMap)) {
+            dirtyBucketHashes.removeAll(bucketHashToSerializedBucketMap.keySet());
+        } else {
+            log.error("Error at writing {} buckets, retrying at the next flush", bucketHashToSerializedBucketMap.size());
+        }
+    }
+
+    private void evictIdleBuckets() {
+        long idleLimit = System.currentTimeMillis() - idleSeconds * 1000;
+        bucketHashToCachedBucketMap.forEach((bucketHash, cachedBucket) -> {
+            if (cachedBucket.lastAccessTime < idleLimit) {
+                executeWithUserLock(cachedBucket.userHash, () -> {
+                    if (!dirtyBucketHashes.contains(bucketHash) && cachedBucket.lastAccessTime < idleLimit) {
+                        bucketHashToCachedBucketMap.remove(bucketHash, cachedBucket);
+                    }
+                });
+            }
+        });
+        Date beginningOfToday = DatesCalculation.setDateOnBeginningOfDay(new Date());
+        userHashToTrustScoreSnapshotMap.values().removeIf(trustScoreSnapshot -> !trustScoreSnapshot.day.equals(beginningOfToday));
+    }
+
+    public void shutdown() {
+        log.info("Flushing {} changed buckets", dirtyBucketHashes.size());
+        flushBuckets();
+    }
+
+    private static class CachedBucket {
+
+        private final Hash userHash;
+        private final BucketEventData bucketEventData;
+        private volatile long lastAccessTime;
+
+        private CachedBucket(Hash userHash, BucketEventData bucketEventData) {
+            this.userHash = userHash;
+            this.bucketEventData = bucketEventData;
+        }
+    }
+
+    private static class TrustScoreSnapshot {
+
+        private final Date day;
+        private final double trustScore;
+
+        private TrustScoreSnapshot(Date day, double trustScore) {
+            this.day = day;
+            this.trustScore = trustScore;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package io.coti.trustscore.services;
+
+import io.coti.basenode.services.BaseNodeShutDownService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ShutDownService extends BaseNodeShutDownService {
+
+    @Autowired
+    private BucketCacheService bucketCacheService;
+
+    @Override
+    public void shutDownServices() {
+        receiver.shutdown();
+        propagationSubscriber.shutdown();
+        propagationPublisher.shutdown();
+        sender.shutdown();
+        confirmationService.shutdown();
+        bucketCacheService.shutdown();
+        databaseConnector.shutdown();
+    }
+}
@@ -21,11 +21,9 @@ import io.coti.trustscore.data.Enums.UserType;
 import io.coti.trustscore.data.Events.*;
 import io.coti.trustscore.data.TrustScoreData;
 import io.coti.trustscore.http.*;
-import io.coti.trustscore.model.BucketEvents;
 import io.coti.trustscore.model.TrustScores;
 import io.coti.trustscore.services.interfaces.IBucketEventService;
 import io.coti.trustscore.utils.BucketBuilder;
-import io.coti.trustscore.utils.DatesCalculation;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -76,7 +74,7 @@ public class TrustScoreService {
     @Autowired
     private BucketNotFulfilmentEventsService bucketNotFulfilmentEventsService;
     @Autowired
-    private BucketEvents bucketEvents;
+    private BucketCacheService bucketCacheService;
     @Autowired
     private GetTransactionTrustScoreRequestCrypto getTransactionTrustScoreRequestCrypto;
     private List<IBucketEventService> bucketEventServiceList;
@@ -92,7 +90,6 @@ public class TrustScoreService {
     }
 
     public ResponseEntity<IResponse> addKycServerEvent(InsertEventRequest request) {
-        IResponse addingKycServerEventResponse;
         try {
             if (!request.getSignerHash().equals(new Hash(kycServerPublicKey))) {
                 return ResponseEntity
@@ -100,16 +97,7 @@ public class TrustScoreService {
                         .body(new Response(INVALID_SIGNER, STATUS_ERROR));
             }
 
-            BucketEventData bucketEventData = (BucketEventData) bucketEvents.getByHash(getBucketHashByUserHashAndEventType(request));
-            if (bucketEventData.getEventDataHashToEventDataMap().get(request.getUniqueIdentifier()) != null) {
-                return ResponseEntity
-                        .status(HttpStatus.BAD_REQUEST)
-                        .body(new Response(KYC_SERVER_EVENT_EXIST, STATUS_ERROR));
-            }
-
-            addingKycServerEventResponse = sendToSuitableService(request);
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(addingKycServerEventResponse);
+            return bucketCacheService.executeWithUserLock(request.getUserHash(), () -> addKycServerEventToBucket(request));
 
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -119,6 +107,19 @@ public class TrustScoreService {
         }
     }
 
+    private ResponseEntity<IResponse> addKycServerEventToBucket(InsertEventRequest request) {
+        BucketEventData bucketEventData = bucketCacheService.getBucket(request.getUserHash(), getBucketHashByUserHashAndEventType(request));
+        if (bucketEventData.getEventDataHashToEventDataMap().get(request.getUniqueIdentifier()) != null) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new Response(KYC_SERVER_EVENT_EXIST, STATUS_ERROR));
+        }
+
+        IResponse addingKycServerEventResponse = sendToSuitableService(request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(addingKycServerEventResponse);
+    }
+
     public ResponseEntity<IResponse> setUserType(SetUserTypeRequest request) {
         try {
             log.info("Setting UserType: " + request.getUserHash() + "=" + request.getUserType());
@@ -212,7 +213,7 @@ public class TrustScoreService {
         List<BucketEventData<? extends EventData>> bucketEventDataList = new ArrayList<>();
         for (IBucketEventService bucketEventService : bucketEventServiceList) {
             BucketEventData bucketEventData =
-                    (BucketEventData) bucketEvents.getByHash(trustScoreData.getEventTypeToBucketHashMap().get(bucketEventService.getBucketEventType()));
+                    bucketCacheService.getBucketCopy(userHash, trustScoreData.getEventTypeToBucketHashMap().get(bucketEventService.getBucketEventType()));
             bucketEventDataList.add(bucketEventData);
         }
 
@@ -269,7 +270,7 @@ public class TrustScoreService {
             insertEventRequest.setSignature(request.getSignature());
             insertEventRequest.setUniqueIdentifier(new Hash(0));
             insertEventRequest.setEventType(EventType.INITIAL_EVENT);
-            sendToBucketInitialTrustScoreEventsService(insertEventRequest);
+            bucketCacheService.executeWithUserLock(request.getUserHash(), () -> sendToBucketInitialTrustScoreEventsService(insertEventRequest));
 
             return ResponseEntity.status(HttpStatus.OK)
                     .body(kycTrustScoreResponse);
@@ -306,7 +307,7 @@ public class TrustScoreService {
         }
     }
 
-    public synchronized void addTransactionToTsCalculation(TransactionData transactionData) {
+    public void addTransactionToTsCalculation(TransactionData transactionData) {
         try {
             if (EnumSet.of(TransactionType.ZeroSpend, TransactionType.Initial).contains(transactionData.getType()) || transactionData.getDspConsensusResult() == null ||
                     !transactionData.getDspConsensusResult().isDspConsensus()) {
@@ -338,20 +339,27 @@ public class TrustScoreService {
             return;
         }
 
-        BucketEventData bucketEventData
-                = (BucketEventData) bucketEvents.getByHash(getBucketHashByUserHashAndEventType(userHash, EventType.TRANSACTION));
-        if (bucketEventData == null) {
-            log.error("Transaction can not be added to TS calculation: bucket event data doesn't exist for user {}", userHash);
-            return;
-        }
+        boolean addedToTransactionBucket = bucketCacheService.executeWithUserLock(userHash, () -> {
+            BucketEventData bucketEventData
+                    = bucketCacheService.getBucket(userHash, getBucketHashByUserHashAndEventType(userHash, EventType.TRANSACTION));
+            if (bucketEventData == null) {
+                log.error("Transaction can not be added to TS calculation: bucket event data doesn't exist for user {}", userHash);
+                return false;
+            }
 
-        if (bucketEventData.getEventDataHashToEventDataMap().get(transactionData.getHash()) != null) {
-            log.debug("Transaction {} is already added to ts calculation", transactionData.getHash());
-            return;
-        }
+            if (bucketEventData.getEventDataHashToEventDataMap().get(transactionData.getHash()) != null) {
+                log.debug("Transaction {} is already added to ts calculation", transactionData.getHash());
+                return false;
+            }
 
-        addToTransactionBucketsCalculation(trustScoreData, transactionData);
+            addToTransactionBucketsCalculation(trustScoreData, transactionData);
+            return true;
+        });
 
+        if (addedToTransactionBucket && transactionData.getType() == TransactionType.Payment && transactionData.getAmount().doubleValue() > 0) {
+            bucketCacheService.executeWithUserLock(transactionData.getSenderHash(),
+                    () -> addTransactionToChargeBackBucket(transactionData.getSenderHash(), transactionData));
+        }
     }
 
     private void createBuckets(TrustScoreData trustScoreData) {
@@ -359,7 +367,7 @@ public class TrustScoreService {
             for (EventType event : EventType.values()) {
 
                 BucketEventData bucketEventData = BucketBuilder.createBucket(event, trustScoreData.getUserType(), trustScoreData.getUserHash());
-                bucketEvents.put(bucketEventData);
+                bucketCacheService.createBucket(trustScoreData.getUserHash(), bucketEventData);
                 trustScoreData.getEventTypeToBucketHashMap().put(event, bucketEventData.getHash());
             }
         } catch (CotiRunTimeException e) {
@@ -388,22 +396,18 @@ public class TrustScoreService {
         TransactionEventData transactionEventData
                 = new TransactionEventData(buildTransactionDataRequest(trustScoreData.getUserHash(), trustScoreData.getSignature(), transactionData));
         BucketTransactionEventsData bucketTransactionEventsData
-                = (BucketTransactionEventsData) bucketEvents.getByHash(trustScoreData.getEventTypeToBucketHashMap().get(transactionEventData.getEventType()));
+                = bucketCacheService.getBucketCopy(trustScoreData.getUserHash(), trustScoreData.getEventTypeToBucketHashMap().get(transactionEventData.getEventType()));
         bucketTransactionService.addEventToCalculations(transactionEventData, bucketTransactionEventsData);
 
-        bucketEvents.put(bucketTransactionEventsData);
-
-        if (transactionData.getType() == TransactionType.Payment && transactionData.getAmount().doubleValue() > 0) {
-            addTransactionToChargeBackBucket(transactionData.getSenderHash(), transactionData);
-        }
+        bucketCacheService.putBucket(trustScoreData.getUserHash(), bucketTransactionEventsData);
     }
 
     private void addTransactionToChargeBackBucket(Hash userHash, TransactionData transactionData) {
         Hash bucketHash = new Hash(ByteBuffer.allocate(userHash.getBytes().length + Integer.BYTES).
                 put(userHash.getBytes()).putInt(EventType.HIGH_FREQUENCY_EVENTS.getValue()).array());
-        BucketChargeBackEventsData bucketChargeBackEventsData = (BucketChargeBackEventsData) bucketEvents.getByHash(bucketHash);
+        BucketChargeBackEventsData bucketChargeBackEventsData = bucketCacheService.getBucketCopy(userHash, bucketHash);
         bucketChargeBackEventsService.addPaymentTransactionToCalculations(transactionData, bucketChargeBackEventsData);
-        bucketEvents.put(bucketChargeBackEventsData);
+        bucketCacheService.putBucket(userHash, bucketChargeBackEventsData);
     }
 
     public double calculateUserTrustScore(TrustScoreData trustScoreData) {
@@ -412,29 +416,32 @@ public class TrustScoreService {
             return 0;
         }
 
-        double eventsTrustScore = 10;
+        return bucketCacheService.getUserTrustScore(trustScoreData.getUserHash(), bucketCopyByHash -> {
+            double eventsTrustScore = 10;
 
-        for (IBucketEventService bucketEventService : bucketEventServiceList) {
-            BucketEventData bucketEventData =
-                    (BucketEventData) bucketEvents.getByHash(trustScoreData.getEventTypeToBucketHashMap().get(bucketEventService.getBucketEventType()));
-            if (bucketEventData != null) {
-                eventsTrustScore += bucketEventService.getBucketSumScore(bucketEventData);
-                bucketEventData.setLastUpdate(DatesCalculation.setDateOnBeginningOfDay(new Date()));
+            for (IBucketEventService bucketEventService : bucketEventServiceList) {
+                BucketEventData bucketEventData =
+                        bucketCopyByHash.apply(trustScoreData.getEventTypeToBucketHashMap().get(bucketEventService.getBucketEventType()));
+                if (bucketEventData != null) {
+                    eventsTrustScore += bucketEventService.getBucketSumScore(bucketEventData);
+                }
             }
-        }
-        return Math.min(Math.max(eventsTrustScore, 0.1), 100.0);
+            return Math.min(Math.max(eventsTrustScore, 0.1), 100.0);
+        });
     }
 
     private void updateUserTypeInBuckets(TrustScoreData trustScoreData) {
-        for (Map.Entry<EventType, Hash> eventTypeToBucketHashEntry
-                : trustScoreData.getEventTypeToBucketHashMap().entrySet()) {
-            Hash bucketHash = eventTypeToBucketHashEntry.getValue();
-            BucketEventData bucket = (BucketEventData) bucketEvents.getByHash(bucketHash);
-            if (bucket != null) {
-                bucket.setUserType(trustScoreData.getUserType());
-                bucketEvents.put(bucket);
+        bucketCacheService.executeWithUserLock(trustScoreData.getUserHash(), () -> {
+            for (Map.Entry<EventType, Hash> eventTypeToBucketHashEntry
+                    : trustScoreData.getEventTypeToBucketHashMap().entrySet()) {
+                Hash bucketHash = eventTypeToBucketHashEntry.getValue();
+                BucketEventData bucket = bucketCacheService.getBucketCopy(trustScoreData.getUserHash(), bucketHash);
+                if (bucket != null) {
+                    bucket.setUserType(trustScoreData.getUserType());
+                    bucketCacheService.writeBucket(trustScoreData.getUserHash(), bucket);
+                }
             }
-        }
+        });
     }
 
     private RulesData loadRulesFromJsonFile() {
@@ -477,13 +484,13 @@ public class TrustScoreService {
 
         Hash bucketHash = getBucketHashByUserHashAndEventType(request);
         BucketInitialTrustScoreEventsData bucketInitialTrustScoreEventsData =
-                (BucketInitialTrustScoreEventsData) bucketEvents.getByHash(bucketHash);
+                bucketCacheService.getBucketCopy(request.getUserHash(), bucketHash);
 
         bucketInitialTrustScoreEventsService.addEventToCalculations(
                 initialTrustScoreEventsData,
                 bucketInitialTrustScoreEventsData);
 
-        bucketEvents.put(bucketInitialTrustScoreEventsData);
+        bucketCacheService.writeBucket(request.getUserHash(), bucketInitialTrustScoreEventsData);
         return new SetInitialTrustScoreEventResponse(request.getUserHash(), request.getEventType(), request.getInitialTrustScoreType(), request.getScore());
     }
 
@@ -492,10 +499,10 @@ public class TrustScoreService {
             ChargeBackEventsData chargeBackEventsData = new ChargeBackEventsData(request);
 
             Hash bucketHash = getBucketHashByUserHashAndEventType(request);
-            BucketChargeBackEventsData bucketChargeBackEventsData = (BucketChargeBackEventsData) bucketEvents.getByHash(bucketHash);
+            BucketChargeBackEventsData bucketChargeBackEventsData = bucketCacheService.getBucketCopy(request.getUserHash(), bucketHash);
 
             bucketChargeBackEventsService.addEventToCalculations(chargeBackEventsData, bucketChargeBackEventsData);
-            bucketEvents.put(bucketChargeBackEventsData);
+            bucketCacheService.writeBucket(request.getUserHash(), bucketChargeBackEventsData);
 
             Hash transactionDataHash = (request.getTransactionData() != null) ? request.getTransactionData().getHash() : null;
             return new SetHighFrequencyEventScoreResponse(request.getUserHash(), request.getEventType(), request.getHighFrequencyEventScoreType(), transactionDataHash);
@@ -507,15 +514,10 @@ public class TrustScoreService {
         NotFulfilmentEventsData notFulfilmentEventsData = new NotFulfilmentEventsData(request);
 
         Hash bucketHash = getBucketHashByUserHashAndEventType(request);
-        BucketNotFulfilmentEventsData bucketNotFulfilmentEventsData = (BucketNotFulfilmentEventsData) bucketEvents.getByHash(bucketHash);
+        BucketNotFulfilmentEventsData bucketNotFulfilmentEventsData = bucketCacheService.getBucketCopy(request.getUserHash(), bucketHash);
 
         bucketNotFulfilmentEventsService.addEventToCalculations(notFulfilmentEventsData, bucketNotFulfilmentEventsData);
-
-        try {
-            bucketEvents.put(bucketNotFulfilmentEventsData);
-        } catch (Exception e) {
-            log.error(e.toString());
-        }
+        bucketCacheService.writeBucket(request.getUserHash(), bucketNotFulfilmentEventsData);
         return new SetNotFulfilmentEventScoreResponse(request.getUserHash(), request.getEventType(), request.getCompensableEventScoreType());
     }
 
@@ -523,14 +525,10 @@ public class TrustScoreService {
         BehaviorEventsData behaviorEventsData = new BehaviorEventsData(request);
 
         Hash bucketHash = getBucketHashByUserHashAndEventType(request);
-        BucketBehaviorEventsData bucketBehaviorEventsData = (BucketBehaviorEventsData) bucketEvents.getByHash(bucketHash);
+        BucketBehaviorEventsData bucketBehaviorEventsData = bucketCacheService.getBucketCopy(request.getUserHash(), bucketHash);
 
         bucketBehaviorEventsService.addEventToCalculations(behaviorEventsData, bucketBehaviorEventsData);
-        try {
-            bucketEvents.put(bucketBehaviorEventsData);
-        } catch (Exception e) {
-            log.error(e.toString());
-        }
+        bucketCacheService.writeBucket(request.getUserHash(), bucketBehaviorEventsData);
 
         Hash transactionDataHash = (request.getTransactionData() != null) ? request.getTransactionData().getHash() : null;
         return new SetBehaviorEventResponse(request.getUserHash(), request.getEventType(), request.getBehaviorEventsScoreType(), transactionDataHash);
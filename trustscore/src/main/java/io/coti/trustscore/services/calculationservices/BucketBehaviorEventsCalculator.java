@@ -8,6 +8,7 @@ import io.coti.trustscore.data.Enums.BehaviorEventsScoreType;
 import io.coti.trustscore.data.Enums.UserType;
 import io.coti.trustscore.data.Events.EventCountAndContributionData;
 import io.coti.trustscore.utils.DatesCalculation;
+import io.coti.trustscore.utils.MathCalculation;
 import javafx.util.Pair;
 
 import java.util.Date;
@@ -18,6 +19,8 @@ import java.util.stream.Collectors;
 
 public class BucketBehaviorEventsCalculator extends BucketCalculator {
 
+    private static final String EVENTS_NUMBER_VARIABLE = "eventsNumber";
+
     private static Map<UserType, BehaviorEventsScore> userTypeToBehaviorEventsScoreMap;
     private BucketBehaviorEventsData bucketBehaviorEventsData;
     private BehaviorEventsScore behaviorEventsScore;
@@ -34,20 +37,18 @@ public class BucketBehaviorEventsCalculator extends BucketCalculator {
 
     @Override
     public void setCurrentScores() {
-        Map<SuspiciousEventScore, String> baseEventScoreToCalculationFormulaMap = new ConcurrentHashMap<>();
+        Map<SuspiciousEventScore, Double> baseEventScoreToCalculatedScoreMap = new ConcurrentHashMap<>();
 
         for (Map.Entry<BehaviorEventsScoreType, SuspiciousEventScore> baseEventTypeToBaseEventScoreEntry : behaviorEventsScore.getBaseEventScoreMap().entrySet()) {
 
             SuspiciousEventScore suspiciousEventScore = baseEventTypeToBaseEventScoreEntry.getValue();
-            String scoreFormulaCalculation = createBaseEventScoreFormula(baseEventTypeToBaseEventScoreEntry.getKey());
+            Double baseEventScore = calculateBaseEventScore(baseEventTypeToBaseEventScoreEntry.getKey());
 
-            if (scoreFormulaCalculation != null) {
-                baseEventScoreToCalculationFormulaMap.put(suspiciousEventScore, scoreFormulaCalculation);
+            if (baseEventScore != null) {
+                baseEventScoreToCalculatedScoreMap.put(suspiciousEventScore, baseEventScore);
             }
         }
 
-        ScoreCalculator<SuspiciousEventScore> scoreCalculator = new ScoreCalculator<>(baseEventScoreToCalculationFormulaMap);
-        Map<SuspiciousEventScore, Double> baseEventScoreToCalculatedScoreMap = scoreCalculator.calculate();
         updateBucketScoresAfterCalculation(baseEventScoreToCalculatedScoreMap);
 
     }
@@ -79,19 +80,22 @@ public class BucketBehaviorEventsCalculator extends BucketCalculator {
         }
     }
 
-    private String createBaseEventScoreFormula(BehaviorEventsScoreType baseEventScoreType) {
+    private Double calculateBaseEventScore(BehaviorEventsScoreType baseEventScoreType) {
         SuspiciousEventScore suspiciousEventScore = behaviorEventsScore.getBaseEventScoreMap().get(baseEventScoreType);
         String contributionFunctionString = suspiciousEventScore.getContribution();
 
-        if (contributionFunctionString != null && !contributionFunctionString.isEmpty()) {
+        if (contributionFunctionString == null) {
+            return null;
+        }
+        if (!contributionFunctionString.isEmpty()) {
             int eventsCount = 0;
             if (bucketBehaviorEventsData.getBehaviorEventTypeToCurrentEventCountAndContributionDataMap().get(baseEventScoreType) != null) {
                 eventsCount = bucketBehaviorEventsData.getBehaviorEventTypeToCurrentEventCountAndContributionDataMap().get(baseEventScoreType).getCount();
             }
-            contributionFunctionString = contributionFunctionString.replace("eventsNumber", Integer.toString(eventsCount));
+            return MathCalculation.evaluateFormula(contributionFunctionString, EVENTS_NUMBER_VARIABLE, eventsCount);
         }
 
-        return contributionFunctionString;
+        return MathCalculation.evaluateExpression(contributionFunctionString);
     }
 
     private void addTodayScoreToOldEventsMap() {
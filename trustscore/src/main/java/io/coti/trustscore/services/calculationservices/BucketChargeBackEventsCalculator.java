@@ -7,6 +7,7 @@ import io.coti.trustscore.data.Buckets.BucketChargeBackEventsData;
 import io.coti.trustscore.data.Enums.HighFrequencyEventScoreType;
 import io.coti.trustscore.data.Enums.UserType;
 import io.coti.trustscore.utils.DatesCalculation;
+import io.coti.trustscore.utils.MathCalculation;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Date;
@@ -16,6 +17,10 @@ import java.util.stream.Collectors;
 
 @Slf4j
 public class BucketChargeBackEventsCalculator extends BucketCalculator {
+    private static final String[] CHARGE_BACK_AMOUNT_VARIABLES = {"chargeBacksTodayAmount", "paymentsTodayAmount", "standardChargeBackRate",
+            "tail2Contribution", "tail1Contribution"};
+    private static final String[] CHARGE_BACK_NUMBER_VARIABLES = {"chargeBacksTodayNumber", "paymentsTodayNumber", "standardChargeBackRate",
+            "tail2Contribution", "tail1Contribution"};
     private static Map<UserType, BehaviorHighFrequencyEventsScore> userTypeToBehaviorHighFrequencyEventsScoreMapping;
     private BucketChargeBackEventsData bucketChargeBackEventsData;
     private BehaviorHighFrequencyEventsScore behaviorHighFrequencyEventsScore;
@@ -33,19 +38,16 @@ public class BucketChargeBackEventsCalculator extends BucketCalculator {
 
     @Override
     public void setCurrentScores() {
-        Map<HighFrequencyEventScore, String> highFrequencyEventScoreToCalculationFormulaMap = new ConcurrentHashMap<>();
+        Map<HighFrequencyEventScore, Double> eventScoresToCalculatedScoreMap = new ConcurrentHashMap<>();
         HighFrequencyEventScore chargeBackEventScoreByEventScoreType = behaviorHighFrequencyEventsScore.getHighFrequencyEventScoreMap().get(HighFrequencyEventScoreType.CHARGE_BACK_AMOUNT);
         if (chargeBackEventScoreByEventScoreType == null) {
             return;
         }
-        highFrequencyEventScoreToCalculationFormulaMap.put(chargeBackEventScoreByEventScoreType, createChargeBackAmountFormula());
+        eventScoresToCalculatedScoreMap.put(chargeBackEventScoreByEventScoreType, calculateChargeBackAmountScore());
 
-        highFrequencyEventScoreToCalculationFormulaMap.put(behaviorHighFrequencyEventsScore.getHighFrequencyEventScoreMap()
+        eventScoresToCalculatedScoreMap.put(behaviorHighFrequencyEventsScore.getHighFrequencyEventScoreMap()
                         .get(HighFrequencyEventScoreType.CHARGE_BACK_NUMBER),
-                createChargeBackNumberFormula());
-
-        ScoreCalculator<HighFrequencyEventScore> functionCalculator = new ScoreCalculator<>(highFrequencyEventScoreToCalculationFormulaMap);
-        Map<HighFrequencyEventScore, Double> eventScoresToCalculatedScoreMap = functionCalculator.calculate();
+                calculateChargeBackNumberScore());
 
         for (Map.Entry<HighFrequencyEventScore, Double> highFrequencyEventScoreEntry : eventScoresToCalculatedScoreMap.entrySet()) {
             if (highFrequencyEventScoreEntry.getValue().isNaN()) {
@@ -159,44 +161,27 @@ public class BucketChargeBackEventsCalculator extends BucketCalculator {
         }
     }
 
-    private String createChargeBackAmountFormula() {
+    private double calculateChargeBackAmountScore() {
         HighFrequencyEventScore highFrequencyEventScore =
                 behaviorHighFrequencyEventsScore.getHighFrequencyEventScoreMap().get(HighFrequencyEventScoreType.CHARGE_BACK_AMOUNT);
 
-        String contributionFunctionString = highFrequencyEventScore.getContribution();
-        double standardChargeBackRate = highFrequencyEventScore.getStandardChargeBackRate();
-
-        contributionFunctionString = contributionFunctionString
-                .replace("chargeBacksTodayAmount", Double.toString(bucketChargeBackEventsData.getCurrentDateChargeBacks().values().stream().mapToDouble(Number::doubleValue).sum()));
-        contributionFunctionString = contributionFunctionString
-                .replace("paymentsTodayAmount", Double.toString(bucketChargeBackEventsData.getCurrentDatePaymentTransactions().values().stream().mapToDouble(Number::doubleValue).sum()));
-        contributionFunctionString = contributionFunctionString
-                .replace("standardChargeBackRate", Double.toString(standardChargeBackRate));
-        contributionFunctionString = contributionFunctionString
-                .replace("tail2Contribution", Double.toString(bucketChargeBackEventsData.getOldDateAmountOfChargeBacksContribution()));
-        contributionFunctionString = contributionFunctionString
-                .replace("tail1Contribution", Double.toString(bucketChargeBackEventsData.getOldDateAmountOfCreditTransactionsContribution()));
-        return contributionFunctionString;
-
+        return MathCalculation.evaluateFormula(highFrequencyEventScore.getContribution(), CHARGE_BACK_AMOUNT_VARIABLES,
+                bucketChargeBackEventsData.getCurrentDateChargeBacks().values().stream().mapToDouble(Number::doubleValue).sum(),
+                bucketChargeBackEventsData.getCurrentDatePaymentTransactions().values().stream().mapToDouble(Number::doubleValue).sum(),
+                highFrequencyEventScore.getStandardChargeBackRate(),
+                bucketChargeBackEventsData.getOldDateAmountOfChargeBacksContribution(),
+                bucketChargeBackEventsData.getOldDateAmountOfCreditTransactionsContribution());
     }
 
-    private String createChargeBackNumberFormula() {
+    private double calculateChargeBackNumberScore() {
         HighFrequencyEventScore highFrequencyEventScore = behaviorHighFrequencyEventsScore.getHighFrequencyEventScoreMap().get(HighFrequencyEventScoreType.CHARGE_BACK_NUMBER);
 
-        String contributionFunctionString = highFrequencyEventScore.getContribution();
-        double standardChargeBackRate = highFrequencyEventScore.getStandardChargeBackRate();
-
-        contributionFunctionString = contributionFunctionString
-                .replace("chargeBacksTodayNumber", Double.toString(bucketChargeBackEventsData.getCurrentDateChargeBacks().size()));
-        contributionFunctionString = contributionFunctionString
-                .replace("paymentsTodayNumber", Double.toString(bucketChargeBackEventsData.getCurrentDatePaymentTransactions().size()));
-        contributionFunctionString = contributionFunctionString
-                .replace("standardChargeBackRate", Double.toString(standardChargeBackRate));
-        contributionFunctionString = contributionFunctionString
-                .replace("tail2Contribution", Double.toString(bucketChargeBackEventsData.getOldDateNumberOfChargeBacksContribution()));
-        contributionFunctionString = contributionFunctionString
-                .replace("tail1Contribution", Double.toString(bucketChargeBackEventsData.getOldDateNumberOfCreditTransactionsContribution()));
-        return contributionFunctionString;
+        return MathCalculation.evaluateFormula(highFrequencyEventScore.getContribution(), CHARGE_BACK_NUMBER_VARIABLES,
+                bucketChargeBackEventsData.getCurrentDateChargeBacks().size(),
+                bucketChargeBackEventsData.getCurrentDatePaymentTransactions().size(),
+                highFrequencyEventScore.getStandardChargeBackRate(),
+                bucketChargeBackEventsData.getOldDateNumberOfChargeBacksContribution(),
+                bucketChargeBackEventsData.getOldDateNumberOfCreditTransactionsContribution());
     }
 
     private double getWeightByEventScore(HighFrequencyEventScoreType eventScoreType) {
@@ -8,13 +8,15 @@ import io.coti.trustscore.data.Buckets.BucketNotFulfilmentEventsData;
 import io.coti.trustscore.data.Enums.CompensableEventScoreType;
 import io.coti.trustscore.data.Enums.UserType;
 import io.coti.trustscore.data.Events.NotFulfilmentToClientContributionData;
-import javafx.util.Pair;
+import io.coti.trustscore.utils.MathCalculation;
 
 import java.util.Map;
 import java.util.stream.Collectors;
 
 public class BucketNotFulfilmentEventsCalculator extends BucketCalculator {
 
+    private static final String[] FINE_VARIABLES = {"currentDebt", "weight1", "weight2", "fine"};
+
     private static Map<UserType, CompensableEventsScore> userTypeToBehaviorEventsScoreMap;
     private final BucketNotFulfilmentEventsData bucketNotFulfilmentEventsData;
     private final CompensableEventScore compensableEventScore;
@@ -44,18 +46,14 @@ public class BucketNotFulfilmentEventsCalculator extends BucketCalculator {
     }
 
     private void decayedFine(NotFulfilmentToClientContributionData clientNotFulfilmentToClientContributionData, int daysDiff) {
-        ScoreCalculator scoreCalculator = new ScoreCalculator<>();
         for (int i = 0; i < daysDiff; i++) {
-            String fineDailyChangeFormula = createFineFormula(clientNotFulfilmentToClientContributionData, compensableEventScore.getFineDailyChange());
             clientNotFulfilmentToClientContributionData
-                    .setFine((double) scoreCalculator.calculateEntry(new Pair<>(compensableEventScore,
-                            fineDailyChangeFormula)).getValue());
+                    .setFine(calculateFineFormula(clientNotFulfilmentToClientContributionData, compensableEventScore.getFineDailyChange()));
         }
     }
 
     private double calculateFine(NotFulfilmentToClientContributionData notFulfilmentToClientContributionData) {
-        String fineFormula = createFineFormula(notFulfilmentToClientContributionData, compensableEventScore.getFine());
-        return new ScoreCalculator<>().calculateEntry(new Pair<>(compensableEventScore, fineFormula)).getValue();
+        return calculateFineFormula(notFulfilmentToClientContributionData, compensableEventScore.getFine());
     }
 
     public void setCurrentScoresForSpecificClient(boolean isDebtDecreasing, Hash clientHash) {
@@ -69,20 +67,9 @@ public class BucketNotFulfilmentEventsCalculator extends BucketCalculator {
         notFulfilmentToClientContributionData.setFine(calculateFine(notFulfilmentToClientContributionData));
     }
 
-    private String createFineFormula(NotFulfilmentToClientContributionData notFulfilmentToClientContributionData, String formula) {
-        formula = formula.replace("currentDebt",
-                String.valueOf(notFulfilmentToClientContributionData.getCurrentDebt()));
-
-        formula = formula.replace("weight1",
-                String.valueOf(compensableEventScore.getWeight1()));
-
-        formula = formula.replace("weight2",
-                String.valueOf(compensableEventScore.getWeight2()));
-
-        formula = formula.replace("fine",
-                String.valueOf(notFulfilmentToClientContributionData.getFine()));
-
-        return formula;
+    private double calculateFineFormula(NotFulfilmentToClientContributionData notFulfilmentToClientContributionData, String formula) {
+        return MathCalculation.evaluateFormula(formula, FINE_VARIABLES, notFulfilmentToClientContributionData.getCurrentDebt(),
+                compensableEventScore.getWeight1(), compensableEventScore.getWeight2(), notFulfilmentToClientContributionData.getFine());
     }
 
     public double getBucketSumScore(BucketNotFulfilmentEventsData bucketNotFulfilmentEventsData) {
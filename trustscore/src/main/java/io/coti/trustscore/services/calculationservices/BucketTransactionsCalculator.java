@@ -8,8 +8,8 @@ import io.coti.trustscore.data.Buckets.BucketTransactionEventsData;
 import io.coti.trustscore.data.Enums.TransactionEventScoreType;
 import io.coti.trustscore.data.Enums.UserType;
 import io.coti.trustscore.data.Events.BalanceCountAndContribution;
-import io.coti.trustscore.services.calculationservices.interfaces.IScoreCalculator;
 import io.coti.trustscore.utils.DatesCalculation;
+import io.coti.trustscore.utils.MathCalculation;
 import javafx.util.Pair;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -27,6 +27,9 @@ import java.util.stream.Collectors;
 public class BucketTransactionsCalculator extends BucketCalculator {
 
     private static final int MONTH_LENGTH = 30;
+    private static final String AVERAGE_BALANCE_VARIABLE = "B";
+    private static final String TRANSACTION_FREQUENCY_VARIABLE = "N";
+    private static final String TURNOVER_VARIABLE = "T";
     private static Map<UserType, TransactionEventsScore> userToTransactionEventsScoreMapping;
     private BucketTransactionEventsData bucketTransactionEventsData;
     private TransactionEventsScore transactionEventsScore;
@@ -172,29 +175,19 @@ public class BucketTransactionsCalculator extends BucketCalculator {
 
     public void setCurrentDayTransactionsScores() {
 
-        Map<TransactionEventScore, String> transactionEventScoreToCalculationFormulaMap = new ConcurrentHashMap<>();
-        transactionEventScoreToCalculationFormulaMap.put(transactionEventsScore.getTransactionEventScoreMap()
-                .get(TransactionEventScoreType.TURNOVER), createTurnOverScoreFormula(bucketTransactionEventsData));
-        transactionEventScoreToCalculationFormulaMap.put(transactionEventsScore.getTransactionEventScoreMap()
-                .get(TransactionEventScoreType.TRANSACTION_FREQUENCY), createTransactionFrequencyScoreFormula());
+        Map<TransactionEventScore, Double> eventScoresToFunctionalScoreMap = new ConcurrentHashMap<>();
+        eventScoresToFunctionalScoreMap.put(transactionEventsScore.getTransactionEventScoreMap()
+                .get(TransactionEventScoreType.TURNOVER), calculateTurnOverScore(bucketTransactionEventsData));
+        eventScoresToFunctionalScoreMap.put(transactionEventsScore.getTransactionEventScoreMap()
+                .get(TransactionEventScoreType.TRANSACTION_FREQUENCY), calculateTransactionFrequencyScore());
 
-        IScoreCalculator functionCalculator = new ScoreCalculator<>(transactionEventScoreToCalculationFormulaMap);
-        Map<TransactionEventScore, Double> eventScoresToFunctionalScoreMap = functionCalculator.calculate();
         updateBucketScoresByFunction(eventScoresToFunctionalScoreMap);
     }
 
     public void setCurrentMonthTransactionsScores() {
-        Map<TransactionEventScore, Map<Date, String>> eventScoresToDatesScoreFormulaMap = new ConcurrentHashMap<>();
-        eventScoresToDatesScoreFormulaMap.put(transactionEventsScore.getTransactionEventScoreMap()
-                .get(TransactionEventScoreType.AVERAGE_BALANCE), createLastDaysAverageBalanceScoreFormula());
         // Calculate every day from the last days balance score.
-        VectorScoreCalculator<TransactionEventScore> vectorScoreCalculator = new VectorScoreCalculator<>(eventScoresToDatesScoreFormulaMap);
-        Map<TransactionEventScore, Map<Date, Double>> latestTransactionEventScoreToCalculationFormulaMap =
-                vectorScoreCalculator.calculateVectorScore();
-        Map<Date, Double> latestBalanceTransactionEventScoreToCalculationFormulaMap =
-                latestTransactionEventScoreToCalculationFormulaMap.get(transactionEventsScore.getTransactionEventScoreMap()
-                        .get(TransactionEventScoreType.AVERAGE_BALANCE));
-        updateCurrentMonthBalance(bucketTransactionEventsData, latestBalanceTransactionEventScoreToCalculationFormulaMap);
+        Map<Date, Double> latestBalanceDayToScoreMap = calculateLastDaysAverageBalanceScores();
+        updateCurrentMonthBalance(bucketTransactionEventsData, latestBalanceDayToScoreMap);
         updateCurrentMonthBalanceContribution();
     }
 
@@ -223,7 +216,7 @@ public class BucketTransactionsCalculator extends BucketCalculator {
     }
 
 
-    public Map<Date, String> createLastDaysAverageBalanceScoreFormula() {
+    public Map<Date, Double> calculateLastDaysAverageBalanceScores() {
 
         String nonlinearFormula = transactionEventsScore.getTransactionEventScoreMap()
                 .get(TransactionEventScoreType.AVERAGE_BALANCE).getNonlinearFunction();
@@ -231,7 +224,7 @@ public class BucketTransactionsCalculator extends BucketCalculator {
                 = bucketTransactionEventsData.getCurrentMonthDayToBalanceCountAndContribution();
         return currentMonthBalanceByDayMap.entrySet().stream()
                 .filter(x -> x.getValue().getContribution() == 0)
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> nonlinearFormula.replace("B", String.valueOf(e.getValue().getCount()))));//.concat(
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> MathCalculation.evaluateFormula(nonlinearFormula, AVERAGE_BALANCE_VARIABLE, e.getValue().getCount())));
     }
 
     private void updateCurrentMonthBalanceContribution() {
@@ -283,19 +276,19 @@ public class BucketTransactionsCalculator extends BucketCalculator {
     }
 
 
-    public String createTransactionFrequencyScoreFormula() {
+    public double calculateTransactionFrequencyScore() {
         String nonlinearFunctionformulaString = transactionEventsScore.getTransactionEventScoreMap()
                 .get(TransactionEventScoreType.TRANSACTION_FREQUENCY).getNonlinearFunction();
 
         double numberOfTransactions = bucketTransactionEventsData.getCurrentDateNumberOfTransactions();
-        return nonlinearFunctionformulaString.replace("N", String.valueOf(numberOfTransactions));
+        return MathCalculation.evaluateFormula(nonlinearFunctionformulaString, TRANSACTION_FREQUENCY_VARIABLE, numberOfTransactions);
     }
 
 
-    public String createTurnOverScoreFormula(BucketTransactionEventsData bucketTransactionEventsData) {
+    public double calculateTurnOverScore(BucketTransactionEventsData bucketTransactionEventsData) {
         String nonlinearFunctionString = transactionEventsScore.getTransactionEventScoreMap().get(TransactionEventScoreType.TURNOVER).getNonlinearFunction();
         double turnover = bucketTransactionEventsData.getCurrentDateTurnOver();
-        return nonlinearFunctionString.replace("T", String.valueOf(turnover));
+        return MathCalculation.evaluateFormula(nonlinearFunctionString, TURNOVER_VARIABLE, turnover);
     }
 
     public double getBucketSumScore(BucketTransactionEventsData bucketTransactionEventsData) {
@@ -11,6 +11,8 @@ import java.util.stream.Collectors;
 
 public class DecayCalculator<T extends EventScore> implements IDecayCalculator {
 
+    private static final String DECAY_VARIABLE = "T";
+
     private Map<T, Double> eventScoresToOldValueMap;
 
     public DecayCalculator() {
@@ -23,12 +25,12 @@ public class DecayCalculator<T extends EventScore> implements IDecayCalculator {
     @Override
     public Map<T, Double> calculate(int numberOfDecays) {
         return eventScoresToOldValueMap.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e ->
-                MathCalculation.evaluateExpression(e.getKey().getDecay().replace("T", String.valueOf(numberOfDecays))) * e.getValue()));
+                MathCalculation.evaluateFormula(e.getKey().getDecay(), DECAY_VARIABLE, numberOfDecays) * e.getValue()));
     }
 
     public Pair<T, Double> calculateEntry(IEventDecay decayEvent, int numberOfDecays) {
         return new Pair(decayEvent.getEventScore(),
-                MathCalculation.evaluateExpression(decayEvent.getEventScore().getDecay().replace("T", String.valueOf(numberOfDecays)))
+                MathCalculation.evaluateFormula(decayEvent.getEventScore().getDecay(), DECAY_VARIABLE, numberOfDecays)
                         * decayEvent.getEventContributionValue());
     }
 }
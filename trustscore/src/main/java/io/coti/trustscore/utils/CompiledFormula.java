@@ -0,0 +1,92 @@
+package io.coti.trustscore.utils;
+
+import org.mariuszgromada.math.mxparser.Argument;
+import org.mariuszgromada.math.mxparser.Expression;
+
+import java.util.Arrays;
+
+/**
+ * A rule formula parsed once, with its variables bound to mXparser arguments instead of being replaced by their values
+ * in the text of the formula. The variables are replaced in the given order by argument names, the same way they were
+ * replaced by values, so a formula evaluates exactly as its replaced text would. mXparser expressions are not thread
+ * safe, so every thread evaluates its own copy.
+ */
+public class CompiledFormula {
+
+    private static final String ARGUMENT_NAME_PREFIX = "formulaargument";
+    private final String formula;
+    private final String[] variables;
+    private final String template;
+    private final ThreadLocal<FormulaExpression> formulaExpression;
+
+    public CompiledFormula(String formula, String... variables) {
+        this.formula = formula;
+        this.variables = variables.clone();
+        this.template = createTemplate(formula, variables);
+        this.formulaExpression = template != null ? ThreadLocal.withInitial(() -> new FormulaExpression(template, variables.length)) : null;
+    }
+
+    public String getFormula() {
+        return formula;
+    }
+
+    public double evaluate(double... values) {
+        if (values.length != variables.length) {
+            throw new IllegalArgumentException(String.format("Formula %s expects %d values", formula, variables.length));
+        }
+        if (template == null) {
+            return evaluateReplacedFormula(values);
+        }
+        return formulaExpression.get().calculate(values);
+    }
+
+    private double evaluateReplacedFormula(double... values) {
+        String replacedFormula = formula;
+        for (int i = 0; i < variables.length; i++) {
+            replacedFormula = replacedFormula.replace(variables[i], String.valueOf(values[i]));
+        }
+        return new Expression(replacedFormula).calculate();
+    }
+
+    private static String createTemplate(String formula, String[] variables) {
+        if (formula.contains(ARGUMENT_NAME_PREFIX)) {
+            return null;
+        }
+        String template = formula;
+        for (int i = 0; i < variables.length; i++) {
+            for (int j = i + 1; j < variables.length; j++) {
+                if ((ARGUMENT_NAME_PREFIX + i).contains(variables[j])) {
+                    return null;
+                }
+            }
+            template = template.replace(variables[i], ARGUMENT_NAME_PREFIX + i);
+        }
+        return template;
+    }
+
+    @Override
+    public String toString() {
+        return formula + " " + Arrays.toString(variables);
+    }
+
+    private static class FormulaExpression {
+
+        private final Expression expression;
+        private final Argument[] arguments;
+
+        private FormulaExpression(String template, int numberOfArguments) {
+            arguments = new Argument[numberOfArguments];
+            for (int i = 0; i < numberOfArguments; i++) {
+                arguments[i] = new Argument(ARGUMENT_NAME_PREFIX + i, 0);
+            }
+            expression = new Expression(template, arguments);
+        }
+
+        private double calculate(double... values) {
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i].setArgumentValue(values[i]);
+            }
+            return expression.calculate();
+        }
+    }
+}
@@ -3,18 +3,48 @@ package io.coti.trustscore.utils;
 import org.mariuszgromada.math.mxparser.Argument;
 import org.mariuszgromada.math.mxparser.Expression;
 
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MathCalculation {
 
     private static final double DIFFERENCE_EQUALITY_COMPARE = 0.000001;
+    private static final int MAX_COMPILED_FORMULAS = 4096;
+    private static final String[] NO_VARIABLES = new String[0];
+    private static final Map<String, Map<List<String>, CompiledFormula>> compiledFormulas = new ConcurrentHashMap<>();
+    private static final AtomicInteger numberOfCompiledFormulas = new AtomicInteger();
 
     private MathCalculation() {
 
     }
 
     public static double evaluateExpression(String stringFormula) {
-        Expression expression = new Expression(stringFormula);
-        return expression.calculate();
+        return evaluateFormula(stringFormula, NO_VARIABLES);
+    }
+
+    public static double evaluateFormula(String formula, String variable, double value) {
+        return getCompiledFormula(formula, Collections.singletonList(variable)).evaluate(value);
+    }
+
+    public static double evaluateFormula(String formula, String[] variables, double... values) {
+        return getCompiledFormula(formula, variables).evaluate(values);
+    }
+
+    public static CompiledFormula getCompiledFormula(String formula, String... variables) {
+        return getCompiledFormula(formula, Arrays.asList(variables));
+    }
+
+    private static CompiledFormula getCompiledFormula(String formula, List<String> variables) {
+        Map<List<String>, CompiledFormula> variablesToCompiledFormulaMap = compiledFormulas.get(formula);
+        CompiledFormula compiledFormula = variablesToCompiledFormulaMap != null ? variablesToCompiledFormulaMap.get(variables) : null;
+        if (compiledFormula == null) {
+            compiledFormula = new CompiledFormula(formula, variables.toArray(new String[0]));
+            if (numberOfCompiledFormulas.incrementAndGet() <= MAX_COMPILED_FORMULAS) {
+                compiledFormulas.computeIfAbsent(formula, newFormula -> new ConcurrentHashMap<>()).putIfAbsent(new ArrayList<>(variables), compiledFormula);
+            }
+        }
+        return compiledFormula;
     }
 
     public static double evaluateExpression(String stringFormula, Argument argument) {
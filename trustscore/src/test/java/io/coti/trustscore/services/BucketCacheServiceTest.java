@@ -0,0 +1,146 @@
+package io.coti.trustscore.services;
+
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.exceptions.DataBaseWriteException;
+import io.coti.trustscore.data.Buckets.BucketBehaviorEventsData;
+import io.coti.trustscore.data.Buckets.BucketEventData;
+import io.coti.trustscore.model.BucketEvents;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.coti.trustscore.testutils.GeneralUtilsFunctions.generateRandomHash;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BucketCacheServiceTest {
+
+    private final BucketCacheService bucketCacheService = new BucketCacheService();
+    private BucketEvents bucketEvents;
+    private Hash userHash;
+    private BucketBehaviorEventsData bucketBehaviorEventsData;
+
+    @Before
+    public void setUp() {
+        bucketEvents = Mockito.mock(BucketEvents.class);
+        when(bucketEvents.serializeBucket(any())).thenReturn(new byte[]{1});
+        when(bucketEvents.putSerializedBatch(any())).thenReturn(true);
+        ReflectionTestUtils.setField(bucketCacheService, "bucketEvents", bucketEvents);
+        ReflectionTestUtils.setField(bucketCacheService, "lockStripes", 16);
+        ReflectionTestUtils.setField(bucketCacheService, "flushBatchSize", 100);
+        ReflectionTestUtils.setField(bucketCacheService, "idleSeconds", 3600L);
+        ReflectionTestUtils.invokeMethod(bucketCacheService, "init");
+
+        userHash = generateRandomHash(64);
+        bucketBehaviorEventsData = new BucketBehaviorEventsData();
+        bucketBehaviorEventsData.setBucketHash(generateRandomHash(72));
+    }
+
+    @Test
+    public void flushBuckets_changedBucket_writtenOnceInBatch() {
+        bucketCacheService.executeWithUserLock(userHash, () -> bucketCacheService.putBucket(userHash, bucketBehaviorEventsData));
+
+        bucketCacheService.flushBuckets();
+        bucketCacheService.flushBuckets();
+
+        ArgumentCaptor<Map<Hash, byte[]>> batchCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(bucketEvents, times(1)).putSerializedBatch(batchCaptor.capture());
+        Assert.assertEquals(1, batchCaptor.getValue().size());
+        Assert.assertTrue(batchCaptor.getValue().containsKey(bucketBehaviorEventsData.getHash()));
+        BucketEventData cachedBucket = bucketCacheService.executeWithUserLock(userHash, () -> bucketCacheService.getBucket(userHash, bucketBehaviorEventsData.getHash()));
+        Assert.assertSame(bucketBehaviorEventsData, cachedBucket);
+        verify(bucketEvents, never()).getByHash(any(Hash.class));
+    }
+
+    @Test
+    public void flushBuckets_failedBatch_retriedAtNextFlush() {
+        when(bucketEvents.putSerializedBatch(any())).thenReturn(false).thenReturn(true);
+        bucketCacheService.executeWithUserLock(userHash, () -> bucketCacheService.putBucket(userHash, bucketBehaviorEventsData));
+
+        bucketCacheService.flushBuckets();
+        bucketCacheService.flushBuckets();
+        bucketCacheService.flushBuckets();
+
+        verify(bucketEvents, times(2)).putSerializedBatch(any());
+    }
+
+    @Test
+    public void flushBuckets_serializerThrowsInBatch_otherBucketsWrittenAndFailedBucketRetried() {
+        List<BucketBehaviorEventsData> buckets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Hash bucketUserHash = generateRandomHash(64);
+            BucketBehaviorEventsData bucket = new BucketBehaviorEventsData();
+            bucket.setBucketHash(generateRandomHash(72));
+            bucketCacheService.executeWithUserLock(bucketUserHash, () -> bucketCacheService.putBucket(bucketUserHash, bucket));
+            buckets.add(bucket);
+        }
+        BucketBehaviorEventsData failingBucket = buckets.get(1);
+        when(bucketEvents.serializeBucket(same(failingBucket))).thenThrow(new IllegalStateException("Failing bucket")).thenReturn(new byte[]{2});
+
+        bucketCacheService.flushBuckets();
+        bucketCacheService.flushBuckets();
+        bucketCacheService.flushBuckets();
+
+        ArgumentCaptor<Map<Hash, byte[]>> batchCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(bucketEvents, times(2)).putSerializedBatch(batchCaptor.capture());
+        Map<Hash, byte[]> firstBatch = batchCaptor.getAllValues().get(0);
+        Assert.assertEquals(2, firstBatch.size());
+        Assert.assertTrue(firstBatch.containsKey(buckets.get(0).getHash()));
+        Assert.assertTrue(firstBatch.containsKey(buckets.get(2).getHash()));
+        Map<Hash, byte[]> secondBatch = batchCaptor.getAllValues().get(1);
+        Assert.assertEquals(1, secondBatch.size());
+        Assert.assertArrayEquals(new byte[]{2}, secondBatch.get(failingBucket.getHash()));
+    }
+
+    @Test
+    public void writeBucket_changedBucket_writtenAtOnceAndNotFlushedAgain() {
+        bucketCacheService.executeWithUserLock(userHash, () -> bucketCacheService.putBucket(userHash, bucketBehaviorEventsData));
+        BucketBehaviorEventsData changedBucket = new BucketBehaviorEventsData();
+        changedBucket.setBucketHash(bucketBehaviorEventsData.getHash());
+
+        bucketCacheService.writeBucket(userHash, changedBucket);
+        bucketCacheService.flushBuckets();
+
+        verify(bucketEvents, times(1)).putSerializedBatch(any());
+        BucketEventData cachedBucket = bucketCacheService.executeWithUserLock(userHash, () -> bucketCacheService.getBucket(userHash, bucketBehaviorEventsData.getHash()));
+        Assert.assertSame(changedBucket, cachedBucket);
+    }
+
+    @Test
+    public void writeBucket_failedWrite_cachedBucketKept() {
+        when(bucketEvents.putSerializedBatch(any())).thenReturn(false);
+        bucketCacheService.executeWithUserLock(userHash, () -> bucketCacheService.putBucket(userHash, bucketBehaviorEventsData));
+        BucketBehaviorEventsData changedBucket = new BucketBehaviorEventsData();
+        changedBucket.setBucketHash(bucketBehaviorEventsData.getHash());
+
+        try {
+            bucketCacheService.writeBucket(userHash, changedBucket);
+            Assert.fail("Failed write was acknowledged");
+        } catch (DataBaseWriteException e) {
+            BucketEventData cachedBucket = bucketCacheService.executeWithUserLock(userHash, () -> bucketCacheService.getBucket(userHash, bucketBehaviorEventsData.getHash()));
+            Assert.assertSame(bucketBehaviorEventsData, cachedBucket);
+        }
+    }
+
+    @Test
+    public void getUserTrustScore_unchangedBuckets_calculatedOnceUntilBucketChanges() {
+        AtomicInteger calculations = new AtomicInteger();
+
+        double firstTrustScore = bucketCacheService.getUserTrustScore(userHash, bucketCopyByHash -> calculations.incrementAndGet());
+        double secondTrustScore = bucketCacheService.getUserTrustScore(userHash, bucketCopyByHash -> calculations.incrementAndGet());
+        bucketCacheService.executeWithUserLock(userHash, () -> bucketCacheService.putBucket(userHash, bucketBehaviorEventsData));
+        double thirdTrustScore = bucketCacheService.getUserTrustScore(userHash, bucketCopyByHash -> calculations.incrementAndGet());
+
+        Assert.assertEquals(1, firstTrustScore, 0);
+        Assert.assertEquals(1, secondTrustScore, 0);
+        Assert.assertEquals(2, thirdTrustScore, 0);
+    }
+}
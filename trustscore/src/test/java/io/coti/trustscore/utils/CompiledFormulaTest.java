@@ -0,0 +1,147 @@
+package io.coti.trustscore.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.mariuszgromada.math.mxparser.Expression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Slf4j
+public class CompiledFormulaTest {
+
+    private static final List<String> FORMULA_FIELDS = Arrays.asList("decay", "nonlinearFunction", "contribution", "fine", "fineDailyChange");
+    private static final List<String> NAMED_VARIABLES = Arrays.asList("chargeBacksTodayAmount", "paymentsTodayAmount", "chargeBacksTodayNumber",
+            "paymentsTodayNumber", "standardChargeBackRate", "tail2Contribution", "tail1Contribution", "currentDebt", "weight1", "weight2", "fine",
+            "eventsNumber");
+    private static final Pattern SINGLE_LETTER_VARIABLE = Pattern.compile("(?<![A-Za-z])([A-Z])(?![A-Za-z(])");
+    private static final double[] VALUES = {0, 1, 2, 3, 5, 7, 10, 29, 30, 31, 89, 90, 100, 365, 400, 1000, 1095, 4000, 40000, 400000, 1234567,
+            0.5, 0.125, 17.75, 3999.99, -1, -2, -30, -365, -1234.5};
+    private static final int BENCHMARK_ITERATIONS = 200000;
+    private Map<String, String[]> formulaToVariables;
+
+    @Before
+    public void init() throws IOException {
+        formulaToVariables = new LinkedHashMap<>();
+        try (InputStream rulesStream = getClass().getClassLoader().getResourceAsStream("trustScoreRules.json")) {
+            collectFormulas(new ObjectMapper().readTree(rulesStream));
+        }
+    }
+
+    @Test
+    public void evaluate_shippedRules_sameResultsAsReplacedFormula() {
+        Random random = new Random(formulaToVariables.size());
+        formulaToVariables.forEach((formula, variables) -> {
+            CompiledFormula compiledFormula = MathCalculation.getCompiledFormula(formula, variables);
+            for (int i = 0; i < VALUES.length * VALUES.length; i++) {
+                double[] values = new double[variables.length];
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = j == 0 ? VALUES[i % VALUES.length] : VALUES[random.nextInt(VALUES.length)];
+                }
+                assertSameResult(formula, variables, values, compiledFormula.evaluate(values));
+            }
+        });
+    }
+
+    @Test
+    public void evaluate_concurrentThreads_sameResultsAsReplacedFormula() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executorService.submit(() -> formulaToVariables.forEach((formula, variables) -> {
+                    for (double value : VALUES) {
+                        double[] values = new double[variables.length];
+                        Arrays.fill(values, value);
+                        assertSameResult(formula, variables, values, MathCalculation.evaluateFormula(formula, variables, values));
+                    }
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void evaluate_shippedRules_benchmark() {
+        Assume.assumeTrue("Run with -Dformula.benchmark=true", Boolean.getBoolean("formula.benchmark"));
+        double replacedSum = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            for (Map.Entry<String, String[]> formulaEntry : formulaToVariables.entrySet()) {
+                double[] values = new double[formulaEntry.getValue().length];
+                Arrays.fill(values, VALUES[i % VALUES.length]);
+                replacedSum += evaluateReplacedFormula(formulaEntry.getKey(), formulaEntry.getValue(), values);
+            }
+        }
+        long replacedMillis = (System.nanoTime() - startTime) / 1000000;
+
+        double compiledSum = 0;
+        startTime = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            for (Map.Entry<String, String[]> formulaEntry : formulaToVariables.entrySet()) {
+                double[] values = new double[formulaEntry.getValue().length];
+                Arrays.fill(values, VALUES[i % VALUES.length]);
+                compiledSum += MathCalculation.evaluateFormula(formulaEntry.getKey(), formulaEntry.getValue(), values);
+            }
+        }
+        long compiledMillis = (System.nanoTime() - startTime) / 1000000;
+
+        Assert.assertEquals(Double.doubleToLongBits(replacedSum), Double.doubleToLongBits(compiledSum));
+        log.info("Evaluating {} rule formulas {} times: replaced formulas {} ms, compiled formulas {} ms", formulaToVariables.size(),
+                BENCHMARK_ITERATIONS, replacedMillis, compiledMillis);
+    }
+
+    private void collectFormulas(JsonNode jsonNode) {
+        jsonNode.fields().forEachRemaining(field -> {
+            if (FORMULA_FIELDS.contains(field.getKey()) && field.getValue().isTextual()) {
+                String formula = field.getValue().asText();
+                formulaToVariables.putIfAbsent(formula, getVariables(formula));
+            } else {
+                collectFormulas(field.getValue());
+            }
+        });
+        if (jsonNode.isArray()) {
+            jsonNode.forEach(this::collectFormulas);
+        }
+    }
+
+    private String[] getVariables(String formula) {
+        List<String> variables = new ArrayList<>();
+        NAMED_VARIABLES.stream().filter(formula::contains).forEach(variables::add);
+        Matcher matcher = SINGLE_LETTER_VARIABLE.matcher(formula);
+        while (matcher.find()) {
+            if (!variables.contains(matcher.group(1))) {
+                variables.add(matcher.group(1));
+            }
+        }
+        return variables.toArray(new String[0]);
+    }
+
+    private void assertSameResult(String formula, String[] variables, double[] values, double result) {
+        Assert.assertEquals(formula + " " + Arrays.toString(values), Double.doubleToLongBits(evaluateReplacedFormula(formula, variables, values)),
+                Double.doubleToLongBits(result));
+    }
+
+    private double evaluateReplacedFormula(String formula, String[] variables, double[] values) {
+        String replacedFormula = formula;
+        for (int i = 0; i < variables.length; i++) {
+            replacedFormula = replacedFormula.replace(variables[i], String.valueOf(values[i]));
+        }
+        return new Expression(replacedFormula).calculate();
+    }
+}
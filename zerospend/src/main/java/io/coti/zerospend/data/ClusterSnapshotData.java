@@ -0,0 +1,87 @@
+package io.coti.zerospend.data;
+
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.TransactionData;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of the cluster taken once per starvation check. Every transaction gets an index, and the children
+ * inside the snapshot together with the trust chain trust scores are copied into arrays, so the analysis never touches
+ * the database or the live transaction objects.
+ */
+public class ClusterSnapshotData {
+
+    private final TransactionData[] transactions;
+    private final Map<Hash, Integer> hashToIndexMap;
+    private final double[] trustChainTrustScores;
+    private final int[] childOffsets;
+    private final int[] children;
+
+    public ClusterSnapshotData(List<TransactionData> transactionDataList) {
+        int size = transactionDataList.size();
+        transactions = transactionDataList.toArray(new TransactionData[0]);
+        hashToIndexMap = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+        trustChainTrustScores = new double[size];
+        for (int i = 0; i < size; i++) {
+            hashToIndexMap.put(transactions[i].getHash(), i);
+            trustChainTrustScores[i] = transactions[i].getTrustChainTrustScore();
+        }
+
+        childOffsets = new int[size + 1];
+        int[][] childrenPerTransaction = new int[size][];
+        int childCount = 0;
+        for (int i = 0; i < size; i++) {
+            List<Hash> childrenTransactionHashes = transactions[i].getChildrenTransactionHashes();
+            int[] transactionChildren = new int[childrenTransactionHashes == null ? 0 : childrenTransactionHashes.size()];
+            int transactionChildCount = 0;
+            for (int j = 0; j < transactionChildren.length; j++) {
+                Integer childIndex = hashToIndexMap.get(childrenTransactionHashes.get(j));
+                if (childIndex != null) {
+                    transactionChildren[transactionChildCount++] = childIndex;
+                }
+            }
+            childrenPerTransaction[i] = transactionChildren;
+            childOffsets[i] = childCount;
+            childCount += transactionChildCount;
+        }
+        childOffsets[size] = childCount;
+        children = new int[childCount];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(childrenPerTransaction[i], 0, children, childOffsets[i], childOffsets[i + 1] - childOffsets[i]);
+        }
+    }
+
+    public int size() {
+        return transactions.length;
+    }
+
+    public TransactionData getTransactionData(int index) {
+        return transactions[index];
+    }
+
+    /**
+     * Returns the index of the transaction, or -1 if it is not in the snapshot.
+     */
+    public int getIndex(Hash hash) {
+        return hashToIndexMap.getOrDefault(hash, -1);
+    }
+
+    public double getTrustChainTrustScore(int index) {
+        return trustChainTrustScores[index];
+    }
+
+    public int getChildCount(int index) {
+        return childOffsets[index + 1] - childOffsets[index];
+    }
+
+    /**
+     * Returns the index of the n-th child of the transaction, counting only the children inside the snapshot and keeping
+     * the order of {@link TransactionData#getChildrenTransactionHashes()}.
+     */
+    public int getChild(int index, int childNumber) {
+        return children[childOffsets[index] + childNumber];
+    }
+}
@@ -0,0 +1,16 @@
+package io.coti.zerospend.data;
+
+import io.coti.basenode.data.TransactionData;
+import lombok.Data;
+
+@Data
+public class RootSourcePairData {
+
+    private TransactionData rootTransactionData;
+    private TransactionData sourceTransactionData;
+
+    public RootSourcePairData(TransactionData rootTransactionData, TransactionData sourceTransactionData) {
+        this.rootTransactionData = rootTransactionData;
+        this.sourceTransactionData = sourceTransactionData;
+    }
+}
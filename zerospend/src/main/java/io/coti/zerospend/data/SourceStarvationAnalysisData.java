@@ -0,0 +1,18 @@
+package io.coti.zerospend.data;
+
+import io.coti.basenode.data.TransactionData;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SourceStarvationAnalysisData {
+
+    private List<RootSourcePairData> rootSourcePairs;
+    private List<TransactionData> orphanedStarvationSources;
+
+    public SourceStarvationAnalysisData(List<RootSourcePairData> rootSourcePairs, List<TransactionData> orphanedStarvationSources) {
+        this.rootSourcePairs = rootSourcePairs;
+        this.orphanedStarvationSources = orphanedStarvationSources;
+    }
+}
@@ -0,0 +1,20 @@
+package io.coti.zerospend.data;
+
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.data.TransactionVoteData;
+import lombok.Data;
+
+@Data
+public class TransactionVoteTallyData {
+
+    private TransactionData transactionData;
+    private TransactionVoteData transactionVoteData;
+    private int positiveVotes;
+    private int negativeVotes;
+    private boolean decided;
+
+    public TransactionVoteTallyData(TransactionData transactionData, TransactionVoteData transactionVoteData) {
+        this.transactionData = transactionData;
+        this.transactionVoteData = transactionVoteData;
+    }
+}
@@ -9,20 +9,27 @@ import io.coti.basenode.model.Transactions;
 import io.coti.basenode.services.BaseNodeDspVoteService;
 import io.coti.basenode.services.TransactionIndexService;
 import io.coti.basenode.services.interfaces.INetworkService;
+import io.coti.basenode.utilities.MpscRing;
+import io.coti.zerospend.data.TransactionVoteTallyData;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.*;
 
+/**
+ * Tallies the dsp votes in memory as they arrive and publishes the consensus result as soon as a majority is reached.
+ * The vote data is persisted in batches by a writer thread, and the consensus results are indexed, signed and published
+ * in order by a single sequencer thread.
+ */
 @Slf4j
 @Service
 public class DspVoteService extends BaseNodeDspVoteService {
 
+    private static final int VOTE_PERSISTENCE_BATCH_SIZE = 1000;
+    private static final int SEQUENCER_CAPACITY = 65536;
     @Autowired
     private TransactionIndexService transactionIndexService;
     @Autowired
@@ -35,14 +42,27 @@ public class DspVoteService extends BaseNodeDspVoteService {
     private DspConsensusCrypto dspConsensusCrypto;
     @Autowired
     private INetworkService networkService;
-    private ConcurrentMap<Hash, List<DspVote>> transactionHashToVotesListMapping;
+    private ConcurrentMap<Hash, TransactionVoteTallyData> transactionHashToVoteTallyMapping;
     private final LockData transactionHashLockData = new LockData();
     private Map<Hash, HashSet<TransactionDspVote>> missingTransactionsAwaitingHandling;
+    private BlockingQueue<TransactionVoteTallyData> voteTalliesToPersist;
+    private MpscRing<Runnable> consensusSequencerRing;
+    private Thread votePersistenceThread;
+    private Thread consensusSequencerThread;
+    private boolean consensusSequencerRunning;
+    private volatile boolean shuttingDown;
 
     @Override
     public void init() {
-        transactionHashToVotesListMapping = new ConcurrentHashMap<>();
+        transactionHashToVoteTallyMapping = new ConcurrentHashMap<>();
         missingTransactionsAwaitingHandling = new ConcurrentHashMap<>();
+        voteTalliesToPersist = new LinkedBlockingQueue<>();
+        consensusSequencerRing = new MpscRing<>(SEQUENCER_CAPACITY);
+        votePersistenceThread = new Thread(this::persistVoteTallies, "DSP Vote Persistence");
+        votePersistenceThread.start();
+        consensusSequencerRunning = true;
+        consensusSequencerThread = new Thread(this::runConsensusSequencer, "DSP Consensus Sequencer");
+        consensusSequencerThread.start();
         super.init();
     }
 
@@ -53,15 +73,15 @@ public class DspVoteService extends BaseNodeDspVoteService {
         );
         log.debug("Received new transaction. Live DSP Nodes: {}", dspHashList);
         Hash transactionHash = transactionData.getHash();
-        TransactionVoteData transactionVoteData = new TransactionVoteData(transactionHash, dspHashList);
+        TransactionVoteTallyData transactionVoteTallyData = new TransactionVoteTallyData(transactionData, new TransactionVoteData(transactionHash, dspHashList));
         try {
             synchronized (transactionHashLockData.addLockToLockMap(transactionHash)) {
-                transactionVotes.put(transactionVoteData);
-                transactionHashToVotesListMapping.put(transactionHash, new LinkedList<>());
+                transactionHashToVoteTallyMapping.put(transactionHash, transactionVoteTallyData);
+                voteTalliesToPersist.add(transactionVoteTallyData);
 
                 HashSet<TransactionDspVote> transactionDspVotesAwaitingHandling = missingTransactionsAwaitingHandling.get(transactionHash);
                 if (transactionDspVotesAwaitingHandling != null && !transactionDspVotesAwaitingHandling.isEmpty()) {
-                    transactionDspVotesAwaitingHandling.forEach(transactionDspVote -> handlePostponedTransactionDspVote(transactionDspVote, transactionVoteData));
+                    transactionDspVotesAwaitingHandling.forEach(transactionDspVote -> handlePostponedTransactionDspVote(transactionDspVote, transactionVoteTallyData));
                     missingTransactionsAwaitingHandling.remove(transactionHash);
                 }
             }
@@ -71,46 +91,73 @@ public class DspVoteService extends BaseNodeDspVoteService {
 
     }
 
-    private void handlePostponedTransactionDspVote(TransactionDspVote transactionDspVote, TransactionVoteData transactionVoteData) {
+    private void handlePostponedTransactionDspVote(TransactionDspVote transactionDspVote, TransactionVoteTallyData transactionVoteTallyData) {
         try {
             Hash transactionHash = transactionDspVote.getHash();
             Hash voterDspHash = transactionDspVote.getVoterDspHash();
             log.debug("Handling postponed Dsp Vote: Sender = {} , Transaction = {}", voterDspHash, transactionHash);
-            handleDspVote(transactionDspVote, transactionVoteData, voterDspHash, transactionHash);
+            handleDspVote(transactionDspVote, transactionVoteTallyData, voterDspHash, transactionHash);
         } catch (Exception e) {
             log.error(e.getMessage());
         }
     }
 
-    private void handleDspVote(TransactionDspVote transactionDspVote, TransactionVoteData transactionVoteData, Hash voterDspHash, Hash transactionHash) {
+    private void handleDspVote(TransactionDspVote transactionDspVote, TransactionVoteTallyData transactionVoteTallyData, Hash voterDspHash, Hash transactionHash) {
+        TransactionVoteData transactionVoteData = transactionVoteTallyData.getTransactionVoteData();
         if (!transactionVoteData.getLegalVoterDspHashes().contains(voterDspHash)) {
             throw new DspVoteException(String.format("Unauthorized Dsp vote received. Sender =  %s, Transaction =  %s", voterDspHash, transactionHash));
         }
-        if (!transactionDspVoteCrypto.verifySignature(transactionDspVote)) {
-            throw new DspVoteException(String.format("Invalid vote signature. Sender =  %s, Transaction = %s", voterDspHash, transactionHash));
-        }
-        if (transactionHashToVotesListMapping.get(transactionHash) == null) {
+        if (transactionVoteTallyData.isDecided()) {
             log.debug("Dsp vote result already published");
             return;
         }
         log.debug("Adding new vote: {}", transactionDspVote);
-        transactionHashToVotesListMapping.get(transactionHash).add(new DspVote(transactionDspVote));
+        if (transactionVoteData.getDspHashToVoteMapping().putIfAbsent(voterDspHash, new DspVote(transactionDspVote)) != null) {
+            return;
+        }
+        if (transactionDspVote.isValidTransaction()) {
+            transactionVoteTallyData.setPositiveVotes(transactionVoteTallyData.getPositiveVotes() + 1);
+        } else {
+            transactionVoteTallyData.setNegativeVotes(transactionVoteTallyData.getNegativeVotes() + 1);
+        }
+        int majority = transactionVoteData.getLegalVoterDspHashes().size() / 2;
+        if (transactionVoteTallyData.getPositiveVotes() > majority) {
+            decide(transactionVoteTallyData, true);
+            log.debug("Valid vote majority achieved for transaction {}", transactionHash);
+        } else if (transactionVoteTallyData.getNegativeVotes() > majority) {
+            decide(transactionVoteTallyData, false);
+            log.debug("Invalid vote majority achieved for transaction {}", transactionHash);
+        }
+    }
+
+    private void decide(TransactionVoteTallyData transactionVoteTallyData, boolean isLegalTransaction) {
+        transactionVoteTallyData.setDecided(true);
+        List<DspVote> dspVotes = new LinkedList<>(transactionVoteTallyData.getTransactionVoteData().getDspHashToVoteMapping().values());
+        runInSequence(() -> publishDecision(transactionVoteTallyData.getTransactionData(), dspVotes, isLegalTransaction));
+        voteTalliesToPersist.add(transactionVoteTallyData);
     }
 
     public void receiveDspVote(TransactionDspVote transactionDspVote) {
         Hash transactionHash = transactionDspVote.getHash();
         Hash voterDspHash = transactionDspVote.getVoterDspHash();
         log.info("Received new Dsp Vote: Sender = {} , Transaction = {}", voterDspHash, transactionHash);
+        if (!transactionDspVoteCrypto.verifySignature(transactionDspVote)) {
+            throw new DspVoteException(String.format("Invalid vote signature. Sender =  %s, Transaction = %s", voterDspHash, transactionHash));
+        }
         try {
             synchronized (transactionHashLockData.addLockToLockMap(transactionHash)) {
-                TransactionVoteData transactionVoteData = transactionVotes.getByHash(transactionHash);
-                if (transactionVoteData == null) {
+                TransactionVoteTallyData transactionVoteTallyData = transactionHashToVoteTallyMapping.get(transactionHash);
+                if (transactionVoteTallyData == null) {
+                    if (transactionVotes.getByHash(transactionHash) != null) {
+                        log.debug("Dsp vote result already published");
+                        return;
+                    }
                     missingTransactionsAwaitingHandling.computeIfAbsent(transactionHash, key -> new HashSet<>()).add(transactionDspVote);
                     log.debug("Transaction {} does not exist for dsp vote. Vote processing is delayed.", transactionHash);
                     return;
                 }
 
-                handleDspVote(transactionDspVote, transactionVoteData, voterDspHash, transactionHash);
+                handleDspVote(transactionDspVote, transactionVoteTallyData, voterDspHash, transactionHash);
             }
         } finally {
             transactionHashLockData.removeLockFromLocksMap(transactionHash);
@@ -118,52 +165,120 @@ public class DspVoteService extends BaseNodeDspVoteService {
 
     }
 
-    @Scheduled(fixedDelay = 1000)
-    private void sumAndSaveVotes() {
-        for (Map.Entry<Hash, List<DspVote>> transactionHashToVotesListEntry :
-                transactionHashToVotesListMapping.entrySet()) {
-            Hash transactionHash = transactionHashToVotesListEntry.getKey();
+    /**
+     * Persists the vote data of new and decided transactions in batches. A decided transaction leaves the in memory tally
+     * once its votes are persisted, and later votes for it are recognized by its persisted vote data.
+     */
+    private void persistVoteTallies() {
+        List<TransactionVoteTallyData> voteTallyBatch = new ArrayList<>(VOTE_PERSISTENCE_BATCH_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
             try {
-                synchronized (transactionHashLockData.addLockToLockMap(transactionHash)) {
-                    List<DspVote> dspVotes = transactionHashToVotesListEntry.getValue();
-                    if (dspVotes != null && !dspVotes.isEmpty()) {
-                        TransactionVoteData currentTransactionVoteData = transactionVotes.getByHash(transactionHash);
-                        Map<Hash, DspVote> mapHashToDspVote = currentTransactionVoteData.getDspHashToVoteMapping();
-                        dspVotes.forEach(dspVote -> mapHashToDspVote.putIfAbsent(dspVote.getVoterDspHash(), dspVote));
-                        if (isPositiveMajorityAchieved(currentTransactionVoteData)) {
-                            publishDecision(transactionHash, mapHashToDspVote, true);
-                            log.debug("Valid vote majority achieved for transaction {}", currentTransactionVoteData.getHash());
-                        } else if (isNegativeMajorityAchieved(currentTransactionVoteData)) {
-                            publishDecision(transactionHash, mapHashToDspVote, false);
-                            log.debug("Invalid vote majority achieved for transaction {}", currentTransactionVoteData.getHash());
-                        } else {
-                            log.warn("Undecided majority for transaction {}", currentTransactionVoteData.getHash());
-                        }
-                    }
-                }
+                voteTallyBatch.add(voteTalliesToPersist.take());
+                voteTalliesToPersist.drainTo(voteTallyBatch, VOTE_PERSISTENCE_BATCH_SIZE - 1);
+                persistVoteTallyBatch(voteTallyBatch);
+            } catch (InterruptedException e) {
+                log.info("Dsp vote persistence interrupted");
+                Thread.currentThread().interrupt();
             } catch (Exception e) {
-                log.error("Exception at DspVoteService::sumAndSaveVotes(): ", e);
-                throw e;
+                log.error("Exception at dsp vote persistence", e);
             } finally {
-                transactionHashLockData.removeLockFromLocksMap(transactionHash);
+                voteTallyBatch.clear();
             }
         }
+        voteTalliesToPersist.drainTo(voteTallyBatch);
+        if (!voteTallyBatch.isEmpty()) {
+            log.info("Please wait for persisting {} remaining dsp vote tallies", voteTallyBatch.size());
+            persistVoteTallyBatch(voteTallyBatch);
+        }
     }
 
-    private synchronized void publishDecision(Hash transactionHash, Map<Hash, DspVote> mapHashToDspVote, boolean isLegalTransaction) {
-        TransactionData transactionData = transactions.getByHash(transactionHash);
+    private void persistVoteTallyBatch(List<TransactionVoteTallyData> voteTallyBatch) {
+        Map<Hash, TransactionVoteData> transactionVoteDataMap = new HashMap<>();
+        voteTallyBatch.forEach(transactionVoteTallyData -> transactionVoteDataMap.put(transactionVoteTallyData.getTransactionVoteData().getHash(), transactionVoteTallyData.getTransactionVoteData()));
+        transactionVotes.putBatch(transactionVoteDataMap);
+        voteTallyBatch.forEach(transactionVoteTallyData -> {
+            if (transactionVoteTallyData.isDecided()) {
+                transactionHashToVoteTallyMapping.remove(transactionVoteTallyData.getTransactionVoteData().getHash(), transactionVoteTallyData);
+            }
+        });
+    }
+
+    /**
+     * Runs the queued tasks in order until the stop task queued by {@link #shutdown()} is reached, so that every consensus
+     * result queued before the shutdown is still indexed and published.
+     */
+    private void runConsensusSequencer() {
+        while (consensusSequencerRunning) {
+            try {
+                consensusSequencerRing.take().run();
+            } catch (InterruptedException e) {
+                log.info("Dsp consensus sequencer interrupted");
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        Runnable remainingTask;
+        while ((remainingTask = consensusSequencerRing.poll()) != null) {
+            remainingTask.run();
+        }
+    }
+
+    /**
+     * Queues the task to the sequencer thread, which assigns the transaction indexes one after the other.
+     */
+    private CompletableFuture<Void> runInSequence(Runnable task) {
+        CompletableFuture<Void> taskFuture = new CompletableFuture<>();
+        if (shuttingDown) {
+            taskFuture.completeExceptionally(new DspVoteException("Dsp consensus sequencer is shut down"));
+            return taskFuture;
+        }
+        Runnable sequencedTask = () -> {
+            try {
+                task.run();
+                taskFuture.complete(null);
+            } catch (Exception e) {
+                log.error("Exception at dsp consensus sequencer", e);
+                taskFuture.completeExceptionally(e);
+            }
+        };
+        try {
+            consensusSequencerRing.put(sequencedTask);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            taskFuture.completeExceptionally(e);
+        }
+        return taskFuture;
+    }
+
+    private void runInSequenceAndWait(Runnable task) {
+        if (Thread.currentThread() == consensusSequencerThread) {
+            task.run();
+            return;
+        }
+        try {
+            runInSequence(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void publishDecision(TransactionData transactionData, List<DspVote> dspVotes, boolean isLegalTransaction) {
         DspConsensusResult dspConsensusResult = new DspConsensusResult(transactionData.getHash());
         dspConsensusResult.setDspConsensus(isLegalTransaction);
-        List<DspVote> dspVotes = new LinkedList<>();
-        mapHashToDspVote.forEach((hash, dspVote) -> dspVotes.add(dspVote));
         dspConsensusResult.setDspVotes(dspVotes);
-        setIndexForDspResult(transactionData, dspConsensusResult);
+        indexDspResult(transactionData, dspConsensusResult);
         confirmationService.setDspcToTrue(dspConsensusResult);
         propagationPublisher.propagate(dspConsensusResult, Arrays.asList(NodeType.DspNode, NodeType.TrustScoreNode, NodeType.FinancialServer, NodeType.HistoryNode));
-        transactionHashToVotesListMapping.remove(transactionHash);
     }
 
-    public synchronized void setIndexForDspResult(TransactionData transactionData, DspConsensusResult dspConsensusResult) {
+    public void setIndexForDspResult(TransactionData transactionData, DspConsensusResult dspConsensusResult) {
+        runInSequenceAndWait(() -> indexDspResult(transactionData, dspConsensusResult));
+    }
+
+    private void indexDspResult(TransactionData transactionData, DspConsensusResult dspConsensusResult) {
         dspConsensusResult.setIndex(transactionIndexService.getLastTransactionIndexData().getIndex() + 1);
         dspConsensusResult.setIndexingTime(Instant.now());
         dspConsensusCrypto.signMessage(dspConsensusResult);
@@ -172,28 +287,22 @@ public class DspVoteService extends BaseNodeDspVoteService {
     }
 
     public void publishDecision(Hash transactionHash) {
-        publishDecision(transactionHash, new HashMap<>(), true);
-    }
-
-    private boolean isPositiveMajorityAchieved(TransactionVoteData currentVotes) {
-        long positiveVotersCount = currentVotes
-                .getDspHashToVoteMapping()
-                .values()
-                .stream()
-                .filter(DspVote::isValidTransaction)
-                .count();
-        long totalVotersCount = currentVotes.getLegalVoterDspHashes().size();
-        return positiveVotersCount > totalVotersCount / 2;
-    }
-
-    private boolean isNegativeMajorityAchieved(TransactionVoteData currentVotes) {
-        long negativeVotersCount = currentVotes
-                .getDspHashToVoteMapping()
-                .values()
-                .stream()
-                .filter(vote -> !vote.isValidTransaction())
-                .count();
-        long totalVotersCount = currentVotes.getLegalVoterDspHashes().size();
-        return negativeVotersCount > totalVotersCount / 2;
+        TransactionData transactionData = transactions.getByHash(transactionHash);
+        runInSequenceAndWait(() -> publishDecision(transactionData, new LinkedList<>(), true));
+        transactionHashToVoteTallyMapping.remove(transactionHash);
+    }
+
+    public void shutdown() {
+        log.info("Shutting down {}", this.getClass().getSimpleName());
+        try {
+            runInSequence(() -> consensusSequencerRunning = false);
+            shuttingDown = true;
+            consensusSequencerThread.join();
+            votePersistenceThread.interrupt();
+            votePersistenceThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted shutdown {}", this.getClass().getSimpleName());
+        }
     }
 }
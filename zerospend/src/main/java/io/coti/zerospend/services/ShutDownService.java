@@ -0,0 +1,23 @@
+package io.coti.zerospend.services;
+
+import io.coti.basenode.services.BaseNodeShutDownService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ShutDownService extends BaseNodeShutDownService {
+
+    @Autowired
+    private DspVoteService dspVoteService;
+
+    @Override
+    public void shutDownServices() {
+        receiver.shutdown();
+        propagationSubscriber.shutdown();
+        dspVoteService.shutdown();
+        propagationPublisher.shutdown();
+        sender.shutdown();
+        confirmationService.shutdown();
+        databaseConnector.shutdown();
+    }
+}
@@ -0,0 +1,145 @@
+package io.coti.zerospend.services;
+
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.data.TransactionType;
+import io.coti.zerospend.data.ClusterSnapshotData;
+import io.coti.zerospend.data.RootSourcePairData;
+import io.coti.zerospend.data.SourceStarvationAnalysisData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pairs every source of the cluster with the root waiting on it. Walking the snapshot from parents to children, each
+ * transaction hands its root down to its major child, the child with the highest trust chain trust score. A transaction
+ * without a major child is a source and is paired with the root it received. Each vertex and edge is visited a constant
+ * number of times.
+ */
+@Slf4j
+@Service
+public class SourceStarvationAnalyzer {
+
+    private static final int NO_TRANSACTION = -1;
+
+    public SourceStarvationAnalysisData analyze(ClusterSnapshotData clusterSnapshotData) {
+        return analyze(clusterSnapshotData, sortByTopologicalOrder(clusterSnapshotData));
+    }
+
+    /**
+     * Pairs the sources with their roots walking the snapshot in the given order, which puts every parent before its
+     * children. When parents with different roots share a major child, the root kept for the child depends on which of
+     * them comes first, as it did in the pairing over the cluster helper's order.
+     */
+    SourceStarvationAnalysisData analyze(ClusterSnapshotData clusterSnapshotData, int[] topologicalOrder) {
+        int size = clusterSnapshotData.size();
+        int[] rootOfTransaction = new int[size];
+        Arrays.fill(rootOfTransaction, NO_TRANSACTION);
+        int[] sourceOfRoot = new int[size];
+        Arrays.fill(sourceOfRoot, NO_TRANSACTION);
+        int[] roots = new int[size];
+        int rootCount = 0;
+        List<TransactionData> orphanedStarvationSources = new ArrayList<>();
+
+        for (int parent : topologicalOrder) {
+            int majorChild = findMajorChild(clusterSnapshotData, parent);
+            if (majorChild != NO_TRANSACTION) {
+                mapPathUsingMajorChild(clusterSnapshotData, rootOfTransaction, parent, majorChild);
+            } else {
+                int root = rootOfTransaction[parent];
+                if (root == NO_TRANSACTION && !isZeroSpend(clusterSnapshotData, parent)) {
+                    root = parent;
+                }
+                if (root == NO_TRANSACTION) {
+                    orphanedStarvationSources.add(clusterSnapshotData.getTransactionData(parent));
+                } else {
+                    if (sourceOfRoot[root] == NO_TRANSACTION) {
+                        roots[rootCount++] = root;
+                    }
+                    sourceOfRoot[root] = parent;
+                }
+            }
+        }
+
+        List<RootSourcePairData> rootSourcePairs = new ArrayList<>(rootCount);
+        for (int i = 0; i < rootCount; i++) {
+            rootSourcePairs.add(new RootSourcePairData(clusterSnapshotData.getTransactionData(roots[i]), clusterSnapshotData.getTransactionData(sourceOfRoot[roots[i]])));
+        }
+        return new SourceStarvationAnalysisData(rootSourcePairs, orphanedStarvationSources);
+    }
+
+    /**
+     * Orders the snapshot so that every parent comes before its children. Transactions caught in a cycle, which a
+     * consistent cluster never has, are appended at the end.
+     */
+    int[] sortByTopologicalOrder(ClusterSnapshotData clusterSnapshotData) {
+        int size = clusterSnapshotData.size();
+        int[] parentCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < clusterSnapshotData.getChildCount(i); j++) {
+                parentCounts[clusterSnapshotData.getChild(i, j)]++;
+            }
+        }
+
+        int[] topologicalOrder = new int[size];
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            if (parentCounts[i] == 0) {
+                topologicalOrder[tail++] = i;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int parent = topologicalOrder[head];
+            for (int j = 0; j < clusterSnapshotData.getChildCount(parent); j++) {
+                int child = clusterSnapshotData.getChild(parent, j);
+                if (--parentCounts[child] == 0) {
+                    topologicalOrder[tail++] = child;
+                }
+            }
+        }
+
+        if (tail < size) {
+            log.warn("{} transactions of the cluster are in a cycle", size - tail);
+            for (int i = 0; i < size; i++) {
+                if (parentCounts[i] > 0) {
+                    topologicalOrder[tail++] = i;
+                }
+            }
+        }
+        return topologicalOrder;
+    }
+
+    private int findMajorChild(ClusterSnapshotData clusterSnapshotData, int parent) {
+        double maxTrustChainTrustScore = 0;
+        int majorChild = NO_TRANSACTION;
+        for (int j = 0; j < clusterSnapshotData.getChildCount(parent); j++) {
+            int child = clusterSnapshotData.getChild(parent, j);
+            if (clusterSnapshotData.getTrustChainTrustScore(child) > maxTrustChainTrustScore) {
+                maxTrustChainTrustScore = clusterSnapshotData.getTrustChainTrustScore(child);
+                majorChild = child;
+            }
+        }
+        return majorChild;
+    }
+
+    private void mapPathUsingMajorChild(ClusterSnapshotData clusterSnapshotData, int[] rootOfTransaction, int parent, int majorChild) {
+        int root = rootOfTransaction[parent];
+        if (root == NO_TRANSACTION && !isZeroSpend(clusterSnapshotData, parent)) {
+            root = parent;
+        }
+        if (root == NO_TRANSACTION) {
+            return;
+        }
+        int existingRoot = rootOfTransaction[majorChild];
+        if (existingRoot == NO_TRANSACTION || clusterSnapshotData.getTransactionData(parent).getAttachmentTime()
+                .isBefore(clusterSnapshotData.getTransactionData(existingRoot).getAttachmentTime())) {
+            rootOfTransaction[majorChild] = root;
+        }
+    }
+
+    private boolean isZeroSpend(ClusterSnapshotData clusterSnapshotData, int index) {
+        return TransactionType.ZeroSpend.equals(clusterSnapshotData.getTransactionData(index).getType());
+    }
+}
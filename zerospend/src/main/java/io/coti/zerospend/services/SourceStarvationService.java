@@ -6,6 +6,9 @@ import io.coti.basenode.data.TransactionType;
 import io.coti.basenode.model.Transactions;
 import io.coti.basenode.services.interfaces.IClusterHelper;
 import io.coti.basenode.services.interfaces.IClusterService;
+import io.coti.zerospend.data.ClusterSnapshotData;
+import io.coti.zerospend.data.RootSourcePairData;
+import io.coti.zerospend.data.SourceStarvationAnalysisData;
 import io.coti.zerospend.data.ZeroSpendTransactionType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +19,7 @@ import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -32,19 +35,61 @@ public class SourceStarvationService {
     private TransactionCreationService transactionCreationService;
     @Autowired
     private Transactions transactions;
+    @Autowired
+    private SourceStarvationAnalyzer sourceStarvationAnalyzer;
 
     @Scheduled(fixedDelay = SOURCE_STARVATION_CHECK_TASK_DELAY)
     public void checkSourcesStarvation() {
         log.debug("Checking Source Starvation");
+        long startTime = System.nanoTime();
         Instant now = Instant.now();
-        ConcurrentHashMap<Hash, TransactionData> trustChainConfirmationCluster = clusterService.getCopyTrustChainConfirmationCluster();
-        LinkedList<TransactionData> topologicalOrderedGraph = new LinkedList<>();
-
-        clusterHelper.sortByTopologicalOrder(trustChainConfirmationCluster, topologicalOrderedGraph);
+        ClusterSnapshotData clusterSnapshotData = createClusterSnapshot();
+        SourceStarvationAnalysisData sourceStarvationAnalysisData = sourceStarvationAnalyzer.analyze(clusterSnapshotData);
+        long analysisTime = System.nanoTime();
 
-        createNewStarvationZeroSpendTransactions(now, topologicalOrderedGraph);
+        createNewStarvationZeroSpendTransactions(now, sourceStarvationAnalysisData);
 
         createNewGenesisZeroSpendTransactions();
+
+        long checkDurationInMilliseconds = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        if (checkDurationInMilliseconds > SOURCE_STARVATION_CHECK_TASK_DELAY) {
+            log.warn("Source starvation check of {} transactions took {} ms, analysis {} ms", clusterSnapshotData.size(), checkDurationInMilliseconds, TimeUnit.NANOSECONDS.toMillis(analysisTime - startTime));
+        } else {
+            log.debug("Source starvation check of {} transactions took {} ms, analysis {} ms", clusterSnapshotData.size(), checkDurationInMilliseconds, TimeUnit.NANOSECONDS.toMillis(analysisTime - startTime));
+        }
+    }
+
+    /**
+     * Takes the cluster together with the descendants of its transactions that already left it, the latter loaded from
+     * the database one generation per batch.
+     */
+    private ClusterSnapshotData createClusterSnapshot() {
+        List<TransactionData> snapshotTransactions = clusterService.getTrustChainConfirmationClusterTransactions();
+        Set<Hash> snapshotTransactionHashes = new HashSet<>(snapshotTransactions.size() * 2);
+        snapshotTransactions.forEach(transactionData -> snapshotTransactionHashes.add(transactionData.getHash()));
+
+        List<TransactionData> parentTransactions = snapshotTransactions;
+        while (!parentTransactions.isEmpty()) {
+            Map<Hash, Hash> missingChildHashToParentHash = new LinkedHashMap<>();
+            parentTransactions.forEach(transactionData -> transactionData.getChildrenTransactionHashes().forEach(childHash -> {
+                if (!snapshotTransactionHashes.contains(childHash)) {
+                    missingChildHashToParentHash.putIfAbsent(childHash, transactionData.getHash());
+                }
+            }));
+            List<Hash> missingChildHashes = new ArrayList<>(missingChildHashToParentHash.keySet());
+            List<TransactionData> childTransactions = missingChildHashes.isEmpty() ? Collections.emptyList() : transactions.multiGetByHashes(missingChildHashes);
+            parentTransactions = new ArrayList<>();
+            for (int i = 0; i < missingChildHashes.size(); i++) {
+                TransactionData childTransaction = childTransactions.get(i);
+                if (childTransaction == null) {
+                    log.error("Child {} of transaction {} is not in cluster", missingChildHashes.get(i), missingChildHashToParentHash.get(missingChildHashes.get(i)));
+                } else if (snapshotTransactionHashes.add(childTransaction.getHash())) {
+                    parentTransactions.add(childTransaction);
+                }
+            }
+            snapshotTransactions.addAll(parentTransactions);
+        }
+        return new ClusterSnapshotData(snapshotTransactions);
     }
 
     private void createNewGenesisZeroSpendTransactions() {
@@ -63,98 +108,29 @@ public class SourceStarvationService {
         }
     }
 
-    private TransactionData findMajorChild(TransactionData parentTransactionData) {
-        double maxTrustChainTrustScore = 0;
-        TransactionData majorChild = null;
-        for (Hash child : parentTransactionData.getChildrenTransactionHashes()) {
-            TransactionData childTransactionData = transactions.getByHash(child);
-            if (childTransactionData.getTrustChainTrustScore() > maxTrustChainTrustScore) {
-                maxTrustChainTrustScore = childTransactionData.getTrustChainTrustScore();
-                majorChild = childTransactionData;
-            }
-        }
-        return majorChild;
-    }
-
-    private void pairSourceToRoot(TransactionData sourceTransactionData, ConcurrentHashMap<Hash, TransactionData> sourceToRootMap,
-                                  ConcurrentHashMap<TransactionData, TransactionData> rootSourcePairs, List<TransactionData> orphanedStarvationSources) {
-
-        if (sourceToRootMap.get(sourceTransactionData.getHash()) != null) {
-            rootSourcePairs.put(sourceToRootMap.get(sourceTransactionData.getHash()), sourceTransactionData);
-        } else {
-            if (!sourceTransactionData.getType().equals(TransactionType.ZeroSpend)) {
-                rootSourcePairs.put(sourceTransactionData, sourceTransactionData);
-            } else {
-                orphanedStarvationSources.add(sourceTransactionData);
-            }
-        }
-    }
-
-    private boolean mapChildToParent(TransactionData parentTransactionData, ConcurrentHashMap<Hash, TransactionData> vertexMap,
-                                     TransactionData majorChild) {
-        boolean replaceRootIfNeeded = true;
-        if (vertexMap.get(majorChild.getHash()) != null) {
-            TransactionData existingRoot = vertexMap.get(majorChild.getHash());
-            if (!parentTransactionData.getAttachmentTime().isBefore(existingRoot.getAttachmentTime())) {
-                replaceRootIfNeeded = false;
-            }
-        }
-        return replaceRootIfNeeded;
-    }
-
-    private void mapPathUsingMajorChild(TransactionData parentTransactionData,
-                                        ConcurrentHashMap<Hash, TransactionData> vertexMap,
-                                        TransactionData majorChild) {
-        TransactionData root = null;
+    private void createNewStarvationZeroSpendTransactions(Instant now, SourceStarvationAnalysisData sourceStarvationAnalysisData) {
+        List<RootSourcePairData> rootSourcePairs = sourceStarvationAnalysisData.getRootSourcePairs();
+        Map<Hash, Integer> pairedSourceHashToRootCount = new HashMap<>();
+        rootSourcePairs.forEach(rootSourcePair -> pairedSourceHashToRootCount.merge(rootSourcePair.getSourceTransactionData().getHash(), 1, Integer::sum));
+        Set<Hash> orphanedStarvationSourceHashes = new HashSet<>();
+        sourceStarvationAnalysisData.getOrphanedStarvationSources().forEach(transactionData -> orphanedStarvationSourceHashes.add(transactionData.getHash()));
 
-        if (!TransactionType.ZeroSpend.equals(parentTransactionData.getType())) {
-            root = vertexMap.getOrDefault(parentTransactionData.getHash(), parentTransactionData);
-        } else if (vertexMap.containsKey(parentTransactionData.getHash())) {
-            root = vertexMap.get(parentTransactionData.getHash());
-        }
-        if (root != null && mapChildToParent(parentTransactionData, vertexMap, majorChild)) {
-            vertexMap.put(majorChild.getHash(), root);
-        }
-
-    }
-
-    private void pairSourcesWithRoots(LinkedList<TransactionData> topologicalOrderedGraph, ConcurrentHashMap<TransactionData, TransactionData> rootSourcePairs,
-                                      List<TransactionData> orphanedStarvationSources) {
-        ConcurrentHashMap<Hash, TransactionData> vertexMap = new ConcurrentHashMap<>();
-
-        for (int i = topologicalOrderedGraph.size() - 1; i >= 0; i--) {
-            TransactionData parentTransactionData = topologicalOrderedGraph.get(i);
-            TransactionData majorChild = findMajorChild(parentTransactionData);
-
-            if (majorChild != null) {
-                mapPathUsingMajorChild(parentTransactionData, vertexMap, majorChild);
-            } else {
-                pairSourceToRoot(parentTransactionData, vertexMap, rootSourcePairs, orphanedStarvationSources);
-            }
-        }
-    }
-
-    private void createNewStarvationZeroSpendTransactions(Instant now, LinkedList<TransactionData> topologicalOrderedGraph) {
-        ConcurrentHashMap<TransactionData, TransactionData> rootSourcePairs = new ConcurrentHashMap<>();
-        List<TransactionData> orphanedStarvationSources = new ArrayList<>();
-        pairSourcesWithRoots(topologicalOrderedGraph, rootSourcePairs, orphanedStarvationSources);
-
-        Set<TransactionData> sourcesAttached = new HashSet<>();
-        Set<TransactionData> zeroSpendSourcesAttached = new HashSet<>();
+        Set<Hash> sourcesAttached = new HashSet<>();
+        Set<Hash> zeroSpendSourcesAttached = new HashSet<>();
         List<TransactionData> newlyCreatedZeroSpends = new ArrayList<>();
 
-        for (Map.Entry<TransactionData, TransactionData> rootSourcePair : rootSourcePairs.entrySet()) {
-            TransactionData rootTransactionData = rootSourcePair.getKey();
-            TransactionData sourceTransactionData = rootSourcePair.getValue();
-            if (!sourcesAttached.contains(sourceTransactionData)) {
+        for (RootSourcePairData rootSourcePair : rootSourcePairs) {
+            TransactionData rootTransactionData = rootSourcePair.getRootTransactionData();
+            TransactionData sourceTransactionData = rootSourcePair.getSourceTransactionData();
+            if (!sourcesAttached.contains(sourceTransactionData.getHash())) {
                 long minimumWaitingTimeInMilliseconds = clusterHelper.getMinimumWaitTimeInMilliseconds(rootTransactionData);
                 long actualWaitingTimeInMilliseconds = Duration.between(rootTransactionData.getAttachmentTime(), now).toMillis();
                 log.debug("Waiting transaction: {}. Time without attachment: {}, Minimum wait time: {}", rootTransactionData.getHash(), millisecondsToMinutes(actualWaitingTimeInMilliseconds), millisecondsToMinutes(minimumWaitingTimeInMilliseconds));
                 if (actualWaitingTimeInMilliseconds > minimumWaitingTimeInMilliseconds) {
                     createJointSourceStarvationZeroSpendTransaction(newlyCreatedZeroSpends, sourceTransactionData, sourcesAttached,
-                            rootSourcePairs, orphanedStarvationSources, zeroSpendSourcesAttached);
+                            pairedSourceHashToRootCount, orphanedStarvationSourceHashes, zeroSpendSourcesAttached);
                 } else {
-                    rootSourcePairs.remove(rootTransactionData);
+                    pairedSourceHashToRootCount.computeIfPresent(sourceTransactionData.getHash(), (sourceHash, rootCount) -> rootCount > 1 ? rootCount - 1 : null);
                 }
             }
         }
@@ -164,34 +140,31 @@ public class SourceStarvationService {
         }
     }
 
-    private void createJointSourceStarvationZeroSpendTransaction(List<TransactionData> newlyCreatedZeroSpends, TransactionData sourceTransactionData, Set<TransactionData> sourcesAttached,
-                                                                 ConcurrentHashMap<TransactionData, TransactionData> rootSourcePairs, List<TransactionData> orphanedStarvationSources,
-                                                                 Set<TransactionData> zeroSpendSourcesAttached) {
+    private void createJointSourceStarvationZeroSpendTransaction(List<TransactionData> newlyCreatedZeroSpends, TransactionData sourceTransactionData, Set<Hash> sourcesAttached,
+                                                                 Map<Hash, Integer> pairedSourceHashToRootCount, Set<Hash> orphanedStarvationSourceHashes,
+                                                                 Set<Hash> zeroSpendSourcesAttached) {
         TransactionData zeroSpendTransaction = transactionCreationService.createNewStarvationZeroSpendTransaction(sourceTransactionData);
         if (zeroSpendTransaction == null) {
             return;
         }
         newlyCreatedZeroSpends.add(zeroSpendTransaction);
-        sourcesAttached.add(sourceTransactionData);
-        List<TransactionData> possibleSources = clusterService.findSources(zeroSpendTransaction);
-        possibleSources = possibleSources.stream().filter(p -> !p.getHash().equals(sourceTransactionData.getHash()) && !(p.getType().equals(TransactionType.ZeroSpend) && ZeroSpendTransactionType.GENESIS.toString().equals(p.getTransactionDescription()))).collect(Collectors.toList());
-        for (TransactionData possibleOtherParent : rootSourcePairs.values()) {
-            if (possibleSources.contains(possibleOtherParent) && !sourcesAttached.contains(possibleOtherParent)) {
+        sourcesAttached.add(sourceTransactionData.getHash());
+        List<TransactionData> possibleSources = clusterService.findSources(zeroSpendTransaction).stream()
+                .filter(p -> !p.getHash().equals(sourceTransactionData.getHash()) && !(p.getType().equals(TransactionType.ZeroSpend) && ZeroSpendTransactionType.GENESIS.toString().equals(p.getTransactionDescription())))
+                .collect(Collectors.toList());
+        for (TransactionData possibleOtherParent : possibleSources) {
+            if (pairedSourceHashToRootCount.containsKey(possibleOtherParent.getHash()) && sourcesAttached.add(possibleOtherParent.getHash())) {
                 zeroSpendTransaction.setRightParentHash(possibleOtherParent.getHash());
                 if (possibleOtherParent.getSenderTrustScore() > zeroSpendTransaction.getSenderTrustScore()) {
                     zeroSpendTransaction.setSenderTrustScore(possibleOtherParent.getSenderTrustScore());
                 }
-                sourcesAttached.add(possibleOtherParent);
-                break;
+                return;
             }
         }
-        if (zeroSpendTransaction.getRightParentHash() == null && !orphanedStarvationSources.isEmpty()) {
-            for (TransactionData possibleZeroSpendParent : orphanedStarvationSources) {
-                if (possibleSources.contains(possibleZeroSpendParent) && !zeroSpendSourcesAttached.contains(possibleZeroSpendParent)) {
-                    zeroSpendTransaction.setRightParentHash(possibleZeroSpendParent.getHash());
-                    zeroSpendSourcesAttached.add(possibleZeroSpendParent);
-                    break;
-                }
+        for (TransactionData possibleZeroSpendParent : possibleSources) {
+            if (orphanedStarvationSourceHashes.contains(possibleZeroSpendParent.getHash()) && zeroSpendSourcesAttached.add(possibleZeroSpendParent.getHash())) {
+                zeroSpendTransaction.setRightParentHash(possibleZeroSpendParent.getHash());
+                return;
             }
         }
     }
@@ -0,0 +1,96 @@
+package io.coti.zerospend.services;
+
+import io.coti.basenode.communication.interfaces.IPropagationPublisher;
+import io.coti.basenode.crypto.DspConsensusCrypto;
+import io.coti.basenode.crypto.TransactionDspVoteCrypto;
+import io.coti.basenode.data.*;
+import io.coti.basenode.exceptions.DspVoteException;
+import io.coti.basenode.model.TransactionVotes;
+import io.coti.basenode.model.Transactions;
+import io.coti.basenode.services.TransactionIndexService;
+import io.coti.basenode.services.interfaces.IConfirmationService;
+import io.coti.basenode.services.interfaces.INetworkService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class DspVoteServiceTest {
+
+    private static final int NUMBER_OF_TRANSACTIONS = 1000;
+    private static final Hash VOTER_DSP_HASH = new Hash("aa");
+    private final AtomicLong lastIndex = new AtomicLong(-1);
+    private final List<DspConsensusResult> publishedDspConsensusResults = Collections.synchronizedList(new ArrayList<>());
+    private DspVoteService dspVoteService;
+
+    @Before
+    public void setUp() {
+        INetworkService networkService = mock(INetworkService.class);
+        Map<Hash, NetworkNodeData> dspNodes = new HashMap<>();
+        dspNodes.put(VOTER_DSP_HASH, new NetworkNodeData(NodeType.DspNode, "1.0", "localhost", "8060", VOTER_DSP_HASH, NetworkType.TestNet));
+        when(networkService.getMapFromFactory(NodeType.DspNode)).thenReturn(dspNodes);
+        TransactionDspVoteCrypto transactionDspVoteCrypto = mock(TransactionDspVoteCrypto.class);
+        when(transactionDspVoteCrypto.verifySignature(any())).thenReturn(true);
+        TransactionIndexService transactionIndexService = mock(TransactionIndexService.class);
+        when(transactionIndexService.getLastTransactionIndexData()).thenAnswer(invocation -> new TransactionIndexData(null, lastIndex.get(), null));
+        when(transactionIndexService.insertNewTransactionIndex(any())).thenAnswer(invocation -> {
+            lastIndex.set(invocation.<TransactionData>getArgument(0).getDspConsensusResult().getIndex());
+            return Optional.of(Boolean.TRUE);
+        });
+        IPropagationPublisher propagationPublisher = mock(IPropagationPublisher.class);
+        doAnswer(invocation -> {
+            Thread.sleep(1);
+            publishedDspConsensusResults.add(invocation.getArgument(0));
+            return null;
+        }).when(propagationPublisher).propagate(any(DspConsensusResult.class), anyList());
+
+        dspVoteService = new DspVoteService();
+        ReflectionTestUtils.setField(dspVoteService, "networkService", networkService);
+        ReflectionTestUtils.setField(dspVoteService, "transactionDspVoteCrypto", transactionDspVoteCrypto);
+        ReflectionTestUtils.setField(dspVoteService, "transactionIndexService", transactionIndexService);
+        ReflectionTestUtils.setField(dspVoteService, "propagationPublisher", propagationPublisher);
+        ReflectionTestUtils.setField(dspVoteService, "dspConsensusCrypto", mock(DspConsensusCrypto.class));
+        ReflectionTestUtils.setField(dspVoteService, "confirmationService", mock(IConfirmationService.class));
+        ReflectionTestUtils.setField(dspVoteService, "transactionVotes", mock(TransactionVotes.class));
+        ReflectionTestUtils.setField(dspVoteService, "transactions", mock(Transactions.class));
+        dspVoteService.init();
+    }
+
+    @Test
+    public void shutdown_queuedConsensusResults_allPublishedInIndexOrder() {
+        List<Hash> transactionHashes = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_TRANSACTIONS; i++) {
+            TransactionData transactionData = new TransactionData(new ArrayList<>());
+            transactionData.setHash(new Hash(i));
+            transactionHashes.add(transactionData.getHash());
+            dspVoteService.preparePropagatedTransactionForVoting(transactionData);
+            TransactionDspVote transactionDspVote = new TransactionDspVote(transactionData.getHash(), true);
+            transactionDspVote.setVoterDspHash(VOTER_DSP_HASH);
+            dspVoteService.receiveDspVote(transactionDspVote);
+        }
+
+        dspVoteService.shutdown();
+
+        Assert.assertEquals(NUMBER_OF_TRANSACTIONS, publishedDspConsensusResults.size());
+        for (int i = 0; i < NUMBER_OF_TRANSACTIONS; i++) {
+            Assert.assertEquals(transactionHashes.get(i), publishedDspConsensusResults.get(i).getHash());
+            Assert.assertEquals(i, publishedDspConsensusResults.get(i).getIndex());
+        }
+    }
+
+    @Test(expected = DspVoteException.class)
+    public void setIndexForDspResult_afterShutdown_rejected() {
+        dspVoteService.shutdown();
+
+        TransactionData transactionData = new TransactionData(new ArrayList<>());
+        transactionData.setHash(new Hash(0));
+        dspVoteService.setIndexForDspResult(transactionData, new DspConsensusResult(transactionData.getHash()));
+    }
+}
@@ -0,0 +1,47 @@
+package io.coti.zerospend.services;
+
+import io.coti.basenode.communication.interfaces.IPropagationPublisher;
+import io.coti.basenode.communication.interfaces.IPropagationSubscriber;
+import io.coti.basenode.communication.interfaces.IReceiver;
+import io.coti.basenode.communication.interfaces.ISender;
+import io.coti.basenode.database.interfaces.IDatabaseConnector;
+import io.coti.basenode.services.interfaces.IConfirmationService;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+public class ShutDownServiceTest {
+
+    @Test
+    public void shutDownServices_dspVoteService_shutDownBeforePublisherAndSender() {
+        IReceiver receiver = mock(IReceiver.class);
+        IPropagationSubscriber propagationSubscriber = mock(IPropagationSubscriber.class);
+        DspVoteService dspVoteService = mock(DspVoteService.class);
+        IPropagationPublisher propagationPublisher = mock(IPropagationPublisher.class);
+        ISender sender = mock(ISender.class);
+        IConfirmationService confirmationService = mock(IConfirmationService.class);
+        IDatabaseConnector databaseConnector = mock(IDatabaseConnector.class);
+        ShutDownService shutDownService = new ShutDownService();
+        ReflectionTestUtils.setField(shutDownService, "receiver", receiver);
+        ReflectionTestUtils.setField(shutDownService, "propagationSubscriber", propagationSubscriber);
+        ReflectionTestUtils.setField(shutDownService, "dspVoteService", dspVoteService);
+        ReflectionTestUtils.setField(shutDownService, "propagationPublisher", propagationPublisher);
+        ReflectionTestUtils.setField(shutDownService, "sender", sender);
+        ReflectionTestUtils.setField(shutDownService, "confirmationService", confirmationService);
+        ReflectionTestUtils.setField(shutDownService, "databaseConnector", databaseConnector);
+
+        shutDownService.shutDownServices();
+
+        InOrder shutDownOrder = inOrder(receiver, propagationSubscriber, dspVoteService, propagationPublisher, sender, confirmationService, databaseConnector);
+        shutDownOrder.verify(receiver).shutdown();
+        shutDownOrder.verify(propagationSubscriber).shutdown();
+        shutDownOrder.verify(dspVoteService).shutdown();
+        shutDownOrder.verify(propagationPublisher).shutdown();
+        shutDownOrder.verify(sender).shutdown();
+        shutDownOrder.verify(confirmationService).shutdown();
+        shutDownOrder.verify(databaseConnector).shutdown();
+    }
+}
@@ -0,0 +1,205 @@
+package io.coti.zerospend.services;
+
+import io.coti.basenode.data.Hash;
+import io.coti.basenode.data.TransactionData;
+import io.coti.basenode.data.TransactionType;
+import io.coti.zerospend.data.ClusterSnapshotData;
+import io.coti.zerospend.data.RootSourcePairData;
+import io.coti.zerospend.data.SourceStarvationAnalysisData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.*;
+
+@Slf4j
+public class SourceStarvationAnalyzerTest {
+
+    private static final int BENCHMARK_CLUSTER_SIZE = 200000;
+    private static final int LEGACY_CLUSTER_SIZE = 25000;
+    private static final int PARENT_WINDOW = 64;
+    private final SourceStarvationAnalyzer sourceStarvationAnalyzer = new SourceStarvationAnalyzer();
+
+    @Test
+    public void analyze_syntheticCluster_sameResultAsLegacyPairing() {
+        List<TransactionData> cluster = createSyntheticCluster(LEGACY_CLUSTER_SIZE);
+        ClusterSnapshotData clusterSnapshotData = new ClusterSnapshotData(cluster);
+        Map<Hash, TransactionData> transactionMap = toMap(cluster);
+        LinkedList<TransactionData> topologicalOrderedGraph = legacySortByTopologicalOrder(cluster, transactionMap);
+        List<TransactionData> parentsFirstGraph = new ArrayList<>(topologicalOrderedGraph);
+        Collections.reverse(parentsFirstGraph);
+        int[] legacyTopologicalOrder = parentsFirstGraph.stream().mapToInt(transactionData -> clusterSnapshotData.getIndex(transactionData.getHash())).toArray();
+
+        long startTime = System.nanoTime();
+        SourceStarvationAnalysisData sourceStarvationAnalysisData = sourceStarvationAnalyzer.analyze(clusterSnapshotData, legacyTopologicalOrder);
+        long analyzerNanos = System.nanoTime() - startTime;
+
+        Map<TransactionData, TransactionData> legacyRootSourcePairs = new HashMap<>();
+        List<TransactionData> legacyOrphanedStarvationSources = new ArrayList<>();
+        startTime = System.nanoTime();
+        legacyPairSourcesWithRoots(topologicalOrderedGraph, transactionMap, legacyRootSourcePairs, legacyOrphanedStarvationSources);
+        long legacyNanos = System.nanoTime() - startTime;
+
+        Map<TransactionData, TransactionData> rootSourcePairs = new HashMap<>();
+        for (RootSourcePairData rootSourcePair : sourceStarvationAnalysisData.getRootSourcePairs()) {
+            rootSourcePairs.put(rootSourcePair.getRootTransactionData(), rootSourcePair.getSourceTransactionData());
+        }
+        Assert.assertFalse(rootSourcePairs.isEmpty());
+        Assert.assertEquals(legacyRootSourcePairs, rootSourcePairs);
+        Assert.assertEquals(legacyOrphanedStarvationSources, sourceStarvationAnalysisData.getOrphanedStarvationSources());
+        log.info("Pairing {} transactions: analyzer {} ms, legacy {} ms", LEGACY_CLUSTER_SIZE, analyzerNanos / 1000000, legacyNanos / 1000000);
+    }
+
+    @Test
+    public void sortByTopologicalOrder_syntheticCluster_parentsBeforeChildren() {
+        List<TransactionData> cluster = createSyntheticCluster(LEGACY_CLUSTER_SIZE);
+        Collections.shuffle(cluster, new Random(LEGACY_CLUSTER_SIZE));
+        ClusterSnapshotData clusterSnapshotData = new ClusterSnapshotData(cluster);
+
+        int[] topologicalOrder = sourceStarvationAnalyzer.sortByTopologicalOrder(clusterSnapshotData);
+
+        Map<Hash, Integer> hashToPositionMap = new HashMap<>();
+        for (int position = 0; position < topologicalOrder.length; position++) {
+            hashToPositionMap.put(clusterSnapshotData.getTransactionData(topologicalOrder[position]).getHash(), position);
+        }
+        Assert.assertEquals(cluster.size(), hashToPositionMap.size());
+        for (TransactionData transactionData : cluster) {
+            for (Hash childHash : transactionData.getChildrenTransactionHashes()) {
+                Assert.assertTrue(hashToPositionMap.get(transactionData.getHash()) < hashToPositionMap.get(childHash));
+            }
+        }
+    }
+
+    @Test
+    public void analyze_benchmarkCluster() {
+        Assume.assumeTrue("Run with -Dstarvation.benchmark=true", Boolean.getBoolean("starvation.benchmark"));
+        List<TransactionData> cluster = createSyntheticCluster(BENCHMARK_CLUSTER_SIZE);
+        Map<Hash, TransactionData> transactionMap = toMap(cluster);
+
+        long startTime = System.nanoTime();
+        SourceStarvationAnalysisData sourceStarvationAnalysisData = sourceStarvationAnalyzer.analyze(new ClusterSnapshotData(cluster));
+        long analyzerNanos = System.nanoTime() - startTime;
+
+        LinkedList<TransactionData> topologicalOrderedGraph = new LinkedList<>(cluster);
+        startTime = System.nanoTime();
+        int sampleStep = BENCHMARK_CLUSTER_SIZE / LEGACY_CLUSTER_SIZE;
+        for (int i = topologicalOrderedGraph.size() - 1; i >= 0; i -= sampleStep) {
+            legacyFindMajorChild(topologicalOrderedGraph.get(i), transactionMap);
+        }
+        long legacyNanos = (System.nanoTime() - startTime) * sampleStep;
+
+        Assert.assertFalse(sourceStarvationAnalysisData.getRootSourcePairs().isEmpty());
+        log.info("Analyzing {} transactions: analyzer {} ms including snapshot, legacy pairing loop about {} ms (extrapolated from {} sampled transactions)",
+                BENCHMARK_CLUSTER_SIZE, analyzerNanos / 1000000, legacyNanos / 1000000, LEGACY_CLUSTER_SIZE);
+    }
+
+    private List<TransactionData> createSyntheticCluster(int size) {
+        Random random = new Random(size);
+        Instant attachmentTime = Instant.now().minusSeconds(size);
+        List<TransactionData> cluster = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            TransactionType type = random.nextInt(50) == 0 ? TransactionType.ZeroSpend : TransactionType.Payment;
+            TransactionData transactionData = new TransactionData(new ArrayList<>(), new Hash(i), "", random.nextInt(100), Instant.now(), type);
+            transactionData.setAttachmentTime(attachmentTime.plusMillis(random.nextInt(2000) + 1000L * i));
+            transactionData.setTrustChainTrustScore(random.nextInt(10) == 0 ? 0 : random.nextDouble() * 1000);
+            if (i > 0) {
+                addParent(cluster, transactionData, Math.max(0, i - 1 - random.nextInt(PARENT_WINDOW)));
+                if (random.nextBoolean()) {
+                    addParent(cluster, transactionData, Math.max(0, i - 1 - random.nextInt(PARENT_WINDOW)));
+                }
+            }
+            cluster.add(transactionData);
+        }
+        return cluster;
+    }
+
+    private void addParent(List<TransactionData> cluster, TransactionData transactionData, int parentIndex) {
+        TransactionData parentTransactionData = cluster.get(parentIndex);
+        if (!parentTransactionData.getChildrenTransactionHashes().contains(transactionData.getHash())) {
+            parentTransactionData.addToChildrenTransactions(transactionData.getHash());
+        }
+    }
+
+    private Map<Hash, TransactionData> toMap(List<TransactionData> cluster) {
+        Map<Hash, TransactionData> transactionMap = new HashMap<>();
+        cluster.forEach(transactionData -> transactionMap.put(transactionData.getHash(), transactionData));
+        return transactionMap;
+    }
+
+    /**
+     * Sorts the cluster the way the cluster helper does, by departure order of a depth first search, started from the
+     * transactions in random order so that the order is unrelated to the analyzer's own sort. The search keeps its own
+     * stack, since the recursive one of the cluster helper overflows on long chains.
+     */
+    private LinkedList<TransactionData> legacySortByTopologicalOrder(List<TransactionData> cluster, Map<Hash, TransactionData> transactionMap) {
+        List<TransactionData> startTransactions = new ArrayList<>(cluster);
+        Collections.shuffle(startTransactions, new Random(cluster.size()));
+        LinkedList<TransactionData> topologicalOrderedGraph = new LinkedList<>();
+        Set<Hash> visitedTransactionHashes = new HashSet<>();
+        Deque<TransactionData> transactionStack = new ArrayDeque<>();
+        Deque<Iterator<Hash>> childIteratorStack = new ArrayDeque<>();
+        for (TransactionData startTransaction : startTransactions) {
+            if (!visitedTransactionHashes.add(startTransaction.getHash())) {
+                continue;
+            }
+            transactionStack.push(startTransaction);
+            childIteratorStack.push(startTransaction.getChildrenTransactionHashes().iterator());
+            while (!transactionStack.isEmpty()) {
+                Iterator<Hash> childIterator = childIteratorStack.peek();
+                if (childIterator.hasNext()) {
+                    TransactionData childTransactionData = transactionMap.get(childIterator.next());
+                    if (childTransactionData != null && visitedTransactionHashes.add(childTransactionData.getHash())) {
+                        transactionStack.push(childTransactionData);
+                        childIteratorStack.push(childTransactionData.getChildrenTransactionHashes().iterator());
+                    }
+                } else {
+                    childIteratorStack.pop();
+                    topologicalOrderedGraph.addLast(transactionStack.pop());
+                }
+            }
+        }
+        return topologicalOrderedGraph;
+    }
+
+    private void legacyPairSourcesWithRoots(LinkedList<TransactionData> topologicalOrderedGraph, Map<Hash, TransactionData> transactionMap,
+                                            Map<TransactionData, TransactionData> rootSourcePairs, List<TransactionData> orphanedStarvationSources) {
+        Map<Hash, TransactionData> vertexMap = new HashMap<>();
+        for (int i = topologicalOrderedGraph.size() - 1; i >= 0; i--) {
+            TransactionData parentTransactionData = topologicalOrderedGraph.get(i);
+            TransactionData majorChild = legacyFindMajorChild(parentTransactionData, transactionMap);
+            if (majorChild != null) {
+                TransactionData root = null;
+                if (!TransactionType.ZeroSpend.equals(parentTransactionData.getType())) {
+                    root = vertexMap.getOrDefault(parentTransactionData.getHash(), parentTransactionData);
+                } else if (vertexMap.containsKey(parentTransactionData.getHash())) {
+                    root = vertexMap.get(parentTransactionData.getHash());
+                }
+                TransactionData existingRoot = vertexMap.get(majorChild.getHash());
+                if (root != null && (existingRoot == null || parentTransactionData.getAttachmentTime().isBefore(existingRoot.getAttachmentTime()))) {
+                    vertexMap.put(majorChild.getHash(), root);
+                }
+            } else if (vertexMap.get(parentTransactionData.getHash()) != null) {
+                rootSourcePairs.put(vertexMap.get(parentTransactionData.getHash()), parentTransactionData);
+            } else if (!parentTransactionData.getType().equals(TransactionType.ZeroSpend)) {
+                rootSourcePairs.put(parentTransactionData, parentTransactionData);
+            } else {
+                orphanedStarvationSources.add(parentTransactionData);
+            }
+        }
+    }
+
+    private TransactionData legacyFindMajorChild(TransactionData parentTransactionData, Map<Hash, TransactionData> transactionMap) {
+        double maxTrustChainTrustScore = 0;
+        TransactionData majorChild = null;
+        for (Hash child : parentTransactionData.getChildrenTransactionHashes()) {
+            TransactionData childTransactionData = transactionMap.get(child);
+            if (childTransactionData.getTrustChainTrustScore() > maxTrustChainTrustScore) {
+                maxTrustChainTrustScore = childTransactionData.getTrustChainTrustScore();
+                majorChild = childTransactionData;
+            }
+        }
+        return majorChild;
+    }
+}